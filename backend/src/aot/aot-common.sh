@@ -0,0 +1,57 @@
+#!/bin/bash
+
+# Shared helpers for the AOT cache scripts (bash 3.2 compatible for macOS)
+
+# Current time in milliseconds (BSD date has no %N)
+now_millis() {
+    local ns
+    ns=$(date +%s%N)
+    if [[ "$ns" =~ ^[0-9]+$ ]]; then
+        echo $((ns / 1000000))
+    else
+        perl -MTime::HiRes=time -e 'printf "%d\n", time * 1000'
+    fi
+}
+
+# Wait until the application answers on the health endpoint.
+# Prints the elapsed milliseconds since the given start timestamp (ms).
+wait_for_first_response() {
+    local base_url="$1"
+    local started_ms="$2"
+    local pid="$3"
+    local timeout_s="${4:-60}"
+    local deadline=$((SECONDS + timeout_s))
+
+    until curl -fsS -o /dev/null "${base_url}/api/v1/health" 2>/dev/null; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "❌ Application exited before answering" >&2
+            return 1
+        fi
+        if ((SECONDS > deadline)); then
+            echo "❌ Application did not answer within ${timeout_s}s" >&2
+            return 1
+        fi
+        sleep 0.005
+    done
+    echo $(($(now_millis) - started_ms))
+}
+
+# CPU time (user + system) consumed by a process, in milliseconds
+process_cpu_millis() {
+    local pid="$1"
+    if [[ -r "/proc/${pid}/stat" ]]; then
+        local ticks
+        ticks=$(awk '{print $14 + $15}' "/proc/${pid}/stat")
+        echo $((ticks * 1000 / $(getconf CLK_TCK)))
+    else
+        # macOS: [[dd-]hh:]mm:ss.ss
+        ps -o time= -p "$pid" | awk -F'[:-]' '{ s = 0; for (i = 1; i <= NF; i++) s = s * 60 + $i; printf "%d\n", s * 1000 }'
+    fi
+}
+
+# Stop the application gracefully so that the JVM runs its exit hooks
+stop_application() {
+    local pid="$1"
+    kill -TERM "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+}
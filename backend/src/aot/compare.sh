@@ -0,0 +1,93 @@
+#!/bin/bash
+
+# ABService AOT cache comparison
+# Starts the runner jar repeatedly with and without the AOT cache and records
+# time-to-first-response and the CPU time used until the warm-up workload
+# finishes. Writes a Markdown report.
+#
+# Usage: compare.sh <java> <app-home> <report> [runs] [port]
+
+set -euo pipefail
+
+JAVA_BIN="${1:?java executable is required}"
+APP_HOME="${2:?application directory is required}"
+REPORT="${3:?report path is required}"
+RUNS="${4:-5}"
+PORT="${5:-18080}"
+WARMUP_ITERATIONS="${AOT_WARMUP_ITERATIONS:-50}"
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+
+source "${SCRIPT_DIR}/aot-common.sh"
+
+if [[ ! -s "${APP_HOME}/app.aot" ]]; then
+    echo "❌ AOT cache not found: ${APP_HOME}/app.aot" >&2
+    exit 1
+fi
+mkdir -p "$(dirname "$REPORT")"
+REPORT="$(cd "$(dirname "$REPORT")" && pwd)/$(basename "$REPORT")"
+cd "$APP_HOME"
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { if (NR % 2) print v[(NR + 1) / 2]; else print int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+# Prints "<time-to-first-response-ms> <warm-up-cpu-ms>"
+measure() {
+    local started_ms pid ttfr cpu
+    started_ms=$(now_millis)
+    "$JAVA_BIN" "$@" -Dquarkus.http.port="$PORT" -jar app-runner.jar >/dev/null 2>&1 &
+    pid=$!
+    ttfr=$(wait_for_first_response "http://localhost:${PORT}" "$started_ms" "$pid")
+    "${SCRIPT_DIR}/training-workload.sh" "http://localhost:${PORT}" "$WARMUP_ITERATIONS"
+    cpu=$(process_cpu_millis "$pid")
+    stop_application "$pid"
+    echo "$ttfr $cpu"
+}
+
+for mode in baseline aot; do
+    ttfr_samples=()
+    cpu_samples=()
+    for ((run = 1; run <= RUNS; run++)); do
+        if [[ "$mode" == aot ]]; then
+            read -r ttfr cpu < <(measure -XX:AOTCache=app.aot)
+        else
+            read -r ttfr cpu < <(measure)
+        fi
+        echo "⏱️  ${mode} run ${run}/${RUNS}: first response ${ttfr}ms, warm-up CPU ${cpu}ms"
+        ttfr_samples+=("$ttfr")
+        cpu_samples+=("$cpu")
+    done
+    ttfr_median=$(printf '%s\n' "${ttfr_samples[@]}" | median)
+    cpu_median=$(printf '%s\n' "${cpu_samples[@]}" | median)
+    if [[ "$mode" == aot ]]; then
+        TTFR_aot=$ttfr_median
+        CPU_aot=$cpu_median
+    else
+        TTFR_baseline=$ttfr_median
+        CPU_baseline=$cpu_median
+    fi
+done
+
+percent() {
+    awk -v base="$1" -v value="$2" 'BEGIN { if (base > 0) printf "%+.1f%%", (value - base) * 100 / base; else print "n/a" }'
+}
+
+cat > "$REPORT" <<REPORT
+# AOT cache startup comparison
+
+- JDK: $("$JAVA_BIN" -version 2>&1 | head -1)
+- Runner jar: app-runner.jar ($(du -h app-runner.jar | cut -f1))
+- AOT cache: app.aot ($(du -h app.aot | cut -f1))
+- Runs per mode: ${RUNS} (median reported)
+- Warm-up workload: ${WARMUP_ITERATIONS} iterations of training-workload.sh
+- Host: $(uname -sm), $(getconf _NPROCESSORS_ONLN 2>/dev/null || sysctl -n hw.ncpu) CPUs
+
+| Mode | Time to first response (ms) | CPU until warmed up (ms) |
+|------|-----------------------------|--------------------------|
+| JVM (no cache) | ${TTFR_baseline} | ${CPU_baseline} |
+| JVM + AOT cache | ${TTFR_aot} | ${CPU_aot} |
+| Change | $(percent "${TTFR_baseline}" "${TTFR_aot}") | $(percent "${CPU_baseline}" "${CPU_aot}") |
+REPORT
+
+echo "📊 Report written: $REPORT"
+cat "$REPORT"
@@ -0,0 +1,21 @@
+#!/bin/bash
+
+# ABService launcher
+# Uses the bundled AOT cache when present. The cache is only valid for the JDK
+# build and the exact app-runner.jar (including its modification time) it was
+# trained with; the JVM ignores a mismatched cache and starts normally.
+
+set -euo pipefail
+
+APP_HOME="$(cd "$(dirname "$0")" && pwd)"
+JAVA_BIN="${JAVA_HOME:+${JAVA_HOME}/bin/}java"
+AOT_OPTS=()
+
+# The class path must match the one recorded during training (see train.sh)
+cd "$APP_HOME"
+if [[ -f app.aot ]]; then
+    AOT_OPTS=(-XX:AOTCache=app.aot)
+fi
+
+# shellcheck disable=SC2086
+exec "$JAVA_BIN" ${AOT_OPTS[@]+"${AOT_OPTS[@]}"} ${JAVA_OPTS:-} -jar app-runner.jar "$@"
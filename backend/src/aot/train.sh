@@ -0,0 +1,43 @@
+#!/bin/bash
+
+# ABService AOT cache training
+# Starts app-runner.jar in the packaged application directory with
+# -XX:AOTCacheOutput (JEP 514), runs the training workload and stops the
+# application. The JVM writes app.aot next to the jar on exit.
+#
+# The jar is referenced by the same relative path that run.sh uses, so the
+# class path recorded in the cache matches wherever the directory is deployed.
+#
+# Usage: train.sh <java> <app-home> [port]
+
+set -euo pipefail
+
+JAVA_BIN="${1:?java executable is required}"
+APP_HOME="$(cd "${2:?application directory is required}" && pwd)"
+PORT="${3:-18080}"
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+AOT_CACHE="${APP_HOME}/app.aot"
+
+source "${SCRIPT_DIR}/aot-common.sh"
+
+rm -f "$AOT_CACHE"
+cd "$APP_HOME"
+
+echo "🏋️ Training AOT cache with $("$JAVA_BIN" -version 2>&1 | head -1)"
+started_ms=$(now_millis)
+"$JAVA_BIN" -XX:AOTCacheOutput=app.aot -Dquarkus.http.port="$PORT" -jar app-runner.jar &
+APP_PID=$!
+trap 'stop_application "$APP_PID"' EXIT
+
+first_response_ms=$(wait_for_first_response "http://localhost:${PORT}" "$started_ms" "$APP_PID")
+echo "✅ First response after ${first_response_ms}ms, running training workload..."
+"${SCRIPT_DIR}/training-workload.sh" "http://localhost:${PORT}" "${AOT_TRAINING_ITERATIONS:-200}"
+
+stop_application "$APP_PID"
+trap - EXIT
+
+if [[ ! -s "$AOT_CACHE" ]]; then
+    echo "❌ AOT cache was not written: $AOT_CACHE" >&2
+    exit 1
+fi
+echo "✅ AOT cache written: $AOT_CACHE ($(du -h "$AOT_CACHE" | cut -f1))"
@@ -0,0 +1,28 @@
+#!/bin/bash
+
+# ABService AOT training workload
+# Exercises the HTTP endpoints so that the classes and methods used while serving
+# requests are loaded, linked and profiled before the AOT cache is written.
+#
+# Usage: training-workload.sh <base-url> [iterations]
+
+set -euo pipefail
+
+BASE_URL="${1:?base url is required}"
+ITERATIONS="${2:-200}"
+
+# "<path> <media type>": the Accept header has to match the resource's @Produces,
+# otherwise the request ends in 406 and never reaches the resource method
+ENDPOINTS=(
+    "/api/v1/health application/json"
+    "/api/v1/circle-members application/json"
+    "/hello text/plain"
+)
+
+for ((i = 0; i < ITERATIONS; i++)); do
+    for entry in "${ENDPOINTS[@]}"; do
+        curl -fsS -o /dev/null -H "Accept: ${entry#* }" "${BASE_URL}${entry%% *}"
+    done
+    # Unknown routes exercise the 404 path as well
+    curl -sS -o /dev/null "${BASE_URL}/api/v1/unknown" || true
+done
@@ -1,42 +1,32 @@
 package com.abservice;
 
+import com.abservice.store.CircleMemberStore;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 @Path("/api/v1/circle-members")
 public class CircleMemberResource {
 
+    @Inject
+    CircleMemberStore store;
+
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     public Response getAllCircleMembers() {
-        // モックデータを返す
-        List<Map<String, Object>> members = new ArrayList<>();
-
-        Map<String, Object> member1 = new HashMap<>();
-        member1.put("id", 1L);
-        member1.put("username", "admin");
-        member1.put("displayName", "Administrator");
-        member1.put("email", "admin@abservice.com");
-        member1.put("bio", "System administrator");
-        member1.put("isActive", true);
-        members.add(member1);
-
-        Map<String, Object> member2 = new HashMap<>();
-        member2.put("id", 2L);
-        member2.put("username", "john_doe");
-        member2.put("displayName", "John Doe");
-        member2.put("email", "john.doe@example.com");
-        member2.put("bio", "Software developer");
-        member2.put("isActive", true);
-        members.add(member2);
+        return Response.ok(store.findAll()).build();
+    }
 
-        return Response.ok(members).build();
+    @GET
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCircleMember(@PathParam("id") long id) {
+        return store.findById(id)
+                .map(member -> Response.ok(member).build())
+                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
     }
 }
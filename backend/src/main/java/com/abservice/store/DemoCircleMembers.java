@@ -0,0 +1,30 @@
+package com.abservice.store;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * 起動時にデモ用のCircleMemberを登録する（RoleIDはbackup/backendの初期データのADMIN=1・USER=2に対応。V2_1でUUIDから採番し直した値）
+ */
+@ApplicationScoped
+public class DemoCircleMembers {
+
+    @Inject
+    CircleMemberStore store;
+
+    @ConfigProperty(name = "app.store.seed-demo-data", defaultValue = "true")
+    boolean enabled;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled || !store.findAll().isEmpty()) {
+            return;
+        }
+        store.insert(new CircleMemberRecord(null, "admin", "Administrator", "admin@abservice.com",
+                "System administrator", null, true, 1L, null, null, 0));
+        store.insert(new CircleMemberRecord(null, "john_doe", "John Doe", "john.doe@example.com",
+                "Software developer", null, true, 2L, null, null, 0));
+    }
+}
@@ -0,0 +1,229 @@
+package com.abservice.store;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * CircleMemberのインメモリリポジトリエンジン（データベースを使わないテスト・デモ・負荷試験用）
+ * 主キーはlong型のキーのマップ、ユーザー名・メールアドレス・RoleIDは二次インデックスで引く
+ * 書き込みは不変のスナップショットを複製して差し替える（コピーオンライト）ため、読み取りはロックを取らず、
+ * 1回の読み取りの間に他の書き込みが途中まで見えることもない。書き込みは件数に比例するため、読み取り中心の用途に向く
+ */
+@ApplicationScoped
+public class InMemoryCircleMemberStore implements CircleMemberStore {
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * 次に採番するID（書き込みはthisで直列化する）
+     */
+    private long nextId = 1;
+
+    @Override
+    public List<CircleMemberRecord> findAll() {
+        return snapshot.all;
+    }
+
+    @Override
+    public List<CircleMemberRecord> findActive() {
+        return snapshot.all.stream()
+                .filter(CircleMemberRecord::isActive)
+                .toList();
+    }
+
+    @Override
+    public Optional<CircleMemberRecord> findById(long id) {
+        return Optional.ofNullable(snapshot.byId.get(id));
+    }
+
+    @Override
+    public Optional<CircleMemberRecord> findByUsername(String username) {
+        return Optional.ofNullable(snapshot.byUsername.get(username));
+    }
+
+    @Override
+    public Optional<CircleMemberRecord> findByEmail(String email) {
+        return Optional.ofNullable(snapshot.byEmail.get(email));
+    }
+
+    @Override
+    public List<CircleMemberRecord> findByRoleId(long roleId) {
+        List<CircleMemberRecord> members = snapshot.byRole.get(roleId);
+        return members == null ? List.of() : members;
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        return snapshot.byUsername.containsKey(username);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return email != null && snapshot.byEmail.containsKey(email);
+    }
+
+    @Override
+    public synchronized CircleMemberRecord insert(CircleMemberRecord member) {
+        Snapshot current = snapshot;
+        checkUnique(current, member, null);
+        LocalDateTime now = LocalDateTime.now();
+        CircleMemberRecord stored = new CircleMemberRecord(nextId++, member.username(), member.displayName(),
+                member.email(), member.bio(), member.avatarUrl(), member.isActive(), member.roleId(), now, now, 0);
+        snapshot = current.replace(null, stored);
+        return stored;
+    }
+
+    @Override
+    public synchronized Optional<CircleMemberRecord> update(CircleMemberRecord member) {
+        Snapshot current = snapshot;
+        CircleMemberRecord existing = member.id() == null ? null : current.byId.get(member.id());
+        if (existing == null || existing.version() != member.version()) {
+            return Optional.empty();
+        }
+        checkUnique(current, member, existing);
+        CircleMemberRecord stored = new CircleMemberRecord(existing.id(), member.username(), member.displayName(),
+                member.email(), member.bio(), member.avatarUrl(), member.isActive(), member.roleId(),
+                existing.createdAt(), LocalDateTime.now(), existing.version() + 1);
+        snapshot = current.replace(existing, stored);
+        return Optional.of(stored);
+    }
+
+    @Override
+    public synchronized boolean deleteById(long id) {
+        Snapshot current = snapshot;
+        CircleMemberRecord existing = current.byId.get(id);
+        if (existing == null) {
+            return false;
+        }
+        snapshot = current.replace(existing, null);
+        return true;
+    }
+
+    /**
+     * データベースの一意制約と同じく、ユーザー名・メールアドレスの重複を拒否する
+     */
+    private static void checkUnique(Snapshot current, CircleMemberRecord member, CircleMemberRecord self) {
+        CircleMemberRecord sameUsername = current.byUsername.get(member.username());
+        if (sameUsername != null && sameUsername != self) {
+            throw new IllegalArgumentException("ユーザー名は既に使用されています: " + member.username());
+        }
+        CircleMemberRecord sameEmail = member.email() == null ? null : current.byEmail.get(member.email());
+        if (sameEmail != null && sameEmail != self) {
+            throw new IllegalArgumentException("メールアドレスは既に使用されています: " + member.email());
+        }
+    }
+
+    /**
+     * ある時点のすべてのデータとインデックス（公開後は変更しない）
+     */
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(List.of(), new LongObjectMap<>(), Map.of(), Map.of(),
+                new LongObjectMap<>());
+
+        /**
+         * ID順のすべてのCircleMember
+         */
+        final List<CircleMemberRecord> all;
+        final LongObjectMap<CircleMemberRecord> byId;
+        final Map<String, CircleMemberRecord> byUsername;
+        final Map<String, CircleMemberRecord> byEmail;
+        /**
+         * RoleIDごとのID順のCircleMember
+         */
+        final LongObjectMap<List<CircleMemberRecord>> byRole;
+
+        private Snapshot(List<CircleMemberRecord> all, LongObjectMap<CircleMemberRecord> byId,
+                         Map<String, CircleMemberRecord> byUsername, Map<String, CircleMemberRecord> byEmail,
+                         LongObjectMap<List<CircleMemberRecord>> byRole) {
+            this.all = all;
+            this.byId = byId;
+            this.byUsername = byUsername;
+            this.byEmail = byEmail;
+            this.byRole = byRole;
+        }
+
+        /**
+         * removedをaddedに置き換えたスナップショット（removedがnullの場合は追加、addedがnullの場合は削除）
+         */
+        Snapshot replace(CircleMemberRecord removed, CircleMemberRecord added) {
+            LongObjectMap<CircleMemberRecord> ids = byId.copy();
+            Map<String, CircleMemberRecord> usernames = new HashMap<>(byUsername);
+            Map<String, CircleMemberRecord> emails = new HashMap<>(byEmail);
+            if (removed != null) {
+                ids.remove(removed.id());
+                usernames.remove(removed.username());
+                if (removed.email() != null) {
+                    emails.remove(removed.email());
+                }
+            }
+            if (added != null) {
+                ids.put(added.id(), added);
+                usernames.put(added.username(), added);
+                if (added.email() != null) {
+                    emails.put(added.email(), added);
+                }
+            }
+
+            // Roleのインデックスは、変更前後のRoleの一覧のみを作り直す
+            LongObjectMap<List<CircleMemberRecord>> roles = byRole.copy();
+            Long removedRole = removed == null ? null : removed.roleId();
+            Long addedRole = added == null ? null : added.roleId();
+            if (removedRole != null) {
+                roles.put(removedRole, replaceSorted(byRole.get(removedRole), removed,
+                        Objects.equals(removedRole, addedRole) ? added : null));
+            }
+            if (addedRole != null && !Objects.equals(removedRole, addedRole)) {
+                roles.put(addedRole, replaceSorted(byRole.get(addedRole), null, added));
+            }
+            if (removedRole != null && roles.get(removedRole).isEmpty()) {
+                roles.remove(removedRole);
+            }
+
+            return new Snapshot(replaceSorted(all, removed, added), ids, Collections.unmodifiableMap(usernames),
+                    Collections.unmodifiableMap(emails), roles);
+        }
+
+        /**
+         * ID順の一覧のremovedをaddedに置き換えた新しい一覧（元の一覧は変更しない）
+         */
+        private static List<CircleMemberRecord> replaceSorted(List<CircleMemberRecord> members,
+                                                              CircleMemberRecord removed,
+                                                              CircleMemberRecord added) {
+            List<CircleMemberRecord> replaced = new ArrayList<>(members == null ? List.of() : members);
+            if (removed != null) {
+                replaced.remove(indexOf(replaced, removed.id()));
+            }
+            if (added != null) {
+                int index = indexOf(replaced, added.id());
+                replaced.add(index < 0 ? -index - 1 : index, added);
+            }
+            return List.copyOf(replaced);
+        }
+
+        private static int indexOf(List<CircleMemberRecord> members, long id) {
+            int low = 0;
+            int high = members.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midId = members.get(mid).id();
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+}
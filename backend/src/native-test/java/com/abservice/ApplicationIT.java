@@ -0,0 +1,45 @@
+package com.abservice;
+
+import io.quarkus.test.junit.QuarkusIntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * ビルド済みアプリケーション（ネイティブ実行ファイル）に対する統合テスト
+ * ./gradlew testNative で実行する
+ */
+@QuarkusIntegrationTest
+class ApplicationIT {
+
+    @Test
+    void testHealthEndpoint() {
+        given()
+                .when().get("/api/v1/health")
+                .then()
+                .statusCode(200)
+                .body("status", is("UP"))
+                .body("service", is("ABService Backend"));
+    }
+
+    @Test
+    void testCircleMembersEndpoint() {
+        given()
+                .when().get("/api/v1/circle-members")
+                .then()
+                .statusCode(200)
+                .body("size()", is(2))
+                .body("[0].username", equalTo("admin"));
+    }
+
+    @Test
+    void testHelloEndpoint() {
+        given()
+                .when().get("/hello")
+                .then()
+                .statusCode(200)
+                .body(is("Hello from ABService!"));
+    }
+}
@@ -0,0 +1,106 @@
+#!/bin/bash
+
+# ABService native vs JVM comparison
+# Starts the runner jar and the native executable repeatedly and records
+# time-to-first-response and resident set size (after the warm-up workload).
+# Writes a Markdown report.
+#
+# Usage: compare.sh <java> <runner-jar> <native-runner> <report> [runs] [port]
+
+set -euo pipefail
+
+JAVA_BIN="${1:?java executable is required}"
+RUNNER_JAR="${2:?runner jar is required}"
+NATIVE_RUNNER="${3:?native executable is required}"
+REPORT="${4:?report path is required}"
+RUNS="${5:-5}"
+PORT="${6:-18080}"
+WARMUP_ITERATIONS="${NATIVE_WARMUP_ITERATIONS:-50}"
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+
+source "${SCRIPT_DIR}/../aot/aot-common.sh"
+
+for artifact in "$RUNNER_JAR" "$NATIVE_RUNNER"; do
+    if [[ ! -e "$artifact" ]]; then
+        echo "❌ Not found: $artifact (build both with ./gradlew build and ./gradlew build -Dquarkus.native.enabled=true)" >&2
+        exit 1
+    fi
+done
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { if (NR % 2) print v[(NR + 1) / 2]; else print int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+# Resident set size of a process, in KiB
+process_rss_kib() {
+    ps -o rss= -p "$1" | tr -d ' '
+}
+
+# Prints "<time-to-first-response-ms> <startup-rss-kib> <warm-rss-kib>"
+measure() {
+    local started_ms pid ttfr startup_rss warm_rss
+    started_ms=$(now_millis)
+    # An environment variable rather than -D: after "-jar app.jar" a -D option is
+    # passed to the application as an argument and the JVM would keep port 8080
+    QUARKUS_HTTP_PORT="$PORT" "$@" >/dev/null 2>&1 &
+    pid=$!
+    ttfr=$(wait_for_first_response "http://localhost:${PORT}" "$started_ms" "$pid")
+    startup_rss=$(process_rss_kib "$pid")
+    "${SCRIPT_DIR}/../aot/training-workload.sh" "http://localhost:${PORT}" "$WARMUP_ITERATIONS"
+    warm_rss=$(process_rss_kib "$pid")
+    stop_application "$pid"
+    echo "$ttfr $startup_rss $warm_rss"
+}
+
+for mode in jvm native; do
+    ttfr_samples=()
+    startup_rss_samples=()
+    warm_rss_samples=()
+    for ((run = 1; run <= RUNS; run++)); do
+        if [[ "$mode" == native ]]; then
+            read -r ttfr startup_rss warm_rss < <(measure "$NATIVE_RUNNER")
+        else
+            read -r ttfr startup_rss warm_rss < <(measure "$JAVA_BIN" -jar "$RUNNER_JAR")
+        fi
+        echo "⏱️  ${mode} run ${run}/${RUNS}: first response ${ttfr}ms, RSS ${startup_rss}KiB -> ${warm_rss}KiB"
+        ttfr_samples+=("$ttfr")
+        startup_rss_samples+=("$startup_rss")
+        warm_rss_samples+=("$warm_rss")
+    done
+    ttfr_median=$(printf '%s\n' "${ttfr_samples[@]}" | median)
+    startup_rss_median=$(printf '%s\n' "${startup_rss_samples[@]}" | median)
+    warm_rss_median=$(printf '%s\n' "${warm_rss_samples[@]}" | median)
+    if [[ "$mode" == native ]]; then
+        TTFR_native=$ttfr_median
+        STARTUP_RSS_native=$startup_rss_median
+        WARM_RSS_native=$warm_rss_median
+    else
+        TTFR_jvm=$ttfr_median
+        STARTUP_RSS_jvm=$startup_rss_median
+        WARM_RSS_jvm=$warm_rss_median
+    fi
+done
+
+mib() {
+    awk -v kib="$1" 'BEGIN { printf "%.1f", kib / 1024 }'
+}
+
+mkdir -p "$(dirname "$REPORT")"
+cat > "$REPORT" <<REPORT
+# Native vs JVM startup comparison
+
+- JDK: $("$JAVA_BIN" -version 2>&1 | head -1)
+- Runner jar: $(basename "$RUNNER_JAR") ($(du -h "$RUNNER_JAR" | cut -f1))
+- Native executable: $(basename "$NATIVE_RUNNER") ($(du -h "$NATIVE_RUNNER" | cut -f1))
+- Runs per mode: ${RUNS} (median reported)
+- Warm-up workload: ${WARMUP_ITERATIONS} iterations of training-workload.sh
+- Host: $(uname -sm), $(getconf _NPROCESSORS_ONLN 2>/dev/null || sysctl -n hw.ncpu) CPUs
+
+| Mode | Time to first response (ms) | RSS at first response (MiB) | RSS after warm-up (MiB) |
+|------|-----------------------------|-----------------------------|-------------------------|
+| JVM | ${TTFR_jvm} | $(mib "$STARTUP_RSS_jvm") | $(mib "$WARM_RSS_jvm") |
+| Native | ${TTFR_native} | $(mib "$STARTUP_RSS_native") | $(mib "$WARM_RSS_native") |
+REPORT
+
+echo "📊 Report written: $REPORT"
+cat "$REPORT"
@@ -0,0 +1,112 @@
+package com.abservice.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * InMemoryCircleMemberStoreの単体テスト
+ * スナップショットの分離、二次インデックスの更新、一意制約、楽観的ロックを検証する
+ */
+class InMemoryCircleMemberStoreTest {
+
+    private InMemoryCircleMemberStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryCircleMemberStore();
+    }
+
+    @Test
+    void testInsertAssignsIdAndVersion() {
+        CircleMemberRecord stored = store.insert(member("alice", "alice@example.com", 1L, true));
+
+        assertThat(stored.id()).isEqualTo(1L);
+        assertThat(stored.version()).isZero();
+        assertThat(stored.createdAt()).isNotNull();
+        assertThat(store.findById(1)).contains(stored);
+        assertThat(store.insert(member("bob", null, 2L, true)).id()).isEqualTo(2L);
+    }
+
+    @Test
+    void testReadsAreIsolatedFromLaterWrites() {
+        CircleMemberRecord alice = store.insert(member("alice", "alice@example.com", 1L, true));
+        List<CircleMemberRecord> all = store.findAll();
+        List<CircleMemberRecord> byRole = store.findByRoleId(1);
+
+        store.insert(member("bob", "bob@example.com", 1L, true));
+        store.deleteById(alice.id());
+
+        // 取得済みの一覧は、その後の書き込みの影響を受けない
+        assertThat(all).containsExactly(alice);
+        assertThat(byRole).containsExactly(alice);
+        assertThatThrownBy(() -> all.add(alice)).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(store.findAll()).extracting(CircleMemberRecord::username).containsExactly("bob");
+    }
+
+    @Test
+    void testIndexesFollowUpdatesAndDeletes() {
+        CircleMemberRecord alice = store.insert(member("alice", "alice@example.com", 1L, true));
+        CircleMemberRecord bob = store.insert(member("bob", "bob@example.com", 1L, false));
+
+        CircleMemberRecord renamed = store.update(new CircleMemberRecord(alice.id(), "alice2", "Alice",
+                "alice2@example.com", null, null, false, 2L, null, null, alice.version())).orElseThrow();
+
+        assertThat(store.findByUsername("alice")).isEmpty();
+        assertThat(store.findByUsername("alice2")).contains(renamed);
+        assertThat(store.findByEmail("alice@example.com")).isEmpty();
+        assertThat(store.findByEmail("alice2@example.com")).contains(renamed);
+        assertThat(store.findByRoleId(1)).containsExactly(bob);
+        assertThat(store.findByRoleId(2)).containsExactly(renamed);
+        assertThat(store.findActive()).isEmpty();
+        assertThat(store.findAll()).containsExactly(renamed, bob);
+
+        assertThat(store.deleteById(bob.id())).isTrue();
+        assertThat(store.deleteById(bob.id())).isFalse();
+        assertThat(store.findByRoleId(1)).isEmpty();
+        assertThat(store.existsByUsername("bob")).isFalse();
+        assertThat(store.existsByEmail("bob@example.com")).isFalse();
+    }
+
+    @Test
+    void testRejectsDuplicateUsernameAndEmail() {
+        CircleMemberRecord alice = store.insert(member("alice", "alice@example.com", 1L, true));
+        store.insert(member("bob", "bob@example.com", 1L, true));
+
+        assertThatThrownBy(() -> store.insert(member("alice", "other@example.com", 1L, true)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.insert(member("carol", "alice@example.com", 1L, true)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.update(new CircleMemberRecord(alice.id(), "bob", "Alice",
+                "alice@example.com", null, null, true, 1L, null, null, alice.version())))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // 自分自身のユーザー名・メールアドレスのままの更新は重複としない
+        assertThat(store.update(new CircleMemberRecord(alice.id(), "alice", "Alice Updated",
+                "alice@example.com", null, null, true, 1L, null, null, alice.version()))).isPresent();
+        assertThat(store.findAll()).hasSize(2);
+    }
+
+    @Test
+    void testUpdateWithStaleVersionIsRejected() {
+        CircleMemberRecord alice = store.insert(member("alice", "alice@example.com", 1L, true));
+        CircleMemberRecord updated = store.update(new CircleMemberRecord(alice.id(), "alice", "Alice v1",
+                "alice@example.com", null, null, true, 1L, null, null, alice.version())).orElseThrow();
+        assertThat(updated.version()).isEqualTo(alice.version() + 1);
+        assertThat(updated.createdAt()).isEqualTo(alice.createdAt());
+
+        assertThat(store.update(new CircleMemberRecord(alice.id(), "alice", "Alice stale",
+                "alice@example.com", null, null, true, 1L, null, null, alice.version()))).isEmpty();
+        assertThat(store.update(new CircleMemberRecord(99L, "ghost", "Ghost",
+                null, null, null, true, 1L, null, null, 0))).isEmpty();
+        assertThat(store.findById(alice.id())).contains(updated);
+    }
+
+    private static CircleMemberRecord member(String username, String email, Long roleId, boolean active) {
+        return new CircleMemberRecord(null, username, username, email, null, null, active, roleId, null, null, 0);
+    }
+}
@@ -0,0 +1,105 @@
+package com.abservice.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * LongObjectMapの単体テスト
+ * HashMapと同じ操作を行って結果を比較し、削除時の前詰めと配列末尾からの折り返しを検証する
+ */
+class LongObjectMapTest {
+
+    /**
+     * 初期容量（LongObjectMap.MIN_CAPACITY）のマスク
+     */
+    private static final int INITIAL_MASK = 15;
+
+    @Test
+    void testRandomOperationsMatchHashMap() {
+        Random random = new Random(42);
+        LongObjectMap<String> map = new LongObjectMap<>();
+        Map<Long, String> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            // キーの範囲を狭くして、衝突・削除後の再挿入・拡張をまんべんなく起こす
+            long key = 1 + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                String value = "v" + i;
+                assertThat(map.put(key, value)).isEqualTo(expected.put(key, value));
+            }
+            assertThat(map.size()).isEqualTo(expected.size());
+        }
+        for (long key = 1; key <= 2_000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.get(key));
+        }
+    }
+
+    @Test
+    void testRemoveShiftsBackCollidingEntriesAcrossWraparound() {
+        // 初期容量で最後のスロットを本来の位置とするキーは、配列の先頭へ折り返して並ぶ
+        List<Long> keys = keysWithHomeSlot(INITIAL_MASK, 4);
+        LongObjectMap<String> map = new LongObjectMap<>();
+        for (long key : keys) {
+            map.put(key, "v" + key);
+        }
+
+        // 探索列の先頭を削除しても、後続のエントリが前に詰められて引き続き見つかる
+        assertThat(map.remove(keys.get(0))).isEqualTo("v" + keys.get(0));
+        assertThat(map.get(keys.get(0))).isNull();
+        for (long key : keys.subList(1, keys.size())) {
+            assertThat(map.get(key)).isEqualTo("v" + key);
+        }
+
+        // 途中の削除と再挿入を繰り返しても探索列は途切れない
+        assertThat(map.remove(keys.get(2))).isEqualTo("v" + keys.get(2));
+        assertThat(map.put(keys.get(0), "again")).isNull();
+        assertThat(map.get(keys.get(0))).isEqualTo("again");
+        assertThat(map.get(keys.get(1))).isEqualTo("v" + keys.get(1));
+        assertThat(map.get(keys.get(3))).isEqualTo("v" + keys.get(3));
+        assertThat(map.size()).isEqualTo(3);
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        LongObjectMap<String> original = new LongObjectMap<>();
+        original.put(1, "a");
+        LongObjectMap<String> copy = original.copy();
+        copy.put(1, "b");
+        copy.put(2, "c");
+
+        assertThat(original.get(1)).isEqualTo("a");
+        assertThat(original.get(2)).isNull();
+        assertThat(original.size()).isEqualTo(1);
+        assertThat(copy.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testRejectsZeroKey() {
+        assertThatThrownBy(() -> new LongObjectMap<String>().put(0, "zero"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 本来の位置が指定したスロットになるキーを小さい順に集める（LongObjectMapと同じ混ぜ方で位置を求める）
+     */
+    private static List<Long> keysWithHomeSlot(int slot, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            if (((int) (h ^ (h >>> 32)) & INITIAL_MASK) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
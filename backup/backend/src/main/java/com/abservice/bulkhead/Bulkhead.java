@@ -0,0 +1,26 @@
+package com.abservice.bulkhead;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * メソッドを指定した区画（{@link Bulkheads}）の同時実行数の範囲で実行する
+ * 区画が埋まっている場合は待ち行列に空きがあれば一定時間待ち、実行できなければ
+ * {@link com.abservice.exception.BulkheadFullException}（503）を送出する
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+    /**
+     * 区画名（{@link Bulkheads#PUBLIC_READ}・{@link Bulkheads#ADMIN_WRITE}・{@link Bulkheads#BACKGROUND}）
+     */
+    @Nonbinding
+    String value() default "";
+}
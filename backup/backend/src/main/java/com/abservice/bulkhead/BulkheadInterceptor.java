@@ -0,0 +1,74 @@
+package com.abservice.bulkhead;
+
+import com.abservice.exception.BulkheadFullException;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link Bulkhead} を付与したメソッドを区画の実行枠を確保してから実行する
+ * トレース・プロファイリングより内側、キャッシュ・Idempotency-Keyより外側で実行し、区画で待った時間もスパンに含める
+ * 非同期の戻り値は完了時に実行枠を解放し、イベントループ上では待たずに判定する
+ */
+@Bulkhead
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION - 5)
+public class BulkheadInterceptor {
+
+    private final Map<Method, String> names = new ConcurrentHashMap<>();
+
+    @Inject
+    Bulkheads bulkheads;
+
+    @AroundInvoke
+    Object limit(InvocationContext context) throws Exception {
+        String name = names.computeIfAbsent(context.getMethod(), BulkheadInterceptor::compartmentName);
+        Compartment compartment = bulkheads.compartment(name);
+        if (compartment == null) {
+            return context.proceed();
+        }
+        boolean async = Uni.class.isAssignableFrom(context.getMethod().getReturnType());
+        if (!bulkheads.enter(compartment, !async && !Context.isOnEventLoopThread())) {
+            if (async) {
+                return Uni.createFrom().failure(new BulkheadFullException(name));
+            }
+            throw new BulkheadFullException(name);
+        }
+        if (!async) {
+            try {
+                return context.proceed();
+            } finally {
+                compartment.exit();
+            }
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                compartment.exit();
+            }
+        };
+        try {
+            return ((Uni<?>) context.proceed()).onTermination().invoke(release);
+        } catch (Exception e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    private static String compartmentName(Method method) {
+        Bulkhead binding = method.getAnnotation(Bulkhead.class);
+        if (binding == null) {
+            binding = method.getDeclaringClass().getAnnotation(Bulkhead.class);
+        }
+        return binding != null ? binding.value() : "";
+    }
+}
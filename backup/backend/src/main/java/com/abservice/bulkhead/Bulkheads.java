@@ -0,0 +1,200 @@
+package com.abservice.bulkhead;
+
+import com.abservice.config.BulkheadConfig;
+import com.abservice.tenant.Tenants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.Config;
+import org.jboss.logging.Logger;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 処理の種類ごとの区画（バルクヘッド）
+ * 公開の参照・管理者の更新・バックグラウンド処理のそれぞれに同時実行数・待ち行列の上限と専用のスレッドプールを持たせ、
+ * ある処理の飽和が他の処理の待ち時間やDB接続の枯渇につながらないようにする
+ * DB接続プールは区画ごとに分割できないため、区画の同時実行数をその区画が使う接続数の上限とし、
+ * 起動時に同じデータソースを使う区画の合計が接続プールの上限を超えていないかを確認する
+ */
+@ApplicationScoped
+public class Bulkheads {
+
+    private static final Logger LOG = Logger.getLogger(Bulkheads.class);
+
+    /** 公開の参照（メンバー・ロールのGET） */
+    public static final String PUBLIC_READ = "public-read";
+    /** 管理者の更新（メンバー・ロールの作成・更新・削除） */
+    public static final String ADMIN_WRITE = "admin-write";
+    /** バックグラウンド処理（アウトボックス配信・キャッシュ再構築・スナップショット・定期削除） */
+    public static final String BACKGROUND = "background";
+
+    private static final String DEFAULT_DATASOURCE = "<default>";
+    private static final int DEFAULT_POOL_MAX_SIZE = 20;
+
+    /**
+     * 区画とそのメトリクス
+     */
+    private record Registration(Compartment compartment, BulkheadConfig.Compartment settings,
+                                Counter rejected, Timer waits) {
+    }
+
+    @Inject
+    BulkheadConfig config;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    Config mpConfig;
+
+    private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+
+    private final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        config.compartments().forEach((name, settings) -> {
+            Compartment compartment = new Compartment(name, settings.maxConcurrent(), settings.queueSize(),
+                    settings.maxWait().toNanos());
+            Tags tags = Tags.of("bulkhead", name);
+            Gauge.builder("bulkhead.active", compartment, Compartment::active)
+                    .description("区画で実行中の処理数").tags(tags).register(meterRegistry);
+            Gauge.builder("bulkhead.waiting", compartment, Compartment::waiting)
+                    .description("区画の実行を待っている処理数").tags(tags).register(meterRegistry);
+            Gauge.builder("bulkhead.max.concurrent", compartment, Compartment::maxConcurrent)
+                    .description("区画の同時実行数の上限").tags(tags).register(meterRegistry);
+            Counter rejected = Counter.builder("bulkhead.rejected")
+                    .description("区画が埋まっていたため実行しなかった処理数").tags(tags).register(meterRegistry);
+            Timer waits = Timer.builder("bulkhead.wait")
+                    .description("区画の実行枠を確保するまでの待ち時間").tags(tags).register(meterRegistry);
+            registrations.put(name, new Registration(compartment, settings, rejected, waits));
+        });
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!config.enabled()) {
+            return;
+        }
+        Map<String, Integer> reserved = new TreeMap<>();
+        registrations.values().forEach(registration -> reserved.merge(
+                registration.settings().datasource(), registration.compartment().maxConcurrent(), Integer::sum));
+        reserved.forEach((datasource, total) -> {
+            int poolMaxSize = poolMaxSize(datasource);
+            if (total > poolMaxSize) {
+                LOG.warnf("区画の同時実行数の合計（%d）がデータソース %s の接続プールの上限（%d）を超えています。"
+                        + "区画どうしで接続を奪い合う可能性があります（app.bulkhead.compartments）", total, datasource, poolMaxSize);
+            }
+        });
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    /**
+     * 区画を取得（無効の場合はnull）
+     *
+     * @throws IllegalStateException 区画が設定されていない場合
+     */
+    Compartment compartment(String name) {
+        if (!config.enabled()) {
+            return null;
+        }
+        return registration(name).compartment();
+    }
+
+    /**
+     * 区画の実行枠を確保し、待ち時間・拒否をメトリクスに記録する
+     *
+     * @param mayWait 待ち行列で待てるか（イベントループ上ではfalse）
+     */
+    boolean enter(Compartment compartment, boolean mayWait) throws InterruptedException {
+        Registration registration = registration(compartment.name());
+        long startNanos = System.nanoTime();
+        boolean entered = mayWait ? compartment.enter() : compartment.tryEnter();
+        if (entered) {
+            registration.waits().record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        } else {
+            registration.rejected().increment();
+        }
+        return entered;
+    }
+
+    /**
+     * 区画専用のスレッドプール（無効の場合はデフォルトのワーカースレッドプール）
+     * スレッド数は区画の同時実行数、待ち行列は区画の待ち行列の長さで、埋まっている場合は
+     * {@link RejectedExecutionException} を送出する
+     * 処理は投入したスレッドのテナントとして実行する
+     */
+    public Executor executor(String name) {
+        if (!config.enabled()) {
+            Executor workers = Infrastructure.getDefaultWorkerPool();
+            return command -> workers.execute(withCurrentTenant(command));
+        }
+        return executors.computeIfAbsent(name, this::createExecutor);
+    }
+
+    private static Runnable withCurrentTenant(Runnable command) {
+        String tenant = Tenants.current();
+        return () -> Tenants.run(tenant, command);
+    }
+
+    private ThreadPoolExecutor createExecutor(String name) {
+        Registration registration = registration(name);
+        Compartment compartment = registration.compartment();
+        AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(compartment.maxConcurrent(), compartment.maxConcurrent(),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, compartment.queueSize())),
+                runnable -> Thread.ofPlatform().name("bulkhead-" + name + "-" + threads.incrementAndGet())
+                        .daemon().unstarted(runnable),
+                (runnable, pool) -> {
+                    registration.rejected().increment();
+                    throw new RejectedExecutionException("区画 " + name + " のスレッドプールが埋まっています");
+                }) {
+            @Override
+            public void execute(Runnable command) {
+                super.execute(withCurrentTenant(command));
+            }
+        };
+        executor.allowCoreThreadTimeOut(true);
+        new ExecutorServiceMetrics(executor, "bulkhead-" + name, Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+
+    private Registration registration(String name) {
+        Registration registration = registrations.get(name);
+        if (registration == null) {
+            throw new IllegalStateException("区画が設定されていません: app.bulkhead.compartments." + name);
+        }
+        return registration;
+    }
+
+    private int poolMaxSize(String datasource) {
+        if (DEFAULT_DATASOURCE.equals(datasource)) {
+            return mpConfig.getOptionalValue("quarkus.datasource.jdbc.max-size", Integer.class)
+                    .orElse(DEFAULT_POOL_MAX_SIZE);
+        }
+        return mpConfig.getOptionalValue("quarkus.datasource." + datasource + ".jdbc.max-size", Integer.class)
+                .or(() -> mpConfig.getOptionalValue("quarkus.datasource.\"" + datasource + "\".jdbc.max-size", Integer.class))
+                .orElse(DEFAULT_POOL_MAX_SIZE);
+    }
+}
@@ -0,0 +1,101 @@
+package com.abservice.bulkhead;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 同時実行数と待ち行列の長さを制限する区画
+ * 許可は到着順に割り当て、待ち行列が埋まっている場合や待ち時間の上限を超えた場合は実行しない
+ */
+public final class Compartment {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int queueSize;
+    private final long maxWaitNanos;
+
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * @param name          区画名
+     * @param maxConcurrent 同時に実行できる数（この区画が同時に使用するDB接続数の上限を兼ねる）
+     * @param queueSize     実行を待てる数
+     * @param maxWaitNanos  実行を待つ時間の上限
+     */
+    public Compartment(String name, int maxConcurrent, int queueSize, long maxWaitNanos) {
+        if (maxConcurrent < 1 || queueSize < 0 || maxWaitNanos < 0) {
+            throw new IllegalArgumentException("区画の設定が不正です: " + name + " max-concurrent=" + maxConcurrent
+                    + " queue-size=" + queueSize + " max-wait=" + maxWaitNanos + "ns");
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.queueSize = queueSize;
+        this.maxWaitNanos = maxWaitNanos;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * 待たずに実行枠を確保（イベントループ上の呼び出し用）
+     */
+    public boolean tryEnter() {
+        try {
+            // 引数なしの tryAcquire は待っているスレッドを追い越すため、待ち時間0で到着順を守る
+            return permits.tryAcquire(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 実行枠を確保（空きがなければ待ち行列に入り、上限時間まで待つ）
+     *
+     * @return 確保できた場合はtrue
+     */
+    public boolean enter() throws InterruptedException {
+        if (tryEnter()) {
+            return true;
+        }
+        if (waiting.incrementAndGet() > queueSize) {
+            waiting.decrementAndGet();
+            return false;
+        }
+        try {
+            return permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public void exit() {
+        permits.release();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int maxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int queueSize() {
+        return queueSize;
+    }
+
+    /**
+     * 実行中の数
+     */
+    public int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * 待っている数
+     */
+    public int waiting() {
+        return waiting.get();
+    }
+}
@@ -0,0 +1,170 @@
+package com.abservice.cache;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.abservice.bulkhead.Bulkheads;
+import com.abservice.event.EntityChangeEvent;
+import com.abservice.profiling.CacheLookupEvent;
+import com.abservice.service.CircleMemberServiceInterface;
+import com.abservice.tenant.Tenants;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.enterprise.inject.spi.ObserverMethod;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GET /api/v1/circle-members/active のレスポンスバイトキャッシュ
+ * シリアライズ済みJSONとgzip/brotli圧縮版を保持し、変更イベントを受けて非同期に再構築する
+ * ノード内の変更はコミット直後に、他ノードの変更は変更フィード受信時に通知される（ReadCacheと同じ経路）
+ * 保持するのは既定のテナントの応答のみ（他のテナントのリクエストはコントローラーがサービスから直接返す）
+ */
+@ApplicationScoped
+public class ActiveMembersResponseCache {
+
+    private static final Logger LOG = Logger.getLogger(ActiveMembersResponseCache.class);
+
+    private static final String CACHE_NAME = "active-members-response";
+
+    private static final int IDLE = 0;
+    private static final int REBUILDING = 1;
+    private static final int REBUILDING_DIRTY = 2;
+
+    @Inject
+    CircleMemberServiceInterface circleMemberService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Bulkheads bulkheads;
+
+    @ConfigProperty(name = "app.response-cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    private final boolean brotliAvailable = Brotli4jLoader.isAvailable();
+
+    private final AtomicInteger rebuildState = new AtomicInteger(IDLE);
+
+    private volatile EncodedResponse current;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!brotliAvailable) {
+            LOG.warn("brotli4jのネイティブライブラリを読み込めないため、brotli圧縮を無効化します");
+        }
+        requestRebuild();
+    }
+
+    /**
+     * 既定のテナントの変更がコミットされたら再構築を要求
+     * 変更フィードが無効な場合や、自ノードのNOTIFYが届く前でも、書き込んだノードのキャッシュは古くならない
+     * 再構築はサービスの読み取りキャッシュを経由するため、ReadCacheの破棄より後に通知を受ける
+     */
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) @Priority(ObserverMethod.DEFAULT_PRIORITY + 100)
+                  EntityChangeEvent change) {
+        if (enabled && (change.getTenant() == null || Tenants.DEFAULT.equals(change.getTenant()))) {
+            requestRebuild();
+        }
+    }
+
+    /**
+     * キャッシュ済みレスポンスを取得
+     * 未構築の場合はワーカースレッドで構築してから返す
+     */
+    public Uni<EncodedResponse> get() {
+        CacheLookupEvent event = new CacheLookupEvent();
+        event.begin();
+        EncodedResponse snapshot = current;
+        if (snapshot != null) {
+            commit(event, CacheLookupEvent.HIT);
+            return Uni.createFrom().item(snapshot);
+        }
+        return Uni.createFrom().item(this::rebuild)
+                .runSubscriptionOn(bulkheads.executor(Bulkheads.PUBLIC_READ))
+                .onTermination().invoke(() -> commit(event, CacheLookupEvent.MISS));
+    }
+
+    private static void commit(CacheLookupEvent event, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.cache = CACHE_NAME;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    /**
+     * 再構築を要求
+     * 再構築中の要求は1回にまとめ、完了後にもう一度だけ再構築する
+     */
+    void requestRebuild() {
+        while (true) {
+            int state = rebuildState.get();
+            if (state == REBUILDING_DIRTY) {
+                return;
+            }
+            int next = state == IDLE ? REBUILDING : REBUILDING_DIRTY;
+            if (rebuildState.compareAndSet(state, next)) {
+                if (state == IDLE) {
+                    startRebuildLoop();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * バックグラウンド処理用のスレッドプールで再構築を開始
+     * 埋まっている場合は現在のキャッシュを返し続け、次の変更通知で再度要求する
+     */
+    private void startRebuildLoop() {
+        try {
+            bulkheads.executor(Bulkheads.BACKGROUND).execute(this::rebuildLoop);
+        } catch (RejectedExecutionException e) {
+            rebuildState.set(IDLE);
+            LOG.warnf("アクティブメンバーのレスポンスキャッシュ再構築を開始できませんでした: %s", e.getMessage());
+        }
+    }
+
+    private void rebuildLoop() {
+        do {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                LOG.error("アクティブメンバーのレスポンスキャッシュ再構築に失敗しました", e);
+            }
+        } while (!rebuildState.compareAndSet(REBUILDING, IDLE)
+                && rebuildState.compareAndSet(REBUILDING_DIRTY, REBUILDING));
+    }
+
+    /**
+     * 最新のアクティブメンバーを取得してシリアライズ・圧縮する
+     */
+    @ActivateRequestContext
+    EncodedResponse rebuild() {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(circleMemberService.findActiveMembers());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("アクティブメンバーのシリアライズに失敗しました", e);
+        }
+        EncodedResponse rebuilt = EncodedResponse.of(json, brotliAvailable);
+        if (enabled) {
+            current = rebuilt;
+        }
+        return rebuilt;
+    }
+}
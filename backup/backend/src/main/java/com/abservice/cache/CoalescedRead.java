@@ -0,0 +1,32 @@
+package com.abservice.cache;
+
+import com.abservice.event.EntityChangeEvent.EntityType;
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 読み取りメソッドの同時呼び出しを1回のクエリにまとめ、期限切れの値を返しながらバックグラウンドで更新する
+ * TTLは app.read-cache.methods.&lt;value&gt; で設定する
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CoalescedRead {
+
+    /**
+     * キャッシュ名（設定キー）
+     */
+    @Nonbinding
+    String value() default "";
+
+    /**
+     * キャッシュを破棄する変更イベントのエンティティ種別
+     */
+    @Nonbinding
+    EntityType[] invalidatedBy() default {};
+}
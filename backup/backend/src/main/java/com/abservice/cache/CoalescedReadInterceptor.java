@@ -0,0 +1,57 @@
+package com.abservice.cache;
+
+import com.abservice.routing.ReadRoute;
+import com.abservice.tenant.Tenants;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * {@link CoalescedRead} を付与したメソッドの呼び出しを {@link ReadCache} 経由にする
+ * トランザクション内の呼び出しは未コミットの変更を読む必要があるため、常にメソッドを直接実行する
+ * キャッシュのキーは現在のテナントと引数の組とする
+ */
+@CoalescedRead
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class CoalescedReadInterceptor {
+
+    @Inject
+    ReadCache readCache;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @AroundInvoke
+    Object coalesce(InvocationContext context) throws Exception {
+        if (!readCache.isEnabled() || ReadCache.isBypassed()
+                || transactionRegistry.getTransactionStatus() != Status.STATUS_NO_TRANSACTION) {
+            return context.proceed();
+        }
+        Method method = context.getMethod();
+        CoalescedRead binding = method.getAnnotation(CoalescedRead.class);
+        if (binding == null || binding.value().isEmpty()) {
+            return context.proceed();
+        }
+
+        Object target = context.getTarget();
+        Object[] args = context.getParameters().clone();
+        // テナントごとに別のエントリとし、バックグラウンドの再取得も同じテナントとして実行する
+        String tenant = Tenants.current();
+        Object[] key = new Object[args.length + 1];
+        key[0] = tenant;
+        System.arraycopy(args, 0, key, 1, args.length);
+        // 取得結果は他のクライアントにも返すため、レプリカはノードが検知した最新の変更まで反映済みの場合のみ使う
+        return readCache.cache(binding.value(), binding.invalidatedBy())
+                .get(Arrays.asList(key), () -> ReadRoute.shared(context::proceed),
+                        () -> Tenants.call(tenant, () -> ReadRoute.shared(
+                                () -> ReadCache.invokeDetached(target, method, args))));
+    }
+}
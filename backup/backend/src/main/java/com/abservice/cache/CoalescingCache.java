@@ -0,0 +1,260 @@
+package com.abservice.cache;
+
+import com.abservice.profiling.CacheLookupEvent;
+import org.jboss.logging.Logger;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 同時取得をまとめるstale-while-revalidateキャッシュ
+ * 同じキーの取得中は後続の呼び出しが結果を待ち合わせ、ソフトTTLを過ぎた値は返しつつ1回だけバックグラウンドで更新する
+ * 値は呼び出し元間で共有されるため、呼び出し元は返された値を変更してはならない
+ * 該当なし（nullまたは空のOptional）の結果は、存在しないキーでキャッシュが埋まらないよう短い別のTTLで保持する
+ * 最大エントリ数に達した場合は、期限切れのエントリ、それでも空かなければ最も長く参照されていないエントリを破棄して保存する
+ */
+public final class CoalescingCache<K, V> {
+
+    private static final Logger LOG = Logger.getLogger(CoalescingCache.class);
+
+    /**
+     * 値の取得処理
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws Exception;
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long softExpiresAt;
+        final long hardExpiresAt;
+        final long generation;
+        /**
+         * 最後に参照された時刻（破棄する順序の判定のみに使うため、競合時の取りこぼしは許容する）
+         */
+        volatile long lastAccessedAt;
+
+        Entry(V value, long softExpiresAt, long hardExpiresAt, long generation, long now) {
+            this.value = value;
+            this.softExpiresAt = softExpiresAt;
+            this.hardExpiresAt = hardExpiresAt;
+            this.generation = generation;
+            this.lastAccessedAt = now;
+        }
+
+        boolean isLive(long currentGeneration, long now) {
+            return generation == currentGeneration && now < hardExpiresAt;
+        }
+    }
+
+    private final String name;
+    private final long softTtlMillis;
+    private final long hardTtlMillis;
+    private final long negativeTtlMillis;
+    private final int maxEntries;
+    private final LongSupplier clockMillis;
+    private final Executor refreshExecutor;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param name            ログ出力・JFRイベント用のキャッシュ名
+     * @param softTtlMillis   この時間を過ぎた値はバックグラウンドで更新する
+     * @param hardTtlMillis     この時間を過ぎた値は返さない
+     * @param negativeTtlMillis 該当なしの結果を返す時間（0の場合はキャッシュせず取得のみまとめる）
+     * @param maxEntries        最大エントリ数
+     * @param clockMillis       現在時刻（ミリ秒）の取得元
+     * @param refreshExecutor   バックグラウンド更新の実行先
+     */
+    public CoalescingCache(String name, long softTtlMillis, long hardTtlMillis, long negativeTtlMillis,
+                           int maxEntries, LongSupplier clockMillis, Executor refreshExecutor) {
+        if (softTtlMillis < 0 || hardTtlMillis < softTtlMillis) {
+            throw new IllegalArgumentException(
+                    "TTLは0 <= soft <= hard で指定してください: " + name + " soft=" + softTtlMillis + " hard=" + hardTtlMillis);
+        }
+        if (negativeTtlMillis < 0 || maxEntries < 1) {
+            throw new IllegalArgumentException(
+                    "negativeTtlは0以上、maxEntriesは1以上で指定してください: " + name + " negative=" + negativeTtlMillis
+                            + " maxEntries=" + maxEntries);
+        }
+        this.name = name;
+        this.softTtlMillis = softTtlMillis;
+        this.hardTtlMillis = hardTtlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.maxEntries = maxEntries;
+        this.clockMillis = clockMillis;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * 値を取得
+     *
+     * @param loader    値がない場合に呼び出し元スレッドで実行する取得処理
+     * @param refresher 期限切れの値を返した後にバックグラウンドで実行する取得処理
+     */
+    public V get(K key, Loader<V> loader, Loader<V> refresher) throws Exception {
+        CacheLookupEvent event = new CacheLookupEvent();
+        event.begin();
+        long now = clockMillis.getAsLong();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.isLive(generation.get(), now)) {
+            entry.lastAccessedAt = now;
+            if (now >= entry.softExpiresAt) {
+                refreshInBackground(key, refresher);
+                commit(event, CacheLookupEvent.STALE);
+            } else {
+                commit(event, CacheLookupEvent.HIT);
+            }
+            return entry.value;
+        }
+        try {
+            return loadCoalesced(key, loader);
+        } finally {
+            commit(event, CacheLookupEvent.MISS);
+        }
+    }
+
+    /**
+     * すべての値を破棄
+     * 破棄前に開始した取得の結果はキャッシュに保存されず、以降の呼び出しは新しい取得を待ち合わせる
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        inFlight.clear();
+        entries.clear();
+    }
+
+    /**
+     * 現在保持しているエントリ数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private V loadCoalesced(K key, Loader<V> loader) throws Exception {
+        long loadGeneration = generation.get();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V value = loader.load();
+            store(key, value, loadGeneration);
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private void refreshInBackground(K key, Loader<V> refresher) {
+        long loadGeneration = generation.get();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    V value = refresher.load();
+                    store(key, value, loadGeneration);
+                    future.complete(value);
+                } catch (Throwable e) {
+                    LOG.warnf(e, "読み取りキャッシュのバックグラウンド更新に失敗しました: cache=%s, key=%s", name, key);
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 更新できない場合はハードTTLまで現在の値を返し続ける
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private void store(K key, V value, long loadGeneration) {
+        if (loadGeneration != generation.get()) {
+            return;
+        }
+        long now = clockMillis.getAsLong();
+        Entry<V> entry;
+        if (isNegative(value)) {
+            if (negativeTtlMillis == 0) {
+                entries.remove(key);
+                return;
+            }
+            // 該当なしの結果は期限まで返し、期限後はバックグラウンド更新せず呼び出し元で再取得する
+            entry = new Entry<>(value, now + negativeTtlMillis, now + negativeTtlMillis, loadGeneration, now);
+        } else {
+            entry = new Entry<>(value, now + softTtlMillis, now + hardTtlMillis, loadGeneration, now);
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            evict(now);
+        }
+        entries.put(key, entry);
+    }
+
+    /**
+     * 期限切れ・破棄済みの世代のエントリを取り除き、それでも上限に達している場合は最も長く参照されていないエントリを取り除く
+     * 上限に達している間の保存ごとに全件を走査するため、上限は走査が取得処理より十分に軽い件数にする
+     */
+    private void evict(long now) {
+        long currentGeneration = generation.get();
+        K oldestKey = null;
+        Entry<V> oldest = null;
+        for (var candidate : entries.entrySet()) {
+            Entry<V> entry = candidate.getValue();
+            if (!entry.isLive(currentGeneration, now)) {
+                entries.remove(candidate.getKey(), entry);
+            } else if (oldest == null || entry.lastAccessedAt < oldest.lastAccessedAt) {
+                oldestKey = candidate.getKey();
+                oldest = entry;
+            }
+        }
+        if (entries.size() >= maxEntries && oldestKey != null) {
+            entries.remove(oldestKey, oldest);
+        }
+    }
+
+    private static boolean isNegative(Object value) {
+        return value == null || value instanceof Optional<?> optional && optional.isEmpty();
+    }
+
+    private void commit(CacheLookupEvent event, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.cache = name;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.abservice.cache;
+
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * シリアライズ済みレスポンスとその圧縮済みバリアント
+ * 各バッファは解放されないヒープバッファで、書き換えずに複数レスポンス間で共有する
+ */
+public final class EncodedResponse {
+
+    /**
+     * Content-Encodingごとのレスポンス本体
+     */
+    public record Variant(String contentEncoding, String etag, Buffer body) {}
+
+    private final Variant identity;
+
+    private final Variant gzip;
+
+    private final Variant brotli;
+
+    private EncodedResponse(Variant identity, Variant gzip, Variant brotli) {
+        this.identity = identity;
+        this.gzip = gzip;
+        this.brotli = brotli;
+    }
+
+    /**
+     * JSONバイト列から各エンコーディングのバリアントを生成
+     * brotliが利用できない環境ではbrotliバリアントを省略する
+     */
+    public static EncodedResponse of(byte[] json, boolean brotliAvailable) {
+        String tag = contentHash(json);
+        Variant identity = new Variant(null, "\"" + tag + "\"", readOnly(json));
+        Variant gzip = new Variant("gzip", "\"" + tag + "-gz\"", readOnly(gzip(json)));
+        Variant brotli = brotliAvailable
+                ? new Variant("br", "\"" + tag + "-br\"", readOnly(brotli(json)))
+                : null;
+        return new EncodedResponse(identity, gzip, brotli);
+    }
+
+    /**
+     * Accept-Encodingヘッダーから返却するバリアントを選択（br > gzip > identity）
+     */
+    public Variant select(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return identity;
+        }
+        String accepted = acceptEncoding.toLowerCase(Locale.ROOT);
+        if (brotli != null && accepts(accepted, "br")) {
+            return brotli;
+        }
+        if (accepts(accepted, "gzip")) {
+            return gzip;
+        }
+        return identity;
+    }
+
+    /**
+     * If-None-Matchヘッダーがいずれかのバリアントと一致するか
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String baseTag = identity.etag().substring(1, identity.etag().length() - 1);
+        return ifNoneMatch.contains(baseTag) || ifNoneMatch.trim().equals("*");
+    }
+
+    public Variant identity() {
+        return identity;
+    }
+
+    /**
+     * q=0で明示的に拒否されていないコーディングかを判定
+     */
+    private static boolean accepts(String acceptEncoding, String coding) {
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            if (!parts[0].trim().equals(coding)) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 構築時に1度だけコピーする（書き込み時はVert.xが解放不可のスライスを渡すため、同じバッファを何度でも送信できる）
+     */
+    private static Buffer readOnly(byte[] bytes) {
+        return Buffer.buffer(bytes);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] brotli(byte[] json) {
+        try {
+            return Encoder.compress(json, new Encoder.Parameters().setQuality(11));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String contentHash(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.abservice.cache;
+
+import com.abservice.bulkhead.Bulkheads;
+import com.abservice.config.ReadCacheConfig;
+import com.abservice.event.EntityChangeEvent;
+import com.abservice.event.EntityChangeEvent.EntityType;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link CoalescedRead} を付与したメソッドのキャッシュを管理する
+ * 変更イベントを受けると、そのエンティティ種別で破棄されるキャッシュをすべて破棄する
+ */
+@ApplicationScoped
+public class ReadCache {
+
+    /** バックグラウンド更新中はキャッシュを経由せずにメソッドを実行する */
+    private static final ThreadLocal<Boolean> BYPASS = new ThreadLocal<>();
+
+    private record Registration(Set<EntityType> invalidatedBy, CoalescingCache<List<Object>, Object> cache) {
+    }
+
+    @Inject
+    ReadCacheConfig config;
+
+    @Inject
+    Bulkheads bulkheads;
+
+    private final ConcurrentHashMap<String, Registration> caches = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return config.enabled();
+    }
+
+    static boolean isBypassed() {
+        return BYPASS.get() != null;
+    }
+
+    /**
+     * キャッシュ名に対応するキャッシュを取得（初回呼び出し時に作成）
+     */
+    CoalescingCache<List<Object>, Object> cache(String name, EntityType[] invalidatedBy) {
+        return caches.computeIfAbsent(name, key -> new Registration(Set.of(invalidatedBy), create(key))).cache();
+    }
+
+    /**
+     * コミット済みの変更に応じてキャッシュを破棄
+     * ノード内の変更はコミット直後に、他ノードの変更は変更フィード受信時に通知される
+     */
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) EntityChangeEvent event) {
+        for (Registration registration : caches.values()) {
+            if (registration.invalidatedBy().contains(event.getEntityType())) {
+                registration.cache().invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * すべてのキャッシュを破棄
+     */
+    public void invalidateAll() {
+        caches.values().forEach(registration -> registration.cache().invalidateAll());
+    }
+
+    /**
+     * バックグラウンド更新としてメソッドを再実行
+     * 呼び出し元のリクエストは終了している可能性があるため、新しいリクエストコンテキストで実行する
+     */
+    static Object invokeDetached(Object target, Method method, Object[] args) throws Exception {
+        ManagedContext requestContext = Arc.container().requestContext();
+        boolean activated = !requestContext.isActive();
+        if (activated) {
+            requestContext.activate();
+        }
+        BYPASS.set(Boolean.TRUE);
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            BYPASS.remove();
+            if (activated) {
+                requestContext.terminate();
+            }
+        }
+    }
+
+    private CoalescingCache<List<Object>, Object> create(String name) {
+        ReadCacheConfig.Method method = config.methods().get(name);
+        long softTtl = (method != null ? method.softTtl().orElse(config.softTtl()) : config.softTtl()).toMillis();
+        long hardTtl = (method != null ? method.hardTtl().orElse(config.hardTtl()) : config.hardTtl()).toMillis();
+        long negativeTtl = (method != null ? method.negativeTtl().orElse(config.negativeTtl()) : config.negativeTtl())
+                .toMillis();
+        int maxEntries = method != null ? method.maxEntries().orElse(config.maxEntries()) : config.maxEntries();
+        return new CoalescingCache<>(name, softTtl, hardTtl, negativeTtl, maxEntries, System::currentTimeMillis,
+                bulkheads.executor(Bulkheads.BACKGROUND));
+    }
+}
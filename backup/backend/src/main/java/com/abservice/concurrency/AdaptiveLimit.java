@@ -0,0 +1,143 @@
+package com.abservice.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 応答時間の変化から同時実行数の上限を調整する適応型リミット（Gradient方式）
+ * 一定期間ごとの平均応答時間（短期）を長期の指数移動平均と比べ、短期が長くなれば（キューイングが始まれば）上限を下げ、
+ * 変わらなければ上限の平方根分だけ上げる。上限まで使われていない期間は応答時間が変わらないため上限を変えない
+ */
+public final class AdaptiveLimit {
+
+    /** 1回の調整で下げる割合の下限（上限を半分より小さくしない） */
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final long windowNanos;
+    private final int minWindowSamples;
+    private final double longRttFactor;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+
+    // 以下はサンプル集計中の状態（synchronized で保護）
+    private long windowStart;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private double longRtt;
+
+    /**
+     * @param initialLimit     初期の上限
+     * @param minLimit         上限の最小値
+     * @param maxLimit         上限の最大値
+     * @param smoothing        新しい上限を反映する割合（0〜1）
+     * @param rttTolerance     長期平均に対して許容する短期の応答時間の倍率（1以上）
+     * @param windowNanos      短期の応答時間を集計する期間
+     * @param minWindowSamples 上限を調整するのに必要な期間内のサンプル数
+     * @param longWindows      長期平均に含める期間の数（指数移動平均の期間）
+     * @param nanoClock        現在時刻（ナノ秒）の取得元
+     */
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, double rttTolerance,
+                         long windowNanos, int minWindowSamples, int longWindows, LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("上限は 1 <= min <= initial <= max で指定してください: min=" + minLimit
+                    + " initial=" + initialLimit + " max=" + maxLimit);
+        }
+        if (smoothing <= 0 || smoothing > 1 || rttTolerance < 1 || longWindows < 1) {
+            throw new IllegalArgumentException("smoothingは0〜1、rttToleranceは1以上、longWindowsは1以上で指定してください");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = minWindowSamples;
+        this.longRttFactor = 2.0 / (longWindows + 1);
+        this.nanoClock = nanoClock;
+        this.windowStart = nanoClock.getAsLong();
+    }
+
+    /**
+     * 上限に占める割合までの範囲で実行枠を確保
+     *
+     * @param share 使用できる上限の割合（0〜1、優先度の低いリクエストほど小さくする）
+     * @return 確保後の実行中の数（確保できない場合は-1）
+     */
+    public int tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * 実行枠を解放
+     *
+     * @param rttNanos       確保から解放までの時間
+     * @param inFlightAtStart 確保時の実行中の数
+     * @param sample         応答時間を上限の調整に使うか（切断など応答時間が意味を持たない場合はfalse）
+     */
+    public void release(long rttNanos, int inFlightAtStart, boolean sample) {
+        inFlight.decrementAndGet();
+        if (sample) {
+            sample(rttNanos, inFlightAtStart);
+        }
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightAtStart) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+        long now = nanoClock.getAsLong();
+        if (now - windowStart < windowNanos || windowSamples < minWindowSamples) {
+            return;
+        }
+        update((double) windowRttSum / windowSamples, windowMaxInFlight);
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+    }
+
+    private void update(double shortRtt, int maxInFlight) {
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) * longRttFactor;
+        }
+        // 負荷が下がって応答時間が短くなった場合は、長期平均を早めに追従させる
+        if (longRtt > shortRtt * 2) {
+            longRtt *= 0.95;
+        }
+        double current = limit;
+        if (maxInFlight < current / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
@@ -0,0 +1,67 @@
+package com.abservice.concurrency;
+
+import com.abservice.exception.ErrorResponses;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+/**
+ * メンバー・ロールAPIへのリクエストの同時実行数を制限するフィルター
+ * 上限を超えたリクエストはワーカースレッドで待たせずに503で即座に返し、応答の完了時に実行枠を解放して応答時間を記録する
+ * レート制限（クライアントごとの流量）の後に適用する
+ */
+public class ConcurrencyLimitFilter {
+
+    private static final byte[] SERVICE_UNAVAILABLE_BODY = ErrorResponses.encode(
+            Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), "サーバーが混雑しています。しばらくしてから再試行してください");
+
+    @Inject
+    ConcurrencyLimiter limiter;
+
+    @Inject
+    SecurityIdentity identity;
+
+    @ConfigProperty(name = "app.admin.role", defaultValue = "admin")
+    String adminRole;
+
+    @ServerRequestFilter(preMatching = true, priority = Priorities.USER + 100)
+    public Response limit(HttpServerRequest request, RoutingContext routingContext) {
+        String path = request.path();
+        if (!limiter.isEnabled() || path == null || !limiter.covers(path)) {
+            return null;
+        }
+        int inFlight = limiter.tryAcquire(priority(request.method()));
+        if (inFlight < 0) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .header(HttpHeaders.RETRY_AFTER, limiter.retryAfterSeconds())
+                    .entity(SERVICE_UNAVAILABLE_BODY)
+                    .build();
+        }
+        long startNanos = System.nanoTime();
+        routingContext.addEndHandler(result ->
+                limiter.release(System.nanoTime() - startNanos, inFlight, result.succeeded()));
+        return null;
+    }
+
+    /**
+     * 更新と管理ロールのリクエストを優先し、未認証の参照を最初に制限する
+     */
+    private ConcurrencyLimiter.Priority priority(HttpMethod method) {
+        boolean read = method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS;
+        if (!read || identity.hasRole(adminRole)) {
+            return ConcurrencyLimiter.Priority.CRITICAL;
+        }
+        return identity.isAnonymous()
+                ? ConcurrencyLimiter.Priority.ANONYMOUS_READ
+                : ConcurrencyLimiter.Priority.AUTHENTICATED_READ;
+    }
+}
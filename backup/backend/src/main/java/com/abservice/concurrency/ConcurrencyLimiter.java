@@ -0,0 +1,113 @@
+package com.abservice.concurrency;
+
+import com.abservice.config.ConcurrencyLimitConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 対象ルートの同時実行数を {@link AdaptiveLimit} で制限する
+ * 優先度の低いリクエストほど上限の小さい割合までしか使えないため、混雑時は未認証の参照から先に制限される
+ */
+@ApplicationScoped
+public class ConcurrencyLimiter {
+
+    /**
+     * リクエストの優先度
+     */
+    public enum Priority {
+        /** 更新・管理ロールのリクエスト */
+        CRITICAL,
+        /** 認証済みの参照 */
+        AUTHENTICATED_READ,
+        /** 未認証（公開）の参照 */
+        ANONYMOUS_READ;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    @Inject
+    ConcurrencyLimitConfig config;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private AdaptiveLimit limit;
+
+    private final Map<Priority, Double> shares = new EnumMap<>(Priority.class);
+
+    private final Map<Priority, Counter> rejected = new EnumMap<>(Priority.class);
+
+    @PostConstruct
+    void init() {
+        limit = new AdaptiveLimit(config.initialLimit(), config.minLimit(), config.maxLimit(), config.smoothing(),
+                config.rttTolerance(), config.window().toNanos(), config.minWindowSamples(), config.longWindows(),
+                System::nanoTime);
+        shares.put(Priority.CRITICAL, 1.0);
+        shares.put(Priority.AUTHENTICATED_READ, config.shares().authenticatedReads());
+        shares.put(Priority.ANONYMOUS_READ, config.shares().anonymousReads());
+        for (Priority priority : Priority.values()) {
+            rejected.put(priority, Counter.builder("http.concurrency.rejected")
+                    .description("同時実行数の上限により制限したリクエスト数")
+                    .tag("priority", priority.tag())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("http.concurrency.limit", limit, AdaptiveLimit::limit)
+                .description("応答時間から算出した現在の同時実行数の上限")
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.in.flight", limit, AdaptiveLimit::inFlight)
+                .description("対象ルートで実行中のリクエスト数")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return config.enabled();
+    }
+
+    /**
+     * 同時実行数を制限するパスか
+     */
+    public boolean covers(String path) {
+        List<String> prefixes = config.pathPrefixes();
+        for (int i = 0; i < prefixes.size(); i++) {
+            if (path.startsWith(prefixes.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 優先度に応じた範囲で実行枠を確保
+     *
+     * @return 確保後の実行中の数（制限した場合は-1）
+     */
+    public int tryAcquire(Priority priority) {
+        int inFlight = limit.tryAcquire(shares.get(priority));
+        if (inFlight < 0) {
+            rejected.get(priority).increment();
+        }
+        return inFlight;
+    }
+
+    public void release(long rttNanos, int inFlightAtStart, boolean sample) {
+        limit.release(rttNanos, inFlightAtStart, sample);
+    }
+
+    /**
+     * 制限した応答のRetry-After（秒）
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, config.retryAfter().toSeconds());
+    }
+}
@@ -0,0 +1,51 @@
+package com.abservice.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 処理の種類ごとの区画（バルクヘッド）の設定
+ */
+@ConfigMapping(prefix = "app.bulkhead")
+public interface BulkheadConfig {
+
+    /**
+     * 区画による制限を有効にするか
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * 区画ごとの設定（public-read・admin-write・background）
+     */
+    Map<String, Compartment> compartments();
+
+    interface Compartment {
+
+        /**
+         * 同時に実行できる数（この区画が同時に使用するDB接続数の上限を兼ねる）
+         */
+        int maxConcurrent();
+
+        /**
+         * 実行を待てる数
+         */
+        @WithDefault("0")
+        int queueSize();
+
+        /**
+         * 実行を待つ時間の上限
+         */
+        @WithDefault("PT1S")
+        Duration maxWait();
+
+        /**
+         * 主に使用するデータソース（起動時に区画の上限の合計が接続プールの上限を超えていないかを確認する）
+         */
+        @WithDefault("<default>")
+        String datasource();
+    }
+}
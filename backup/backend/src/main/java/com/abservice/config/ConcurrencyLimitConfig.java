@@ -0,0 +1,100 @@
+package com.abservice.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 適応型の同時実行数制限の設定
+ */
+@ConfigMapping(prefix = "app.concurrency-limit")
+public interface ConcurrencyLimitConfig {
+
+    /**
+     * 同時実行数制限を有効にするか
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * 対象パスのプレフィックス
+     */
+    @WithDefault("/api/v1/circle-members,/api/v1/roles")
+    List<String> pathPrefixes();
+
+    /**
+     * 起動時の上限
+     */
+    @WithDefault("20")
+    int initialLimit();
+
+    /**
+     * 上限の最小値
+     */
+    @WithDefault("4")
+    int minLimit();
+
+    /**
+     * 上限の最大値
+     */
+    @WithDefault("200")
+    int maxLimit();
+
+    /**
+     * 新しい上限を反映する割合（0〜1、小さいほど緩やかに変化する）
+     */
+    @WithDefault("0.2")
+    double smoothing();
+
+    /**
+     * 長期平均に対して許容する応答時間の倍率（超えた分だけ上限を下げる）
+     */
+    @WithDefault("1.5")
+    double rttTolerance();
+
+    /**
+     * 応答時間を集計して上限を調整する間隔
+     */
+    @WithDefault("PT1S")
+    Duration window();
+
+    /**
+     * 上限を調整するのに必要な間隔内のリクエスト数
+     */
+    @WithDefault("10")
+    int minWindowSamples();
+
+    /**
+     * 長期平均に含める間隔の数
+     */
+    @WithDefault("600")
+    int longWindows();
+
+    /**
+     * 制限した応答のRetry-After
+     */
+    @WithDefault("PT1S")
+    Duration retryAfter();
+
+    /**
+     * 優先度ごとに使用できる上限の割合（更新・管理ロールのリクエストは常に上限まで使用できる）
+     */
+    Shares shares();
+
+    interface Shares {
+
+        /**
+         * 認証済みの参照
+         */
+        @WithDefault("0.9")
+        double authenticatedReads();
+
+        /**
+         * 未認証（公開）の参照
+         */
+        @WithDefault("0.7")
+        double anonymousReads();
+    }
+}
@@ -0,0 +1,54 @@
+package com.abservice.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * リクエスト処理期限の設定
+ */
+@ConfigMapping(prefix = "app.deadline")
+public interface DeadlineConfig {
+
+    /**
+     * 処理期限を有効にするか
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * ルート別設定に一致しないリクエストの処理期限
+     */
+    @WithDefault("PT10S")
+    Duration defaultBudget();
+
+    /**
+     * ルート別の処理期限（最長一致のパスプレフィックスとHTTPメソッドで選択）
+     */
+    Map<String, Route> routes();
+
+    /**
+     * ルート別の処理期限
+     */
+    interface Route {
+
+        /**
+         * 対象パスのプレフィックス
+         */
+        String pathPrefix();
+
+        /**
+         * 対象HTTPメソッド（未指定の場合はすべて）
+         */
+        Optional<Set<String>> methods();
+
+        /**
+         * 処理期限（0の場合は期限を設けない）
+         */
+        Duration budget();
+    }
+}
@@ -0,0 +1,56 @@
+package com.abservice.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Idempotency-Keyヘッダーによる再送時の応答再生の設定
+ */
+@ConfigMapping(prefix = "app.idempotency")
+public interface IdempotencyConfig {
+
+    /**
+     * Idempotency-Keyを処理するか（無効の場合はヘッダーを無視する）
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * 保存した応答を再生する期間
+     */
+    @WithDefault("PT24H")
+    Duration ttl();
+
+    /**
+     * 直近のキーを保持するメモリキャッシュの最大エントリ数
+     */
+    @WithDefault("10000")
+    int cacheMaxEntries();
+
+    /**
+     * 同じキーの処理中リクエストの完了を待つ最大時間（超えた場合は409を返す）
+     */
+    @WithDefault("PT10S")
+    Duration inFlightWait();
+
+    /**
+     * 処理中のキーを確保しておく時間（過ぎた場合は応答を保存せずに停止したノードとみなし、再送が引き継ぐ）
+     * 書き込みリクエストの期限（app.deadline）より長くする
+     */
+    @WithDefault("PT30S")
+    Duration lease();
+
+    /**
+     * 期限切れキーの削除間隔（スケジューラーの式として参照する）
+     */
+    @WithDefault("10m")
+    String purgeInterval();
+
+    /**
+     * 期限切れキーを1回のDELETEで削除する件数
+     */
+    @WithDefault("1000")
+    int purgeBatchSize();
+}
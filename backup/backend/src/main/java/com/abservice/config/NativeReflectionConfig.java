@@ -0,0 +1,43 @@
+package com.abservice.config;
+
+import com.abservice.dto.CircleMemberChangesDto;
+import com.abservice.dto.CircleMemberDto;
+import com.abservice.dto.CreateCircleMemberDto;
+import com.abservice.dto.PermissionDto;
+import com.abservice.dto.RoleDto;
+import com.abservice.dto.UpdateCircleMemberDto;
+import com.abservice.event.EntityChangeEvent;
+import com.abservice.outbox.OutboxMessage;
+import com.abservice.slowquery.SlowQuery;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * ネイティブイメージでJacksonがリフレクションでアクセスするクラスの登録
+ * Responseに包んで返すDTOや、ObjectMapperで直接シリアライズするクラスはビルド時に検出されないため明示する
+ * CircleMemberRecordはクラス側で@RegisterForReflectionを付けている
+ * エラー応答の本文はErrorResponsesがバイト列として組み立てるため登録不要
+ * 登録のみで、ネイティブビルドでの動作確認・計測はまだ行っていない
+ */
+@RegisterForReflection(
+        targets = {
+                CircleMemberDto.class,
+                CircleMemberChangesDto.class,
+                CreateCircleMemberDto.class,
+                UpdateCircleMemberDto.class,
+                RoleDto.class,
+                PermissionDto.class,
+                EntityChangeEvent.class,
+                EntityChangeEvent.EntityType.class,
+                EntityChangeEvent.ChangeType.class,
+                OutboxMessage.class,
+                SlowQuery.class,
+                SlowQuery.Explain.class
+        },
+        classNames = {
+                "com.abservice.idempotency.StoredResponse",
+                "com.abservice.snapshot.PublicDirectoryPublisher$PublicMember",
+                "com.abservice.snapshot.PublicDirectoryPublisher$AvatarEntry",
+                "com.abservice.snapshot.PublicDirectoryPublisher$Manifest"
+        })
+public class NativeReflectionConfig {
+}
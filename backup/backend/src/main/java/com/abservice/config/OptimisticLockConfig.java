@@ -0,0 +1,17 @@
+package com.abservice.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * 楽観的ロック（ETag / If-Match）の設定
+ */
+@ConfigMapping(prefix = "app.optimistic-lock")
+public interface OptimisticLockConfig {
+
+    /**
+     * 更新・削除でIf-Matchヘッダーを必須にするか（未指定の場合は428を返す）
+     */
+    @WithDefault("true")
+    boolean requireIfMatch();
+}
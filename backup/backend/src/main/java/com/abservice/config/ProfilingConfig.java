@@ -0,0 +1,71 @@
+package com.abservice.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * JFRによるプロファイリングの設定
+ */
+@ConfigMapping(prefix = "app.profiling")
+public interface ProfilingConfig {
+
+    /**
+     * 管理APIからのレコーディング
+     */
+    Recording recording();
+
+    /**
+     * JFRイベントをメトリクスへ集計するストリーム
+     */
+    Streaming streaming();
+
+    interface Recording {
+
+        /**
+         * 期間を指定しない場合のレコーディング期間
+         */
+        @WithDefault("PT30S")
+        Duration defaultDuration();
+
+        /**
+         * 指定できるレコーディング期間の上限
+         */
+        @WithDefault("PT5M")
+        Duration maxDuration();
+
+        /**
+         * 期間を指定しない場合のJFR設定（default: 常時有効にできる低負荷の設定、profile: サンプリング間隔の短い詳細な設定）
+         */
+        @WithDefault("profile")
+        String defaultSettings();
+    }
+
+    interface Streaming {
+
+        /**
+         * イベントストリームを有効にするか
+         */
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * メトリクスへ集計するリポジトリ・サービスのイベントの最小所要時間（0の場合はすべて集計する）
+         */
+        @WithDefault("PT0S")
+        Duration threshold();
+
+        /**
+         * 集計するモニター待ち（jdk.JavaMonitorEnter）・仮想スレッドのピン留め（jdk.VirtualThreadPinned）の最小所要時間
+         */
+        @WithDefault("PT0.01S")
+        Duration contentionThreshold();
+
+        /**
+         * ストリームがディスクに保持するイベントの最大期間
+         */
+        @WithDefault("PT1M")
+        Duration maxAge();
+    }
+}
@@ -0,0 +1,78 @@
+package com.abservice.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * REST APIのレート制限設定
+ */
+@ConfigMapping(prefix = "app.rate-limit")
+public interface RateLimitConfig {
+
+    /**
+     * レート制限を有効にするか
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * ポリシーごとのバケットテーブルのストライプ数
+     */
+    @WithDefault("16")
+    int stripes();
+
+    /**
+     * ポリシーごとに保持する最大バケット数
+     */
+    @WithDefault("100000")
+    int maxEntries();
+
+    /**
+     * この時間アクセスのないバケットを破棄する
+     */
+    @WithDefault("PT10M")
+    Duration idleTimeout();
+
+    /**
+     * アイドルなバケットを破棄する間隔（@Scheduled の式で参照する）
+     */
+    @WithDefault("1m")
+    String sweepInterval();
+
+    /**
+     * ルート別ポリシー（最長一致のパスプレフィックスとHTTPメソッドで選択）
+     */
+    Map<String, Policy> policies();
+
+    /**
+     * レート制限ポリシー
+     */
+    interface Policy {
+
+        /**
+         * 対象パスのプレフィックス
+         */
+        @WithDefault("/api/v1/")
+        String pathPrefix();
+
+        /**
+         * 対象HTTPメソッド（未指定の場合はすべて）
+         */
+        Optional<Set<String>> methods();
+
+        /**
+         * バケット容量（バースト許容量）
+         */
+        long capacity();
+
+        /**
+         * 1秒あたりの補充トークン数
+         */
+        double refillPerSecond();
+    }
+}
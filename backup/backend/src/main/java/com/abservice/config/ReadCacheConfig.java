@@ -0,0 +1,64 @@
+package com.abservice.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * サービス層の読み取りキャッシュ設定
+ */
+@ConfigMapping(prefix = "app.read-cache")
+public interface ReadCacheConfig {
+
+    /**
+     * 読み取りキャッシュを有効にするか（無効の場合は常にサービスを直接呼び出す）
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * この時間を過ぎた値は返しつつバックグラウンドで更新する
+     */
+    @WithDefault("PT5S")
+    Duration softTtl();
+
+    /**
+     * この時間を過ぎた値は返さず、呼び出し元で再取得する
+     */
+    @WithDefault("PT1M")
+    Duration hardTtl();
+
+    /**
+     * 該当なし（nullまたは空のOptional）の結果を返す時間（0の場合はキャッシュしない）
+     */
+    @WithDefault("PT1S")
+    Duration negativeTtl();
+
+    /**
+     * キャッシュごとの最大エントリ数
+     */
+    @WithDefault("10000")
+    int maxEntries();
+
+    /**
+     * キャッシュ名ごとの設定（未指定の項目は上記の既定値を使う）
+     */
+    Map<String, Method> methods();
+
+    /**
+     * キャッシュ名ごとの設定
+     */
+    interface Method {
+
+        Optional<Duration> softTtl();
+
+        Optional<Duration> hardTtl();
+
+        Optional<Duration> negativeTtl();
+
+        Optional<Integer> maxEntries();
+    }
+}
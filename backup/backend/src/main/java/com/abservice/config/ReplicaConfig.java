@@ -0,0 +1,38 @@
+package com.abservice.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * 読み取りレプリカへのルーティング設定
+ * レプリカの接続先は quarkus.datasource.replica、永続化ユニットは quarkus.hibernate-orm.replica で設定する
+ */
+@ConfigMapping(prefix = "app.replica")
+public interface ReplicaConfig {
+
+    /**
+     * 読み取り専用メソッドをレプリカへルーティングするか
+     */
+    @WithDefault("false")
+    boolean enabled();
+
+    /**
+     * 許容するレプリケーション遅延（超えた場合はプライマリから読む）
+     */
+    @WithDefault("PT2S")
+    Duration maxLag();
+
+    /**
+     * レプリカの遅延・死活確認の間隔
+     */
+    @WithDefault("PT1S")
+    Duration probeInterval();
+
+    /**
+     * 遅延確認クエリのタイムアウト
+     */
+    @WithDefault("PT1S")
+    Duration probeTimeout();
+}
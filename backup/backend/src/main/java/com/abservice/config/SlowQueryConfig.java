@@ -0,0 +1,57 @@
+package com.abservice.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * 低速クエリの記録とEXPLAINの設定
+ */
+@ConfigMapping(prefix = "app.slow-query")
+public interface SlowQueryConfig {
+
+    /**
+     * 低速クエリを記録するか（無効の場合はJDBC接続をラップしない）
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * 記録する実行時間のしきい値
+     */
+    @WithDefault("PT0.2S")
+    Duration threshold();
+
+    /**
+     * 保持する低速クエリの件数（古いものから上書きする）
+     */
+    @WithDefault("200")
+    int bufferSize();
+
+    /**
+     * EXPLAIN (ANALYZE, BUFFERS) の設定
+     */
+    Explain explain();
+
+    interface Explain {
+
+        /**
+         * EXPLAINを実行する割合（0〜1、0の場合は実行しない）
+         */
+        @WithDefault("0.1")
+        double sampleRate();
+
+        /**
+         * EXPLAINのstatement_timeout
+         */
+        @WithDefault("PT5S")
+        Duration timeout();
+
+        /**
+         * EXPLAIN待ちの最大件数（超えた分は実行しない）
+         */
+        @WithDefault("16")
+        int queueSize();
+    }
+}
@@ -0,0 +1,36 @@
+package com.abservice.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * テナント（サークル）の解決とデータベースの振り分け設定
+ */
+@ConfigMapping(prefix = "app.tenant")
+public interface TenantConfig {
+
+    /**
+     * テナントIDを格納するJWTのクレーム名
+     */
+    @WithDefault("circle")
+    String claim();
+
+    /**
+     * ホスト名からテナントIDを取り出す正規表現（最初のグループをテナントIDとする、未指定の場合はホスト名を使わない）
+     */
+    Optional<String> hostPattern();
+
+    /**
+     * データベースの振り分け方式（TenantDataSourceRouterの実装を @LookupIfProperty で選択する）
+     */
+    @WithDefault("config")
+    String router();
+
+    /**
+     * 専用データベースに振り分けるテナントと、その永続化ユニット名（router=config の場合）
+     */
+    Map<String, String> dedicated();
+}
@@ -0,0 +1,68 @@
+package com.abservice.controller;
+
+import com.abservice.event.ChangeFeedBroadcaster;
+import com.abservice.event.EntityChangeEvent;
+import com.abservice.tenant.Tenants;
+import io.smallrye.mutiny.Multi;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * CircleMember/Roleの変更をServer-Sent Eventsで配信するコントローラー
+ */
+@Path("/api/v1/events")
+@Tag(name = "ChangeFeed", description = "変更フィードAPI")
+public class ChangeFeedController {
+
+    @Inject
+    ChangeFeedBroadcaster broadcaster;
+
+    @Context
+    Sse sse;
+
+    @ConfigProperty(name = "app.change-feed.heartbeat-interval", defaultValue = "PT25S")
+    Duration heartbeatInterval;
+
+    @ConfigProperty(name = "app.change-feed.client-buffer-size", defaultValue = "256")
+    int clientBufferSize;
+
+    /**
+     * 変更イベントのストリームを購読
+     * バッファを使い切った低速クライアントはストリームを切断され、再接続時に一覧を再取得する
+     * 配信するのは購読したリクエストのテナントのイベントのみ
+     */
+    @GET
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @Operation(summary = "変更フィード購読", description = "サークルメンバー・ロールの作成/更新/削除イベントをSSEで配信します")
+    public Multi<OutboundSseEvent> stream() {
+        String tenant = Tenants.current();
+        Multi<OutboundSseEvent> changes = broadcaster.stream()
+                .select().where(event -> tenant.equals(event.getTenant() != null ? event.getTenant() : Tenants.DEFAULT))
+                .onOverflow().buffer(clientBufferSize)
+                .map(this::toSseEvent);
+        Multi<OutboundSseEvent> heartbeats = Multi.createFrom().ticks().every(heartbeatInterval)
+                .onOverflow().drop()
+                .map(tick -> sse.newEventBuilder().comment("heartbeat").build());
+        return Multi.createBy().merging().streams(changes, heartbeats);
+    }
+
+    private OutboundSseEvent toSseEvent(EntityChangeEvent event) {
+        return sse.newEventBuilder()
+                .name(event.getEntityType().name().toLowerCase(Locale.ROOT).replace('_', '-'))
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(EntityChangeEvent.class, event)
+                .build();
+    }
+}
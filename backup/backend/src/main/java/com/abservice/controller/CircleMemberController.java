@@ -1,12 +1,28 @@
 package com.abservice.controller;
 
+import com.abservice.bulkhead.Bulkhead;
+import com.abservice.bulkhead.Bulkheads;
+import com.abservice.cache.ActiveMembersResponseCache;
+import com.abservice.cache.EncodedResponse;
+import com.abservice.config.OptimisticLockConfig;
+import com.abservice.dto.CircleMemberChangesDto;
 import com.abservice.dto.CircleMemberDto;
 import com.abservice.dto.CreateCircleMemberDto;
 import com.abservice.dto.UpdateCircleMemberDto;
+import com.abservice.exception.ApiException;
+import com.abservice.exception.ErrorResponses;
+import com.abservice.exception.PreconditionFailedException;
+import com.abservice.idempotency.Idempotent;
+import com.abservice.service.MergePatch;
 import com.abservice.service.CircleMemberServiceInterface;
+import com.abservice.service.SparseFieldset;
+import com.abservice.tenant.Tenants;
+import com.abservice.tracing.Traced;
+import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.openapi.annotations.Operation;
@@ -16,6 +32,7 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -25,19 +42,34 @@ import java.util.Optional;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "CircleMember", description = "サークルメンバー管理API")
+@Traced("controller")
 public class CircleMemberController {
 
     @Inject
     CircleMemberServiceInterface circleMemberService;
 
+    @Inject
+    ActiveMembersResponseCache activeMembersResponseCache;
+
+    @Inject
+    OptimisticLockConfig optimisticLockConfig;
+
+    @Inject
+    Bulkheads bulkheads;
+
     /**
      * すべてのCircleMemberを取得
      */
     @GET
-    @Operation(summary = "CircleMember一覧取得", description = "すべてのサークルメンバーを取得します")
+    @Bulkhead(Bulkheads.PUBLIC_READ)
+    @Operation(summary = "CircleMember一覧取得", description = "すべてのサークルメンバーを取得します（fieldsで取得する項目を指定できます）")
     @APIResponse(responseCode = "200", description = "取得成功",
                  content = @Content(schema = @Schema(implementation = CircleMemberDto.class)))
-    public Response getAllCircleMembers() {
+    @APIResponse(responseCode = "400", description = "fieldsに指定できない項目が含まれています")
+    public Response getAllCircleMembers(@QueryParam(SparseFieldset.QUERY_PARAM) String fields) {
+        if (fields != null) {
+            return Response.ok(circleMemberService.findAll(SparseFieldset.parse(fields))).build();
+        }
         List<CircleMemberDto> members = circleMemberService.findAll();
         return Response.ok(members).build();
     }
@@ -46,32 +78,78 @@ public class CircleMemberController {
      * アクティブなCircleMemberのみを取得
      */
     @GET
+    @Bulkhead(Bulkheads.PUBLIC_READ)
     @Path("/active")
-    @Operation(summary = "アクティブCircleMember一覧取得", description = "アクティブなサークルメンバーのみを取得します")
+    @Operation(summary = "アクティブCircleMember一覧取得", description = "アクティブなサークルメンバーのみを取得します（fieldsで取得する項目を指定できます）")
     @APIResponse(responseCode = "200", description = "取得成功",
                  content = @Content(schema = @Schema(implementation = CircleMemberDto.class)))
-    public Response getActiveCircleMembers() {
-        List<CircleMemberDto> members = circleMemberService.findActiveMembers();
-        return Response.ok(members).build();
+    @APIResponse(responseCode = "400", description = "fieldsに指定できない項目が含まれています")
+    public Uni<Response> getActiveCircleMembers(@HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding,
+                                                @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                                @QueryParam(SparseFieldset.QUERY_PARAM) String fields) {
+        if (fields != null) {
+            // 項目を絞った応答は事前シリアライズの対象外のため、公開の参照用のスレッドプールで射影クエリを実行する
+            SparseFieldset fieldset = SparseFieldset.parse(fields);
+            return Uni.createFrom().item(() -> Response.ok(circleMemberService.findActiveMembers(fieldset)).build())
+                    .runSubscriptionOn(bulkheads.executor(Bulkheads.PUBLIC_READ));
+        }
+        if (!Tenants.isDefault()) {
+            // 事前シリアライズ済みの応答は既定のテナントのみ保持するため、他のテナントはサービスの読み取りキャッシュから返す
+            return Uni.createFrom().item(() -> Response.ok(circleMemberService.findActiveMembers()).build())
+                    .runSubscriptionOn(bulkheads.executor(Bulkheads.PUBLIC_READ));
+        }
+        // 事前シリアライズ・事前圧縮済みのバイト列をイベントループ上でそのまま返す
+        return activeMembersResponseCache.get().map(cached -> {
+            EncodedResponse.Variant variant = cached.select(acceptEncoding);
+            if (cached.matches(ifNoneMatch)) {
+                // 304にも200と同じETagを付け、キャッシュが保持するETagを更新できるようにする
+                return Response.notModified()
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                        .header(HttpHeaders.ETAG, variant.etag())
+                        .build();
+            }
+            return Response.ok(variant.body(), MediaType.APPLICATION_JSON_TYPE)
+                    .header(HttpHeaders.CONTENT_ENCODING, variant.contentEncoding())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .header(HttpHeaders.ETAG, variant.etag())
+                    .build();
+        });
+    }
+
+    /**
+     * 指定カーソル以降に変更・削除されたCircleMemberを取得
+     */
+    @GET
+    @Bulkhead(Bulkheads.PUBLIC_READ)
+    @Path("/changes")
+    @Operation(summary = "CircleMember差分取得", description = "指定カーソル以降に変更されたサークルメンバーと削除されたIDを取得します")
+    @APIResponse(responseCode = "200", description = "取得成功",
+                 content = @Content(schema = @Schema(implementation = CircleMemberChangesDto.class)))
+    public Response getCircleMemberChanges(@QueryParam("since") Long since) {
+        CircleMemberChangesDto changes = circleMemberService.findChangesSince(since);
+        return Response.ok(changes).build();
     }
 
     /**
      * IDでCircleMemberを取得
      */
     @GET
+    @Bulkhead(Bulkheads.PUBLIC_READ)
     @Path("/{id}")
-    @Operation(summary = "CircleMember取得", description = "指定されたIDのサークルメンバーを取得します")
+    @Operation(summary = "CircleMember取得", description = "指定されたIDのサークルメンバーを取得します（fieldsで取得する項目を指定できます。ETagはversionを含む場合のみ返します）")
     @APIResponse(responseCode = "200", description = "取得成功",
                  content = @Content(schema = @Schema(implementation = CircleMemberDto.class)))
+    @APIResponse(responseCode = "400", description = "fieldsに指定できない項目が含まれています")
     @APIResponse(responseCode = "404", description = "CircleMemberが見つかりません")
-    public Response getCircleMember(@PathParam("id") Long id) {
+    public Response getCircleMember(@PathParam("id") Long id, @QueryParam(SparseFieldset.QUERY_PARAM) String fields) {
+        if (fields != null) {
+            return sparseResponse(circleMemberService.findById(id, SparseFieldset.parse(fields)), String.valueOf(id));
+        }
         Optional<CircleMemberDto> member = circleMemberService.findById(id);
         if (member.isPresent()) {
-            return Response.ok(member.get()).build();
+            return Response.ok(member.get()).tag(EntityTags.of(member.get().getVersion())).build();
         } else {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"CircleMemberが見つかりません: " + id + "\"}")
-                    .build();
+            return ErrorResponses.of(Response.Status.NOT_FOUND, "CircleMemberが見つかりません: " + id);
         }
     }
 
@@ -79,19 +157,23 @@ public class CircleMemberController {
      * ユーザー名でCircleMemberを取得
      */
     @GET
+    @Bulkhead(Bulkheads.PUBLIC_READ)
     @Path("/username/{username}")
-    @Operation(summary = "CircleMember取得（ユーザー名）", description = "指定されたユーザー名のサークルメンバーを取得します")
+    @Operation(summary = "CircleMember取得（ユーザー名）", description = "指定されたユーザー名のサークルメンバーを取得します（fieldsで取得する項目を指定できます。ETagはversionを含む場合のみ返します）")
     @APIResponse(responseCode = "200", description = "取得成功",
                  content = @Content(schema = @Schema(implementation = CircleMemberDto.class)))
+    @APIResponse(responseCode = "400", description = "fieldsに指定できない項目が含まれています")
     @APIResponse(responseCode = "404", description = "CircleMemberが見つかりません")
-    public Response getCircleMemberByUsername(@PathParam("username") String username) {
+    public Response getCircleMemberByUsername(@PathParam("username") String username,
+                                              @QueryParam(SparseFieldset.QUERY_PARAM) String fields) {
+        if (fields != null) {
+            return sparseResponse(circleMemberService.findByUsername(username, SparseFieldset.parse(fields)), username);
+        }
         Optional<CircleMemberDto> member = circleMemberService.findByUsername(username);
         if (member.isPresent()) {
-            return Response.ok(member.get()).build();
+            return Response.ok(member.get()).tag(EntityTags.of(member.get().getVersion())).build();
         } else {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"CircleMemberが見つかりません: " + username + "\"}")
-                    .build();
+            return ErrorResponses.of(Response.Status.NOT_FOUND, "CircleMemberが見つかりません: " + username);
         }
     }
 
@@ -99,22 +181,20 @@ public class CircleMemberController {
      * CircleMemberを作成
      */
     @POST
+    @Bulkhead(Bulkheads.ADMIN_WRITE)
     @Operation(summary = "CircleMember作成", description = "新しいサークルメンバーを作成します")
     @APIResponse(responseCode = "201", description = "作成成功",
                  content = @Content(schema = @Schema(implementation = CircleMemberDto.class)))
     @APIResponse(responseCode = "400", description = "リクエストが不正です")
+    @APIResponse(responseCode = "409", description = "ユーザー名・メールアドレスが既に使用されている、または同じIdempotency-Keyのリクエストを処理中です")
+    @APIResponse(responseCode = "422", description = "Idempotency-Keyが別の内容のリクエストで使用されています")
+    @Idempotent
     public Response createCircleMember(@Valid CreateCircleMemberDto createDto) {
         try {
             CircleMemberDto createdMember = circleMemberService.create(createDto);
-            return Response.status(Response.Status.CREATED).entity(createdMember).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\": \"CircleMemberの作成に失敗しました: " + e.getMessage() + "\"}")
-                    .build();
+            return Response.status(Response.Status.CREATED).entity(createdMember).tag(EntityTags.of(createdMember.getVersion())).build();
+        } catch (ApiException e) {
+            return ErrorResponses.of(e);
         }
     }
 
@@ -122,28 +202,58 @@ public class CircleMemberController {
      * CircleMemberを更新
      */
     @PUT
+    @Bulkhead(Bulkheads.ADMIN_WRITE)
     @Path("/{id}")
     @Operation(summary = "CircleMember更新", description = "指定されたIDのサークルメンバーを更新します")
     @APIResponse(responseCode = "200", description = "更新成功",
                  content = @Content(schema = @Schema(implementation = CircleMemberDto.class)))
     @APIResponse(responseCode = "400", description = "リクエストが不正です")
     @APIResponse(responseCode = "404", description = "CircleMemberが見つかりません")
-    public Response updateCircleMember(@PathParam("id") Long id, @Valid UpdateCircleMemberDto updateDto) {
+    @APIResponse(responseCode = "409", description = "メールアドレスが既に使用されています")
+    @APIResponse(responseCode = "412", description = "If-Matchのバージョンが一致しません")
+    @APIResponse(responseCode = "428", description = "If-Matchヘッダーが必要です")
+    public Response updateCircleMember(@PathParam("id") Long id, @Valid UpdateCircleMemberDto updateDto,
+                                       @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        if (ifMatch == null && optimisticLockConfig.requireIfMatch()) {
+            return EntityTags.preconditionRequired();
+        }
         try {
-            CircleMemberDto updatedMember = circleMemberService.update(id, updateDto);
-            return Response.ok(updatedMember).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
-        } catch (jakarta.ws.rs.NotFoundException e) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\": \"CircleMemberの更新に失敗しました: " + e.getMessage() + "\"}")
-                    .build();
+            CircleMemberDto updatedMember = circleMemberService.update(id, updateDto, EntityTags.expectedVersion(ifMatch));
+            return Response.ok(updatedMember).tag(EntityTags.of(updatedMember.getVersion())).build();
+        } catch (PreconditionFailedException e) {
+            return EntityTags.preconditionFailed(e);
+        } catch (ApiException e) {
+            return ErrorResponses.of(e);
+        }
+    }
+
+    /**
+     * CircleMemberを部分更新（JSON Merge Patch）
+     */
+    @PATCH
+    @Bulkhead(Bulkheads.ADMIN_WRITE)
+    @Path("/{id}")
+    @Consumes(MergePatch.MEDIA_TYPE)
+    @Operation(summary = "CircleMember部分更新", description = "指定されたIDのサークルメンバーにJSON Merge Patchを適用します。変更された項目のみを更新します")
+    @APIResponse(responseCode = "200", description = "更新成功",
+                 content = @Content(schema = @Schema(implementation = CircleMemberDto.class)))
+    @APIResponse(responseCode = "400", description = "リクエストが不正です")
+    @APIResponse(responseCode = "404", description = "CircleMemberが見つかりません")
+    @APIResponse(responseCode = "409", description = "メールアドレスが既に使用されています")
+    @APIResponse(responseCode = "412", description = "If-Matchのバージョンが一致しません")
+    @APIResponse(responseCode = "428", description = "If-Matchヘッダーが必要です")
+    public Response patchCircleMember(@PathParam("id") Long id, String mergePatch,
+                                      @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        if (ifMatch == null && optimisticLockConfig.requireIfMatch()) {
+            return EntityTags.preconditionRequired();
+        }
+        try {
+            CircleMemberDto patchedMember = circleMemberService.patch(id, mergePatch, EntityTags.expectedVersion(ifMatch));
+            return Response.ok(patchedMember).tag(EntityTags.of(patchedMember.getVersion())).build();
+        } catch (PreconditionFailedException e) {
+            return EntityTags.preconditionFailed(e);
+        } catch (ApiException e) {
+            return ErrorResponses.of(e);
         }
     }
 
@@ -151,22 +261,34 @@ public class CircleMemberController {
      * CircleMemberを削除
      */
     @DELETE
+    @Bulkhead(Bulkheads.ADMIN_WRITE)
     @Path("/{id}")
     @Operation(summary = "CircleMember削除", description = "指定されたIDのサークルメンバーを削除します")
     @APIResponse(responseCode = "204", description = "削除成功")
     @APIResponse(responseCode = "404", description = "CircleMemberが見つかりません")
-    public Response deleteCircleMember(@PathParam("id") Long id) {
+    @APIResponse(responseCode = "412", description = "If-Matchのバージョンが一致しません")
+    @APIResponse(responseCode = "428", description = "If-Matchヘッダーが必要です")
+    public Response deleteCircleMember(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        if (ifMatch == null && optimisticLockConfig.requireIfMatch()) {
+            return EntityTags.preconditionRequired();
+        }
         try {
-            circleMemberService.delete(id);
+            circleMemberService.delete(id, EntityTags.expectedVersion(ifMatch));
             return Response.noContent().build();
-        } catch (jakarta.ws.rs.NotFoundException e) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\": \"CircleMemberの削除に失敗しました: " + e.getMessage() + "\"}")
-                    .build();
+        } catch (PreconditionFailedException e) {
+            return EntityTags.preconditionFailed(e);
+        } catch (ApiException e) {
+            return ErrorResponses.of(e);
+        }
+    }
+
+    /**
+     * 項目を絞った1件の応答（versionを含む場合のみETagを付与）
+     */
+    private static Response sparseResponse(Optional<Map<String, Object>> member, String key) {
+        if (member.isEmpty()) {
+            return ErrorResponses.of(Response.Status.NOT_FOUND, "CircleMemberが見つかりません: " + key);
         }
+        return Response.ok(member.get()).tag(EntityTags.of((Long) member.get().get("version"))).build();
     }
 }
@@ -0,0 +1,76 @@
+package com.abservice.controller;
+
+import com.abservice.exception.ErrorResponses;
+import com.abservice.exception.PreconditionFailedException;
+import com.abservice.exception.ValidationFailedException;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * エンティティのバージョンとETag / If-Matchヘッダーの相互変換
+ * ETagはバージョン番号をそのまま使う強いETag（例: "3"）
+ */
+final class EntityTags {
+
+    static final int PRECONDITION_REQUIRED = 428;
+
+    private static final byte[] PRECONDITION_REQUIRED_BODY =
+            ErrorResponses.encode(PRECONDITION_REQUIRED, "If-Matchヘッダーを指定してください");
+
+    private EntityTags() {
+    }
+
+    /**
+     * バージョンからETagを生成
+     */
+    static EntityTag of(Long version) {
+        return version != null ? new EntityTag(version.toString()) : null;
+    }
+
+    /**
+     * If-Matchヘッダーから期待するバージョンを取得
+     * ヘッダーなし・"*" の場合はnull（バージョンを照合しない）
+     *
+     * @throws PreconditionFailedException 弱いETagなど、どのバージョンにも一致し得ない値の場合
+     * @throws ValidationFailedException 複数のETagが指定された場合
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if ("*".equals(value)) {
+            return null;
+        }
+        if (value.indexOf(',') >= 0) {
+            throw new ValidationFailedException("If-Matchには単一のETagを指定してください");
+        }
+        // If-Matchは強い比較のため、弱いETagは一致しない
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            try {
+                return Long.parseLong(value.substring(1, value.length() - 1));
+            } catch (NumberFormatException e) {
+                // 一致し得ないETagとして扱う
+            }
+        }
+        throw new PreconditionFailedException("If-Matchのバージョンが一致しません: " + value, null);
+    }
+
+    /**
+     * If-Match未指定時の428レスポンス
+     */
+    static Response preconditionRequired() {
+        return ErrorResponses.of(PRECONDITION_REQUIRED, PRECONDITION_REQUIRED_BODY);
+    }
+
+    /**
+     * バージョン不一致時の412レスポンス（現在のバージョンが分かればETagとして返す）
+     */
+    static Response preconditionFailed(PreconditionFailedException e) {
+        Response.ResponseBuilder builder = ErrorResponses.builder(e.getStatus().getStatusCode(), e.getMessage());
+        if (e.getCurrentVersion() != null) {
+            builder.tag(of(e.getCurrentVersion()));
+        }
+        return builder.build();
+    }
+}
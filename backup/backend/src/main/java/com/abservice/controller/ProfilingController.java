@@ -0,0 +1,81 @@
+package com.abservice.controller;
+
+import com.abservice.exception.ApiException;
+import com.abservice.exception.ErrorResponses;
+import com.abservice.exception.ValidationFailedException;
+import com.abservice.profiling.JfrRecordings;
+import io.smallrye.mutiny.Uni;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * JFRによるプロファイリングの管理APIコントローラー
+ * スレッド・SQLの内容を含むため、管理ロールのみに公開する
+ */
+@Path("/api/v1/admin/profiling")
+@RolesAllowed("${app.admin.role:admin}")
+@Tag(name = "Profiling", description = "プロファイリング管理API")
+public class ProfilingController {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Inject
+    JfrRecordings recordings;
+
+    /**
+     * 指定した期間のJFRレコーディングを取得
+     * 期間が経過するまで応答しないため、クライアントのタイムアウトは期間より長くすること
+     */
+    @POST
+    @Path("/recordings")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    @Operation(summary = "JFRレコーディング取得", description = "指定した期間（ISO-8601、例: PT30S）・設定（default / profile）でJFRを記録し、.jfrファイルを返します")
+    @APIResponse(responseCode = "200", description = "記録成功")
+    @APIResponse(responseCode = "400", description = "期間・設定が不正です")
+    @APIResponse(responseCode = "409", description = "他のレコーディングが実行中です")
+    public Uni<Response> record(@QueryParam("duration") String duration, @QueryParam("settings") String settings,
+                                @Context RoutingContext routingContext) {
+        String fileName = "abservice-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr";
+        Uni<java.nio.file.Path> recorded;
+        try {
+            recorded = recordings.record(parseDuration(duration), settings);
+        } catch (ApiException e) {
+            return Uni.createFrom().item(ErrorResponses.of(e));
+        }
+        return recorded.map(file -> {
+            // 送信の完了・失敗後に一時ファイルを削除する
+            routingContext.addEndHandler(result -> JfrRecordings.deleteQuietly(file));
+            return Response.ok(file, MediaType.APPLICATION_OCTET_STREAM_TYPE)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                    .build();
+        });
+    }
+
+    private static Duration parseDuration(String duration) {
+        if (duration == null || duration.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.parse(duration);
+        } catch (DateTimeParseException e) {
+            throw new ValidationFailedException("durationはISO-8601の期間（例: PT30S）で指定してください");
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package com.abservice.controller;
 
+import com.abservice.bulkhead.Bulkhead;
+import com.abservice.bulkhead.Bulkheads;
+import com.abservice.config.OptimisticLockConfig;
 import com.abservice.dto.RoleDto;
+import com.abservice.exception.ApiException;
+import com.abservice.exception.ErrorResponses;
+import com.abservice.exception.PreconditionFailedException;
+import com.abservice.idempotency.Idempotent;
+import com.abservice.service.MergePatch;
 import com.abservice.service.RoleServiceInterface;
+import com.abservice.service.SparseFieldset;
+import com.abservice.tracing.Traced;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.openapi.annotations.Operation;
@@ -14,6 +25,7 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -23,19 +35,28 @@ import java.util.Optional;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "Role", description = "ロール管理API")
+@Traced("controller")
 public class RoleController {
 
     @Inject
     RoleServiceInterface roleService;
 
+    @Inject
+    OptimisticLockConfig optimisticLockConfig;
+
     /**
      * すべてのRoleを取得
      */
     @GET
-    @Operation(summary = "Role一覧取得", description = "すべてのロールを取得します")
+    @Bulkhead(Bulkheads.PUBLIC_READ)
+    @Operation(summary = "Role一覧取得", description = "すべてのロールを取得します（fieldsで取得する項目を指定できます）")
     @APIResponse(responseCode = "200", description = "取得成功",
                  content = @Content(schema = @Schema(implementation = RoleDto.class)))
-    public Response getAllRoles() {
+    @APIResponse(responseCode = "400", description = "fieldsに指定できない項目が含まれています")
+    public Response getAllRoles(@QueryParam(SparseFieldset.QUERY_PARAM) String fields) {
+        if (fields != null) {
+            return Response.ok(roleService.findAll(SparseFieldset.parse(fields))).build();
+        }
         List<RoleDto> roles = roleService.findAll();
         return Response.ok(roles).build();
     }
@@ -44,19 +65,22 @@ public class RoleController {
      * IDでRoleを取得
      */
     @GET
+    @Bulkhead(Bulkheads.PUBLIC_READ)
     @Path("/{id}")
-    @Operation(summary = "Role取得", description = "指定されたIDのロールを取得します")
+    @Operation(summary = "Role取得", description = "指定されたIDのロールを取得します（fieldsで取得する項目を指定できます。ETagはversionを含む場合のみ返します）")
     @APIResponse(responseCode = "200", description = "取得成功",
                  content = @Content(schema = @Schema(implementation = RoleDto.class)))
+    @APIResponse(responseCode = "400", description = "fieldsに指定できない項目が含まれています")
     @APIResponse(responseCode = "404", description = "Roleが見つかりません")
-    public Response getRole(@PathParam("id") Long id) {
+    public Response getRole(@PathParam("id") Long id, @QueryParam(SparseFieldset.QUERY_PARAM) String fields) {
+        if (fields != null) {
+            return sparseResponse(roleService.findById(id, SparseFieldset.parse(fields)), String.valueOf(id));
+        }
         Optional<RoleDto> role = roleService.findById(id);
         if (role.isPresent()) {
-            return Response.ok(role.get()).build();
+            return Response.ok(role.get()).tag(EntityTags.of(role.get().getVersion())).build();
         } else {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"Roleが見つかりません: " + id + "\"}")
-                    .build();
+            return ErrorResponses.of(Response.Status.NOT_FOUND, "Roleが見つかりません: " + id);
         }
     }
 
@@ -64,19 +88,22 @@ public class RoleController {
      * 名前でRoleを取得
      */
     @GET
+    @Bulkhead(Bulkheads.PUBLIC_READ)
     @Path("/name/{name}")
-    @Operation(summary = "Role取得（名前）", description = "指定された名前のロールを取得します")
+    @Operation(summary = "Role取得（名前）", description = "指定された名前のロールを取得します（fieldsで取得する項目を指定できます。ETagはversionを含む場合のみ返します）")
     @APIResponse(responseCode = "200", description = "取得成功",
                  content = @Content(schema = @Schema(implementation = RoleDto.class)))
+    @APIResponse(responseCode = "400", description = "fieldsに指定できない項目が含まれています")
     @APIResponse(responseCode = "404", description = "Roleが見つかりません")
-    public Response getRoleByName(@PathParam("name") String name) {
+    public Response getRoleByName(@PathParam("name") String name, @QueryParam(SparseFieldset.QUERY_PARAM) String fields) {
+        if (fields != null) {
+            return sparseResponse(roleService.findByName(name, SparseFieldset.parse(fields)), name);
+        }
         Optional<RoleDto> role = roleService.findByName(name);
         if (role.isPresent()) {
-            return Response.ok(role.get()).build();
+            return Response.ok(role.get()).tag(EntityTags.of(role.get().getVersion())).build();
         } else {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"Roleが見つかりません: " + name + "\"}")
-                    .build();
+            return ErrorResponses.of(Response.Status.NOT_FOUND, "Roleが見つかりません: " + name);
         }
     }
 
@@ -84,22 +111,20 @@ public class RoleController {
      * Roleを作成
      */
     @POST
+    @Bulkhead(Bulkheads.ADMIN_WRITE)
     @Operation(summary = "Role作成", description = "新しいロールを作成します")
     @APIResponse(responseCode = "201", description = "作成成功",
                  content = @Content(schema = @Schema(implementation = RoleDto.class)))
     @APIResponse(responseCode = "400", description = "リクエストが不正です")
+    @APIResponse(responseCode = "409", description = "ロール名が既に使用されている、または同じIdempotency-Keyのリクエストを処理中です")
+    @APIResponse(responseCode = "422", description = "Idempotency-Keyが別の内容のリクエストで使用されています")
+    @Idempotent
     public Response createRole(@Valid RoleDto roleDto) {
         try {
             RoleDto createdRole = roleService.create(roleDto);
-            return Response.status(Response.Status.CREATED).entity(createdRole).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\": \"Roleの作成に失敗しました: " + e.getMessage() + "\"}")
-                    .build();
+            return Response.status(Response.Status.CREATED).entity(createdRole).tag(EntityTags.of(createdRole.getVersion())).build();
+        } catch (ApiException e) {
+            return ErrorResponses.of(e);
         }
     }
 
@@ -107,28 +132,58 @@ public class RoleController {
      * Roleを更新
      */
     @PUT
+    @Bulkhead(Bulkheads.ADMIN_WRITE)
     @Path("/{id}")
     @Operation(summary = "Role更新", description = "指定されたIDのロールを更新します")
     @APIResponse(responseCode = "200", description = "更新成功",
                  content = @Content(schema = @Schema(implementation = RoleDto.class)))
     @APIResponse(responseCode = "400", description = "リクエストが不正です")
     @APIResponse(responseCode = "404", description = "Roleが見つかりません")
-    public Response updateRole(@PathParam("id") Long id, @Valid RoleDto roleDto) {
+    @APIResponse(responseCode = "409", description = "ロール名が既に使用されています")
+    @APIResponse(responseCode = "412", description = "If-Matchのバージョンが一致しません")
+    @APIResponse(responseCode = "428", description = "If-Matchヘッダーが必要です")
+    public Response updateRole(@PathParam("id") Long id, @Valid RoleDto roleDto,
+                               @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        if (ifMatch == null && optimisticLockConfig.requireIfMatch()) {
+            return EntityTags.preconditionRequired();
+        }
+        try {
+            RoleDto updatedRole = roleService.update(id, roleDto, EntityTags.expectedVersion(ifMatch));
+            return Response.ok(updatedRole).tag(EntityTags.of(updatedRole.getVersion())).build();
+        } catch (PreconditionFailedException e) {
+            return EntityTags.preconditionFailed(e);
+        } catch (ApiException e) {
+            return ErrorResponses.of(e);
+        }
+    }
+
+    /**
+     * Roleを部分更新（JSON Merge Patch）
+     */
+    @PATCH
+    @Bulkhead(Bulkheads.ADMIN_WRITE)
+    @Path("/{id}")
+    @Consumes(MergePatch.MEDIA_TYPE)
+    @Operation(summary = "Role部分更新", description = "指定されたIDのロールにJSON Merge Patchを適用します。変更された項目のみを更新します")
+    @APIResponse(responseCode = "200", description = "更新成功",
+                 content = @Content(schema = @Schema(implementation = RoleDto.class)))
+    @APIResponse(responseCode = "400", description = "リクエストが不正です")
+    @APIResponse(responseCode = "404", description = "Roleが見つかりません")
+    @APIResponse(responseCode = "409", description = "ロール名が既に使用されています")
+    @APIResponse(responseCode = "412", description = "If-Matchのバージョンが一致しません")
+    @APIResponse(responseCode = "428", description = "If-Matchヘッダーが必要です")
+    public Response patchRole(@PathParam("id") Long id, String mergePatch,
+                              @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        if (ifMatch == null && optimisticLockConfig.requireIfMatch()) {
+            return EntityTags.preconditionRequired();
+        }
         try {
-            RoleDto updatedRole = roleService.update(id, roleDto);
-            return Response.ok(updatedRole).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
-        } catch (jakarta.ws.rs.NotFoundException e) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\": \"Roleの更新に失敗しました: " + e.getMessage() + "\"}")
-                    .build();
+            RoleDto patchedRole = roleService.patch(id, mergePatch, EntityTags.expectedVersion(ifMatch));
+            return Response.ok(patchedRole).tag(EntityTags.of(patchedRole.getVersion())).build();
+        } catch (PreconditionFailedException e) {
+            return EntityTags.preconditionFailed(e);
+        } catch (ApiException e) {
+            return ErrorResponses.of(e);
         }
     }
 
@@ -136,22 +191,34 @@ public class RoleController {
      * Roleを削除
      */
     @DELETE
+    @Bulkhead(Bulkheads.ADMIN_WRITE)
     @Path("/{id}")
     @Operation(summary = "Role削除", description = "指定されたIDのロールを削除します")
     @APIResponse(responseCode = "204", description = "削除成功")
     @APIResponse(responseCode = "404", description = "Roleが見つかりません")
-    public Response deleteRole(@PathParam("id") Long id) {
+    @APIResponse(responseCode = "412", description = "If-Matchのバージョンが一致しません")
+    @APIResponse(responseCode = "428", description = "If-Matchヘッダーが必要です")
+    public Response deleteRole(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        if (ifMatch == null && optimisticLockConfig.requireIfMatch()) {
+            return EntityTags.preconditionRequired();
+        }
         try {
-            roleService.delete(id);
+            roleService.delete(id, EntityTags.expectedVersion(ifMatch));
             return Response.noContent().build();
-        } catch (jakarta.ws.rs.NotFoundException e) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\": \"Roleの削除に失敗しました: " + e.getMessage() + "\"}")
-                    .build();
+        } catch (PreconditionFailedException e) {
+            return EntityTags.preconditionFailed(e);
+        } catch (ApiException e) {
+            return ErrorResponses.of(e);
+        }
+    }
+
+    /**
+     * 項目を絞った1件の応答（versionを含む場合のみETagを付与）
+     */
+    private static Response sparseResponse(Optional<Map<String, Object>> role, String key) {
+        if (role.isEmpty()) {
+            return ErrorResponses.of(Response.Status.NOT_FOUND, "Roleが見つかりません: " + key);
         }
+        return Response.ok(role.get()).tag(EntityTags.of((Long) role.get().get("version"))).build();
     }
 }
@@ -0,0 +1,60 @@
+package com.abservice.controller;
+
+import com.abservice.exception.ErrorResponses;
+import com.abservice.slowquery.SlowQuery;
+import com.abservice.slowquery.SlowQueryRecorder;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import java.util.List;
+
+/**
+ * 低速クエリの確認用管理APIコントローラー
+ * SQL本文と実行計画を返すため、管理ロールのみに公開する
+ */
+@Path("/api/v1/admin/slow-queries")
+@Produces(MediaType.APPLICATION_JSON)
+@RolesAllowed("${app.admin.role:admin}")
+@Tag(name = "SlowQuery", description = "低速クエリ管理API")
+public class SlowQueryController {
+
+    @Inject
+    SlowQueryRecorder recorder;
+
+    /**
+     * 記録中の低速クエリを実行時間の長い順に取得
+     */
+    @GET
+    @Operation(summary = "低速クエリ一覧取得", description = "しきい値を超えたSQLを実行時間の長い順に取得します（サンプリングされたものは実行計画を含みます）")
+    @APIResponse(responseCode = "200", description = "取得成功")
+    @APIResponse(responseCode = "400", description = "limitが不正です")
+    public Response getSlowQueries(@QueryParam("limit") @DefaultValue("50") int limit) {
+        if (limit < 1) {
+            return ErrorResponses.of(Response.Status.BAD_REQUEST, "limitは1以上を指定してください");
+        }
+        List<SlowQuery> queries = recorder.worst(limit);
+        return Response.ok(queries).build();
+    }
+
+    /**
+     * 記録を消去
+     */
+    @DELETE
+    @Operation(summary = "低速クエリ消去", description = "記録中の低速クエリをすべて消去します")
+    @APIResponse(responseCode = "204", description = "消去成功")
+    public Response clearSlowQueries() {
+        recorder.clear();
+        return Response.noContent().build();
+    }
+}
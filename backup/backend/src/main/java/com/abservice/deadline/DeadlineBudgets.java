@@ -0,0 +1,67 @@
+package com.abservice.deadline;
+
+import com.abservice.config.DeadlineConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * ルート別設定に従ってリクエストの処理期限を決定する
+ */
+@ApplicationScoped
+public class DeadlineBudgets {
+
+    private record Route(String pathPrefix, Set<String> methods, long budgetMillis) {
+
+        boolean matches(String method, String path) {
+            return path.startsWith(pathPrefix) && (methods.isEmpty() || methods.contains(method));
+        }
+    }
+
+    @Inject
+    DeadlineConfig config;
+
+    private List<Route> routes = List.of();
+
+    @PostConstruct
+    void init() {
+        List<Route> built = new ArrayList<>();
+        config.routes().values().forEach(route -> built.add(new Route(
+                route.pathPrefix(),
+                route.methods()
+                        .map(methods -> methods.stream()
+                                .map(method -> method.toUpperCase(Locale.ROOT))
+                                .collect(Collectors.toUnmodifiableSet()))
+                        .orElse(Set.of()),
+                route.budget().toMillis())));
+        // パスプレフィックスが長いもの、メソッド指定のあるものを優先する
+        built.sort(Comparator.comparingInt((Route route) -> route.pathPrefix().length()).reversed()
+                .thenComparing(route -> route.methods().isEmpty()));
+        routes = List.copyOf(built);
+    }
+
+    public boolean isEnabled() {
+        return config.enabled();
+    }
+
+    /**
+     * リクエストの処理期限（ミリ秒）を取得
+     *
+     * @return 処理期限。0以下の場合は期限を設けない
+     */
+    public long budgetMillis(String method, String path) {
+        for (Route route : routes) {
+            if (route.matches(method, path)) {
+                return route.budgetMillis();
+            }
+        }
+        return config.defaultBudget().toMillis();
+    }
+}
@@ -0,0 +1,35 @@
+package com.abservice.deadline;
+
+import io.agroal.api.AgroalPoolInterceptor;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.sql.Connection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * コネクションプールから取得された接続を現在のリクエストの処理期限に関連付ける
+ * 期限超過やクライアント切断時に、その接続で実行中のクエリをキャンセルできるようにする
+ */
+@ApplicationScoped
+public class DeadlineConnectionInterceptor implements AgroalPoolInterceptor {
+
+    private final ConcurrentHashMap<Connection, RequestDeadline> owners = new ConcurrentHashMap<>();
+
+    @Override
+    public void onConnectionAcquire(Connection connection) {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline != null) {
+            owners.put(connection, deadline);
+            deadline.attach(connection);
+        }
+    }
+
+    @Override
+    public void onConnectionReturn(Connection connection) {
+        // 返却はリクエストコンテキスト外で行われることがあるため、取得時の関連付けから解除する
+        RequestDeadline deadline = owners.remove(connection);
+        if (deadline != null) {
+            deadline.detach(connection);
+        }
+    }
+}
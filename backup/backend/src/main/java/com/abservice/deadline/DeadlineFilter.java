@@ -0,0 +1,92 @@
+package com.abservice.deadline;
+
+import io.quarkus.arc.ClientProxy;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+import org.jboss.logging.Logger;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * /api/* へのリクエストに処理期限を設定するフィルター
+ * X-Request-Deadline ヘッダー（エポックミリ秒またはISO-8601の時刻）はルート別の処理期限より短い場合のみ採用する
+ */
+public class DeadlineFilter {
+
+    private static final Logger LOG = Logger.getLogger(DeadlineFilter.class);
+
+    private static final String API_PREFIX = "/api/";
+    private static final String DEADLINE_HEADER = "X-Request-Deadline";
+
+    @Inject
+    DeadlineBudgets budgets;
+
+    @Inject
+    RequestDeadline requestDeadline;
+
+    @Inject
+    DeadlineResponses responses;
+
+    @Inject
+    Vertx vertx;
+
+    @ServerRequestFilter(preMatching = true)
+    public Response start(HttpServerRequest request, RoutingContext routingContext) {
+        String path = request.path();
+        if (!budgets.isEnabled() || path == null || !path.startsWith(API_PREFIX)) {
+            return null;
+        }
+        long startNanos = System.nanoTime();
+        long budgetMillis = budgets.budgetMillis(request.method().name(), path);
+        if (budgetMillis <= 0) {
+            return null;
+        }
+        String source = RequestDeadline.SOURCE_ROUTE;
+        Long requestedMillis = requestedBudgetMillis(request.getHeader(DEADLINE_HEADER));
+        if (requestedMillis != null && requestedMillis < budgetMillis) {
+            budgetMillis = requestedMillis;
+            source = RequestDeadline.SOURCE_HEADER;
+        }
+
+        RequestDeadline deadline = ClientProxy.unwrap(requestDeadline);
+        deadline.start(startNanos, budgetMillis, source);
+        if (budgetMillis <= 0) {
+            return responses.exceeded(deadline.toException("admission"));
+        }
+
+        long timerId = vertx.setTimer(budgetMillis,
+                id -> Infrastructure.getDefaultWorkerPool().execute(() -> deadline.cancel(RequestDeadline.REASON_EXPIRED)));
+        routingContext.addEndHandler(result -> {
+            vertx.cancelTimer(timerId);
+            if (result.failed()) {
+                Infrastructure.getDefaultWorkerPool().execute(() -> deadline.cancel(RequestDeadline.REASON_DISCONNECTED));
+            }
+        });
+        return null;
+    }
+
+    /**
+     * X-Request-Deadline ヘッダーから残り時間（ミリ秒）を算出
+     */
+    private static Long requestedBudgetMillis(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        String value = header.trim();
+        try {
+            long deadlineMillis = Character.isDigit(value.charAt(0)) && value.chars().allMatch(Character::isDigit)
+                    ? Long.parseLong(value)
+                    : Instant.parse(value).toEpochMilli();
+            return deadlineMillis - System.currentTimeMillis();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            LOG.debugf("不正な%sヘッダーを無視します: %s", DEADLINE_HEADER, value);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.abservice.deadline;
+
+import com.abservice.exception.DeadlineExceededException;
+import com.abservice.exception.ErrorResponses;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.sql.SQLException;
+
+/**
+ * 処理期限超過時の503レスポンスを生成する
+ */
+@ApplicationScoped
+public class DeadlineResponses {
+
+    /** PostgreSQLのquery_canceled */
+    private static final String QUERY_CANCELED = "57014";
+
+    private static final byte[] DEADLINE_EXCEEDED_BODY = ErrorResponses.encode(
+            Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), "リクエストの処理期限を超過しました");
+
+    /**
+     * 例外が処理期限超過によるものであれば対応する例外を返す
+     * 期限によるクエリキャンセル（SQLState 57014）もここで処理期限超過として扱う
+     */
+    public DeadlineExceededException asDeadlineExceeded(Throwable exception) {
+        if (exception instanceof DeadlineExceededException exceeded) {
+            return exceeded;
+        }
+        if (!isQueryCanceled(exception)) {
+            return null;
+        }
+        RequestDeadline deadline = RequestDeadline.current();
+        return deadline != null ? deadline.toException("query") : null;
+    }
+
+    /**
+     * 本文は他のエラー応答と同じ形の固定値とし、期限と経過時間、期限の指定元と理由はServer-Timingで返す
+     */
+    public Response exceeded(DeadlineExceededException exception) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .header("Server-Timing", "deadline;dur=" + exception.getBudgetMillis()
+                        + ";desc=\"" + exception.getSource() + "/" + exception.getReason() + "\""
+                        + ", elapsed;dur=" + exception.getElapsedMillis())
+                .entity(DEADLINE_EXCEEDED_BODY)
+                .build();
+    }
+
+    private static boolean isQueryCanceled(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && QUERY_CANCELED.equals(sql.getSQLState())) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
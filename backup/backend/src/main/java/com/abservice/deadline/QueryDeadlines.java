@@ -0,0 +1,44 @@
+package com.abservice.deadline;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * クエリにタイムアウトを設定する
+ * タイムアウトは app.database.query-timeout とリクエストの残り処理時間の短い方
+ * JDBCのタイムアウトは秒単位のため、秒未満の期限はRequestDeadlineのタイマーによるキャンセルで守る
+ */
+@ApplicationScoped
+public class QueryDeadlines {
+
+    private static final String TIMEOUT_HINT = "org.hibernate.timeout";
+
+    @ConfigProperty(name = "app.database.query-timeout", defaultValue = "30")
+    int queryTimeoutSeconds;
+
+    public <T> TypedQuery<T> apply(TypedQuery<T> query) {
+        query.setHint(TIMEOUT_HINT, timeoutSeconds());
+        return query;
+    }
+
+    public Query apply(Query query) {
+        query.setHint(TIMEOUT_HINT, timeoutSeconds());
+        return query;
+    }
+
+    /**
+     * 適用するタイムアウト（秒）を算出
+     * 期限を超過している場合はクエリを実行せずに例外を送出する
+     */
+    private int timeoutSeconds() {
+        long timeoutMillis = queryTimeoutSeconds * 1000L;
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline != null) {
+            deadline.checkpoint("query");
+            timeoutMillis = Math.min(timeoutMillis, deadline.remainingMillis());
+        }
+        return (int) Math.max(1, (timeoutMillis + 999) / 1000);
+    }
+}
@@ -0,0 +1,12 @@
+package com.abservice.deadline;
+
+import io.quarkus.agroal.DataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * 読み取りレプリカのコネクションプールにも処理期限によるクエリキャンセルを適用する
+ */
+@ApplicationScoped
+@DataSource("replica")
+public class ReplicaDeadlineConnectionInterceptor extends DeadlineConnectionInterceptor {
+}
@@ -0,0 +1,141 @@
+package com.abservice.deadline;
+
+import com.abservice.exception.DeadlineExceededException;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.arc.ManagedContext;
+import jakarta.enterprise.context.RequestScoped;
+import org.jboss.logging.Logger;
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * リクエストの処理期限
+ * 期限超過またはクライアント切断時に取り消され、使用中のDB接続で実行中のクエリもキャンセルする
+ */
+@RequestScoped
+public class RequestDeadline {
+
+    private static final Logger LOG = Logger.getLogger(RequestDeadline.class);
+
+    public static final String SOURCE_ROUTE = "route";
+    public static final String SOURCE_HEADER = "header";
+
+    public static final String REASON_EXPIRED = "deadline-exceeded";
+    public static final String REASON_DISCONNECTED = "client-disconnected";
+
+    private volatile boolean active;
+    private volatile long startNanos;
+    private volatile long budgetMillis;
+    private volatile String source;
+    private volatile String cancelReason;
+
+    /** 現在このリクエストが使用中のDB接続 */
+    private Connection connection;
+
+    /**
+     * 現在のリクエストの処理期限を取得
+     * リクエストコンテキストがない、または期限が設定されていない場合はnull
+     */
+    public static RequestDeadline current() {
+        ManagedContext requestContext = Arc.container().requestContext();
+        if (!requestContext.isActive()) {
+            return null;
+        }
+        RequestDeadline deadline = ClientProxy.unwrap(Arc.container().instance(RequestDeadline.class).get());
+        return deadline.active ? deadline : null;
+    }
+
+    /**
+     * 処理期限を開始
+     */
+    void start(long startNanos, long budgetMillis, String source) {
+        this.startNanos = startNanos;
+        this.budgetMillis = budgetMillis;
+        this.source = source;
+        this.active = true;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getCancelReason() {
+        return cancelReason;
+    }
+
+    public long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    public long remainingMillis() {
+        return budgetMillis - elapsedMillis();
+    }
+
+    /**
+     * 期限超過または取り消し済みか
+     */
+    public boolean isExceeded() {
+        return active && (cancelReason != null || remainingMillis() <= 0);
+    }
+
+    /**
+     * 処理を続行できるか確認
+     *
+     * @param stage 確認した処理段階（エラーメッセージ用）
+     */
+    public void checkpoint(String stage) {
+        if (isExceeded()) {
+            throw toException(stage);
+        }
+    }
+
+    /**
+     * 現在の状態を表す例外を生成
+     */
+    public DeadlineExceededException toException(String stage) {
+        String reason = cancelReason != null ? cancelReason : REASON_EXPIRED;
+        return new DeadlineExceededException(
+                "リクエストの処理期限を超過しました: stage=" + stage + ", reason=" + reason,
+                budgetMillis, elapsedMillis(), source, reason);
+    }
+
+    /**
+     * 処理期限を取り消し、実行中のクエリをキャンセルする
+     * ブロッキングI/Oを伴うため、イベントループスレッドから呼び出してはならない
+     */
+    synchronized void cancel(String reason) {
+        if (cancelReason == null) {
+            cancelReason = reason;
+        }
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.unwrap(PGConnection.class).cancelQuery();
+            LOG.debugf("実行中のクエリをキャンセルしました: reason=%s, elapsed=%dms", reason, elapsedMillis());
+        } catch (SQLException e) {
+            LOG.debugf(e, "クエリのキャンセルに失敗しました: reason=%s", reason);
+        }
+    }
+
+    synchronized void attach(Connection connection) {
+        this.connection = connection;
+    }
+
+    synchronized void detach(Connection connection) {
+        if (this.connection == connection) {
+            this.connection = null;
+        }
+    }
+}
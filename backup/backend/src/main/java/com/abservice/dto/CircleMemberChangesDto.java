@@ -0,0 +1,70 @@
+package com.abservice.dto;
+
+import java.util.List;
+
+/**
+ * CircleMember差分同期レスポンスのデータ転送オブジェクト
+ */
+public class CircleMemberChangesDto {
+
+    private List<CircleMemberDto> changed;
+
+    private List<Long> deletedIds;
+
+    private long cursor;
+
+    private boolean fullResync;
+
+    public CircleMemberChangesDto() {}
+
+    public CircleMemberChangesDto(List<CircleMemberDto> changed, List<Long> deletedIds,
+                                  long cursor, boolean fullResync) {
+        this.changed = changed;
+        this.deletedIds = deletedIds;
+        this.cursor = cursor;
+        this.fullResync = fullResync;
+    }
+
+    // Getters and Setters
+    public List<CircleMemberDto> getChanged() {
+        return changed;
+    }
+
+    public void setChanged(List<CircleMemberDto> changed) {
+        this.changed = changed;
+    }
+
+    public List<Long> getDeletedIds() {
+        return deletedIds;
+    }
+
+    public void setDeletedIds(List<Long> deletedIds) {
+        this.deletedIds = deletedIds;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(long cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isFullResync() {
+        return fullResync;
+    }
+
+    public void setFullResync(boolean fullResync) {
+        this.fullResync = fullResync;
+    }
+
+    @Override
+    public String toString() {
+        return "CircleMemberChangesDto{" +
+                "changed=" + (changed != null ? changed.size() : 0) +
+                ", deletedIds=" + deletedIds +
+                ", cursor=" + cursor +
+                ", fullResync=" + fullResync +
+                '}';
+    }
+}
@@ -3,11 +3,13 @@ package com.abservice.dto;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.eclipse.microprofile.graphql.Type;
 import java.time.LocalDateTime;
 
 /**
  * CircleMemberのデータ転送オブジェクト
  */
+@Type("CircleMember")
 public class CircleMemberDto {
 
     private Long id;
@@ -36,10 +38,14 @@ public class CircleMemberDto {
 
     private LocalDateTime updatedAt;
 
+    private Long roleId;
+
     private String roleName;
 
     private String roleDescription;
 
+    private Long version;
+
     public CircleMemberDto() {}
 
     public CircleMemberDto(Long id, String username, String displayName, String email,
@@ -132,6 +138,14 @@ public class CircleMemberDto {
         this.updatedAt = updatedAt;
     }
 
+    public Long getRoleId() {
+        return roleId;
+    }
+
+    public void setRoleId(Long roleId) {
+        this.roleId = roleId;
+    }
+
     public String getRoleName() {
         return roleName;
     }
@@ -148,6 +162,14 @@ public class CircleMemberDto {
         this.roleDescription = roleDescription;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "CircleMemberDto{" +
@@ -0,0 +1,94 @@
+package com.abservice.dto;
+
+import org.eclipse.microprofile.graphql.Type;
+
+/**
+ * Permissionのデータ転送オブジェクト
+ */
+@Type("Permission")
+public class PermissionDto {
+
+    private Long id;
+
+    private String name;
+
+    private String description;
+
+    private String resource;
+
+    private String action;
+
+    private Boolean isActive;
+
+    public PermissionDto() {}
+
+    public PermissionDto(Long id, String name, String description,
+                         String resource, String action, Boolean isActive) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.resource = resource;
+        this.action = action;
+        this.isActive = isActive;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    public void setResource(String resource) {
+        this.resource = resource;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public Boolean getIsActive() {
+        return isActive;
+    }
+
+    public void setIsActive(Boolean isActive) {
+        this.isActive = isActive;
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionDto{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", resource='" + resource + '\'' +
+                ", action='" + action + '\'' +
+                ", isActive=" + isActive +
+                '}';
+    }
+}
@@ -2,11 +2,13 @@ package com.abservice.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.eclipse.microprofile.graphql.Type;
 import java.time.LocalDateTime;
 
 /**
  * Roleのデータ転送オブジェクト
  */
+@Type("Role")
 public class RoleDto {
 
     private Long id;
@@ -22,6 +24,8 @@ public class RoleDto {
 
     private LocalDateTime updatedAt;
 
+    private Long version;
+
     public RoleDto() {}
 
     public RoleDto(Long id, String name, String description,
@@ -74,6 +78,14 @@ public class RoleDto {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "RoleDto{" +
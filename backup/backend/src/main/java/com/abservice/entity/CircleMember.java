@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.TenantId;
 import java.time.LocalDateTime;
 
 /**
@@ -11,16 +13,27 @@ import java.time.LocalDateTime;
  * ポートフォリオの編集・管理を担うメンバー情報を管理する
  */
 @Entity
-@Table(name = "circle_members")
+@DynamicUpdate
+@Table(name = "circle_members", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_circle_members_tenant_username", columnNames = {"tenant_id", "username"}),
+        @UniqueConstraint(name = "uk_circle_members_tenant_email", columnNames = {"tenant_id", "email"})
+})
 public class CircleMember {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /**
+     * 所属するテナント（サークル）。Hibernateが現在のテナントを設定し、クエリの条件にも自動で追加する
+     */
+    @TenantId
+    @Column(name = "tenant_id", nullable = false, updatable = false, length = 63)
+    private String tenantId;
+
     @NotBlank
     @Size(max = 100)
-    @Column(name = "username", nullable = false, unique = true, length = 100)
+    @Column(name = "username", nullable = false, length = 100)
     private String username;
 
     @NotBlank
@@ -30,7 +43,7 @@ public class CircleMember {
 
     @Email
     @Size(max = 255)
-    @Column(name = "email", unique = true, length = 255)
+    @Column(name = "email", length = 255)
     private String email;
 
     @Size(max = 500)
@@ -54,6 +67,19 @@ public class CircleMember {
     @JoinColumn(name = "role_id", nullable = false)
     private Role role;
 
+    /**
+     * 最終変更トランザクションID（DBトリガーで採番、差分同期のカーソルに使用）
+     */
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
+    /**
+     * 楽観的ロック用のバージョン（ETagとして公開する）
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public CircleMember() {
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
@@ -81,6 +107,10 @@ public class CircleMember {
         this.id = id;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
     public String getUsername() {
         return username;
     }
@@ -153,6 +183,18 @@ public class CircleMember {
         this.role = role;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,69 @@
+package com.abservice.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+import java.time.OffsetDateTime;
+
+/**
+ * 削除済みサークルメンバーのトゥームストーン
+ * 差分同期でクライアントに削除を伝えるため、DBトリガーが削除時に記録する
+ */
+@Entity
+@Table(name = "circle_member_tombstones")
+public class CircleMemberTombstone {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @TenantId
+    @Column(name = "tenant_id", nullable = false, updatable = false, length = 63)
+    private String tenantId;
+
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    @Column(name = "deleted_at", nullable = false)
+    private OffsetDateTime deletedAt;
+
+    public CircleMemberTombstone() {}
+
+    // Getters
+    public Long getMemberId() {
+        return memberId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public OffsetDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CircleMemberTombstone)) return false;
+        CircleMemberTombstone that = (CircleMemberTombstone) o;
+        return memberId != null && memberId.equals(that.memberId);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "CircleMemberTombstone{" +
+                "memberId=" + memberId +
+                ", changeSeq=" + changeSeq +
+                ", deletedAt=" + deletedAt +
+                '}';
+    }
+}
@@ -3,6 +3,8 @@ package com.abservice.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.TenantId;
 import java.time.LocalDateTime;
 import java.util.Set;
 
@@ -11,16 +13,25 @@ import java.util.Set;
  * ポートフォリオの編集・管理権限を定義する
  */
 @Entity
-@Table(name = "roles")
+@DynamicUpdate
+@Table(name = "roles", uniqueConstraints =
+        @UniqueConstraint(name = "uk_roles_tenant_name", columnNames = {"tenant_id", "name"}))
 public class Role {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     public Long id;
 
+    /**
+     * 所属するテナント（サークル）。Hibernateが現在のテナントを設定し、クエリの条件にも自動で追加する
+     */
+    @TenantId
+    @Column(name = "tenant_id", nullable = false, updatable = false, length = 63)
+    public String tenantId;
+
     @NotBlank
     @Size(max = 50)
-    @Column(name = "name", nullable = false, unique = true, length = 50)
+    @Column(name = "name", nullable = false, length = 50)
     public String name;
 
     @Size(max = 255)
@@ -33,9 +44,22 @@ public class Role {
     @Column(name = "updated_at", nullable = false)
     public LocalDateTime updatedAt;
 
+    /**
+     * 楽観的ロック用のバージョン（ETagとして公開する）
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    public Long version;
+
     @OneToMany(mappedBy = "role", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<CircleMember> circleMembers;
 
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "role_permissions",
+               joinColumns = @JoinColumn(name = "role_id"),
+               inverseJoinColumns = @JoinColumn(name = "permission_id"))
+    private Set<Permission> permissions;
+
     public Role() {
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
@@ -93,6 +117,14 @@ public class Role {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Set<CircleMember> getCircleMembers() {
         return circleMembers;
     }
@@ -101,6 +133,14 @@ public class Role {
         this.circleMembers = circleMembers;
     }
 
+    public Set<Permission> getPermissions() {
+        return permissions;
+    }
+
+    public void setPermissions(Set<Permission> permissions) {
+        this.permissions = permissions;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
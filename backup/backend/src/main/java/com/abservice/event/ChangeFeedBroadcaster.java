@@ -0,0 +1,38 @@
+package com.abservice.event;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+
+/**
+ * ノード内の変更イベント配信ハブ
+ * ChangeFeedListenerが受信したイベントを全てのSSE購読者・ノード内購読者へ配信する
+ */
+@ApplicationScoped
+public class ChangeFeedBroadcaster {
+
+    @Inject
+    Event<EntityChangeEvent> changes;
+
+    private final BroadcastProcessor<EntityChangeEvent> processor = BroadcastProcessor.create();
+
+    /**
+     * イベントを全購読者へ配信
+     * 呼び出しはリスナースレッドからの単一スレッドに限定される
+     * 読み取りキャッシュを先に破棄してから配信するため、購読者の再取得が古い値を読むことはない
+     */
+    void emit(EntityChangeEvent event) {
+        changes.fire(event);
+        processor.onNext(event);
+    }
+
+    /**
+     * 変更イベントのストリームを取得
+     * 購読開始以降のイベントのみが配信される
+     */
+    public Multi<EntityChangeEvent> stream() {
+        return processor;
+    }
+}
@@ -0,0 +1,128 @@
+package com.abservice.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+/**
+ * PostgreSQLのLISTENで変更イベントを受信するノード単位のリスナー
+ * コネクションプールとは別の専用接続を1本だけ保持し、受信したイベントをChangeFeedBroadcasterへ渡す
+ */
+@ApplicationScoped
+public class ChangeFeedListener {
+
+    private static final Logger LOG = Logger.getLogger(ChangeFeedListener.class);
+
+    private static final Pattern CHANNEL_PATTERN = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+
+    @Inject
+    ChangeFeedBroadcaster broadcaster;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "app.change-feed.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.change-feed.channel", defaultValue = "abservice_changes")
+    String channel;
+
+    @ConfigProperty(name = "app.change-feed.poll-timeout-millis", defaultValue = "1000")
+    int pollTimeoutMillis;
+
+    @ConfigProperty(name = "app.change-feed.reconnect-delay-millis", defaultValue = "5000")
+    long reconnectDelayMillis;
+
+    @ConfigProperty(name = "quarkus.datasource.jdbc.url")
+    String jdbcUrl;
+
+    @ConfigProperty(name = "quarkus.datasource.username")
+    String username;
+
+    @ConfigProperty(name = "quarkus.datasource.password")
+    String password;
+
+    private volatile boolean running;
+
+    private Thread listenerThread;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!CHANNEL_PATTERN.matcher(channel).matches()) {
+            throw new IllegalStateException("app.change-feed.channelが不正です: " + channel);
+        }
+        running = true;
+        listenerThread = Thread.ofPlatform()
+                .name("change-feed-listener")
+                .daemon()
+                .start(this::run);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    /**
+     * 接続・LISTEN・受信を繰り返す。接続断の場合は一定時間待って再接続する
+     */
+    private void run() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(jdbcUrl, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                LOG.infof("変更フィードのLISTENを開始しました: %s", channel);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMillis);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        dispatch(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                LOG.warnf(e, "変更フィードの接続が切断されました。%dms後に再接続します", reconnectDelayMillis);
+                try {
+                    Thread.sleep(reconnectDelayMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        try {
+            broadcaster.emit(objectMapper.readValue(payload, EntityChangeEvent.class));
+        } catch (IOException e) {
+            LOG.warnf("変更イベントを解析できませんでした: %s", payload);
+        } catch (RuntimeException e) {
+            LOG.error("変更イベントの配信に失敗しました", e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.abservice.event;
+
+import com.abservice.event.EntityChangeEvent.ChangeType;
+import com.abservice.event.EntityChangeEvent.EntityType;
+import com.abservice.outbox.OutboxWriter;
+import com.abservice.tenant.TenantEntityManagers;
+import com.abservice.tenant.Tenants;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Instant;
+
+/**
+ * 変更イベントをPostgreSQLのNOTIFYで発行する
+ * NOTIFYは呼び出し元トランザクションのコミット時にのみ配信され、ロールバック時は破棄される
+ * ノード内のキャッシュ向けには同じイベントをCDIイベントとしても発行する（トランザクション監視者にはコミット後に配信される）
+ * 外部システム向けには同じトランザクションでアウトボックスにも書き込む
+ * イベントには変更を行ったテナントを含め、購読側はそれで絞り込む
+ */
+@ApplicationScoped
+public class ChangeNotifier {
+
+    @Inject
+    TenantEntityManagers entityManagers;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Event<EntityChangeEvent> localChanges;
+
+    @Inject
+    OutboxWriter outboxWriter;
+
+    @ConfigProperty(name = "app.change-feed.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.change-feed.channel", defaultValue = "abservice_changes")
+    String channel;
+
+    /**
+     * CircleMemberの変更を通知
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void circleMemberChanged(ChangeType changeType, Long id) {
+        publish(new EntityChangeEvent(Tenants.current(), EntityType.CIRCLE_MEMBER, changeType, id, Instant.now()));
+    }
+
+    /**
+     * Roleの変更を通知
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void roleChanged(ChangeType changeType, Long id) {
+        publish(new EntityChangeEvent(Tenants.current(), EntityType.ROLE, changeType, id, Instant.now()));
+    }
+
+    /**
+     * 現在のトランザクションにNOTIFYを登録
+     */
+    private void publish(EntityChangeEvent event) {
+        localChanges.fire(event);
+        outboxWriter.append(event);
+        if (!enabled) {
+            return;
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("変更イベントのシリアライズに失敗しました: " + event, e);
+        }
+        entityManagers.primary().createNativeQuery("SELECT pg_notify(?1, ?2)")
+                .setParameter(1, channel)
+                .setParameter(2, payload)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,99 @@
+package com.abservice.event;
+
+import java.time.Instant;
+
+/**
+ * CircleMember/Roleの変更イベント
+ * pg_notifyのペイロードおよびSSEのデータとして使用する
+ */
+public class EntityChangeEvent {
+
+    /**
+     * 変更対象のエンティティ種別
+     */
+    public enum EntityType {
+        CIRCLE_MEMBER,
+        ROLE
+    }
+
+    /**
+     * 変更種別
+     */
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private String tenant;
+
+    private EntityType entityType;
+
+    private ChangeType changeType;
+
+    private Long id;
+
+    private Instant occurredAt;
+
+    public EntityChangeEvent() {}
+
+    public EntityChangeEvent(String tenant, EntityType entityType, ChangeType changeType, Long id, Instant occurredAt) {
+        this.tenant = tenant;
+        this.entityType = entityType;
+        this.changeType = changeType;
+        this.id = id;
+        this.occurredAt = occurredAt;
+    }
+
+    // Getters and Setters
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(EntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(ChangeType changeType) {
+        this.changeType = changeType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(Instant occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityChangeEvent{" +
+                "tenant=" + tenant +
+                ", entityType=" + entityType +
+                ", changeType=" + changeType +
+                ", id=" + id +
+                ", occurredAt=" + occurredAt +
+                '}';
+    }
+}
@@ -0,0 +1,30 @@
+package com.abservice.exception;
+
+import jakarta.ws.rs.core.Response;
+
+/**
+ * クライアントの入力やリソースの状態に起因する、想定内のエラーの基底クラス
+ * 大量に発生し得るため、スタックトレースは取得しない
+ */
+public abstract class ApiException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Response.Status status;
+
+    protected ApiException(Response.Status status, String message) {
+        this(status, message, null);
+    }
+
+    protected ApiException(Response.Status status, String message, Throwable cause) {
+        super(message, cause, false, false);
+        this.status = status;
+    }
+
+    /**
+     * 応答するHTTPステータス
+     */
+    public Response.Status getStatus() {
+        return status;
+    }
+}
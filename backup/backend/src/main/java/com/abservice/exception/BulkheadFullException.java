@@ -0,0 +1,15 @@
+package com.abservice.exception;
+
+import jakarta.ws.rs.core.Response;
+
+/**
+ * 処理の区画（バルクヘッド）の同時実行数と待ち行列が埋まっている場合の例外
+ */
+public class BulkheadFullException extends ApiException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BulkheadFullException(String compartment) {
+        super(Response.Status.SERVICE_UNAVAILABLE, "サーバーが混雑しています。しばらくしてから再試行してください（" + compartment + "）");
+    }
+}
@@ -0,0 +1,15 @@
+package com.abservice.exception;
+
+import jakarta.ws.rs.core.Response;
+
+/**
+ * 一意であるべき値（ユーザー名・メールアドレス・ロール名など）が既に使用されている場合の例外
+ */
+public class ConflictException extends ApiException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConflictException(String message) {
+        super(Response.Status.CONFLICT, message);
+    }
+}
@@ -0,0 +1,38 @@
+package com.abservice.exception;
+
+/**
+ * リクエストの処理期限を超過した、またはクライアントが切断した場合の例外
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long budgetMillis;
+    private final long elapsedMillis;
+    private final String source;
+    private final String reason;
+
+    public DeadlineExceededException(String message, long budgetMillis, long elapsedMillis, String source, String reason) {
+        super(message);
+        this.budgetMillis = budgetMillis;
+        this.elapsedMillis = elapsedMillis;
+        this.source = source;
+        this.reason = reason;
+    }
+
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,154 @@
+package com.abservice.exception;
+
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * エラー応答の本文（{"status":404,"error":"Not Found","message":"..."}）の生成
+ * ステータスごとの先頭部分は事前にUTF-8へ変換しておき、メッセージ部分だけを連結したバイト列を返す
+ * 固定メッセージの応答は {@link #encode(int, String)} の結果を定数として保持して使い回す
+ */
+public final class ErrorResponses {
+
+    private static final int MIN_STATUS = 400;
+    private static final int MAX_STATUS = 599;
+
+    private static final byte[][] PREFIXES = new byte[MAX_STATUS - MIN_STATUS + 1][];
+    private static final byte[] SUFFIX = "\"}".getBytes(StandardCharsets.UTF_8);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    static {
+        for (int status = MIN_STATUS; status <= MAX_STATUS; status++) {
+            PREFIXES[status - MIN_STATUS] = prefix(status, reasonPhrase(status));
+        }
+    }
+
+    private ErrorResponses() {
+    }
+
+    /**
+     * 例外のステータスとメッセージから応答を生成
+     */
+    public static Response of(ApiException exception) {
+        return builder(exception.getStatus().getStatusCode(), exception.getMessage()).build();
+    }
+
+    public static Response of(Response.Status status, String message) {
+        return builder(status.getStatusCode(), message).build();
+    }
+
+    public static Response of(int status, String message) {
+        return builder(status, message).build();
+    }
+
+    /**
+     * 事前に生成した本文で応答を生成
+     */
+    public static Response of(int status, byte[] body) {
+        return Response.status(status)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .entity(body)
+                .build();
+    }
+
+    /**
+     * ヘッダーを追加する場合のビルダー
+     */
+    public static Response.ResponseBuilder builder(int status, String message) {
+        return Response.status(status)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .entity(encode(status, message));
+    }
+
+    /**
+     * エラー応答の本文を生成
+     */
+    public static byte[] encode(int status, String message) {
+        byte[] prefix = status >= MIN_STATUS && status <= MAX_STATUS
+                ? PREFIXES[status - MIN_STATUS]
+                : prefix(status, reasonPhrase(status));
+        byte[] text = escape(message != null ? message : "").getBytes(StandardCharsets.UTF_8);
+        byte[] body = new byte[prefix.length + text.length + SUFFIX.length];
+        System.arraycopy(prefix, 0, body, 0, prefix.length);
+        System.arraycopy(text, 0, body, prefix.length, text.length);
+        System.arraycopy(SUFFIX, 0, body, prefix.length + text.length, SUFFIX.length);
+        return body;
+    }
+
+    /**
+     * 項目ごとのエラーを含む本文を生成（Bean Validationの違反など）
+     */
+    public static byte[] encode(int status, String message, String detailsName, Map<String, String> details) {
+        StringBuilder json = new StringBuilder(128)
+                .append("{\"status\":").append(status)
+                .append(",\"error\":\"").append(escape(reasonPhrase(status)))
+                .append("\",\"message\":\"").append(escape(message))
+                .append("\",\"").append(detailsName).append("\":{");
+        boolean first = true;
+        for (Map.Entry<String, String> detail : details.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append('"').append(escape(detail.getKey())).append("\":\"").append(escape(detail.getValue())).append('"');
+        }
+        return json.append("}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] prefix(int status, String reasonPhrase) {
+        return ("{\"status\":" + status + ",\"error\":\"" + escape(reasonPhrase) + "\",\"message\":\"")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String reasonPhrase(int status) {
+        if (status == 422) {
+            return "Unprocessable Content";
+        }
+        Response.Status known = Response.Status.fromStatusCode(status);
+        if (known != null) {
+            return known.getReasonPhrase();
+        }
+        return status < 500 ? "Client Error" : "Server Error";
+    }
+
+    /**
+     * JSON文字列としてエスケープ（エスケープ不要な場合は同じインスタンスを返す）
+     */
+    static String escape(String value) {
+        int length = value.length();
+        int i = 0;
+        while (i < length && !needsEscape(value.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return value;
+        }
+        StringBuilder escaped = new StringBuilder(length + 16).append(value, 0, i);
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static boolean needsEscape(char c) {
+        return c < 0x20 || c == '"' || c == '\\';
+    }
+}
@@ -0,0 +1,53 @@
+package com.abservice.exception;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 想定内のエラー（4xx）のログ出力
+ * 不正なリクエストが大量に送られてもログ出力が負荷にならないよう、一定時間あたりの件数を制限し、
+ * 超えた分は次の区間の最初に件数のみを出力する（DEBUGが有効な場合はすべて出力する）
+ */
+@ApplicationScoped
+public class ExpectedErrorLog {
+
+    private static final Logger LOG = Logger.getLogger(ExpectedErrorLog.class);
+
+    @ConfigProperty(name = "app.error-log.expected-per-interval", defaultValue = "20")
+    int limitPerInterval;
+
+    @ConfigProperty(name = "app.error-log.interval", defaultValue = "PT1M")
+    Duration interval;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong logged = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    /**
+     * 想定内のエラーを記録
+     */
+    public void log(int status, String message) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debugf("%d %s", status, message);
+            return;
+        }
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= interval.toNanos() && windowStart.compareAndSet(start, now)) {
+            logged.set(0);
+            long dropped = suppressed.getAndSet(0);
+            if (dropped > 0) {
+                LOG.infof("想定内のエラー%d件のログを省略しました（%s あたり%d件まで出力）", dropped, interval, limitPerInterval);
+            }
+        }
+        if (logged.incrementAndGet() <= limitPerInterval) {
+            LOG.infof("%d %s", status, message);
+        } else {
+            suppressed.incrementAndGet();
+        }
+    }
+}
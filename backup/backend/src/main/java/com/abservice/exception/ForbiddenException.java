@@ -0,0 +1,15 @@
+package com.abservice.exception;
+
+import jakarta.ws.rs.core.Response;
+
+/**
+ * 認証済みのクライアントに対象へのアクセス権がない場合の例外
+ */
+public class ForbiddenException extends ApiException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ForbiddenException(String message) {
+        super(Response.Status.FORBIDDEN, message);
+    }
+}
@@ -1,89 +1,108 @@
 package com.abservice.exception;
 
+import com.abservice.deadline.DeadlineResponses;
+import jakarta.inject.Inject;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
 import org.jboss.logging.Logger;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * グローバル例外ハンドラー
+ * 想定内のエラー（4xx）はスタックトレースを出力せず、件数を制限してログに残す
  */
 @Provider
 public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
 
     private static final Logger LOG = Logger.getLogger(GlobalExceptionHandler.class);
 
+    private static final int SERVICE_UNAVAILABLE = Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private static final int INTERNAL_SERVER_ERROR = Response.Status.INTERNAL_SERVER_ERROR.getStatusCode();
+    private static final byte[] INTERNAL_SERVER_ERROR_BODY =
+            ErrorResponses.encode(INTERNAL_SERVER_ERROR, "予期しないエラーが発生しました");
+
+    @Inject
+    DeadlineResponses deadlineResponses;
+
+    @Inject
+    ExpectedErrorLog expectedErrorLog;
+
     @Override
     public Response toResponse(Exception exception) {
-        LOG.error("Unhandled exception occurred", exception);
+        // 処理期限超過の場合
+        DeadlineExceededException deadlineExceeded = deadlineResponses.asDeadlineExceeded(exception);
+        if (deadlineExceeded != null) {
+            LOG.warnf("リクエストの処理期限を超過しました: budget=%dms, elapsed=%dms, source=%s, reason=%s",
+                    deadlineExceeded.getBudgetMillis(), deadlineExceeded.getElapsedMillis(),
+                    deadlineExceeded.getSource(), deadlineExceeded.getReason());
+            return deadlineResponses.exceeded(deadlineExceeded);
+        }
 
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("timestamp", System.currentTimeMillis());
-        errorResponse.put("status", Response.Status.INTERNAL_SERVER_ERROR.getStatusCode());
-        errorResponse.put("error", "Internal Server Error");
-        errorResponse.put("message", "予期しないエラーが発生しました");
+        // 処理の区画・スレッドプールが埋まっている場合は再試行を促す
+        if (exception instanceof BulkheadFullException || exception instanceof RejectedExecutionException) {
+            expectedErrorLog.log(SERVICE_UNAVAILABLE, exception.getMessage());
+            return ErrorResponses.builder(SERVICE_UNAVAILABLE, exception instanceof BulkheadFullException
+                            ? exception.getMessage() : "サーバーが混雑しています。しばらくしてから再試行してください")
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .build();
+        }
+
+        // 想定内のエラー（見つからない・競合・入力不正・バージョン不一致）の場合
+        if (exception instanceof ApiException apiException) {
+            expectedErrorLog.log(apiException.getStatus().getStatusCode(), apiException.getMessage());
+            return ErrorResponses.of(apiException);
+        }
 
         // バリデーションエラーの場合
-        if (exception instanceof ConstraintViolationException) {
-            return handleConstraintViolationException((ConstraintViolationException) exception);
+        if (exception instanceof ConstraintViolationException constraintViolation) {
+            return handleConstraintViolationException(constraintViolation);
         }
 
         // IllegalArgumentExceptionの場合
         if (exception instanceof IllegalArgumentException) {
-            errorResponse.put("status", Response.Status.BAD_REQUEST.getStatusCode());
-            errorResponse.put("error", "Bad Request");
-            errorResponse.put("message", exception.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity(errorResponse)
-                    .build();
+            int status = Response.Status.BAD_REQUEST.getStatusCode();
+            expectedErrorLog.log(status, exception.getMessage());
+            return ErrorResponses.of(status, exception.getMessage());
         }
 
-        // NotFoundExceptionの場合
-        if (exception instanceof jakarta.ws.rs.NotFoundException) {
-            errorResponse.put("status", Response.Status.NOT_FOUND.getStatusCode());
-            errorResponse.put("error", "Not Found");
-            errorResponse.put("message", exception.getMessage());
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity(errorResponse)
-                    .build();
+        // JAX-RSの例外（404・405・415など）の場合はそのステータス・ヘッダーで応答する
+        if (exception instanceof WebApplicationException webApplicationException) {
+            Response response = webApplicationException.getResponse();
+            if (response.getStatus() < INTERNAL_SERVER_ERROR) {
+                expectedErrorLog.log(response.getStatus(), exception.getMessage());
+                return Response.fromResponse(response)
+                        .type(MediaType.APPLICATION_JSON_TYPE)
+                        .entity(ErrorResponses.encode(response.getStatus(), exception.getMessage()))
+                        .build();
+            }
         }
 
-        return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                .entity(errorResponse)
-                .build();
+        LOG.error("Unhandled exception occurred", exception);
+        return ErrorResponses.of(INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR_BODY);
     }
 
     /**
      * バリデーションエラーのハンドリング
      */
     private Response handleConstraintViolationException(ConstraintViolationException exception) {
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("timestamp", System.currentTimeMillis());
-        errorResponse.put("status", Response.Status.BAD_REQUEST.getStatusCode());
-        errorResponse.put("error", "Validation Error");
-        errorResponse.put("message", "バリデーションエラーが発生しました");
-
-        Map<String, String> validationErrors = new HashMap<>();
-        Set<ConstraintViolation<?>> violations = exception.getConstraintViolations();
-
-        for (ConstraintViolation<?> violation : violations) {
-            String propertyPath = violation.getPropertyPath().toString();
-            String message = violation.getMessage();
-            validationErrors.put(propertyPath, message);
+        int status = Response.Status.BAD_REQUEST.getStatusCode();
+        Map<String, String> validationErrors = new LinkedHashMap<>();
+        for (ConstraintViolation<?> violation : exception.getConstraintViolations()) {
+            validationErrors.put(violation.getPropertyPath().toString(), violation.getMessage());
         }
-
-        errorResponse.put("validationErrors", validationErrors);
-
-        return Response.status(Response.Status.BAD_REQUEST)
-                .entity(errorResponse)
-                .build();
+        expectedErrorLog.log(status, exception.getMessage());
+        return ErrorResponses.of(status,
+                ErrorResponses.encode(status, "バリデーションエラーが発生しました", "validationErrors", validationErrors));
     }
 }
-
-
@@ -1,17 +1,19 @@
 package com.abservice.exception;
 
+import jakarta.ws.rs.core.Response;
+
 /**
  * リソースが見つからない場合の例外
  */
-public class NotFoundException extends RuntimeException {
+public class NotFoundException extends ApiException {
+
+    private static final long serialVersionUID = 1L;
 
     public NotFoundException(String message) {
-        super(message);
+        super(Response.Status.NOT_FOUND, message);
     }
 
     public NotFoundException(String message, Throwable cause) {
-        super(message, cause);
+        super(Response.Status.NOT_FOUND, message, cause);
     }
 }
-
-
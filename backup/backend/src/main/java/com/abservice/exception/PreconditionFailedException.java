@@ -0,0 +1,25 @@
+package com.abservice.exception;
+
+import jakarta.ws.rs.core.Response;
+
+/**
+ * If-Matchで指定されたバージョンが現在のバージョンと一致しない場合の例外
+ */
+public class PreconditionFailedException extends ApiException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long currentVersion;
+
+    public PreconditionFailedException(String message, Long currentVersion) {
+        super(Response.Status.PRECONDITION_FAILED, message);
+        this.currentVersion = currentVersion;
+    }
+
+    /**
+     * 現在のバージョン（不明な場合はnull）
+     */
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,15 @@
+package com.abservice.exception;
+
+import jakarta.ws.rs.core.Response;
+
+/**
+ * リクエストの値・ヘッダー・クエリパラメーターが不正な場合の例外
+ */
+public class ValidationFailedException extends ApiException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ValidationFailedException(String message) {
+        super(Response.Status.BAD_REQUEST, message);
+    }
+}
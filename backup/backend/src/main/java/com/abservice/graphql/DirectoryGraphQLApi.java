@@ -0,0 +1,130 @@
+package com.abservice.graphql;
+
+import com.abservice.dto.CircleMemberDto;
+import com.abservice.dto.PermissionDto;
+import com.abservice.dto.RoleDto;
+import com.abservice.service.CircleMemberServiceInterface;
+import com.abservice.service.RoleServiceInterface;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.graphql.DefaultValue;
+import org.eclipse.microprofile.graphql.Description;
+import org.eclipse.microprofile.graphql.GraphQLApi;
+import org.eclipse.microprofile.graphql.Name;
+import org.eclipse.microprofile.graphql.NonNull;
+import org.eclipse.microprofile.graphql.Query;
+import org.eclipse.microprofile.graphql.Source;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * CircleMember・Role・PermissionのGraphQL API
+ * ネストしたフィールドは親オブジェクトのリストを受け取るバッチリゾルバー（DataLoader）で解決し、
+ * 階層ごとにINクエリ1回でまとめて取得する（件数に比例したクエリは発行しない）
+ * クエリの深さと複雑度の上限は quarkus.smallrye-graphql で設定する
+ */
+@GraphQLApi
+public class DirectoryGraphQLApi {
+
+    @Inject
+    CircleMemberServiceInterface circleMemberService;
+
+    @Inject
+    RoleServiceInterface roleService;
+
+    /**
+     * CircleMember一覧を取得
+     */
+    @Query("circleMembers")
+    @Description("CircleMember一覧（activeOnlyがtrueの場合はアクティブなメンバーのみ）")
+    public List<CircleMemberDto> getCircleMembers(@Name("activeOnly") @DefaultValue("false") boolean activeOnly) {
+        return activeOnly ? circleMemberService.findActiveMembers() : circleMemberService.findAll();
+    }
+
+    /**
+     * IDでCircleMemberを取得
+     */
+    @Query("circleMember")
+    @Description("指定されたIDのCircleMember")
+    public CircleMemberDto getCircleMember(@Name("id") @NonNull Long id) {
+        return circleMemberService.findById(id).orElse(null);
+    }
+
+    /**
+     * Role一覧を取得
+     */
+    @Query("roles")
+    @Description("Role一覧")
+    public List<RoleDto> getRoles() {
+        return roleService.findAll();
+    }
+
+    /**
+     * IDでRoleを取得
+     */
+    @Query("role")
+    @Description("指定されたIDのRole")
+    public RoleDto getRole(@Name("id") @NonNull Long id) {
+        return roleService.findById(id).orElse(null);
+    }
+
+    /**
+     * Permission一覧を取得
+     */
+    @Query("permissions")
+    @Description("Permission一覧")
+    public List<PermissionDto> getPermissions() {
+        return roleService.findAllPermissions();
+    }
+
+    /**
+     * CircleMemberのRoleをまとめて解決
+     */
+    @Name("role")
+    @Description("メンバーのRole")
+    public List<RoleDto> role(@Source List<CircleMemberDto> members) {
+        Map<Long, RoleDto> roles = roleService.findByIds(distinctIds(members, CircleMemberDto::getRoleId));
+        return members.stream()
+                .map(member -> roles.get(member.getRoleId()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * RoleのCircleMemberをまとめて解決
+     */
+    @Name("members")
+    @Description("Roleに所属するCircleMember")
+    public List<List<CircleMemberDto>> members(@Source List<RoleDto> roles) {
+        Map<Long, List<CircleMemberDto>> members = circleMemberService.findByRoleIds(distinctIds(roles, RoleDto::getId));
+        return roles.stream()
+                .map(role -> members.getOrDefault(role.getId(), List.of()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * RoleのPermissionをまとめて解決
+     */
+    @Name("permissions")
+    @Description("Roleに付与されたPermission")
+    public List<List<PermissionDto>> permissions(@Source List<RoleDto> roles) {
+        Map<Long, List<PermissionDto>> permissions = roleService.findPermissionsByRoleIds(distinctIds(roles, RoleDto::getId));
+        return roles.stream()
+                .map(role -> permissions.getOrDefault(role.getId(), List.of()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * バッチ内の重複を除いたIDを取得
+     */
+    private static <T> Set<Long> distinctIds(List<T> sources, Function<T, Long> id) {
+        return sources.stream()
+                .map(id)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
@@ -0,0 +1,214 @@
+package com.abservice.idempotency;
+
+import com.abservice.config.IdempotencyConfig;
+import com.abservice.exception.ErrorResponses;
+import com.abservice.tenant.Tenants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.vertx.core.http.HttpServerRequest;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link Idempotent} の実装
+ * 同じキーの再送には保存した応答を返し、処理中の重複は最初のリクエストの完了を待って同じ応答を返す
+ * 5xxや例外で終わったリクエストはキーを解放し、再送で再実行できるようにする
+ * 処理中のまま応答を保存せずに停止したノードのキーは、リースが切れた後の再送が引き継ぐ
+ */
+@Idempotent
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class IdempotencyInterceptor {
+
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String REPLAYED = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private static final int UNPROCESSABLE_CONTENT = 422;
+    private static final byte[] INVALID_KEY_BODY = ErrorResponses.encode(Response.Status.BAD_REQUEST.getStatusCode(),
+            "Idempotency-Keyは1〜" + MAX_KEY_LENGTH + "文字で指定してください");
+    private static final byte[] KEY_REUSED_BODY = ErrorResponses.encode(UNPROCESSABLE_CONTENT,
+            "Idempotency-Keyは別の内容のリクエストで使用されています");
+    private static final byte[] IN_PROGRESS_BODY = ErrorResponses.encode(Response.Status.CONFLICT.getStatusCode(),
+            "同じIdempotency-Keyのリクエストを処理中です。しばらくしてから再送してください");
+
+    @Inject
+    IdempotencyConfig config;
+
+    @Inject
+    IdempotencyKeys keys;
+
+    @Inject
+    HttpServerRequest request;
+
+    @Inject
+    SecurityIdentity identity;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @AroundInvoke
+    Object around(InvocationContext context) throws Exception {
+        String key = config.enabled() ? request.getHeader(IDEMPOTENCY_KEY) : null;
+        if (key == null) {
+            return context.proceed();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ErrorResponses.of(Response.Status.BAD_REQUEST.getStatusCode(), INVALID_KEY_BODY);
+        }
+
+        // キーはテナント・利用者・メソッド・パスごとに分け、フィンガープリントはリクエスト内容から求める
+        // （匿名の利用者が別のテナントで同じキーを使っても、他のテナントの応答が返らないようにする）
+        String tenant = Tenants.current();
+        String method = request.method().name();
+        String path = request.path();
+        String subject = identity.isAnonymous() ? "" : identity.getPrincipal().getName();
+        byte[] keyHash = keyHash(tenant, subject, method, path, key);
+        byte[] fingerprint = sha256(tenant, method, path, objectMapper.writeValueAsString(context.getParameters()));
+
+        StoredResponse cached = keys.cached(keyHash);
+        if (cached != null) {
+            return replay(cached, fingerprint);
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> first = keys.joinInFlight(keyHash, mine);
+        if (first != null) {
+            return awaitFirst(first, fingerprint);
+        }
+        try {
+            Instant deadline = Instant.now().plus(config.inFlightWait());
+            while (true) {
+                Instant lease = keys.claim(keyHash, fingerprint);
+                if (lease != null) {
+                    return execute(context, keyHash, fingerprint, lease, mine);
+                }
+                StoredResponse existing = keys.find(keyHash).orElse(null);
+                if (existing != null && existing.completed()) {
+                    mine.complete(existing);
+                    return replay(existing, fingerprint);
+                }
+                if (existing != null && !Instant.now().isBefore(deadline)) {
+                    return inProgress();
+                }
+                // 他ノードで処理中の場合は完了かリース切れを待つ。行がない場合は最初のリクエストが失敗して解放されたため、再度確保を試みる
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+        } finally {
+            mine.complete(null);
+            keys.leaveInFlight(keyHash, mine);
+        }
+    }
+
+    /**
+     * リクエストを実行し、5xx以外の応答を保存する
+     */
+    private Object execute(InvocationContext context, byte[] keyHash, byte[] fingerprint, Instant lease,
+                           CompletableFuture<StoredResponse> mine) throws Exception {
+        Object result;
+        try {
+            result = context.proceed();
+        } catch (Exception e) {
+            keys.release(keyHash, lease);
+            throw e;
+        }
+        if (!(result instanceof Response response) || response.getStatus() >= 500) {
+            keys.release(keyHash, lease);
+            return result;
+        }
+        StoredResponse stored = new StoredResponse(fingerprint, response.getStatus(), contentType(response),
+                response.getHeaderString(HttpHeaders.ETAG), body(response),
+                System.currentTimeMillis() + config.ttl().toMillis());
+        keys.complete(keyHash, lease, stored);
+        mine.complete(stored);
+        return response;
+    }
+
+    /**
+     * 同じノードで処理中の最初のリクエストの完了を待つ
+     */
+    private Response awaitFirst(CompletableFuture<StoredResponse> first, byte[] fingerprint) throws Exception {
+        StoredResponse stored;
+        try {
+            stored = first.get(config.inFlightWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return inProgress();
+        }
+        // 最初のリクエストが失敗した場合は再送を促す
+        return stored != null ? replay(stored, fingerprint) : inProgress();
+    }
+
+    private Response replay(StoredResponse stored, byte[] fingerprint) {
+        if (!Arrays.equals(stored.fingerprint(), fingerprint)) {
+            return ErrorResponses.of(UNPROCESSABLE_CONTENT, KEY_REUSED_BODY);
+        }
+        Response.ResponseBuilder builder = Response.status(stored.statusCode())
+                .type(stored.contentType())
+                .entity(stored.body())
+                .header(REPLAYED, "true");
+        if (stored.etag() != null) {
+            builder.header(HttpHeaders.ETAG, stored.etag());
+        }
+        return builder.build();
+    }
+
+    private Response inProgress() {
+        return ErrorResponses.of(Response.Status.CONFLICT.getStatusCode(), IN_PROGRESS_BODY);
+    }
+
+    private static String contentType(Response response) {
+        MediaType mediaType = response.getMediaType();
+        return mediaType != null ? mediaType.toString() : MediaType.APPLICATION_JSON;
+    }
+
+    private byte[] body(Response response) throws Exception {
+        Object entity = response.getEntity();
+        if (entity == null) {
+            return new byte[0];
+        }
+        if (entity instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (entity instanceof String text) {
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+        return objectMapper.writeValueAsBytes(entity);
+    }
+
+    /**
+     * idempotency_keysの主キー（テナント・利用者・メソッド・パス・Idempotency-Keyのハッシュ）
+     */
+    static byte[] keyHash(String tenant, String subject, String method, String path, String key) {
+        return sha256(tenant, subject, method, path, key);
+    }
+
+    private static byte[] sha256(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.abservice.idempotency;
+
+import com.abservice.bulkhead.Bulkhead;
+import com.abservice.bulkhead.Bulkheads;
+import com.abservice.config.IdempotencyConfig;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.jboss.logging.Logger;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Idempotency-Keyの保存先
+ * 応答はidempotency_keysテーブルに保存し、直近のキーはメモリにも保持する
+ * 同じノードで処理中のキーはCompletableFutureで待ち合わせ、他ノードで処理中のキーはテーブルの行で検出する
+ * 処理中の行にはリース（locked_until）を付け、応答を保存しないままリースが切れた行は再送が引き継ぐ
+ */
+@ApplicationScoped
+public class IdempotencyKeys {
+
+    private static final Logger LOG = Logger.getLogger(IdempotencyKeys.class);
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    IdempotencyConfig config;
+
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private Map<String, StoredResponse> recent;
+
+    /**
+     * 直近のキーを保持するLRUキャッシュ
+     */
+    private synchronized Map<String, StoredResponse> recent() {
+        if (recent == null) {
+            int maxEntries = config.cacheMaxEntries();
+            recent = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+        return recent;
+    }
+
+    /**
+     * メモリに保持している有効な応答を取得
+     */
+    StoredResponse cached(byte[] keyHash) {
+        String cacheKey = HexFormat.of().formatHex(keyHash);
+        synchronized (this) {
+            StoredResponse stored = recent().get(cacheKey);
+            if (stored != null && stored.expiresAtMillis() <= System.currentTimeMillis()) {
+                recent().remove(cacheKey);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    /**
+     * このノードで同じキーを処理中であればその完了を、そうでなければnullを返して処理中として登録する
+     */
+    CompletableFuture<StoredResponse> joinInFlight(byte[] keyHash, CompletableFuture<StoredResponse> mine) {
+        return inFlight.putIfAbsent(HexFormat.of().formatHex(keyHash), mine);
+    }
+
+    /**
+     * このノードでの処理中の登録を解除
+     */
+    void leaveInFlight(byte[] keyHash, CompletableFuture<StoredResponse> mine) {
+        inFlight.remove(HexFormat.of().formatHex(keyHash), mine);
+    }
+
+    /**
+     * キーを確保（未使用か期限切れ、または処理中のままリースが切れている場合のみ成功する）
+     *
+     * @return 確保できた場合はリースの期限（保存・解放時に確保した本人かの確認に使う）、できなかった場合はnull
+     */
+    Instant claim(byte[] keyHash, byte[] fingerprint) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Instant expiresAt = now.plus(config.ttl());
+        Instant lockedUntil = now.plus(config.lease());
+        int claimed = QuarkusTransaction.requiringNew().call(() -> entityManager.createNativeQuery(
+                        "INSERT INTO idempotency_keys (key_hash, fingerprint, expires_at, locked_until)"
+                                + " VALUES (?1, ?2, ?3, ?4)"
+                                + " ON CONFLICT (key_hash) DO UPDATE SET fingerprint = EXCLUDED.fingerprint,"
+                                + " status_code = NULL, content_type = NULL, etag = NULL, response_body = NULL,"
+                                + " expires_at = EXCLUDED.expires_at, locked_until = EXCLUDED.locked_until"
+                                + " WHERE idempotency_keys.expires_at < CURRENT_TIMESTAMP"
+                                + " OR (idempotency_keys.status_code IS NULL"
+                                + " AND idempotency_keys.locked_until < CURRENT_TIMESTAMP)")
+                .setParameter(1, keyHash)
+                .setParameter(2, fingerprint)
+                .setParameter(3, expiresAt)
+                .setParameter(4, lockedUntil)
+                .executeUpdate());
+        return claimed > 0 ? lockedUntil : null;
+    }
+
+    /**
+     * 保存済みの行を取得（処理中の場合はstatusCodeが0）
+     */
+    @SuppressWarnings("unchecked")
+    Optional<StoredResponse> find(byte[] keyHash) {
+        List<Object[]> rows = QuarkusTransaction.requiringNew().call(() -> entityManager.createNativeQuery(
+                        "SELECT fingerprint, status_code, content_type, etag, response_body,"
+                                + " CAST(EXTRACT(EPOCH FROM expires_at) * 1000 AS BIGINT)"
+                                + " FROM idempotency_keys WHERE key_hash = ?1 AND expires_at >= CURRENT_TIMESTAMP")
+                .setParameter(1, keyHash)
+                .getResultList());
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = rows.get(0);
+        return Optional.of(new StoredResponse(
+                (byte[]) row[0],
+                row[1] != null ? ((Number) row[1]).intValue() : 0,
+                (String) row[2],
+                (String) row[3],
+                (byte[]) row[4],
+                ((Number) row[5]).longValue()));
+    }
+
+    /**
+     * 応答を保存してメモリにも保持する
+     * リースが切れて他のリクエストに引き継がれていた場合は、引き継いだ側の行を上書きしない
+     */
+    void complete(byte[] keyHash, Instant lease, StoredResponse response) {
+        int updated = QuarkusTransaction.requiringNew().call(() -> entityManager.createNativeQuery(
+                        "UPDATE idempotency_keys SET status_code = ?2, content_type = ?3, etag = ?4, response_body = ?5,"
+                                + " locked_until = NULL"
+                                + " WHERE key_hash = ?1 AND status_code IS NULL AND locked_until = ?6")
+                .setParameter(1, keyHash)
+                .setParameter(2, response.statusCode())
+                .setParameter(3, response.contentType())
+                .setParameter(4, response.etag())
+                .setParameter(5, response.body())
+                .setParameter(6, lease)
+                .executeUpdate());
+        if (updated == 0) {
+            LOG.warn("Idempotency-Keyのリースが切れて他のリクエストに引き継がれたため、応答を保存しませんでした");
+            return;
+        }
+        synchronized (this) {
+            recent().put(HexFormat.of().formatHex(keyHash), response);
+        }
+    }
+
+    /**
+     * 処理に失敗したキーを解放し、再送で再実行できるようにする
+     */
+    void release(byte[] keyHash, Instant lease) {
+        try {
+            QuarkusTransaction.requiringNew().run(() -> entityManager.createNativeQuery(
+                            "DELETE FROM idempotency_keys WHERE key_hash = ?1 AND status_code IS NULL AND locked_until = ?2")
+                    .setParameter(1, keyHash)
+                    .setParameter(2, lease)
+                    .executeUpdate());
+        } catch (RuntimeException e) {
+            // 解放できなかったキーはリースが切れると再送が引き継ぐ
+            LOG.warnf("Idempotency-Keyの解放に失敗しました: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * 期限切れのキーをバッチ単位で削除
+     */
+    @Bulkhead(Bulkheads.BACKGROUND)
+    @Scheduled(every = "${app.idempotency.purge-interval:10m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void purgeExpired() {
+        if (!config.enabled()) {
+            return;
+        }
+        int batchSize = config.purgeBatchSize();
+        long total = 0;
+        int removed;
+        do {
+            removed = QuarkusTransaction.requiringNew().call(() -> entityManager.createNativeQuery(
+                            "DELETE FROM idempotency_keys WHERE key_hash IN ("
+                                    + "  SELECT key_hash FROM idempotency_keys WHERE expires_at < CURRENT_TIMESTAMP LIMIT ?1)")
+                    .setParameter(1, batchSize)
+                    .executeUpdate());
+            total += removed;
+        } while (removed == batchSize);
+        if (total > 0) {
+            LOG.infof("期限切れのIdempotency-Keyを%d件削除しました", total);
+        }
+    }
+}
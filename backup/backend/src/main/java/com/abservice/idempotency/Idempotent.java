@@ -0,0 +1,18 @@
+package com.abservice.idempotency;
+
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Idempotency-Keyヘッダー付きのリクエストを1回だけ実行し、再送には保存した応答を返す
+ * Responseを返すリソースメソッドに付ける
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
@@ -0,0 +1,19 @@
+package com.abservice.idempotency;
+
+/**
+ * 保存済みの応答
+ *
+ * @param fingerprint 応答を生成したリクエストのフィンガープリント
+ * @param statusCode 最初のリクエストが処理中の場合は0
+ * @param expiresAtMillis 再生期限（エポックミリ秒）
+ */
+record StoredResponse(byte[] fingerprint, int statusCode, String contentType, String etag, byte[] body,
+                      long expiresAtMillis) {
+
+    /**
+     * 応答が保存済みか（最初のリクエストが完了しているか）
+     */
+    boolean completed() {
+        return statusCode > 0;
+    }
+}
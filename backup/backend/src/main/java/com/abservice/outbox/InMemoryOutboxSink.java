@@ -0,0 +1,41 @@
+package com.abservice.outbox;
+
+import io.quarkus.arc.lookup.LookupIfProperty;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 配信されたイベントをメモリに保持する配信先（テスト用）
+ */
+@ApplicationScoped
+@LookupIfProperty(name = "app.outbox.sinks.in-memory.enabled", stringValue = "true")
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final List<OutboxMessage> messages = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String name() {
+        return "in-memory";
+    }
+
+    @Override
+    public void deliver(List<OutboxMessage> batch) {
+        messages.addAll(batch);
+    }
+
+    /**
+     * これまでに配信されたイベント（配信順）
+     */
+    public List<OutboxMessage> messages() {
+        return List.copyOf(messages);
+    }
+
+    /**
+     * 保持しているイベントを破棄
+     */
+    public void clear() {
+        messages.clear();
+    }
+}
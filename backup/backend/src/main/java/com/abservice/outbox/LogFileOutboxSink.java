@@ -0,0 +1,58 @@
+package com.abservice.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.arc.lookup.LookupIfProperty;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * イベントをJSON Lines形式でファイルに追記する配信先
+ * 行の削除前にfsyncし、配信済みとしたイベントがファイルから失われないようにする
+ */
+@ApplicationScoped
+@LookupIfProperty(name = "app.outbox.sinks.log-file.enabled", stringValue = "true")
+public class LogFileOutboxSink implements OutboxSink {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "app.outbox.sinks.log-file.path", defaultValue = "logs/outbox-events.jsonl")
+    Path path;
+
+    @Override
+    public String name() {
+        return "log-file";
+    }
+
+    @Override
+    public synchronized void deliver(List<OutboxMessage> batch) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (OutboxMessage message : batch) {
+            lines.write(objectMapper.writeValueAsBytes(message.toJson(objectMapper)));
+            lines.write('\n');
+        }
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.abservice.outbox;
+
+import com.abservice.tracing.TraceContexts;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.time.Instant;
+
+/**
+ * アウトボックスから配信するメッセージ
+ * idは書き込み順に採番されるため、配信先での順序付け・重複排除に使用できる（コミット順とは前後する場合がある）
+ *
+ * @param payload     イベント本体のJSON
+ * @param traceparent イベントを書き込んだリクエストのW3C traceparent（トレース外で書き込まれた場合はnull）
+ */
+public record OutboxMessage(long id, String aggregateType, long aggregateId, String eventType,
+                            String payload, Instant createdAt, String traceparent) {
+
+    /**
+     * 配信用のJSONに変換（payloadは文字列ではなくJSONとして埋め込む）
+     */
+    public ObjectNode toJson(ObjectMapper objectMapper) throws JsonProcessingException {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("id", id);
+        node.put("aggregateType", aggregateType);
+        node.put("aggregateId", aggregateId);
+        node.put("eventType", eventType);
+        node.put("createdAt", createdAt.toString());
+        if (traceparent != null) {
+            node.put(TraceContexts.TRACEPARENT, traceparent);
+        }
+        node.set("payload", objectMapper.readTree(payload));
+        return node;
+    }
+}
@@ -0,0 +1,301 @@
+package com.abservice.outbox;
+
+import com.abservice.bulkhead.Bulkhead;
+import com.abservice.bulkhead.Bulkheads;
+import com.abservice.event.EntityChangeEvent;
+import com.abservice.exception.BulkheadFullException;
+import com.abservice.tenant.TenantEntityManagers;
+import com.abservice.tracing.TraceContexts;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * アウトボックスのイベントを配信先へリレーする
+ * 未配信の行をID順にバッチで FOR UPDATE SKIP LOCKED で確保し、全配信先への配信が成功したバッチのみ削除する
+ * 複数ノードで動かした場合はバッチ単位で処理を分担するため、ノードをまたいだ配信順序はメッセージIDで判断すること
+ * 配信はバッチごとに1つのスパンとし、各イベントを書き込んだリクエストのトレースへのリンクを付ける
+ * 専用データベースのテナントのイベントはそのデータベースのアウトボックスにあるため、共有データベースに続けて順にリレーする
+ */
+@ApplicationScoped
+public class OutboxRelay {
+
+    private static final Logger LOG = Logger.getLogger(OutboxRelay.class);
+
+    private static final AttributeKey<Long> BATCH_MESSAGE_COUNT = AttributeKey.longKey("messaging.batch.message_count");
+
+    @Inject
+    TenantEntityManagers entityManagers;
+
+    @Inject
+    Instance<OutboxSink> sinks;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    Tracer tracer;
+
+    @ConfigProperty(name = "app.outbox.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.outbox.batch-size", defaultValue = "100")
+    int batchSize;
+
+    @ConfigProperty(name = "app.outbox.max-batches-per-run", defaultValue = "20")
+    int maxBatchesPerRun;
+
+    private final ExecutorService wakeups = Executors.newSingleThreadExecutor(
+            runnable -> Thread.ofPlatform().name("outbox-relay").daemon().unstarted(runnable));
+
+    private final AtomicBoolean wakeupRequested = new AtomicBoolean();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private final AtomicLong oldestPendingAgeMillis = new AtomicLong();
+
+    private volatile boolean noSinkWarned;
+
+    private Timer batchTimer;
+
+    private Timer lagTimer;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("outbox.pending", pending, AtomicLong::get)
+                .description("未配信のアウトボックスイベント数")
+                .register(meterRegistry);
+        Gauge.builder("outbox.pending.oldest.age", oldestPendingAgeMillis, age -> age.get() / 1000.0)
+                .description("最も古い未配信イベントの経過時間")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("outbox.relay.batch")
+                .description("1バッチの確保・配信・削除にかかった時間")
+                .register(meterRegistry);
+        lagTimer = Timer.builder("outbox.delivery.lag")
+                .description("イベントの書き込みから配信完了までの時間")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        wakeups.shutdownNow();
+    }
+
+    /**
+     * 変更のコミット後、ポーリングを待たずにリレーする
+     */
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) EntityChangeEvent event) {
+        if (!enabled || !wakeupRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            wakeups.execute(() -> {
+                wakeupRequested.set(false);
+                drainOrDefer();
+            });
+        } catch (RejectedExecutionException e) {
+            wakeupRequested.set(false);
+        }
+    }
+
+    /**
+     * 定期的にリレーする（他ノードで書き込まれたイベントや配信失敗分の再試行）
+     */
+    @Scheduled(every = "${app.outbox.poll-interval:1s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void poll() {
+        if (enabled) {
+            drainOrDefer();
+        }
+    }
+
+    /**
+     * バックグラウンド処理の区画が埋まっている場合は次回のポーリングに任せる
+     */
+    private void drainOrDefer() {
+        try {
+            drain();
+        } catch (BulkheadFullException e) {
+            LOG.debugf("バックグラウンド処理の区画が埋まっているため、アウトボックスのリレーを見送りました");
+        }
+    }
+
+    /**
+     * 未配信のイベントがなくなるまで（最大max-batches-per-run回）バッチを配信する
+     * コミット後の起動はリクエストコンテキストのないスレッドで動くため、Hibernateがテナントを解決できるよう有効にする
+     */
+    @ActivateRequestContext
+    @Bulkhead(Bulkheads.BACKGROUND)
+    void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<OutboxSink> targets = sinks.stream().toList();
+            if (targets.isEmpty()) {
+                if (!noSinkWarned) {
+                    noSinkWarned = true;
+                    LOG.warn("有効なアウトボックスの配信先がないため、イベントは配信されません（app.outbox.sinks）");
+                }
+                return;
+            }
+            List<EntityManager> databases = entityManagers.all();
+            for (EntityManager database : databases) {
+                for (int i = 0; i < maxBatchesPerRun; i++) {
+                    if (relayBatch(database, targets) < batchSize) {
+                        break;
+                    }
+                }
+            }
+            refreshBacklog(databases);
+        } catch (Exception e) {
+            LOG.warnf("アウトボックスのリレーに失敗しました。次回のポーリングで再試行します: %s", e.getMessage());
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    /**
+     * 1バッチを確保して配信し、成功した場合のみ削除する
+     * 配信に失敗した場合はロールバックされ、行はそのまま残る
+     *
+     * @return 配信したイベント数
+     */
+    private int relayBatch(EntityManager database, List<OutboxSink> targets) {
+        long startNanos = System.nanoTime();
+        List<OutboxMessage> batch = QuarkusTransaction.requiringNew().call(() -> {
+            List<OutboxMessage> locked = lockNextBatch(database);
+            if (locked.isEmpty()) {
+                return locked;
+            }
+            Span span = deliverySpan(locked);
+            Scope scope = span.makeCurrent();
+            try {
+                for (OutboxSink sink : targets) {
+                    try {
+                        sink.deliver(locked);
+                    } catch (Exception e) {
+                        meterRegistry.counter("outbox.delivery.failures", "sink", sink.name()).increment();
+                        throw new IllegalStateException("配信先 " + sink.name() + " への配信に失敗しました: " + e.getMessage(), e);
+                    }
+                }
+                database.createNativeQuery("DELETE FROM outbox WHERE id IN (:ids)")
+                        .setParameter("ids", locked.stream().map(OutboxMessage::id).toList())
+                        .executeUpdate();
+            } catch (RuntimeException e) {
+                span.recordException(e);
+                span.setStatus(StatusCode.ERROR);
+                throw e;
+            } finally {
+                scope.close();
+                span.end();
+            }
+            return locked;
+        });
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // メトリクスはコミット後に記録する
+        batchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        Instant now = Instant.now();
+        for (OutboxMessage message : batch) {
+            lagTimer.record(Duration.between(message.createdAt(), now));
+        }
+        for (OutboxSink sink : targets) {
+            meterRegistry.counter("outbox.messages.delivered", "sink", sink.name()).increment(batch.size());
+        }
+        return batch.size();
+    }
+
+    /**
+     * バッチ配信のスパン（イベントごとに書き込み元のトレースへリンクする）
+     */
+    private Span deliverySpan(List<OutboxMessage> batch) {
+        SpanBuilder builder = tracer.spanBuilder("OutboxRelay.deliver")
+                .setNoParent()
+                .setSpanKind(SpanKind.CONSUMER)
+                .setAttribute(BATCH_MESSAGE_COUNT, (long) batch.size());
+        for (OutboxMessage message : batch) {
+            SpanContext origin = TraceContexts.parse(message.traceparent());
+            if (origin.isValid()) {
+                builder.addLink(origin);
+            }
+        }
+        return builder.startSpan();
+    }
+
+    /**
+     * 未配信の行をID順に確保（他のリレーが確保中の行は飛ばす）
+     */
+    @SuppressWarnings("unchecked")
+    private List<OutboxMessage> lockNextBatch(EntityManager database) {
+        List<Object[]> rows = database.createNativeQuery(
+                        "SELECT id, aggregate_type, aggregate_id, event_type, CAST(payload AS text),"
+                                + " CAST(EXTRACT(EPOCH FROM created_at) * 1000 AS BIGINT), traceparent"
+                                + " FROM outbox ORDER BY id LIMIT ?1 FOR UPDATE SKIP LOCKED")
+                .setParameter(1, batchSize)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new OutboxMessage(
+                        ((Number) row[0]).longValue(),
+                        (String) row[1],
+                        ((Number) row[2]).longValue(),
+                        (String) row[3],
+                        (String) row[4],
+                        Instant.ofEpochMilli(((Number) row[5]).longValue()),
+                        (String) row[6]))
+                .toList();
+    }
+
+    /**
+     * 未配信件数と最も古い未配信イベントの経過時間を更新（すべてのデータベースの合計・最大）
+     */
+    private void refreshBacklog(List<EntityManager> databases) {
+        long count = 0;
+        long oldestAgeMillis = 0;
+        for (EntityManager database : databases) {
+            Object[] row = QuarkusTransaction.requiringNew().call(() -> (Object[]) database.createNativeQuery(
+                            "SELECT COUNT(*), CAST(COALESCE(EXTRACT(EPOCH FROM (CURRENT_TIMESTAMP - MIN(created_at))), 0)"
+                                    + " * 1000 AS BIGINT) FROM outbox")
+                    .getSingleResult());
+            count += ((Number) row[0]).longValue();
+            oldestAgeMillis = Math.max(oldestAgeMillis, ((Number) row[1]).longValue());
+        }
+        pending.set(count);
+        oldestPendingAgeMillis.set(oldestAgeMillis);
+    }
+}
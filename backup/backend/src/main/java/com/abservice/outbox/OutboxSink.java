@@ -0,0 +1,22 @@
+package com.abservice.outbox;
+
+import java.util.List;
+
+/**
+ * アウトボックスの配信先
+ * 有効な配信先は app.outbox.sinks.* で選択する（@LookupIfProperty）
+ * 配信は少なくとも1回（at-least-once）のため、配信先はメッセージIDで重複を排除すること
+ */
+public interface OutboxSink {
+
+    /**
+     * メトリクス・ログに使用する配信先名
+     */
+    String name();
+
+    /**
+     * バッチをID順に配信する
+     * 例外を投げた場合はバッチ全体が未配信として残り、次回のリレーで再配信される
+     */
+    void deliver(List<OutboxMessage> batch) throws Exception;
+}
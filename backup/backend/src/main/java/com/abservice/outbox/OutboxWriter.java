@@ -0,0 +1,54 @@
+package com.abservice.outbox;
+
+import com.abservice.event.EntityChangeEvent;
+import com.abservice.tenant.TenantEntityManagers;
+import com.abservice.tracing.TraceContexts;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * 変更イベントをアウトボックステーブルに書き込む
+ * 呼び出し元と同じトランザクションで書き込むため、コミットされた変更のイベントのみが配信される
+ * 専用データベースのテナントの変更は、そのデータベースのアウトボックスに書き込む
+ * 書き込み時のトレースコンテキスト（traceparent）も保存し、リレー・配信先が同じトレースに関連付けられるようにする
+ */
+@ApplicationScoped
+public class OutboxWriter {
+
+    @Inject
+    TenantEntityManagers entityManagers;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "app.outbox.enabled", defaultValue = "true")
+    boolean enabled;
+
+    /**
+     * 現在のトランザクションにイベントを追加
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void append(EntityChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("アウトボックスイベントのシリアライズに失敗しました: " + event, e);
+        }
+        entityManagers.primary().createNativeQuery("INSERT INTO outbox (aggregate_type, aggregate_id, event_type, payload, traceparent)"
+                        + " VALUES (?1, ?2, ?3, CAST(?4 AS jsonb), ?5)")
+                .setParameter(1, event.getEntityType().name())
+                .setParameter(2, event.getId())
+                .setParameter(3, event.getChangeType().name())
+                .setParameter(4, payload)
+                .setParameter(5, TraceContexts.currentTraceparent())
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,82 @@
+package com.abservice.outbox;
+
+import com.abservice.tracing.TraceContexts;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.quarkus.arc.lookup.LookupIfProperty;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * イベントのバッチをJSON配列としてHTTPでPOSTする配信先
+ * 2xx以外の応答はバッチ全体の配信失敗として扱い、次回のリレーで再送する
+ * リレーのスパンをtraceparentヘッダーで伝搬する（各イベントの書き込み元はイベントのtraceparentを参照）
+ */
+@ApplicationScoped
+@LookupIfProperty(name = "app.outbox.sinks.webhook.enabled", stringValue = "true")
+public class WebhookOutboxSink implements OutboxSink {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "app.outbox.sinks.webhook.url")
+    Optional<URI> url;
+
+    @ConfigProperty(name = "app.outbox.sinks.webhook.timeout", defaultValue = "PT5S")
+    Duration timeout;
+
+    private volatile HttpClient client;
+
+    @Override
+    public String name() {
+        return "webhook";
+    }
+
+    @Override
+    public void deliver(List<OutboxMessage> batch) throws IOException, InterruptedException {
+        URI target = url.orElseThrow(() -> new IllegalStateException("app.outbox.sinks.webhook.url が設定されていません"));
+        ArrayNode body = objectMapper.createArrayNode();
+        for (OutboxMessage message : batch) {
+            body.add(message.toJson(objectMapper));
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(target)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("X-Outbox-First-Id", Long.toString(batch.get(0).id()))
+                .header("X-Outbox-Last-Id", Long.toString(batch.get(batch.size() - 1).id()))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        String traceparent = TraceContexts.currentTraceparent();
+        if (traceparent != null) {
+            request.header(TraceContexts.TRACEPARENT, traceparent);
+        }
+        HttpResponse<Void> response = client().send(request.build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Webhookが" + response.statusCode() + "を返しました: " + target);
+        }
+    }
+
+    private HttpClient client() {
+        HttpClient current = client;
+        if (current == null) {
+            synchronized (this) {
+                current = client;
+                if (current == null) {
+                    current = HttpClient.newBuilder().connectTimeout(timeout).build();
+                    client = current;
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,32 @@
+package com.abservice.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * キャッシュ参照1回分のJFRイベント（取得処理を待った場合はその時間を含む）
+ */
+@Name(CacheLookupEvent.NAME)
+@Label("Cache Lookup")
+@Category({"ABService", "Cache"})
+@Description("読み取りキャッシュ・レスポンスキャッシュの参照")
+@StackTrace(false)
+public class CacheLookupEvent extends Event {
+
+    public static final String NAME = "com.abservice.CacheLookup";
+
+    public static final String HIT = "hit";
+    public static final String STALE = "stale";
+    public static final String MISS = "miss";
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Outcome")
+    @Description("hit（有効な値）、stale（期限切れの値を返して更新を予約）、miss（取得処理を実行または待機）")
+    public String outcome;
+}
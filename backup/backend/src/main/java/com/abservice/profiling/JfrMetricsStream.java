@@ -0,0 +1,150 @@
+package com.abservice.profiling;
+
+import com.abservice.config.ProfilingConfig;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.jboss.logging.Logger;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * JFRのイベントストリームを購読し、アプリケーションのイベントと競合系のイベントをメトリクスへ集計する
+ * イベントは専用スレッドで逐次処理し、メーターはタグの組み合わせごとに作成して使い回す
+ */
+@ApplicationScoped
+public class JfrMetricsStream {
+
+    private static final Logger LOG = Logger.getLogger(JfrMetricsStream.class);
+
+    private static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+    private static final String VIRTUAL_THREAD_PINNED = "jdk.VirtualThreadPinned";
+
+    private static final String NONE = "none";
+
+    @Inject
+    ProfilingConfig config;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MeterKey, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    private RecordingStream stream;
+
+    /**
+     * メーターのタグの組み合わせ
+     */
+    private record MeterKey(String name, String tag1, String tag2, String tag3) {
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        ProfilingConfig.Streaming streaming = config.streaming();
+        if (!streaming.enabled()) {
+            return;
+        }
+        try {
+            stream = new RecordingStream();
+        } catch (RuntimeException e) {
+            LOG.warnf(e, "JFRのイベントストリームを開始できないため、JFRイベントのメトリクスを無効化します");
+            return;
+        }
+        stream.setMaxAge(streaming.maxAge());
+        stream.enable(RepositoryQueryEvent.NAME).withThreshold(streaming.threshold());
+        stream.enable(ServiceOperationEvent.NAME).withThreshold(streaming.threshold());
+        stream.enable(CacheLookupEvent.NAME);
+        stream.enable(MONITOR_ENTER).withThreshold(streaming.contentionThreshold());
+        stream.enable(VIRTUAL_THREAD_PINNED).withThreshold(streaming.contentionThreshold());
+
+        stream.onEvent(RepositoryQueryEvent.NAME, this::onRepositoryQuery);
+        stream.onEvent(ServiceOperationEvent.NAME, this::onServiceOperation);
+        stream.onEvent(CacheLookupEvent.NAME, this::onCacheLookup);
+        stream.onEvent(MONITOR_ENTER, this::onMonitorEnter);
+        stream.onEvent(VIRTUAL_THREAD_PINNED, this::onVirtualThreadPinned);
+        stream.onError(e -> LOG.warn("JFRイベントの集計に失敗しました", e));
+        stream.startAsync();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onRepositoryQuery(RecordedEvent event) {
+        String repository = event.getString("repository");
+        String query = event.getString("query");
+        String error = Objects.requireNonNullElse(event.getString("error"), NONE);
+        timer(new MeterKey("jfr.repository.query", repository, query, error), key -> Timer.builder(key.name())
+                .description("リポジトリメソッドの所要時間（JFRイベント）")
+                .tags("repository", key.tag1(), "query", key.tag2(), "error", key.tag3()))
+                .record(event.getDuration());
+        int rows = event.getInt("rows");
+        if (rows >= 0) {
+            summary(new MeterKey("jfr.repository.query.rows", repository, query, NONE), key -> DistributionSummary
+                    .builder(key.name())
+                    .description("リポジトリメソッドが返した行数（JFRイベント）")
+                    .tags("repository", key.tag1(), "query", key.tag2()))
+                    .record(rows);
+        }
+    }
+
+    private void onServiceOperation(RecordedEvent event) {
+        String error = Objects.requireNonNullElse(event.getString("error"), NONE);
+        timer(new MeterKey("jfr.service.operation", event.getString("service"), event.getString("operation"), error),
+                key -> Timer.builder(key.name())
+                        .description("サービスメソッドの所要時間（JFRイベント）")
+                        .tags("service", key.tag1(), "operation", key.tag2(), "error", key.tag3()))
+                .record(event.getDuration());
+    }
+
+    private void onCacheLookup(RecordedEvent event) {
+        timer(new MeterKey("jfr.cache.lookup", event.getString("cache"), event.getString("outcome"), NONE),
+                key -> Timer.builder(key.name())
+                        .description("キャッシュ参照の所要時間（JFRイベント、missは取得処理の時間を含む）")
+                        .tags("cache", key.tag1(), "outcome", key.tag2()))
+                .record(event.getDuration());
+    }
+
+    private void onMonitorEnter(RecordedEvent event) {
+        RecordedClass monitorClass = event.getClass("monitorClass");
+        String monitor = monitorClass != null ? monitorClass.getName() : "unknown";
+        timer(new MeterKey("jfr.monitor.contention", monitor, NONE, NONE), key -> Timer.builder(key.name())
+                .description("synchronizedのロック待ち時間（JFRのjdk.JavaMonitorEnter）")
+                .tags("monitor", key.tag1()))
+                .record(event.getDuration());
+    }
+
+    private void onVirtualThreadPinned(RecordedEvent event) {
+        timer(new MeterKey("jfr.virtual-thread.pinned", NONE, NONE, NONE), key -> Timer.builder(key.name())
+                .description("キャリアスレッドにピン留めされたままブロックした時間（JFRのjdk.VirtualThreadPinned）"))
+                .record(event.getDuration());
+    }
+
+    private Timer timer(MeterKey key, Function<MeterKey, Timer.Builder> builder) {
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> builder.apply(k).register(meterRegistry));
+        }
+        return timer;
+    }
+
+    private DistributionSummary summary(MeterKey key, Function<MeterKey, DistributionSummary.Builder> builder) {
+        DistributionSummary summary = summaries.get(key);
+        if (summary == null) {
+            summary = summaries.computeIfAbsent(key, k -> builder.apply(k).register(meterRegistry));
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,120 @@
+package com.abservice.profiling;
+
+import com.abservice.config.ProfilingConfig;
+import com.abservice.exception.ConflictException;
+import com.abservice.exception.ValidationFailedException;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 管理APIから開始する期間指定のJFRレコーディング
+ * レコーディングは同時に1つまでとし、期間の経過後に一時ファイルへ書き出す（ファイルの削除は呼び出し元が行う）
+ */
+@ApplicationScoped
+public class JfrRecordings {
+
+    private static final Logger LOG = Logger.getLogger(JfrRecordings.class);
+
+    private static final String RECORDING_NAME = "abservice-admin";
+
+    @Inject
+    ProfilingConfig config;
+
+    private final AtomicBoolean recording = new AtomicBoolean();
+
+    /**
+     * レコーディングを開始し、期間の経過後に書き出したファイルを返す
+     *
+     * @param duration 期間（nullの場合は既定値）
+     * @param settings JFR設定の名前（default・profile、nullの場合は既定値）
+     */
+    public Uni<Path> record(Duration duration, String settings) {
+        Duration period = duration != null ? duration : config.recording().defaultDuration();
+        if (period.isNegative() || period.isZero() || period.compareTo(config.recording().maxDuration()) > 0) {
+            throw new ValidationFailedException(
+                    "durationは0より長く" + config.recording().maxDuration() + "以下で指定してください");
+        }
+        Configuration configuration = configuration(settings != null ? settings : config.recording().defaultSettings());
+        if (!recording.compareAndSet(false, true)) {
+            throw new ConflictException("他のJFRレコーディングが実行中です");
+        }
+
+        Recording jfr;
+        try {
+            jfr = start(configuration);
+        } catch (RuntimeException e) {
+            recording.set(false);
+            throw e;
+        }
+        LOG.infof("JFRレコーディングを開始しました: settings=%s, duration=%s", configuration.getName(), period);
+        return Uni.createFrom().voidItem()
+                .onItem().delayIt().by(period)
+                .emitOn(Infrastructure.getDefaultWorkerPool())
+                .map(ignored -> dump(jfr))
+                .onTermination().invoke((file, failure, cancelled) -> {
+                    // 書き出し前に失敗・切断した場合もレコーディングを破棄する
+                    jfr.close();
+                    recording.set(false);
+                });
+    }
+
+    private static Configuration configuration(String name) {
+        try {
+            return Configuration.getConfiguration(name);
+        } catch (IOException | ParseException e) {
+            throw new ValidationFailedException("JFR設定が見つかりません: " + name + "（default または profile を指定してください）");
+        }
+    }
+
+    private static Recording start(Configuration configuration) {
+        Recording jfr = new Recording(configuration);
+        jfr.setName(RECORDING_NAME);
+        jfr.setToDisk(true);
+        // アプリケーションのイベントは設定によらずすべて記録する
+        jfr.enable(RepositoryQueryEvent.NAME).withoutThreshold();
+        jfr.enable(ServiceOperationEvent.NAME).withoutThreshold();
+        jfr.enable(CacheLookupEvent.NAME).withoutThreshold();
+        jfr.start();
+        return jfr;
+    }
+
+    private static Path dump(Recording jfr) {
+        Path file = null;
+        try {
+            jfr.stop();
+            file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+            jfr.dump(file);
+            return file;
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException("JFRレコーディングの書き出しに失敗しました", e);
+        }
+    }
+
+    /**
+     * 書き出したファイルを削除
+     */
+    public static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.warnf(e, "JFRレコーディングの一時ファイルを削除できませんでした: %s", file);
+        }
+    }
+}
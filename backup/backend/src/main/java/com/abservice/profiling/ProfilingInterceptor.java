@@ -0,0 +1,118 @@
+package com.abservice.profiling;
+
+import com.abservice.tracing.Traced;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jdk.jfr.Event;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.BaseStream;
+
+/**
+ * {@link Traced} を付与したリポジトリ・サービスの呼び出しをJFRイベントとして記録する
+ * イベントが無効な間（記録中のレコーディングがない場合）は開始・終了の判定のみで、属性の設定や件数の計算は行わない
+ */
+@Traced
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION - 9)
+public class ProfilingInterceptor {
+
+    static final String REPOSITORY = "repository";
+    static final String SERVICE = "service";
+
+    private final Map<Method, Target> targets = new ConcurrentHashMap<>();
+
+    @AroundInvoke
+    Object record(InvocationContext context) throws Exception {
+        Target target = targets.computeIfAbsent(context.getMethod(), Target::of);
+        Event event = target.newEvent();
+        if (event == null) {
+            return context.proceed();
+        }
+        event.begin();
+        Object result;
+        try {
+            result = context.proceed();
+        } catch (Exception e) {
+            commit(event, target, null, e);
+            throw e;
+        }
+        // 非同期の戻り値は完了時に記録する
+        if (result instanceof Uni<?> uni) {
+            return uni.onItemOrFailure().invoke((item, failure) -> commit(event, target, item, failure));
+        }
+        commit(event, target, result, null);
+        return result;
+    }
+
+    private static void commit(Event event, Target target, Object result, Throwable failure) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        String error = failure != null ? failure.getClass().getSimpleName() : null;
+        if (event instanceof RepositoryQueryEvent query) {
+            query.repository = target.type();
+            query.query = target.method();
+            query.rows = failure != null ? 0 : rows(result);
+            query.error = error;
+        } else if (event instanceof ServiceOperationEvent operation) {
+            operation.service = target.type();
+            operation.operation = target.method();
+            operation.error = error;
+        }
+        event.commit();
+    }
+
+    /**
+     * 戻り値の行数（コレクションは要素数、Optionalは0か1、void・nullは0、遅延評価のものは-1、それ以外は1行とみなす）
+     */
+    static int rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Iterable<?> || result instanceof BaseStream<?, ?>) {
+            return -1;
+        }
+        return 1;
+    }
+
+    /**
+     * メソッドごとのクラス名・メソッド名とレイヤー（呼び出しごとのリフレクションを避けるためキャッシュする）
+     */
+    private record Target(String type, String method, String layer) {
+
+        static Target of(Method method) {
+            Class<?> type = method.getDeclaringClass();
+            Traced binding = method.getAnnotation(Traced.class);
+            if (binding == null) {
+                binding = type.getAnnotation(Traced.class);
+            }
+            return new Target(type.getSimpleName(), method.getName(), binding != null ? binding.value() : "");
+        }
+
+        /**
+         * レイヤーに対応するイベント（イベントを記録しないレイヤーはnull）
+         */
+        Event newEvent() {
+            return switch (layer) {
+                case REPOSITORY -> new RepositoryQueryEvent();
+                case SERVICE -> new ServiceOperationEvent();
+                default -> null;
+            };
+        }
+    }
+}
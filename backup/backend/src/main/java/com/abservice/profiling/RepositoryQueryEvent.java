@@ -0,0 +1,35 @@
+package com.abservice.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * リポジトリのクエリ1回分のJFRイベント（所要時間はイベント自体の開始・終了で記録する）
+ */
+@Name(RepositoryQueryEvent.NAME)
+@Label("Repository Query")
+@Category({"ABService", "Repository"})
+@Description("リポジトリメソッドの実行")
+@StackTrace(false)
+public class RepositoryQueryEvent extends Event {
+
+    public static final String NAME = "com.abservice.RepositoryQuery";
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Query")
+    @Description("リポジトリのメソッド名")
+    public String query;
+
+    @Label("Rows")
+    @Description("返した行数（件数を持たない戻り値は1、不明な場合は-1）")
+    public int rows;
+
+    @Label("Error")
+    public String error;
+}
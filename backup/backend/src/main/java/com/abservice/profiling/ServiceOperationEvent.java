@@ -0,0 +1,31 @@
+package com.abservice.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * サービスの操作1回分のJFRイベント
+ */
+@Name(ServiceOperationEvent.NAME)
+@Label("Service Operation")
+@Category({"ABService", "Service"})
+@Description("サービスメソッドの実行")
+@StackTrace(false)
+public class ServiceOperationEvent extends Event {
+
+    public static final String NAME = "com.abservice.ServiceOperation";
+
+    @Label("Service")
+    public String service;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Error")
+    @Description("失敗した場合の例外のクラス名")
+    public String error;
+}
@@ -0,0 +1,95 @@
+package com.abservice.ratelimit;
+
+import com.abservice.exception.ErrorResponses;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.net.SocketAddress;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+import org.jboss.resteasy.reactive.server.ServerResponseFilter;
+
+/**
+ * /api/v1/* へのリクエストにレート制限を適用するフィルター
+ * 認証済みの場合はサブジェクト、未認証の場合はクライアントIPをキーにする
+ */
+public class RateLimitFilter {
+
+    private static final String API_PREFIX = "/api/v1/";
+    private static final String ROUTE_PROPERTY = RateLimitFilter.class.getName() + ".route";
+    private static final String REMAINING_PROPERTY = RateLimitFilter.class.getName() + ".remaining";
+
+    private static final String RATE_LIMIT_LIMIT = "RateLimit-Limit";
+    private static final String RATE_LIMIT_REMAINING = "RateLimit-Remaining";
+    private static final String RATE_LIMIT_RESET = "RateLimit-Reset";
+    private static final String RATE_LIMIT_POLICY = "RateLimit-Policy";
+
+    private static final byte[] TOO_MANY_REQUESTS_BODY = ErrorResponses.encode(
+            Response.Status.TOO_MANY_REQUESTS.getStatusCode(), "リクエストが多すぎます。しばらくしてから再試行してください");
+
+    @Inject
+    RateLimiter rateLimiter;
+
+    @Inject
+    SecurityIdentity identity;
+
+    @ServerRequestFilter(preMatching = true)
+    public Response limit(ContainerRequestContext requestContext, HttpServerRequest request) {
+        String path = request.path();
+        if (!rateLimiter.isEnabled() || path == null || !path.startsWith(API_PREFIX)) {
+            return null;
+        }
+        RateLimiter.Route route = rateLimiter.resolve(request.method().name(), path);
+        if (route == null) {
+            return null;
+        }
+
+        long result = route.buckets().tryAcquire(clientKey(request));
+        if (result >= 0) {
+            requestContext.setProperty(ROUTE_PROPERTY, route);
+            requestContext.setProperty(REMAINING_PROPERTY, result);
+            return null;
+        }
+
+        long retryAfterSeconds = Math.max(1, (-result + 999) / 1000);
+        return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .header(RATE_LIMIT_LIMIT, route.capacity())
+                .header(RATE_LIMIT_REMAINING, 0)
+                .header(RATE_LIMIT_RESET, retryAfterSeconds)
+                .header(RATE_LIMIT_POLICY, route.policyHeader())
+                .entity(TOO_MANY_REQUESTS_BODY)
+                .build();
+    }
+
+    @ServerResponseFilter
+    public void addHeaders(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object route = requestContext.getProperty(ROUTE_PROPERTY);
+        if (!(route instanceof RateLimiter.Route limited)) {
+            return;
+        }
+        long remaining = (Long) requestContext.getProperty(REMAINING_PROPERTY);
+        MultivaluedMap<String, Object> headers = responseContext.getHeaders();
+        headers.putSingle(RATE_LIMIT_LIMIT, limited.capacity());
+        headers.putSingle(RATE_LIMIT_REMAINING, remaining);
+        headers.putSingle(RATE_LIMIT_RESET, limited.buckets().secondsUntilFull(remaining));
+        headers.putSingle(RATE_LIMIT_POLICY, limited.policyHeader());
+    }
+
+    /**
+     * レート制限のキーを決定
+     */
+    private String clientKey(HttpServerRequest request) {
+        if (!identity.isAnonymous()) {
+            return "sub:" + identity.getPrincipal().getName();
+        }
+        SocketAddress remote = request.remoteAddress();
+        return remote != null ? "ip:" + remote.hostAddress() : "ip:unknown";
+    }
+}
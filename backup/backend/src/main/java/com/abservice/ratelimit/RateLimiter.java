@@ -0,0 +1,100 @@
+package com.abservice.ratelimit;
+
+import com.abservice.config.RateLimitConfig;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * ルート別ポリシーに従ってリクエストのレート制限を判定する
+ */
+@ApplicationScoped
+public class RateLimiter {
+
+    private static final Logger LOG = Logger.getLogger(RateLimiter.class);
+
+    /**
+     * ルート別ポリシーとそのバケットテーブル
+     */
+    public record Route(String name, String pathPrefix, Set<String> methods, long capacity,
+                        double refillPerSecond, TokenBucketTable buckets) {
+
+        boolean matches(String method, String path) {
+            return path.startsWith(pathPrefix) && (methods.isEmpty() || methods.contains(method));
+        }
+
+        /**
+         * RateLimit-Policyヘッダー値（例: 60;w=60）
+         */
+        public String policyHeader() {
+            long window = Math.max(1, Math.round(capacity / refillPerSecond));
+            return capacity + ";w=" + window;
+        }
+    }
+
+    @Inject
+    RateLimitConfig config;
+
+    private List<Route> routes = List.of();
+
+    @PostConstruct
+    void init() {
+        List<Route> built = new ArrayList<>();
+        config.policies().forEach((name, policy) -> built.add(new Route(
+                name,
+                policy.pathPrefix(),
+                policy.methods()
+                        .map(methods -> methods.stream()
+                                .map(method -> method.toUpperCase(Locale.ROOT))
+                                .collect(Collectors.toUnmodifiableSet()))
+                        .orElse(Set.of()),
+                policy.capacity(),
+                policy.refillPerSecond(),
+                new TokenBucketTable(config.stripes(), config.maxEntries(), policy.capacity(),
+                        policy.refillPerSecond(), System::currentTimeMillis))));
+        // パスプレフィックスが長いもの、メソッド指定のあるものを優先する
+        built.sort(Comparator.comparingInt((Route route) -> route.pathPrefix().length()).reversed()
+                .thenComparing(route -> route.methods().isEmpty()));
+        routes = List.copyOf(built);
+    }
+
+    public boolean isEnabled() {
+        return config.enabled() && !routes.isEmpty();
+    }
+
+    /**
+     * リクエストに適用するポリシーを選択
+     */
+    public Route resolve(String method, String path) {
+        for (Route route : routes) {
+            if (route.matches(method, path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * アイドル状態のバケットを定期的に破棄
+     */
+    @Scheduled(every = "${app.rate-limit.sweep-interval:1m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void evictIdleBuckets() {
+        long idleMillis = config.idleTimeout().toMillis();
+        for (Route route : routes) {
+            int evicted = route.buckets().evictIdle(idleMillis);
+            if (evicted > 0) {
+                LOG.debugf("レート制限バケットを破棄しました: policy=%s, evicted=%d, remaining=%d",
+                        route.name(), evicted, route.buckets().size());
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.abservice.ratelimit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * ストライプ化されたトークンバケットのテーブル
+ * バケットの状態（最終補充時刻とトークン残量）を1つのlongに詰めてCASで更新するため、判定はロックフリーで割り当ても発生しない
+ * 各ストライプのエントリ数には上限があり、アイドル状態のバケットは定期的に破棄される
+ */
+public final class TokenBucketTable {
+
+    /** トークン残量のビット数（1トークン = 1000ミリトークン） */
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI_TOKENS = 1000;
+
+    /** 1バケットに設定できる最大容量 */
+    public static final long MAX_CAPACITY = TOKEN_MASK / MILLI_TOKENS;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int maxEntriesPerStripe;
+    private final long capacityMilli;
+    private final double milliTokensPerMilli;
+    private final LongSupplier clockMillis;
+    private final long epochMillis;
+
+    /**
+     * @param stripes           ストライプ数（2の累乗に切り上げる）
+     * @param maxEntries        テーブル全体の最大バケット数
+     * @param capacity          バケット容量（バースト許容量）
+     * @param refillPerSecond   1秒あたりの補充トークン数
+     * @param clockMillis       現在時刻（ミリ秒）の取得元
+     */
+    public TokenBucketTable(int stripes, int maxEntries, long capacity, double refillPerSecond,
+                            LongSupplier clockMillis) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacityは1以上" + MAX_CAPACITY + "以下で指定してください: " + capacity);
+        }
+        if (refillPerSecond <= 0) {
+            throw new IllegalArgumentException("refillPerSecondは正の値で指定してください: " + refillPerSecond);
+        }
+        this.capacityMilli = capacity * MILLI_TOKENS;
+        // 1トークン/秒 = 1ミリトークン/ミリ秒
+        this.milliTokensPerMilli = refillPerSecond;
+        this.clockMillis = clockMillis;
+        this.epochMillis = clockMillis.getAsLong();
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.stripeMask = size - 1;
+        this.maxEntriesPerStripe = Math.max(1, maxEntries / size);
+    }
+
+    /**
+     * トークンを1つ消費する
+     *
+     * @return 許可した場合は残りトークン数（0以上）、拒否した場合は次のトークンが補充されるまでのミリ秒数の負数
+     */
+    public long tryAcquire(String key) {
+        Bucket bucket = bucketFor(key);
+        long now = clockMillis.getAsLong() - epochMillis;
+        while (true) {
+            long state = (long) Bucket.STATE.getVolatile(bucket);
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+            long stamp = Math.max(last, now);
+            // 補充量は起点からの累積量の差で求める（呼び出しごとに端数を切り捨てると、頻繁な呼び出しで補充が遅れる）
+            long credited = creditedSince(stamp) - creditedSince(last);
+            long refilled = Math.min(capacityMilli, tokens + credited);
+            if (refilled < MILLI_TOKENS) {
+                long waitMillis = (long) Math.ceil((MILLI_TOKENS - refilled) / milliTokensPerMilli);
+                return -Math.max(1, waitMillis);
+            }
+            long next = (stamp << TOKEN_BITS) | (refilled - MILLI_TOKENS);
+            if (Bucket.STATE.compareAndSet(bucket, state, next)) {
+                return (refilled - MILLI_TOKENS) / MILLI_TOKENS;
+            }
+        }
+    }
+
+    /**
+     * 起点から指定時刻（ミリ秒）までに補充されるミリトークン数の累計
+     */
+    private long creditedSince(long millis) {
+        return (long) (millis * milliTokensPerMilli);
+    }
+
+    /**
+     * 満タンまで補充されるまでの秒数を算出
+     */
+    public long secondsUntilFull(long remaining) {
+        long missingMilli = Math.max(0, capacityMilli - remaining * MILLI_TOKENS);
+        return (long) Math.ceil(missingMilli / milliTokensPerMilli / 1000.0);
+    }
+
+    /**
+     * 指定時間以上アクセスがなく、満タンまで補充されているバケットを破棄する
+     * 破棄したバケットは次回アクセス時に満タンで作り直されるため、判定結果は変わらない
+     *
+     * @return 破棄したバケット数
+     */
+    public int evictIdle(long idleMillis) {
+        long now = clockMillis.getAsLong() - epochMillis;
+        long fullAfterMillis = (long) Math.ceil(capacityMilli / milliTokensPerMilli);
+        long threshold = Math.max(idleMillis, fullAfterMillis);
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            for (var entry : stripe.buckets.entrySet()) {
+                long state = (long) Bucket.STATE.getVolatile(entry.getValue());
+                if (now - (state >>> TOKEN_BITS) >= threshold
+                        && stripe.buckets.remove(entry.getKey(), entry.getValue())) {
+                    stripe.size.decrementAndGet();
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 現在保持しているバケット数
+     */
+    public int size() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.size.get();
+        }
+        return total;
+    }
+
+    private Bucket bucketFor(String key) {
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & stripeMask];
+        Bucket bucket = stripe.buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (stripe.size.get() >= maxEntriesPerStripe) {
+            // 上限に達したストライプでは新規クライアントを共有バケットで制限し、メモリ使用量を固定する
+            return stripe.overflow;
+        }
+        Bucket created = new Bucket(((clockMillis.getAsLong() - epochMillis) << TOKEN_BITS) | capacityMilli);
+        Bucket existing = stripe.buckets.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        stripe.size.incrementAndGet();
+        return created;
+    }
+
+    private final class Stripe {
+        final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+        final AtomicInteger size = new AtomicInteger();
+        final Bucket overflow = new Bucket(capacityMilli);
+    }
+
+    private static final class Bucket {
+        static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Bucket.class, "state", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        @SuppressWarnings("unused")
+        private volatile long state;
+
+        Bucket(long state) {
+            this.state = state;
+        }
+    }
+}
@@ -1,27 +1,43 @@
 package com.abservice.repository;
 
+import com.abservice.deadline.QueryDeadlines;
 import com.abservice.entity.CircleMember;
+import com.abservice.entity.CircleMemberTombstone;
+import com.abservice.tenant.TenantEntityManagers;
+import com.abservice.tenant.Tenants;
+import com.abservice.tracing.Traced;
 import com.abservice.view.CircleMemberView;
 import com.blazebit.persistence.CriteriaBuilder;
 import com.blazebit.persistence.CriteriaBuilderFactory;
+import com.blazebit.persistence.DeleteCriteriaBuilder;
+import com.blazebit.persistence.UpdateCriteriaBuilder;
 import com.blazebit.persistence.view.EntityViewManager;
 import com.blazebit.persistence.view.EntityViewSetting;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
 import jakarta.transaction.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * CircleMemberのBlaze-Persistenceリポジトリ
  */
 @ApplicationScoped
+@Traced("repository")
 public class CircleMemberRepository {
 
     @Inject
-    EntityManager entityManager;
+    TenantEntityManagers entityManagers;
 
     @Inject
     EntityViewManager entityViewManager;
@@ -29,25 +45,53 @@ public class CircleMemberRepository {
     @Inject
     CriteriaBuilderFactory criteriaBuilderFactory;
 
+    @Inject
+    QueryDeadlines queryDeadlines;
+
+    /**
+     * スパースフィールドセットで指定できる項目名と属性パス（CircleMemberDtoの並び順）
+     * role.id は外部キー列で解決されるため、Roleとの結合はroleName・roleDescriptionを指定した場合のみ発生する
+     */
+    public static final Map<String, String> FIELD_PATHS;
+
+    static {
+        Map<String, String> paths = new LinkedHashMap<>();
+        paths.put("id", "id");
+        paths.put("username", "username");
+        paths.put("displayName", "displayName");
+        paths.put("email", "email");
+        paths.put("bio", "bio");
+        paths.put("avatarUrl", "avatarUrl");
+        paths.put("isActive", "isActive");
+        paths.put("createdAt", "createdAt");
+        paths.put("updatedAt", "updatedAt");
+        paths.put("version", "version");
+        paths.put("roleId", "role.id");
+        paths.put("roleName", "role.name");
+        paths.put("roleDescription", "role.description");
+        FIELD_PATHS = Collections.unmodifiableMap(paths);
+    }
+
     /**
      * すべてのCircleMemberを取得
      */
     public List<CircleMemberView> findAll() {
-        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(entityManager, CircleMember.class);
+        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(readEntityManager(), CircleMember.class);
         EntityViewSetting<CircleMemberView, CriteriaBuilder<CircleMemberView>> setting =
             EntityViewSetting.create(CircleMemberView.class);
-        return entityViewManager.applySetting(setting, cb).getResultList();
+        return queryDeadlines.apply(entityViewManager.applySetting(setting, cb).getQuery()).getResultList();
     }
 
     /**
      * IDでCircleMemberを取得
      */
     public Optional<CircleMemberView> findById(Long id) {
-        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(entityManager, CircleMember.class);
+        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(readEntityManager(), CircleMember.class);
         cb.where("id").eq(id);
         EntityViewSetting<CircleMemberView, CriteriaBuilder<CircleMemberView>> setting =
             EntityViewSetting.create(CircleMemberView.class);
-        List<CircleMemberView> result = entityViewManager.applySetting(setting, cb).getResultList();
+        List<CircleMemberView> result = queryDeadlines.apply(entityViewManager.applySetting(setting, cb).getQuery())
+                .getResultList();
         return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
     }
 
@@ -55,11 +99,25 @@ public class CircleMemberRepository {
      * ユーザー名でCircleMemberを取得
      */
     public Optional<CircleMemberView> findByUsername(String username) {
-        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(entityManager, CircleMember.class);
+        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(readEntityManager(), CircleMember.class);
         cb.where("username").eq(username);
         EntityViewSetting<CircleMemberView, CriteriaBuilder<CircleMemberView>> setting =
             EntityViewSetting.create(CircleMemberView.class);
-        List<CircleMemberView> result = entityViewManager.applySetting(setting, cb).getResultList();
+        List<CircleMemberView> result = queryDeadlines.apply(entityViewManager.applySetting(setting, cb).getQuery())
+                .getResultList();
+        return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
+    }
+
+    /**
+     * メールアドレスでCircleMemberを取得
+     */
+    public Optional<CircleMemberView> findByEmail(String email) {
+        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(readEntityManager(), CircleMember.class);
+        cb.where("email").eq(email);
+        EntityViewSetting<CircleMemberView, CriteriaBuilder<CircleMemberView>> setting =
+            EntityViewSetting.create(CircleMemberView.class);
+        List<CircleMemberView> result = queryDeadlines.apply(entityViewManager.applySetting(setting, cb).getQuery())
+                .getResultList();
         return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
     }
 
@@ -67,11 +125,126 @@ public class CircleMemberRepository {
      * アクティブなCircleMemberのみを取得
      */
     public List<CircleMemberView> findActiveMembers() {
-        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(entityManager, CircleMember.class);
+        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(readEntityManager(), CircleMember.class);
         cb.where("isActive").eq(true);
         EntityViewSetting<CircleMemberView, CriteriaBuilder<CircleMemberView>> setting =
             EntityViewSetting.create(CircleMemberView.class);
-        return entityViewManager.applySetting(setting, cb).getResultList();
+        return queryDeadlines.apply(entityViewManager.applySetting(setting, cb).getQuery()).getResultList();
+    }
+
+    /**
+     * すべてのCircleMemberの指定項目のみを取得
+     *
+     * @param fields FIELD_PATHSのキー（指定されていない列はSELECTしない）
+     */
+    public List<Map<String, Object>> findAllFields(List<String> fields) {
+        return findFields(fields, cb -> { });
+    }
+
+    /**
+     * アクティブなCircleMemberの指定項目のみを取得
+     */
+    public List<Map<String, Object>> findActiveMembersFields(List<String> fields) {
+        return findFields(fields, cb -> cb.where("isActive").eq(true));
+    }
+
+    /**
+     * IDでCircleMemberの指定項目のみを取得
+     */
+    public Optional<Map<String, Object>> findByIdFields(Long id, List<String> fields) {
+        return findFields(fields, cb -> cb.where("id").eq(id)).stream().findFirst();
+    }
+
+    /**
+     * ユーザー名でCircleMemberの指定項目のみを取得
+     */
+    public Optional<Map<String, Object>> findByUsernameFields(String username, List<String> fields) {
+        return findFields(fields, cb -> cb.where("username").eq(username)).stream().findFirst();
+    }
+
+    /**
+     * 複数RoleのCircleMemberを1回のINクエリで取得
+     */
+    public List<CircleMemberView> findByRoleIds(Collection<Long> roleIds) {
+        if (roleIds.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(readEntityManager(), CircleMember.class);
+        cb.where("role.id").in(roleIds);
+        cb.orderByAsc("id");
+        EntityViewSetting<CircleMemberView, CriteriaBuilder<CircleMemberView>> setting =
+            EntityViewSetting.create(CircleMemberView.class);
+        return queryDeadlines.apply(entityViewManager.applySetting(setting, cb).getQuery()).getResultList();
+    }
+
+    /**
+     * 指定カーソル以降に変更されたCircleMemberを取得
+     */
+    public List<CircleMemberView> findChangedSince(long since) {
+        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(entityManager(), CircleMember.class);
+        cb.where("changeSeq").ge(since);
+        cb.orderByAsc("changeSeq");
+        cb.orderByAsc("id");
+        EntityViewSetting<CircleMemberView, CriteriaBuilder<CircleMemberView>> setting =
+            EntityViewSetting.create(CircleMemberView.class);
+        return queryDeadlines.apply(entityViewManager.applySetting(setting, cb).getQuery()).getResultList();
+    }
+
+    /**
+     * 指定カーソル以降に削除されたCircleMemberのIDを取得
+     */
+    public List<Long> findDeletedIdsSince(long since) {
+        return queryDeadlines.apply(criteriaBuilderFactory.create(entityManager(), Long.class)
+                .from(CircleMemberTombstone.class, "t")
+                .select("t.memberId")
+                .where("t.changeSeq").ge(since)
+                .orderByAsc("t.changeSeq")
+                .orderByAsc("t.memberId")
+                .getQuery())
+                .getResultList();
+    }
+
+    /**
+     * 現在の同期カーソルを取得
+     * これより小さいトランザクションIDの変更はすべてコミット済み（または破棄済み）である
+     */
+    public long currentChangeCursor() {
+        Number cursor = (Number) queryDeadlines.apply(entityManager()
+                .createNativeQuery("SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint)"))
+                .getSingleResult();
+        return cursor.longValue();
+    }
+
+    /**
+     * トゥームストーンのコンパクション済み上限を取得
+     */
+    public long findCompactedThrough() {
+        Number watermark = (Number) queryDeadlines.apply(entityManager()
+                .createNativeQuery("SELECT compacted_through FROM sync_watermarks WHERE name = 'circle_members'"))
+                .getSingleResult();
+        return watermark.longValue();
+    }
+
+    /**
+     * 保持期間を過ぎたトゥームストーンを最大batchSize件削除し、コンパクション済み上限を更新
+     * コンパクション済み上限はデータベース全体で1つのため、テナントをまたいで削除する
+     */
+    @Transactional
+    public int compactTombstones(OffsetDateTime deletedBefore, int batchSize) {
+        Number removed = (Number) queryDeadlines.apply(entityManager().createNativeQuery(
+                "WITH removed AS ("
+                + " DELETE FROM circle_member_tombstones WHERE member_id IN ("
+                + "  SELECT member_id FROM circle_member_tombstones WHERE deleted_at < ?1 LIMIT ?2)"
+                + " RETURNING change_seq),"
+                + " bumped AS ("
+                + " UPDATE sync_watermarks SET compacted_through ="
+                + "  GREATEST(compacted_through, (SELECT MAX(change_seq) FROM removed))"
+                + " WHERE name = 'circle_members' AND EXISTS (SELECT 1 FROM removed))"
+                + " SELECT COUNT(*) FROM removed"))
+                .setParameter(1, deletedBefore)
+                .setParameter(2, batchSize)
+                .getSingleResult();
+        return removed.intValue();
     }
 
     /**
@@ -80,9 +253,9 @@ public class CircleMemberRepository {
     @Transactional
     public CircleMember save(CircleMember circleMember) {
         if (circleMember.getId() == null) {
-            entityManager.persist(circleMember);
+            entityManager().persist(circleMember);
         } else {
-            entityManager.merge(circleMember);
+            entityManager().merge(circleMember);
         }
         return circleMember;
     }
@@ -92,29 +265,135 @@ public class CircleMemberRepository {
      */
     @Transactional
     public void deleteById(Long id) {
-        CircleMember circleMember = entityManager.find(CircleMember.class, id);
-        if (circleMember != null) {
-            entityManager.remove(circleMember);
+        CircleMember circleMember = entityManager().find(CircleMember.class, id);
+        // 主キーでの取得にはテナントの条件が付かないため、所属を確認してから削除する
+        if (circleMember != null && Tenants.current().equals(circleMember.getTenantId())) {
+            entityManager().remove(circleMember);
         }
     }
 
+    /**
+     * バージョンを条件にCircleMemberを更新（楽観的ロック）
+     * バージョンはUPDATE文のWHERE句で照合するため、事前のSELECTは行わない
+     *
+     * @param expectedVersion 期待するバージョン（nullの場合は照合しない）
+     * @param changes 属性名と更新後の値（指定した列のみを更新する）
+     * @return 更新件数（0件の場合は存在しないかバージョン不一致）
+     */
+    @Transactional
+    public int updateIfVersion(Long id, Long expectedVersion, Map<String, Object> changes) {
+        UpdateCriteriaBuilder<CircleMember> ub = criteriaBuilderFactory.update(entityManager(), CircleMember.class);
+        changes.forEach((attribute, value) -> {
+            if (value == null) {
+                ub.setExpression(attribute, "NULL");
+            } else {
+                ub.set(attribute, value);
+            }
+        });
+        // 一括更新では@PreUpdateが呼ばれないため、更新日時とバージョンはここで設定する
+        ub.set("updatedAt", LocalDateTime.now());
+        ub.setExpression("version", "version + 1");
+        // 一括更新・削除は主キーで対象を決めるため、テナントの条件も明示する
+        ub.where("tenantId").eq(Tenants.current());
+        ub.where("id").eq(id);
+        if (expectedVersion != null) {
+            ub.where("version").eq(expectedVersion);
+        }
+        return queryDeadlines.apply(ub.getQuery()).executeUpdate();
+    }
+
+    /**
+     * バージョンを条件にCircleMemberを削除（楽観的ロック）
+     *
+     * @param expectedVersion 期待するバージョン（nullの場合は照合しない）
+     * @return 削除件数（0件の場合は存在しないかバージョン不一致）
+     */
+    @Transactional
+    public int deleteIfVersion(Long id, Long expectedVersion) {
+        DeleteCriteriaBuilder<CircleMember> db = criteriaBuilderFactory.delete(entityManager(), CircleMember.class);
+        db.where("tenantId").eq(Tenants.current());
+        db.where("id").eq(id);
+        if (expectedVersion != null) {
+            db.where("version").eq(expectedVersion);
+        }
+        return queryDeadlines.apply(db.getQuery()).executeUpdate();
+    }
+
+    /**
+     * 現在のバージョンを取得（楽観的ロック失敗時の判別用、常にプライマリから読む）
+     */
+    public Optional<Long> findVersion(Long id) {
+        CriteriaBuilder<Long> cb = criteriaBuilderFactory.create(entityManager(), Long.class)
+                .from(CircleMember.class)
+                .select("version");
+        cb.where("id").eq(id);
+        List<Long> result = queryDeadlines.apply(cb.getQuery()).getResultList();
+        return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
+    }
+
     /**
      * ユーザー名の存在チェック
      */
     public boolean existsByUsername(String username) {
-        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(entityManager, CircleMember.class);
+        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(entityManager(), CircleMember.class);
         cb.where("username").eq(username);
-        return cb.getResultList().size() > 0;
+        return !queryDeadlines.apply(cb.getQuery()).getResultList().isEmpty();
     }
 
     /**
      * メールアドレスの存在チェック
      */
     public boolean existsByEmail(String email) {
-        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(entityManager, CircleMember.class);
+        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(entityManager(), CircleMember.class);
         cb.where("email").eq(email);
-        return cb.getResultList().size() > 0;
+        return !queryDeadlines.apply(cb.getQuery()).getResultList().isEmpty();
     }
-}
 
+    /**
+     * 指定ID以外でのメールアドレスの存在チェック
+     */
+    public boolean existsByEmailExcludingId(String email, Long id) {
+        CriteriaBuilder<CircleMember> cb = criteriaBuilderFactory.create(entityManager(), CircleMember.class);
+        cb.where("email").eq(email);
+        cb.where("id").notEq(id);
+        return !queryDeadlines.apply(cb.getQuery()).getResultList().isEmpty();
+    }
 
+    /**
+     * 指定項目のみをSELECTする射影クエリを組み立てて実行し、項目名をキーとするMapで返す
+     */
+    private List<Map<String, Object>> findFields(List<String> fields, Consumer<CriteriaBuilder<Tuple>> restriction) {
+        CriteriaBuilder<Tuple> cb = criteriaBuilderFactory.create(readEntityManager(), Tuple.class)
+                .from(CircleMember.class);
+        for (String field : fields) {
+            cb.select(FIELD_PATHS.get(field));
+        }
+        restriction.accept(cb);
+        return queryDeadlines.apply(cb.getQuery()).getResultList()
+                .stream()
+                .map(row -> toFieldMap(fields, row))
+                .toList();
+    }
+
+    private static Map<String, Object> toFieldMap(List<String> fields, Tuple row) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            values.put(fields.get(i), row.get(i));
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * 現在のテナントのプライマリのEntityManagerを取得
+     */
+    private EntityManager entityManager() {
+        return entityManagers.primary();
+    }
+
+    /**
+     * 読み取りに使用するEntityManagerを取得（@ReplicaReadでレプリカが選択されている場合はレプリカ）
+     */
+    private EntityManager readEntityManager() {
+        return entityManagers.read();
+    }
+}
@@ -0,0 +1,71 @@
+package com.abservice.repository;
+
+import com.abservice.deadline.QueryDeadlines;
+import com.abservice.entity.Permission;
+import com.abservice.entity.Role;
+import com.abservice.tenant.TenantEntityManagers;
+import com.abservice.tracing.Traced;
+import com.abservice.view.PermissionView;
+import com.abservice.view.RolePermissionsView;
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.CriteriaBuilderFactory;
+import com.blazebit.persistence.view.EntityViewManager;
+import com.blazebit.persistence.view.EntityViewSetting;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * PermissionのBlaze-Persistenceリポジトリ（読み取り専用）
+ */
+@ApplicationScoped
+@Traced("repository")
+public class PermissionRepository {
+
+    @Inject
+    TenantEntityManagers entityManagers;
+
+    @Inject
+    EntityViewManager entityViewManager;
+
+    @Inject
+    CriteriaBuilderFactory criteriaBuilderFactory;
+
+    @Inject
+    QueryDeadlines queryDeadlines;
+
+    /**
+     * すべてのPermissionを取得
+     */
+    public List<PermissionView> findAll() {
+        CriteriaBuilder<Permission> cb = criteriaBuilderFactory.create(readEntityManager(), Permission.class);
+        cb.orderByAsc("name");
+        EntityViewSetting<PermissionView, CriteriaBuilder<PermissionView>> setting =
+            EntityViewSetting.create(PermissionView.class);
+        return queryDeadlines.apply(entityViewManager.applySetting(setting, cb).getQuery()).getResultList();
+    }
+
+    /**
+     * 複数RoleのPermissionを1回のINクエリ（role_permissionsとのJOIN）で取得
+     */
+    public List<RolePermissionsView> findByRoleIds(Collection<Long> roleIds) {
+        if (roleIds.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder<Role> cb = criteriaBuilderFactory.create(readEntityManager(), Role.class);
+        cb.where("id").in(roleIds);
+        EntityViewSetting<RolePermissionsView, CriteriaBuilder<RolePermissionsView>> setting =
+            EntityViewSetting.create(RolePermissionsView.class);
+        return queryDeadlines.apply(entityViewManager.applySetting(setting, cb).getQuery()).getResultList();
+    }
+
+    /**
+     * 読み取りに使用するEntityManagerを取得（@ReplicaReadでレプリカが選択されている場合はレプリカ）
+     */
+    private EntityManager readEntityManager() {
+        return entityManagers.read();
+    }
+}
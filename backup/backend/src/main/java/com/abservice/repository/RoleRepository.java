@@ -1,27 +1,43 @@
 package com.abservice.repository;
 
+import com.abservice.deadline.QueryDeadlines;
+import com.abservice.entity.CircleMember;
 import com.abservice.entity.Role;
+import com.abservice.tenant.TenantEntityManagers;
+import com.abservice.tenant.Tenants;
+import com.abservice.tracing.Traced;
 import com.abservice.view.RoleView;
 import com.blazebit.persistence.CriteriaBuilder;
 import com.blazebit.persistence.CriteriaBuilderFactory;
+import com.blazebit.persistence.DeleteCriteriaBuilder;
+import com.blazebit.persistence.UpdateCriteriaBuilder;
 import com.blazebit.persistence.view.EntityViewManager;
 import com.blazebit.persistence.view.EntityViewSetting;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Tuple;
 import jakarta.transaction.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * RoleのBlaze-Persistenceリポジトリ
  */
 @ApplicationScoped
+@Traced("repository")
 public class RoleRepository {
 
     @Inject
-    EntityManager entityManager;
+    TenantEntityManagers entityManagers;
 
     @Inject
     EntityViewManager entityViewManager;
@@ -29,25 +45,45 @@ public class RoleRepository {
     @Inject
     CriteriaBuilderFactory criteriaBuilderFactory;
 
+    @Inject
+    QueryDeadlines queryDeadlines;
+
+    /**
+     * スパースフィールドセットで指定できる項目名と属性パス（RoleDtoの並び順）
+     */
+    public static final Map<String, String> FIELD_PATHS;
+
+    static {
+        Map<String, String> paths = new LinkedHashMap<>();
+        paths.put("id", "id");
+        paths.put("name", "name");
+        paths.put("description", "description");
+        paths.put("createdAt", "createdAt");
+        paths.put("updatedAt", "updatedAt");
+        paths.put("version", "version");
+        FIELD_PATHS = Collections.unmodifiableMap(paths);
+    }
+
     /**
      * すべてのRoleを取得
      */
     public List<RoleView> findAll() {
-        CriteriaBuilder<Role> cb = criteriaBuilderFactory.create(entityManager, Role.class);
+        CriteriaBuilder<Role> cb = criteriaBuilderFactory.create(readEntityManager(), Role.class);
         EntityViewSetting<RoleView, CriteriaBuilder<RoleView>> setting =
             EntityViewSetting.create(RoleView.class);
-        return entityViewManager.applySetting(setting, cb).getResultList();
+        return queryDeadlines.apply(entityViewManager.applySetting(setting, cb).getQuery()).getResultList();
     }
 
     /**
      * IDでRoleを取得
      */
     public Optional<RoleView> findById(Long id) {
-        CriteriaBuilder<Role> cb = criteriaBuilderFactory.create(entityManager, Role.class);
+        CriteriaBuilder<Role> cb = criteriaBuilderFactory.create(readEntityManager(), Role.class);
         cb.where("id").eq(id);
         EntityViewSetting<RoleView, CriteriaBuilder<RoleView>> setting =
             EntityViewSetting.create(RoleView.class);
-        List<RoleView> result = entityViewManager.applySetting(setting, cb).getResultList();
+        List<RoleView> result = queryDeadlines.apply(entityViewManager.applySetting(setting, cb).getQuery())
+                .getResultList();
         return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
     }
 
@@ -55,23 +91,61 @@ public class RoleRepository {
      * 名前でRoleを取得
      */
     public Optional<RoleView> findByName(String name) {
-        CriteriaBuilder<Role> cb = criteriaBuilderFactory.create(entityManager, Role.class);
+        CriteriaBuilder<Role> cb = criteriaBuilderFactory.create(readEntityManager(), Role.class);
         cb.where("name").eq(name);
         EntityViewSetting<RoleView, CriteriaBuilder<RoleView>> setting =
             EntityViewSetting.create(RoleView.class);
-        List<RoleView> result = entityViewManager.applySetting(setting, cb).getResultList();
+        List<RoleView> result = queryDeadlines.apply(entityViewManager.applySetting(setting, cb).getQuery())
+                .getResultList();
         return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
     }
 
+    /**
+     * すべてのRoleの指定項目のみを取得
+     *
+     * @param fields FIELD_PATHSのキー（指定されていない列はSELECTしない）
+     */
+    public List<Map<String, Object>> findAllFields(List<String> fields) {
+        return findFields(fields, cb -> { });
+    }
+
+    /**
+     * IDでRoleの指定項目のみを取得
+     */
+    public Optional<Map<String, Object>> findByIdFields(Long id, List<String> fields) {
+        return findFields(fields, cb -> cb.where("id").eq(id)).stream().findFirst();
+    }
+
+    /**
+     * 名前でRoleの指定項目のみを取得
+     */
+    public Optional<Map<String, Object>> findByNameFields(String name, List<String> fields) {
+        return findFields(fields, cb -> cb.where("name").eq(name)).stream().findFirst();
+    }
+
+    /**
+     * 複数IDのRoleを1回のINクエリで取得（存在しないIDは結果に含まれない）
+     */
+    public List<RoleView> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder<Role> cb = criteriaBuilderFactory.create(readEntityManager(), Role.class);
+        cb.where("id").in(ids);
+        EntityViewSetting<RoleView, CriteriaBuilder<RoleView>> setting =
+            EntityViewSetting.create(RoleView.class);
+        return queryDeadlines.apply(entityViewManager.applySetting(setting, cb).getQuery()).getResultList();
+    }
+
     /**
      * Roleを保存
      */
     @Transactional
     public Role save(Role role) {
         if (role.getId() == null) {
-            entityManager.persist(role);
+            entityManager().persist(role);
         } else {
-            entityManager.merge(role);
+            entityManager().merge(role);
         }
         return role;
     }
@@ -81,20 +155,159 @@ public class RoleRepository {
      */
     @Transactional
     public void deleteById(Long id) {
-        Role role = entityManager.find(Role.class, id);
-        if (role != null) {
-            entityManager.remove(role);
+        Role role = entityManager().find(Role.class, id);
+        // 主キーでの取得にはテナントの条件が付かないため、所属を確認してから削除する
+        if (role != null && Tenants.current().equals(role.tenantId)) {
+            entityManager().remove(role);
+        }
+    }
+
+    /**
+     * 参照用のRoleを取得（SELECTは発行しない）
+     */
+    public Role getReference(Long id) {
+        return entityManager().getReference(Role.class, id);
+    }
+
+    /**
+     * バージョンを条件にRoleを更新（楽観的ロック）
+     * バージョンはUPDATE文のWHERE句で照合するため、事前のSELECTは行わない
+     *
+     * @param expectedVersion 期待するバージョン（nullの場合は照合しない）
+     * @param changes 属性名と更新後の値（指定した列のみを更新する）
+     * @return 更新件数（0件の場合は存在しないかバージョン不一致）
+     */
+    @Transactional
+    public int updateIfVersion(Long id, Long expectedVersion, Map<String, Object> changes) {
+        UpdateCriteriaBuilder<Role> ub = criteriaBuilderFactory.update(entityManager(), Role.class);
+        changes.forEach((attribute, value) -> {
+            if (value == null) {
+                ub.setExpression(attribute, "NULL");
+            } else {
+                ub.set(attribute, value);
+            }
+        });
+        // 一括更新では@PreUpdateが呼ばれないため、更新日時とバージョンはここで設定する
+        ub.set("updatedAt", LocalDateTime.now());
+        ub.setExpression("version", "version + 1");
+        // 一括更新・削除は主キーで対象を決めるため、テナントの条件も明示する
+        ub.where("tenantId").eq(Tenants.current());
+        ub.where("id").eq(id);
+        if (expectedVersion != null) {
+            ub.where("version").eq(expectedVersion);
+        }
+        return queryDeadlines.apply(ub.getQuery()).executeUpdate();
+    }
+
+    /**
+     * 削除するRoleの行をロックし、所属するCircleMemberのIDを取得
+     * ロックはトランザクションの終了まで保持され、その間は他のトランザクションがメンバーをこのRoleに所属させられない
+     * （外部キーの確認がロックを待つ）ため、続けて {@link #deleteIfVersion} で削除されるメンバーはここで返したものに限られる
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public List<Long> lockMemberIdsForDelete(Long id) {
+        queryDeadlines.apply(entityManager().createQuery("SELECT r.id FROM Role r WHERE r.id = :id", Long.class)
+                        .setParameter("id", id)
+                        .setLockMode(LockModeType.PESSIMISTIC_WRITE))
+                .getResultList();
+        CriteriaBuilder<Long> cb = criteriaBuilderFactory.create(entityManager(), Long.class)
+                .from(CircleMember.class)
+                .select("id");
+        cb.where("role.id").eq(id);
+        cb.orderByAsc("id");
+        return queryDeadlines.apply(cb.getQuery()).getResultList();
+    }
+
+    /**
+     * バージョンを条件にRoleを削除（楽観的ロック）
+     * 所属するCircleMemberも削除する（バージョン不一致の場合はトランザクションごとロールバックされる）
+     * 削除されるメンバーは事前に {@link #lockMemberIdsForDelete} で取得し、変更を通知すること
+     *
+     * @param expectedVersion 期待するバージョン（nullの場合は照合しない）
+     * @return 削除件数（0件の場合は存在しないかバージョン不一致）
+     */
+    @Transactional
+    public int deleteIfVersion(Long id, Long expectedVersion) {
+        DeleteCriteriaBuilder<CircleMember> members = criteriaBuilderFactory.delete(entityManager(), CircleMember.class);
+        members.where("tenantId").eq(Tenants.current());
+        members.where("role.id").eq(id);
+        queryDeadlines.apply(members.getQuery()).executeUpdate();
+
+        DeleteCriteriaBuilder<Role> db = criteriaBuilderFactory.delete(entityManager(), Role.class);
+        db.where("tenantId").eq(Tenants.current());
+        db.where("id").eq(id);
+        if (expectedVersion != null) {
+            db.where("version").eq(expectedVersion);
         }
+        return queryDeadlines.apply(db.getQuery()).executeUpdate();
+    }
+
+    /**
+     * 現在のバージョンを取得（楽観的ロック失敗時の判別用、常にプライマリから読む）
+     */
+    public Optional<Long> findVersion(Long id) {
+        CriteriaBuilder<Long> cb = criteriaBuilderFactory.create(entityManager(), Long.class)
+                .from(Role.class)
+                .select("version");
+        cb.where("id").eq(id);
+        List<Long> result = queryDeadlines.apply(cb.getQuery()).getResultList();
+        return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
+    }
+
+    /**
+     * 指定ID以外での名前の存在チェック
+     */
+    public boolean existsByNameExcludingId(String name, Long id) {
+        CriteriaBuilder<Role> cb = criteriaBuilderFactory.create(entityManager(), Role.class);
+        cb.where("name").eq(name);
+        cb.where("id").notEq(id);
+        return !queryDeadlines.apply(cb.getQuery()).getResultList().isEmpty();
     }
 
     /**
      * 名前の存在チェック
      */
     public boolean existsByName(String name) {
-        CriteriaBuilder<Role> cb = criteriaBuilderFactory.create(entityManager, Role.class);
+        CriteriaBuilder<Role> cb = criteriaBuilderFactory.create(entityManager(), Role.class);
         cb.where("name").eq(name);
-        return cb.getResultList().size() > 0;
+        return !queryDeadlines.apply(cb.getQuery()).getResultList().isEmpty();
+    }
+
+    /**
+     * 指定項目のみをSELECTする射影クエリを組み立てて実行し、項目名をキーとするMapで返す
+     */
+    private List<Map<String, Object>> findFields(List<String> fields, Consumer<CriteriaBuilder<Tuple>> restriction) {
+        CriteriaBuilder<Tuple> cb = criteriaBuilderFactory.create(readEntityManager(), Tuple.class)
+                .from(Role.class);
+        for (String field : fields) {
+            cb.select(FIELD_PATHS.get(field));
+        }
+        restriction.accept(cb);
+        return queryDeadlines.apply(cb.getQuery()).getResultList()
+                .stream()
+                .map(row -> toFieldMap(fields, row))
+                .toList();
+    }
+
+    private static Map<String, Object> toFieldMap(List<String> fields, Tuple row) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            values.put(fields.get(i), row.get(i));
+        }
+        return Collections.unmodifiableMap(values);
     }
-}
 
+    /**
+     * 現在のテナントのプライマリのEntityManagerを取得
+     */
+    private EntityManager entityManager() {
+        return entityManagers.primary();
+    }
 
+    /**
+     * 読み取りに使用するEntityManagerを取得（@ReplicaReadでレプリカが選択されている場合はレプリカ）
+     */
+    private EntityManager readEntityManager() {
+        return entityManagers.read();
+    }
+}
@@ -0,0 +1,44 @@
+package com.abservice.routing;
+
+import java.util.Locale;
+
+/**
+ * PostgreSQLのWAL位置（LSN）の文字列表現（"16/B374D848"）と数値の変換
+ * 数値はWAL先頭からのバイト位置で、大小比較で反映済みかどうかを判定できる
+ */
+final class Lsn {
+
+    private Lsn() {
+    }
+
+    /**
+     * pg_lsn型の式をバイト位置（bigint）に変換するSQL式
+     */
+    static String bytesOf(String pgLsnExpression) {
+        return "CAST((" + pgLsnExpression + ") - CAST('0/0' AS pg_lsn) AS bigint)";
+    }
+
+    /**
+     * 文字列表現を数値に変換（不正な値は0）
+     */
+    static long parse(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int slash = value.indexOf('/');
+        if (slash < 1 || slash > 8 || value.length() - slash - 1 < 1 || value.length() - slash - 1 > 8) {
+            return 0;
+        }
+        try {
+            long high = Long.parseUnsignedLong(value, 0, slash, 16);
+            long low = Long.parseUnsignedLong(value, slash + 1, value.length(), 16);
+            return high << 32 | low;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static String format(long lsn) {
+        return (Long.toHexString(lsn >>> 32) + "/" + Long.toHexString(lsn & 0xFFFFFFFFL)).toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,86 @@
+package com.abservice.routing;
+
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.vertx.core.http.Cookie;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+
+/**
+ * リクエスト単位の読み取り一貫性の要求（最初の参照時にリクエストから解決する）
+ * 書き込んだクライアントは書き込み時に受け取ったWAL位置をCookieまたはヘッダーで送り、
+ * レプリカがその位置まで反映していない間の読み取りはプライマリで実行する（read-your-writes）
+ * REST APIのフィルターを通らないGraphQLのリクエストにも適用される
+ */
+@RequestScoped
+public class ReadConsistency {
+
+    /** 書き込んだクライアントのWAL位置を保持するCookie（書き込み応答で設定する） */
+    static final String LSN_COOKIE = "abs-read-lsn";
+
+    /** Cookieを使わないクライアントが、書き込み応答のX-Commit-LSNをそのまま送るヘッダー */
+    static final String LSN_HEADER = "X-Read-After-LSN";
+
+    /** "primary"を指定するとレプリカを使わない */
+    static final String CONSISTENCY_HEADER = "X-Read-Consistency";
+
+    @Inject
+    CurrentVertxRequest vertxRequest;
+
+    private boolean resolved;
+    private boolean primaryRequired;
+    private long minimumLsn;
+    private long commitLsn;
+
+    public boolean isPrimaryRequired() {
+        resolve();
+        return primaryRequired;
+    }
+
+    /**
+     * レプリカから読む場合に反映済みである必要があるWAL位置（要求がない場合は0）
+     */
+    public long getMinimumLsn() {
+        resolve();
+        return minimumLsn;
+    }
+
+    /**
+     * このリクエストでコミットした変更のWAL位置（書き込みがない場合は0）
+     */
+    long getCommitLsn() {
+        return commitLsn;
+    }
+
+    /**
+     * このリクエストでのコミットを記録し、以降の読み取りにも適用する
+     */
+    void recordCommit(long lsn) {
+        resolve();
+        commitLsn = Math.max(commitLsn, lsn);
+        minimumLsn = Math.max(minimumLsn, lsn);
+    }
+
+    private void resolve() {
+        if (resolved) {
+            return;
+        }
+        resolved = true;
+        RoutingContext routingContext = vertxRequest.getCurrent();
+        if (routingContext == null) {
+            return;
+        }
+        HttpServerRequest request = routingContext.request();
+        if ("primary".equalsIgnoreCase(request.getHeader(CONSISTENCY_HEADER))) {
+            primaryRequired = true;
+            return;
+        }
+        long lsn = Lsn.parse(request.getHeader(LSN_HEADER));
+        Cookie cookie = request.getCookie(LSN_COOKIE);
+        if (cookie != null) {
+            lsn = Math.max(lsn, Lsn.parse(cookie.getValue()));
+        }
+        minimumLsn = Math.max(minimumLsn, lsn);
+    }
+}
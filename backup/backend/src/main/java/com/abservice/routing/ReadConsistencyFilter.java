@@ -0,0 +1,51 @@
+package com.abservice.routing;
+
+import com.abservice.config.ReplicaConfig;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.NewCookie;
+import org.jboss.resteasy.reactive.server.ServerResponseFilter;
+
+/**
+ * 書き込みを行ったクライアントに、コミットした変更のWAL位置を返すフィルター
+ * 位置はCookieとX-Commit-LSNヘッダーで返し、クライアントが以降のリクエストで送り返すと
+ * レプリカがその位置まで反映するまでの読み取りはプライマリで実行される（{@link ReadConsistency}）
+ * GraphQLのリクエストにも送られるよう、Cookieのパスは/とする
+ * 他のクライアントの読み取りには影響せず、複数ノード間でも状態を共有する必要がない
+ */
+public class ReadConsistencyFilter {
+
+    private static final String COMMIT_LSN_HEADER = "X-Commit-LSN";
+
+    @Inject
+    ReplicaConfig config;
+
+    @Inject
+    ReadConsistency readConsistency;
+
+    @Inject
+    ReplicaHealth replicaHealth;
+
+    @ServerResponseFilter
+    public void markWrite(ContainerResponseContext responseContext) {
+        if (!config.enabled() || responseContext.getStatus() >= 400) {
+            return;
+        }
+        long commitLsn = readConsistency.getCommitLsn();
+        if (commitLsn == 0) {
+            return;
+        }
+        String lsn = Lsn.format(commitLsn);
+        long windowMillis = replicaHealth.stickyWindowMillis();
+        NewCookie cookie = new NewCookie.Builder(ReadConsistency.LSN_COOKIE)
+                .value(lsn)
+                .path("/")
+                .maxAge((int) Math.max(1, (windowMillis + 999) / 1000))
+                .httpOnly(true)
+                .sameSite(NewCookie.SameSite.LAX)
+                .build();
+        responseContext.getHeaders().add(HttpHeaders.SET_COOKIE, cookie);
+        responseContext.getHeaders().putSingle(COMMIT_LSN_HEADER, lsn);
+    }
+}
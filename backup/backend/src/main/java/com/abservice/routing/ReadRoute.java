@@ -0,0 +1,76 @@
+package com.abservice.routing;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 現在のスレッドの読み取り先
+ * リポジトリはこれを参照して使用するEntityManagerを選択する
+ */
+public final class ReadRoute {
+
+    private static final ThreadLocal<Boolean> REPLICA = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> SHARED = new ThreadLocal<>();
+
+    private ReadRoute() {
+    }
+
+    /**
+     * 現在の読み取りをレプリカで実行するか
+     */
+    public static boolean isReplica() {
+        return REPLICA.get() != null;
+    }
+
+    /**
+     * 読み取り先をレプリカに切り替え、以前の状態を返す
+     */
+    static boolean enterReplica() {
+        boolean previous = isReplica();
+        REPLICA.set(Boolean.TRUE);
+        return previous;
+    }
+
+    /**
+     * 読み取り先を切り替え前の状態に戻す
+     */
+    static void restore(boolean previous) {
+        if (previous) {
+            REPLICA.set(Boolean.TRUE);
+        } else {
+            REPLICA.remove();
+        }
+    }
+
+    /**
+     * 読み取り先をレプリカに固定して実行する（起動時のウォームアップなど、@ReplicaReadの判定を経ない読み取り用）
+     */
+    public static void onReplica(Runnable task) {
+        boolean previous = enterReplica();
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 結果を他のクライアントと共有する読み取り（読み取りキャッシュの取得）として実行する
+     * レプリカはノードが検知した最新の変更まで反映済みの場合のみ使用される
+     */
+    public static <T> T shared(Callable<T> task) throws Exception {
+        if (SHARED.get() != null) {
+            return task.call();
+        }
+        SHARED.set(Boolean.TRUE);
+        try {
+            return task.call();
+        } finally {
+            SHARED.remove();
+        }
+    }
+
+    static boolean isShared() {
+        return SHARED.get() != null;
+    }
+}
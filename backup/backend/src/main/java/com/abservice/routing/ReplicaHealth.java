@@ -0,0 +1,196 @@
+package com.abservice.routing;
+
+import com.abservice.config.ReplicaConfig;
+import com.abservice.event.EntityChangeEvent;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.arc.Arc;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.enterprise.inject.spi.ObserverMethod;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 読み取りレプリカの死活・レプリケーション遅延と、反映済みのWAL位置を監視する
+ * 書き込み後の読み取りは、レプリカが必要なWAL位置まで反映済みの場合のみレプリカへ向ける
+ * （書き込んだクライアントの読み取りはそのクライアントの書き込み位置、読み取りキャッシュの取得はノードが検知した最新の変更位置）
+ */
+@ApplicationScoped
+public class ReplicaHealth {
+
+    private static final Logger LOG = Logger.getLogger(ReplicaHealth.class);
+
+    /**
+     * 1列目: WALをすべて適用済みであれば0、そうでなければ最後に適用したトランザクションからの経過時間（ミリ秒）
+     * 2列目: 反映済みのWAL位置（レプリカでない（リカバリ中でない）場合は現在の位置）
+     */
+    private static final String PROBE_QUERY = "SELECT CASE"
+            + " WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)::bigint END, "
+            + Lsn.bytesOf("CASE WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn() ELSE pg_current_wal_lsn() END");
+
+    private static final String REPLAYED_LSN_QUERY = "SELECT "
+            + Lsn.bytesOf("CASE WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn() ELSE pg_current_wal_lsn() END");
+
+    private static final String PRIMARY_LSN_QUERY = "SELECT " + Lsn.bytesOf("pg_current_wal_lsn()");
+
+    @Inject
+    ReplicaConfig config;
+
+    @Inject
+    AgroalDataSource primaryDataSource;
+
+    @Inject
+    @DataSource("replica")
+    AgroalDataSource replicaDataSource;
+
+    private volatile boolean reachable;
+    private volatile long lagMillis = Long.MAX_VALUE;
+    private volatile long replayedLsn;
+
+    /** ノードが検知した最新の変更のWAL位置 */
+    private final AtomicLong changeLsn = new AtomicLong();
+
+    /** 反映位置の確認は同時に1つまで（確認中の読み取りはプライマリへ） */
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * レプリカから読んでよいか
+     */
+    public boolean isUsable() {
+        return reachable && lagMillis <= config.maxLag().toMillis();
+    }
+
+    /**
+     * レプリカが指定したWAL位置まで反映済みか
+     * 前回の確認で反映済みでなければレプリカに問い合わせ直す（他のスレッドが問い合わせ中の場合は未反映として扱う）
+     */
+    public boolean hasReplayed(long lsn) {
+        if (lsn <= replayedLsn) {
+            return true;
+        }
+        if (!refreshing.compareAndSet(false, true)) {
+            return false;
+        }
+        try (Connection connection = replicaDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout((int) Math.max(1, config.probeTimeout().toSeconds()));
+            try (ResultSet resultSet = statement.executeQuery(REPLAYED_LSN_QUERY)) {
+                resultSet.next();
+                advanceReplayedLsn(resultSet.getLong(1));
+            }
+        } catch (SQLException e) {
+            markFailed(e);
+            return false;
+        } finally {
+            refreshing.set(false);
+        }
+        return lsn <= replayedLsn;
+    }
+
+    /**
+     * ノードが検知した最新の変更のWAL位置（読み取りキャッシュの取得はここまで反映済みのレプリカでのみ行う）
+     */
+    public long getChangeLsn() {
+        return changeLsn.get();
+    }
+
+    /**
+     * 書き込み後にクライアントがWAL位置を送り続ける期間（ミリ秒）
+     * 遅延が許容値以内と確認済みのレプリカには、この期間を過ぎた書き込みはほぼ反映されている
+     */
+    public long stickyWindowMillis() {
+        return config.maxLag().toMillis() + config.probeInterval().toMillis() * 2;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * レプリカでの読み取り失敗を記録し、次の確認が成功するまでプライマリへ切り替える
+     */
+    void markFailed(Throwable cause) {
+        if (reachable) {
+            LOG.warnf("読み取りレプリカでのクエリが失敗したため、プライマリへ切り替えます: %s", cause.toString());
+        }
+        reachable = false;
+    }
+
+    /**
+     * コミット済みの変更（ノード内または変更フィード経由）を検知したら、その時点のプライマリのWAL位置を記録する
+     * 書き込んだリクエストには応答でクライアントへ返す位置として記録する
+     * 読み取りキャッシュの破棄より先に実行し、破棄後の再取得がこの位置より古いデータを読まないようにする
+     */
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) @Priority(ObserverMethod.DEFAULT_PRIORITY - 100)
+                  EntityChangeEvent event) {
+        if (!config.enabled()) {
+            return;
+        }
+        long lsn;
+        try (Connection connection = primaryDataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(PRIMARY_LSN_QUERY)) {
+            resultSet.next();
+            lsn = resultSet.getLong(1);
+        } catch (SQLException e) {
+            // 取得できない場合は記録しない（古いデータを読んだ読み取りキャッシュは有効期限で入れ替わる）
+            LOG.warnf("プライマリのWAL位置を取得できませんでした: %s", e.getMessage());
+            return;
+        }
+        changeLsn.accumulateAndGet(lsn, Math::max);
+        if (Arc.container().requestContext().isActive()) {
+            Arc.container().instance(ReadConsistency.class).get().recordCommit(lsn);
+        }
+    }
+
+    @Scheduled(every = "${app.replica.probe-interval:1s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void probe() {
+        if (!config.enabled()) {
+            return;
+        }
+        boolean wasUsable = reachable && lagMillis <= config.maxLag().toMillis();
+        try (Connection connection = replicaDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout((int) Math.max(1, config.probeTimeout().toSeconds()));
+            try (ResultSet resultSet = statement.executeQuery(PROBE_QUERY)) {
+                resultSet.next();
+                lagMillis = resultSet.getLong(1);
+                advanceReplayedLsn(resultSet.getLong(2));
+            }
+            reachable = true;
+        } catch (SQLException e) {
+            reachable = false;
+            if (wasUsable) {
+                LOG.warnf("読み取りレプリカに接続できないため、プライマリへ切り替えます: %s", e.getMessage());
+            }
+            return;
+        }
+        boolean usable = lagMillis <= config.maxLag().toMillis();
+        if (usable != wasUsable) {
+            if (usable) {
+                LOG.infof("読み取りレプリカへのルーティングを再開します: lag=%dms", lagMillis);
+            } else {
+                LOG.warnf("読み取りレプリカの遅延が許容値を超えたため、プライマリへ切り替えます: lag=%dms, max=%dms",
+                        lagMillis, config.maxLag().toMillis());
+            }
+        }
+    }
+
+    private void advanceReplayedLsn(long lsn) {
+        if (lsn > replayedLsn) {
+            replayedLsn = lsn;
+        }
+    }
+}
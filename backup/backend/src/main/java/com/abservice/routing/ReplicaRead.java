@@ -0,0 +1,18 @@
+package com.abservice.routing;
+
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 読み取り専用メソッドを読み取りレプリカで実行する
+ * トランザクション内、書き込み直後のクライアント、レプリカの遅延・障害時はプライマリで実行する
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaRead {
+}
@@ -0,0 +1,99 @@
+package com.abservice.routing;
+
+import com.abservice.config.ReplicaConfig;
+import io.quarkus.arc.Arc;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.jboss.logging.Logger;
+
+import java.net.ConnectException;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * {@link ReplicaRead} を付与したメソッドの読み取り先を決定する
+ * レプリカでの実行が接続障害やリカバリとの競合で失敗した場合は、プライマリで再実行する
+ */
+@ReplicaRead
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION + 10)
+public class ReplicaRoutingInterceptor {
+
+    private static final Logger LOG = Logger.getLogger(ReplicaRoutingInterceptor.class);
+
+    @Inject
+    ReplicaConfig config;
+
+    @Inject
+    ReplicaHealth replicaHealth;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @AroundInvoke
+    Object route(InvocationContext context) throws Exception {
+        if (!shouldUseReplica()) {
+            return context.proceed();
+        }
+        boolean previous = ReadRoute.enterReplica();
+        try {
+            return context.proceed();
+        } catch (Exception e) {
+            if (!isReplicaFailure(e)) {
+                throw e;
+            }
+            replicaHealth.markFailed(e);
+            LOG.debugf("レプリカでの読み取りに失敗したため、プライマリで再実行します: %s", context.getMethod().getName());
+        } finally {
+            ReadRoute.restore(previous);
+        }
+        return context.proceed();
+    }
+
+    private boolean shouldUseReplica() {
+        if (!config.enabled() || ReadRoute.isReplica() || !replicaHealth.isUsable()) {
+            return false;
+        }
+        // トランザクション内では書き込み前後の一貫性のため常にプライマリで読む
+        if (transactionRegistry.getTransactionStatus() != Status.STATUS_NO_TRANSACTION) {
+            return false;
+        }
+        // 共有する結果は、破棄のきっかけになった変更より古いデータから作らない
+        long requiredLsn = ReadRoute.isShared() ? replicaHealth.getChangeLsn() : 0;
+        if (Arc.container().requestContext().isActive()) {
+            ReadConsistency consistency = Arc.container().instance(ReadConsistency.class).get();
+            if (consistency.isPrimaryRequired()) {
+                return false;
+            }
+            requiredLsn = Math.max(requiredLsn, consistency.getMinimumLsn());
+        }
+        return requiredLsn == 0 || replicaHealth.hasReplayed(requiredLsn);
+    }
+
+    /**
+     * レプリカ側の障害によるエラーか
+     * 接続エラー（08xxx）、管理者によるシャットダウン（57Pxx）、リソース不足（53xxx）、リカバリとの競合（40001）
+     */
+    private static boolean isReplicaFailure(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException || cause instanceof ConnectException) {
+                return true;
+            }
+            if (cause instanceof SQLException sql && sql.getSQLState() != null) {
+                String state = sql.getSQLState();
+                if (state.startsWith("08") || state.startsWith("57P") || state.startsWith("53") || state.equals("40001")) {
+                    return true;
+                }
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
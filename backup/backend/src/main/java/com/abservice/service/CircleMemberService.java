@@ -1,37 +1,86 @@
 package com.abservice.service;
 
+import com.abservice.bulkhead.Bulkhead;
+import com.abservice.bulkhead.Bulkheads;
+import com.abservice.cache.CoalescedRead;
+import com.abservice.dto.CircleMemberChangesDto;
 import com.abservice.dto.CircleMemberDto;
 import com.abservice.dto.CreateCircleMemberDto;
 import com.abservice.dto.UpdateCircleMemberDto;
 import com.abservice.entity.CircleMember;
 import com.abservice.entity.Role;
+import com.abservice.event.ChangeNotifier;
+import com.abservice.event.EntityChangeEvent.ChangeType;
+import com.abservice.event.EntityChangeEvent.EntityType;
+import com.abservice.exception.ConflictException;
+import com.abservice.exception.NotFoundException;
+import com.abservice.exception.PreconditionFailedException;
 import com.abservice.repository.CircleMemberRepository;
 import com.abservice.repository.RoleRepository;
+import com.abservice.routing.ReplicaRead;
+import com.abservice.tracing.Traced;
 import com.abservice.view.CircleMemberView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
-import jakarta.ws.rs.NotFoundException;
+import jakarta.validation.Validator;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * CircleMember管理サービス
  */
 @ApplicationScoped
+@Traced("service")
 public class CircleMemberService implements CircleMemberServiceInterface {
 
+    private static final Logger LOG = Logger.getLogger(CircleMemberService.class);
+
+    /**
+     * JSON Merge Patchで値を削除（null）できる項目と、削除できない項目
+     */
+    private static final Set<String> PATCH_NULLABLE_FIELDS = Set.of("email", "bio", "avatarUrl");
+    private static final Set<String> PATCH_REQUIRED_FIELDS = Set.of("displayName", "isActive", "roleId");
+
     @Inject
     CircleMemberRepository circleMemberRepository;
 
     @Inject
     RoleRepository roleRepository;
 
+    @Inject
+    ChangeNotifier changeNotifier;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Validator validator;
+
+    @ConfigProperty(name = "app.sync.tombstone-retention", defaultValue = "P30D")
+    Duration tombstoneRetention;
+
+    @ConfigProperty(name = "app.sync.compaction-batch-size", defaultValue = "1000")
+    int compactionBatchSize;
+
     /**
      * すべてのCircleMemberを取得
      */
+    @CoalescedRead(value = "circle-member-all", invalidatedBy = {EntityType.CIRCLE_MEMBER, EntityType.ROLE})
+    @ReplicaRead
     public List<CircleMemberDto> findAll() {
         return circleMemberRepository.findAll()
                 .stream()
@@ -42,6 +91,8 @@ public class CircleMemberService implements CircleMemberServiceInterface {
     /**
      * IDでCircleMemberを取得
      */
+    @CoalescedRead(value = "circle-member-by-id", invalidatedBy = {EntityType.CIRCLE_MEMBER, EntityType.ROLE})
+    @ReplicaRead
     public Optional<CircleMemberDto> findById(Long id) {
         return circleMemberRepository.findById(id)
                 .map(this::convertToDto);
@@ -50,6 +101,8 @@ public class CircleMemberService implements CircleMemberServiceInterface {
     /**
      * ユーザー名でCircleMemberを取得
      */
+    @CoalescedRead(value = "circle-member-by-username", invalidatedBy = {EntityType.CIRCLE_MEMBER, EntityType.ROLE})
+    @ReplicaRead
     public Optional<CircleMemberDto> findByUsername(String username) {
         return circleMemberRepository.findByUsername(username)
                 .map(this::convertToDto);
@@ -58,6 +111,8 @@ public class CircleMemberService implements CircleMemberServiceInterface {
     /**
      * アクティブなCircleMemberのみを取得
      */
+    @CoalescedRead(value = "circle-member-active", invalidatedBy = {EntityType.CIRCLE_MEMBER, EntityType.ROLE})
+    @ReplicaRead
     public List<CircleMemberDto> findActiveMembers() {
         return circleMemberRepository.findActiveMembers()
                 .stream()
@@ -65,6 +120,92 @@ public class CircleMemberService implements CircleMemberServiceInterface {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * すべてのCircleMemberの指定項目のみを取得
+     */
+    @CoalescedRead(value = "circle-member-all", invalidatedBy = {EntityType.CIRCLE_MEMBER, EntityType.ROLE})
+    @ReplicaRead
+    public List<Map<String, Object>> findAll(SparseFieldset fields) {
+        return circleMemberRepository.findAllFields(fields.resolve(CircleMemberRepository.FIELD_PATHS.keySet()));
+    }
+
+    /**
+     * アクティブなCircleMemberの指定項目のみを取得
+     */
+    @CoalescedRead(value = "circle-member-active", invalidatedBy = {EntityType.CIRCLE_MEMBER, EntityType.ROLE})
+    @ReplicaRead
+    public List<Map<String, Object>> findActiveMembers(SparseFieldset fields) {
+        return circleMemberRepository.findActiveMembersFields(fields.resolve(CircleMemberRepository.FIELD_PATHS.keySet()));
+    }
+
+    /**
+     * IDでCircleMemberの指定項目のみを取得
+     */
+    @CoalescedRead(value = "circle-member-by-id", invalidatedBy = {EntityType.CIRCLE_MEMBER, EntityType.ROLE})
+    @ReplicaRead
+    public Optional<Map<String, Object>> findById(Long id, SparseFieldset fields) {
+        return circleMemberRepository.findByIdFields(id, fields.resolve(CircleMemberRepository.FIELD_PATHS.keySet()));
+    }
+
+    /**
+     * ユーザー名でCircleMemberの指定項目のみを取得
+     */
+    @CoalescedRead(value = "circle-member-by-username", invalidatedBy = {EntityType.CIRCLE_MEMBER, EntityType.ROLE})
+    @ReplicaRead
+    public Optional<Map<String, Object>> findByUsername(String username, SparseFieldset fields) {
+        return circleMemberRepository.findByUsernameFields(username,
+                fields.resolve(CircleMemberRepository.FIELD_PATHS.keySet()));
+    }
+
+    /**
+     * 複数RoleのCircleMemberをまとめて取得（GraphQLのバッチ解決用）
+     */
+    @ReplicaRead
+    public Map<Long, List<CircleMemberDto>> findByRoleIds(Collection<Long> roleIds) {
+        return circleMemberRepository.findByRoleIds(roleIds)
+                .stream()
+                .map(this::convertToDto)
+                .collect(Collectors.groupingBy(CircleMemberDto::getRoleId));
+    }
+
+    /**
+     * 指定カーソル以降の変更を取得
+     */
+    @Transactional
+    public CircleMemberChangesDto findChangesSince(Long since) {
+        // データ読み取り前にカーソルを確定し、読み取り中にコミットされた変更は次回に含める
+        long cursor = circleMemberRepository.currentChangeCursor();
+
+        if (since == null || since < 0 || since <= circleMemberRepository.findCompactedThrough()) {
+            return new CircleMemberChangesDto(findAll(), List.of(), cursor, true);
+        }
+
+        List<CircleMemberDto> changed = circleMemberRepository.findChangedSince(since)
+                .stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+        List<Long> deletedIds = circleMemberRepository.findDeletedIdsSince(since);
+        return new CircleMemberChangesDto(changed, deletedIds, cursor, false);
+    }
+
+    /**
+     * 保持期間を過ぎたトゥームストーンをバッチ単位で削除
+     */
+    @Bulkhead(Bulkheads.BACKGROUND)
+    @Scheduled(every = "${app.sync.compaction-interval:1h}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void compactTombstones() {
+        OffsetDateTime deletedBefore = OffsetDateTime.now().minus(tombstoneRetention);
+        int total = 0;
+        int removed;
+        do {
+            removed = circleMemberRepository.compactTombstones(deletedBefore, compactionBatchSize);
+            total += removed;
+        } while (removed == compactionBatchSize);
+        if (total > 0) {
+            LOG.infof("トゥームストーンを%d件コンパクションしました", total);
+        }
+    }
+
     /**
      * CircleMemberを作成
      */
@@ -72,28 +213,19 @@ public class CircleMemberService implements CircleMemberServiceInterface {
     public CircleMemberDto create(CreateCircleMemberDto createDto) {
         // ユーザー名の重複チェック
         if (circleMemberRepository.existsByUsername(createDto.getUsername())) {
-            throw new IllegalArgumentException("ユーザー名は既に使用されています: " + createDto.getUsername());
+            throw new ConflictException("ユーザー名は既に使用されています: " + createDto.getUsername());
         }
 
         // メールアドレスの重複チェック
         if (createDto.getEmail() != null && circleMemberRepository.existsByEmail(createDto.getEmail())) {
-            throw new IllegalArgumentException("メールアドレスは既に使用されています: " + createDto.getEmail());
+            throw new ConflictException("メールアドレスは既に使用されています: " + createDto.getEmail());
         }
 
         // ロールの存在チェック
-        Role role = roleRepository.findById(createDto.getRoleId())
-                .map(roleView -> {
-                    // EntityViewからEntityを取得する必要がある
-                    // ここでは簡略化のため、IDで直接取得
-                    Role r = new Role();
-                    r.id = roleView.getId();
-                    r.name = roleView.getName();
-                    r.description = roleView.getDescription();
-                    r.createdAt = roleView.getCreatedAt();
-                    r.updatedAt = roleView.getUpdatedAt();
-                    return r;
-                })
-                .orElseThrow(() -> new NotFoundException("ロールが見つかりません: " + createDto.getRoleId()));
+        if (roleRepository.findById(createDto.getRoleId()).isEmpty()) {
+            throw new NotFoundException("ロールが見つかりません: " + createDto.getRoleId());
+        }
+        Role role = roleRepository.getReference(createDto.getRoleId());
 
         // CircleMemberエンティティを作成
         CircleMember circleMember = new CircleMember();
@@ -107,6 +239,7 @@ public class CircleMemberService implements CircleMemberServiceInterface {
 
         // 保存
         CircleMember savedMember = circleMemberRepository.save(circleMember);
+        changeNotifier.circleMemberChanged(ChangeType.CREATED, savedMember.getId());
 
         // DTOに変換して返す
         return findById(savedMember.getId())
@@ -115,65 +248,134 @@ public class CircleMemberService implements CircleMemberServiceInterface {
 
     /**
      * CircleMemberを更新
+     * バージョンはUPDATE文のWHERE句で照合する（expectedVersionがnullの場合は照合しない）
      */
     @Transactional
-    public CircleMemberDto update(Long id, UpdateCircleMemberDto updateDto) {
-        CircleMember circleMember = circleMemberRepository.findById(id)
-                .map(this::getEntityFromView)
-                .orElseThrow(() -> new NotFoundException("CircleMemberが見つかりません: " + id));
-
-        // 更新可能なフィールドを更新
+    public CircleMemberDto update(Long id, UpdateCircleMemberDto updateDto, Long expectedVersion) {
+        // 更新可能なフィールドのうち指定されたものを更新
+        Map<String, Object> changes = new LinkedHashMap<>();
         if (updateDto.getDisplayName() != null) {
-            circleMember.setDisplayName(updateDto.getDisplayName());
+            changes.put("displayName", updateDto.getDisplayName());
         }
         if (updateDto.getEmail() != null) {
             // メールアドレスの重複チェック（自分以外）
-            if (circleMemberRepository.existsByEmail(updateDto.getEmail()) &&
-                !updateDto.getEmail().equals(circleMember.getEmail())) {
-                throw new IllegalArgumentException("メールアドレスは既に使用されています: " + updateDto.getEmail());
+            if (circleMemberRepository.existsByEmailExcludingId(updateDto.getEmail(), id)) {
+                throw new ConflictException("メールアドレスは既に使用されています: " + updateDto.getEmail());
             }
-            circleMember.setEmail(updateDto.getEmail());
+            changes.put("email", updateDto.getEmail());
         }
         if (updateDto.getBio() != null) {
-            circleMember.setBio(updateDto.getBio());
+            changes.put("bio", updateDto.getBio());
         }
         if (updateDto.getAvatarUrl() != null) {
-            circleMember.setAvatarUrl(updateDto.getAvatarUrl());
+            changes.put("avatarUrl", updateDto.getAvatarUrl());
         }
         if (updateDto.getIsActive() != null) {
-            circleMember.setIsActive(updateDto.getIsActive());
+            changes.put("isActive", updateDto.getIsActive());
         }
         if (updateDto.getRoleId() != null) {
-            Role role = roleRepository.findById(updateDto.getRoleId())
-                    .map(this::getRoleEntityFromView)
-                    .orElseThrow(() -> new NotFoundException("ロールが見つかりません: " + updateDto.getRoleId()));
-            circleMember.setRole(role);
+            if (roleRepository.findById(updateDto.getRoleId()).isEmpty()) {
+                throw new NotFoundException("ロールが見つかりません: " + updateDto.getRoleId());
+            }
+            changes.put("role", roleRepository.getReference(updateDto.getRoleId()));
         }
 
         // 保存
-        circleMemberRepository.save(circleMember);
+        if (circleMemberRepository.updateIfVersion(id, expectedVersion, changes) == 0) {
+            throw versionConflict(id);
+        }
+        changeNotifier.circleMemberChanged(ChangeType.UPDATED, id);
 
         // DTOに変換して返す
         return findById(id)
                 .orElseThrow(() -> new RuntimeException("更新したCircleMemberの取得に失敗しました"));
     }
 
+    /**
+     * CircleMemberにJSON Merge Patchを適用
+     * 現在の値と異なる項目のみをUPDATEし、変更がない場合は書き込みを行わない
+     */
+    @Transactional
+    public CircleMemberDto patch(Long id, String mergePatch, Long expectedVersion) {
+        MergePatch<UpdateCircleMemberDto> patch = MergePatch.parse(objectMapper, validator, mergePatch,
+                UpdateCircleMemberDto.class, PATCH_NULLABLE_FIELDS, PATCH_REQUIRED_FIELDS);
+        UpdateCircleMemberDto values = patch.values();
+
+        CircleMemberView current = circleMemberRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("CircleMemberが見つかりません: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw new PreconditionFailedException("CircleMemberは他の更新により変更されています: " + id,
+                    current.getVersion());
+        }
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfChanged(changes, patch, "displayName", current.getDisplayName(), values.getDisplayName());
+        putIfChanged(changes, patch, "email", current.getEmail(), values.getEmail());
+        putIfChanged(changes, patch, "bio", current.getBio(), values.getBio());
+        putIfChanged(changes, patch, "avatarUrl", current.getAvatarUrl(), values.getAvatarUrl());
+        putIfChanged(changes, patch, "isActive", current.getIsActive(), values.getIsActive());
+        if (changes.get("email") instanceof String email
+                && circleMemberRepository.existsByEmailExcludingId(email, id)) {
+            throw new ConflictException("メールアドレスは既に使用されています: " + email);
+        }
+        if (patch.has("roleId") && !values.getRoleId().equals(current.getRoleId())) {
+            if (roleRepository.findById(values.getRoleId()).isEmpty()) {
+                throw new NotFoundException("ロールが見つかりません: " + values.getRoleId());
+            }
+            changes.put("role", roleRepository.getReference(values.getRoleId()));
+        }
+
+        if (changes.isEmpty()) {
+            return convertToDto(current);
+        }
+
+        // 読み取り後に他の更新が入った場合は差分が古いため、読み取ったバージョンで照合する
+        if (circleMemberRepository.updateIfVersion(id, current.getVersion(), changes) == 0) {
+            throw versionConflict(id);
+        }
+        changeNotifier.circleMemberChanged(ChangeType.UPDATED, id);
+
+        return findById(id)
+                .orElseThrow(() -> new RuntimeException("更新したCircleMemberの取得に失敗しました"));
+    }
+
+    /**
+     * パッチに含まれ、現在の値と異なる項目を変更内容に追加
+     */
+    private static void putIfChanged(Map<String, Object> changes, MergePatch<?> patch, String field,
+                                     Object current, Object value) {
+        if (patch.has(field) && !Objects.equals(current, value)) {
+            changes.put(field, value);
+        }
+    }
+
     /**
      * CircleMemberを削除
+     * バージョンはDELETE文のWHERE句で照合する（expectedVersionがnullの場合は照合しない）
      */
     @Transactional
-    public void delete(Long id) {
-        if (!circleMemberRepository.findById(id).isPresent()) {
-            throw new NotFoundException("CircleMemberが見つかりません: " + id);
+    public void delete(Long id, Long expectedVersion) {
+        if (circleMemberRepository.deleteIfVersion(id, expectedVersion) == 0) {
+            throw versionConflict(id);
         }
-        circleMemberRepository.deleteById(id);
+        changeNotifier.circleMemberChanged(ChangeType.DELETED, id);
+    }
+
+    /**
+     * 更新・削除が0件だった場合に、存在しないのかバージョン不一致なのかを判別して例外を返す
+     */
+    private RuntimeException versionConflict(Long id) {
+        return circleMemberRepository.findVersion(id)
+                .<RuntimeException>map(current -> new PreconditionFailedException(
+                        "CircleMemberは他の更新により変更されています: " + id, current))
+                .orElseGet(() -> new NotFoundException("CircleMemberが見つかりません: " + id));
     }
 
     /**
      * CircleMemberViewをCircleMemberDtoに変換
      */
     private CircleMemberDto convertToDto(CircleMemberView view) {
-        return new CircleMemberDto(
+        CircleMemberDto dto = new CircleMemberDto(
                 view.getId(),
                 view.getUsername(),
                 view.getDisplayName(),
@@ -186,25 +388,8 @@ public class CircleMemberService implements CircleMemberServiceInterface {
                 view.getRoleName(),
                 view.getRoleDescription()
         );
-    }
-
-    /**
-     * CircleMemberViewからCircleMemberエンティティを取得
-     * 実際の実装では、適切にEntityを取得する必要がある
-     */
-    private CircleMember getEntityFromView(CircleMemberView view) {
-        // 簡略化のため、IDで直接取得
-        // 実際の実装では、適切にEntityを取得する
-        return null; // 実装が必要
-    }
-
-    /**
-     * RoleViewからRoleエンティティを取得
-     * 実際の実装では、適切にEntityを取得する必要がある
-     */
-    private Role getRoleEntityFromView(com.abservice.view.RoleView view) {
-        // 簡略化のため、IDで直接取得
-        // 実際の実装では、適切にEntityを取得する
-        return null; // 実装が必要
+        dto.setRoleId(view.getRoleId());
+        dto.setVersion(view.getVersion());
+        return dto;
     }
 }
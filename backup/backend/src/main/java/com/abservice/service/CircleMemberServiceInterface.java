@@ -1,10 +1,13 @@
 package com.abservice.service;
 
+import com.abservice.dto.CircleMemberChangesDto;
 import com.abservice.dto.CircleMemberDto;
 import com.abservice.dto.CreateCircleMemberDto;
 import com.abservice.dto.UpdateCircleMemberDto;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -32,6 +35,38 @@ public interface CircleMemberServiceInterface {
      */
     Optional<CircleMemberDto> findByUsername(String username);
 
+    /**
+     * 全てのCircleMemberの指定項目のみを取得（項目名をキーとするMap）
+     * 指定できない項目が含まれる場合はValidationFailedExceptionを投げる
+     */
+    List<Map<String, Object>> findAll(SparseFieldset fields);
+
+    /**
+     * アクティブなCircleMemberの指定項目のみを取得
+     */
+    List<Map<String, Object>> findActiveMembers(SparseFieldset fields);
+
+    /**
+     * IDでCircleMemberの指定項目のみを取得
+     */
+    Optional<Map<String, Object>> findById(Long id, SparseFieldset fields);
+
+    /**
+     * ユーザー名でCircleMemberの指定項目のみを取得
+     */
+    Optional<Map<String, Object>> findByUsername(String username, SparseFieldset fields);
+
+    /**
+     * 複数RoleのCircleMemberをまとめて取得（RoleのIDをキーとするMap、メンバーのいないRoleは含まれない）
+     */
+    Map<Long, List<CircleMemberDto>> findByRoleIds(Collection<Long> roleIds);
+
+    /**
+     * 指定カーソル以降の変更（更新行と削除ID）を取得
+     * カーソル未指定、またはトゥームストーンがコンパクション済みの場合は全件を返す
+     */
+    CircleMemberChangesDto findChangesSince(Long since);
+
     /**
      * CircleMemberを作成
      */
@@ -39,13 +74,21 @@ public interface CircleMemberServiceInterface {
 
     /**
      * CircleMemberを更新
+     * expectedVersionがnullでない場合、現在のバージョンと一致しなければPreconditionFailedExceptionを投げる
+     */
+    CircleMemberDto update(Long id, UpdateCircleMemberDto updateDto, Long expectedVersion);
+
+    /**
+     * CircleMemberにJSON Merge Patch（RFC 7396）を適用
+     * 現在の値と異なる項目のみを更新し、変更がない場合は書き込みを行わずに現在の値を返す
      */
-    CircleMemberDto update(Long id, UpdateCircleMemberDto updateDto);
+    CircleMemberDto patch(Long id, String mergePatch, Long expectedVersion);
 
     /**
      * CircleMemberを削除
+     * expectedVersionがnullでない場合、現在のバージョンと一致しなければPreconditionFailedExceptionを投げる
      */
-    void delete(Long id);
+    void delete(Long id, Long expectedVersion);
 }
 
 
@@ -0,0 +1,91 @@
+package com.abservice.service;
+
+import com.abservice.exception.ValidationFailedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * JSON Merge Patch（RFC 7396）の内容
+ * パッチに含まれる項目名と、DTOに読み込んだ値を保持する（値がnullの項目は削除を意味する）
+ */
+public final class MergePatch<T> {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private final Set<String> fields;
+    private final T values;
+
+    private MergePatch(Set<String> fields, T values) {
+        this.fields = fields;
+        this.values = values;
+    }
+
+    /**
+     * パッチ本文を読み込み、項目と値を検証する
+     *
+     * @param nullableFields nullを指定して値を削除できる項目
+     * @param requiredFields nullを指定できない項目
+     * @throws ValidationFailedException JSONオブジェクトでない場合、未知の項目・削除できない項目・不正な値を含む場合
+     */
+    public static <T> MergePatch<T> parse(ObjectMapper objectMapper, Validator validator, String body, Class<T> type,
+                                          Set<String> nullableFields, Set<String> requiredFields) {
+        JsonNode node;
+        try {
+            node = body == null || body.isBlank() ? null : objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            throw new ValidationFailedException("パッチのJSONが不正です: " + e.getOriginalMessage());
+        }
+        if (!(node instanceof ObjectNode patch)) {
+            throw new ValidationFailedException("パッチはJSONオブジェクトで指定してください");
+        }
+
+        Set<String> fields = new LinkedHashSet<>();
+        for (Iterator<String> names = patch.fieldNames(); names.hasNext(); ) {
+            String field = names.next();
+            if (!nullableFields.contains(field) && !requiredFields.contains(field)) {
+                throw new ValidationFailedException("更新できない項目です: " + field);
+            }
+            if (patch.get(field).isNull() && requiredFields.contains(field)) {
+                throw new ValidationFailedException("削除できない項目です: " + field);
+            }
+            fields.add(field);
+        }
+
+        T values;
+        try {
+            values = objectMapper.treeToValue(patch, type);
+        } catch (JsonProcessingException e) {
+            throw new ValidationFailedException("パッチの値が不正です: " + e.getOriginalMessage());
+        }
+        // パッチに含まれる項目のみ検証する（省略された必須項目は変更しない）
+        for (String field : fields) {
+            Set<ConstraintViolation<T>> violations = validator.validateProperty(values, field);
+            if (!violations.isEmpty()) {
+                throw new ValidationFailedException(violations.iterator().next().getMessage());
+            }
+        }
+        return new MergePatch<>(fields, values);
+    }
+
+    /**
+     * パッチに項目が含まれるか
+     */
+    public boolean has(String field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * パッチの値（含まれない項目はnull）
+     */
+    public T values() {
+        return values;
+    }
+}
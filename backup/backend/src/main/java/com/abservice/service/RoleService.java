@@ -1,30 +1,72 @@
 package com.abservice.service;
 
+import com.abservice.cache.CoalescedRead;
+import com.abservice.dto.PermissionDto;
 import com.abservice.dto.RoleDto;
 import com.abservice.entity.Role;
+import com.abservice.event.ChangeNotifier;
+import com.abservice.event.EntityChangeEvent.ChangeType;
+import com.abservice.event.EntityChangeEvent.EntityType;
+import com.abservice.exception.ConflictException;
+import com.abservice.exception.NotFoundException;
+import com.abservice.exception.PreconditionFailedException;
+import com.abservice.repository.PermissionRepository;
 import com.abservice.repository.RoleRepository;
+import com.abservice.routing.ReplicaRead;
+import com.abservice.tracing.Traced;
+import com.abservice.view.PermissionView;
+import com.abservice.view.RolePermissionsView;
 import com.abservice.view.RoleView;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
-import jakarta.ws.rs.NotFoundException;
+import jakarta.validation.Validator;
 
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Role管理サービス
  */
 @ApplicationScoped
+@Traced("service")
 public class RoleService implements RoleServiceInterface {
 
+    /**
+     * JSON Merge Patchで値を削除（null）できる項目と、削除できない項目
+     */
+    private static final Set<String> PATCH_NULLABLE_FIELDS = Set.of("description");
+    private static final Set<String> PATCH_REQUIRED_FIELDS = Set.of("name");
+
     @Inject
     RoleRepository roleRepository;
 
+    @Inject
+    PermissionRepository permissionRepository;
+
+    @Inject
+    ChangeNotifier changeNotifier;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Validator validator;
+
     /**
      * すべてのRoleを取得
      */
+    @CoalescedRead(value = "role-all", invalidatedBy = EntityType.ROLE)
+    @ReplicaRead
     public List<RoleDto> findAll() {
         return roleRepository.findAll()
                 .stream()
@@ -35,6 +77,8 @@ public class RoleService implements RoleServiceInterface {
     /**
      * IDでRoleを取得
      */
+    @CoalescedRead(value = "role-by-id", invalidatedBy = EntityType.ROLE)
+    @ReplicaRead
     public Optional<RoleDto> findById(Long id) {
         return roleRepository.findById(id)
                 .map(this::convertToDto);
@@ -43,11 +87,76 @@ public class RoleService implements RoleServiceInterface {
     /**
      * 名前でRoleを取得
      */
+    @CoalescedRead(value = "role-by-name", invalidatedBy = EntityType.ROLE)
+    @ReplicaRead
     public Optional<RoleDto> findByName(String name) {
         return roleRepository.findByName(name)
                 .map(this::convertToDto);
     }
 
+    /**
+     * すべてのRoleの指定項目のみを取得
+     */
+    @CoalescedRead(value = "role-all", invalidatedBy = EntityType.ROLE)
+    @ReplicaRead
+    public List<Map<String, Object>> findAll(SparseFieldset fields) {
+        return roleRepository.findAllFields(fields.resolve(RoleRepository.FIELD_PATHS.keySet()));
+    }
+
+    /**
+     * IDでRoleの指定項目のみを取得
+     */
+    @CoalescedRead(value = "role-by-id", invalidatedBy = EntityType.ROLE)
+    @ReplicaRead
+    public Optional<Map<String, Object>> findById(Long id, SparseFieldset fields) {
+        return roleRepository.findByIdFields(id, fields.resolve(RoleRepository.FIELD_PATHS.keySet()));
+    }
+
+    /**
+     * 名前でRoleの指定項目のみを取得
+     */
+    @CoalescedRead(value = "role-by-name", invalidatedBy = EntityType.ROLE)
+    @ReplicaRead
+    public Optional<Map<String, Object>> findByName(String name, SparseFieldset fields) {
+        return roleRepository.findByNameFields(name, fields.resolve(RoleRepository.FIELD_PATHS.keySet()));
+    }
+
+    /**
+     * 複数IDのRoleをまとめて取得（GraphQLのバッチ解決用、存在しないIDは含まれない）
+     */
+    @ReplicaRead
+    public Map<Long, RoleDto> findByIds(Collection<Long> ids) {
+        return roleRepository.findByIds(ids)
+                .stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toMap(RoleDto::getId, Function.identity()));
+    }
+
+    /**
+     * すべてのPermissionを取得
+     */
+    @ReplicaRead
+    public List<PermissionDto> findAllPermissions() {
+        return permissionRepository.findAll()
+                .stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 複数RoleのPermissionをまとめて取得（GraphQLのバッチ解決用、権限のないRoleは含まれない）
+     */
+    @ReplicaRead
+    public Map<Long, List<PermissionDto>> findPermissionsByRoleIds(Collection<Long> roleIds) {
+        return permissionRepository.findByRoleIds(roleIds)
+                .stream()
+                .collect(Collectors.toMap(RolePermissionsView::getId, view -> view.getPermissions()
+                        .stream()
+                        .map(this::convertToDto)
+                        .sorted(Comparator.comparing(PermissionDto::getName))
+                        .collect(Collectors.toList())));
+    }
+
     /**
      * Roleを作成
      */
@@ -55,7 +164,7 @@ public class RoleService implements RoleServiceInterface {
     public RoleDto create(RoleDto roleDto) {
         // 名前の重複チェック
         if (roleRepository.existsByName(roleDto.getName())) {
-            throw new IllegalArgumentException("ロール名は既に使用されています: " + roleDto.getName());
+            throw new ConflictException("ロール名は既に使用されています: " + roleDto.getName());
         }
 
         // Roleエンティティを作成
@@ -63,6 +172,7 @@ public class RoleService implements RoleServiceInterface {
 
         // 保存
         Role savedRole = roleRepository.save(role);
+        changeNotifier.roleChanged(ChangeType.CREATED, savedRole.getId());
 
         // DTOに変換して返す
         return findById(savedRole.getId())
@@ -71,62 +181,124 @@ public class RoleService implements RoleServiceInterface {
 
     /**
      * Roleを更新
+     * バージョンはUPDATE文のWHERE句で照合する（expectedVersionがnullの場合は照合しない）
      */
     @Transactional
-    public RoleDto update(Long id, RoleDto roleDto) {
-        Role role = roleRepository.findById(id)
-                .map(this::getEntityFromView)
-                .orElseThrow(() -> new NotFoundException("Roleが見つかりません: " + id));
-
+    public RoleDto update(Long id, RoleDto roleDto, Long expectedVersion) {
         // 名前の重複チェック（自分以外）
-        if (roleRepository.existsByName(roleDto.getName()) &&
-            !roleDto.getName().equals(role.getName())) {
-            throw new IllegalArgumentException("ロール名は既に使用されています: " + roleDto.getName());
+        if (roleRepository.existsByNameExcludingId(roleDto.getName(), id)) {
+            throw new ConflictException("ロール名は既に使用されています: " + roleDto.getName());
         }
 
-        // 更新可能なフィールドを更新
-        role.setName(roleDto.getName());
-        role.setDescription(roleDto.getDescription());
-
         // 保存
-        roleRepository.save(role);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("name", roleDto.getName());
+        changes.put("description", roleDto.getDescription());
+        if (roleRepository.updateIfVersion(id, expectedVersion, changes) == 0) {
+            throw versionConflict(id);
+        }
+        changeNotifier.roleChanged(ChangeType.UPDATED, id);
 
         // DTOに変換して返す
         return findById(id)
                 .orElseThrow(() -> new RuntimeException("更新したRoleの取得に失敗しました"));
     }
 
+    /**
+     * RoleにJSON Merge Patchを適用
+     * 現在の値と異なる項目のみをUPDATEし、変更がない場合は書き込みを行わない
+     */
+    @Transactional
+    public RoleDto patch(Long id, String mergePatch, Long expectedVersion) {
+        MergePatch<RoleDto> patch = MergePatch.parse(objectMapper, validator, mergePatch,
+                RoleDto.class, PATCH_NULLABLE_FIELDS, PATCH_REQUIRED_FIELDS);
+        RoleDto values = patch.values();
+
+        RoleView current = roleRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Roleが見つかりません: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw new PreconditionFailedException("Roleは他の更新により変更されています: " + id, current.getVersion());
+        }
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (patch.has("name") && !values.getName().equals(current.getName())) {
+            // 名前の重複チェック（自分以外）
+            if (roleRepository.existsByNameExcludingId(values.getName(), id)) {
+                throw new ConflictException("ロール名は既に使用されています: " + values.getName());
+            }
+            changes.put("name", values.getName());
+        }
+        if (patch.has("description") && !Objects.equals(values.getDescription(), current.getDescription())) {
+            changes.put("description", values.getDescription());
+        }
+
+        if (changes.isEmpty()) {
+            return convertToDto(current);
+        }
+
+        // 読み取り後に他の更新が入った場合は差分が古いため、読み取ったバージョンで照合する
+        if (roleRepository.updateIfVersion(id, current.getVersion(), changes) == 0) {
+            throw versionConflict(id);
+        }
+        changeNotifier.roleChanged(ChangeType.UPDATED, id);
+
+        return findById(id)
+                .orElseThrow(() -> new RuntimeException("更新したRoleの取得に失敗しました"));
+    }
+
     /**
      * Roleを削除
+     * バージョンはDELETE文のWHERE句で照合する（expectedVersionがnullの場合は照合しない）
+     * 所属するCircleMemberも削除し、メンバーごとに削除を通知する（変更フィード・アウトボックス・読み取りキャッシュ向け）
      */
     @Transactional
-    public void delete(Long id) {
-        if (!roleRepository.findById(id).isPresent()) {
-            throw new NotFoundException("Roleが見つかりません: " + id);
+    public void delete(Long id, Long expectedVersion) {
+        List<Long> memberIds = roleRepository.lockMemberIdsForDelete(id);
+        if (roleRepository.deleteIfVersion(id, expectedVersion) == 0) {
+            throw versionConflict(id);
         }
-        roleRepository.deleteById(id);
+        for (Long memberId : memberIds) {
+            changeNotifier.circleMemberChanged(ChangeType.DELETED, memberId);
+        }
+        changeNotifier.roleChanged(ChangeType.DELETED, id);
+    }
+
+    /**
+     * 更新・削除が0件だった場合に、存在しないのかバージョン不一致なのかを判別して例外を返す
+     */
+    private RuntimeException versionConflict(Long id) {
+        return roleRepository.findVersion(id)
+                .<RuntimeException>map(current -> new PreconditionFailedException(
+                        "Roleは他の更新により変更されています: " + id, current))
+                .orElseGet(() -> new NotFoundException("Roleが見つかりません: " + id));
     }
 
     /**
      * RoleViewをRoleDtoに変換
      */
     private RoleDto convertToDto(RoleView view) {
-        return new RoleDto(
+        RoleDto dto = new RoleDto(
                 view.getId(),
                 view.getName(),
                 view.getDescription(),
                 view.getCreatedAt(),
                 view.getUpdatedAt()
         );
+        dto.setVersion(view.getVersion());
+        return dto;
     }
 
     /**
-     * RoleViewからRoleエンティティを取得
-     * 実際の実装では、適切にEntityを取得する必要がある
+     * PermissionViewをPermissionDtoに変換
      */
-    private Role getEntityFromView(RoleView view) {
-        // 簡略化のため、IDで直接取得
-        // 実際の実装では、適切にEntityを取得する
-        return null; // 実装が必要
+    private PermissionDto convertToDto(PermissionView view) {
+        return new PermissionDto(
+                view.getId(),
+                view.getName(),
+                view.getDescription(),
+                view.getResource(),
+                view.getAction(),
+                view.getIsActive()
+        );
     }
 }
@@ -1,8 +1,11 @@
 package com.abservice.service;
 
+import com.abservice.dto.PermissionDto;
 import com.abservice.dto.RoleDto;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -25,6 +28,37 @@ public interface RoleServiceInterface {
      */
     Optional<RoleDto> findByName(String name);
 
+    /**
+     * 全てのRoleの指定項目のみを取得（項目名をキーとするMap）
+     * 指定できない項目が含まれる場合はValidationFailedExceptionを投げる
+     */
+    List<Map<String, Object>> findAll(SparseFieldset fields);
+
+    /**
+     * IDでRoleの指定項目のみを取得
+     */
+    Optional<Map<String, Object>> findById(Long id, SparseFieldset fields);
+
+    /**
+     * 名前でRoleの指定項目のみを取得
+     */
+    Optional<Map<String, Object>> findByName(String name, SparseFieldset fields);
+
+    /**
+     * 複数IDのRoleをまとめて取得（IDをキーとするMap、存在しないIDは含まれない）
+     */
+    Map<Long, RoleDto> findByIds(Collection<Long> ids);
+
+    /**
+     * 全てのPermissionを取得
+     */
+    List<PermissionDto> findAllPermissions();
+
+    /**
+     * 複数RoleのPermissionをまとめて取得（RoleのIDをキーとするMap、権限のないRoleは含まれない）
+     */
+    Map<Long, List<PermissionDto>> findPermissionsByRoleIds(Collection<Long> roleIds);
+
     /**
      * Roleを作成
      */
@@ -32,11 +66,19 @@ public interface RoleServiceInterface {
 
     /**
      * Roleを更新
+     * expectedVersionがnullでない場合、現在のバージョンと一致しなければPreconditionFailedExceptionを投げる
+     */
+    RoleDto update(Long id, RoleDto roleDto, Long expectedVersion);
+
+    /**
+     * RoleにJSON Merge Patch（RFC 7396）を適用
+     * 現在の値と異なる項目のみを更新し、変更がない場合は書き込みを行わずに現在の値を返す
      */
-    RoleDto update(Long id, RoleDto roleDto);
+    RoleDto patch(Long id, String mergePatch, Long expectedVersion);
 
     /**
      * Roleを削除
+     * expectedVersionがnullでない場合、現在のバージョンと一致しなければPreconditionFailedExceptionを投げる
      */
-    void delete(Long id);
+    void delete(Long id, Long expectedVersion);
 }
@@ -0,0 +1,61 @@
+package com.abservice.service;
+
+import com.abservice.exception.ValidationFailedException;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * スパースフィールドセット（?fields=id,displayName）
+ * 要求された項目のみを射影クエリでSELECTし、応答にもその項目のみを含める
+ *
+ * @param fields 要求された項目名（順序は問わないため、キャッシュキーとしてそのまま比較できる）
+ */
+public record SparseFieldset(Set<String> fields) {
+
+    public static final String QUERY_PARAM = "fields";
+
+    public SparseFieldset {
+        fields = Set.copyOf(fields);
+    }
+
+    /**
+     * クエリパラメータ（カンマ区切り）を解析
+     *
+     * @throws ValidationFailedException 項目が1つも指定されていない場合
+     */
+    public static SparseFieldset parse(String fields) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!name.isEmpty()) {
+                requested.add(name);
+            }
+        }
+        if (requested.isEmpty()) {
+            throw new ValidationFailedException(QUERY_PARAM + "には1つ以上の項目名を指定してください");
+        }
+        return new SparseFieldset(requested);
+    }
+
+    /**
+     * 指定可能な項目と照合し、指定可能な項目の並び順で要求された項目を返す
+     *
+     * @throws ValidationFailedException 指定できない項目が含まれる場合
+     */
+    public List<String> resolve(Collection<String> available) {
+        List<String> unknown = fields.stream()
+                .filter(field -> !available.contains(field))
+                .sorted()
+                .toList();
+        if (!unknown.isEmpty()) {
+            throw new ValidationFailedException("指定できない項目です: " + String.join(", ", unknown)
+                    + "（指定可能: " + String.join(", ", available) + "）");
+        }
+        return available.stream()
+                .filter(fields::contains)
+                .toList();
+    }
+}
@@ -0,0 +1,64 @@
+package com.abservice.slowquery;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.JDBCType;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * PreparedStatementに設定されたバインドパラメーター
+ * 記録には型（形状）のみを残し、値はEXPLAINで同じ設定を再現するためだけに保持する
+ *
+ * @param type   setXxxのXxx部分（例: Long、String、Null）
+ * @param value  設定した値（setNullではSQL型のコード）
+ * @param setter 同じ設定を別のPreparedStatementに適用する処理
+ */
+record ParameterBinding(String type, Object value, Setter setter) {
+
+    /**
+     * 記録した setXxx の呼び出しを再現する
+     */
+    @FunctionalInterface
+    interface Setter {
+        void applyTo(PreparedStatement statement) throws SQLException;
+    }
+
+    /**
+     * パラメーターの形状（例: Long、String、null:BIGINT）
+     */
+    String shape() {
+        if ("Null".equals(type)) {
+            return "null:" + sqlTypeName((Integer) value);
+        }
+        if ("Object".equals(type)) {
+            return value != null ? value.getClass().getSimpleName() : "null";
+        }
+        return value == null ? "null:" + type : type;
+    }
+
+    /**
+     * 同じ値をもう一度設定できるか（ストリームやLOBは読み切られるため再現しない）
+     */
+    boolean replayable() {
+        return !(value instanceof InputStream || value instanceof Reader
+                || value instanceof Blob || value instanceof Clob);
+    }
+
+    /**
+     * 同じ設定を別のPreparedStatementに適用
+     */
+    void applyTo(PreparedStatement statement) throws SQLException {
+        setter.applyTo(statement);
+    }
+
+    private static String sqlTypeName(int sqlType) {
+        try {
+            return JDBCType.valueOf(sqlType).getName();
+        } catch (IllegalArgumentException e) {
+            return Integer.toString(sqlType);
+        }
+    }
+}
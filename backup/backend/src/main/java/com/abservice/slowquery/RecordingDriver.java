@@ -0,0 +1,70 @@
+package com.abservice.slowquery;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * PostgreSQLのJDBCドライバーをラップし、接続上の文の実行時間を計測する
+ * quarkus.datasource.jdbc.driver に指定し、コネクションプールが作る物理接続をラップする
+ */
+public class RecordingDriver implements Driver {
+
+    private final Driver delegate = new org.postgresql.Driver();
+
+    private volatile Boolean enabled;
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        Connection connection = delegate.connect(url, info);
+        return connection != null && isEnabled() ? new RecordingConnection(connection) : connection;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) throws SQLException {
+        return delegate.acceptsURL(url);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+        return delegate.getPropertyInfo(url, info);
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return delegate.getMajorVersion();
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return delegate.getMinorVersion();
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return delegate.jdbcCompliant();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    /**
+     * ドライバーはCDI管理外で生成されるため、設定は最初の接続時に読む
+     */
+    private boolean isEnabled() {
+        if (enabled == null) {
+            enabled = ConfigProvider.getConfig()
+                    .getOptionalValue("app.slow-query.enabled", Boolean.class)
+                    .orElse(true);
+        }
+        return enabled;
+    }
+}
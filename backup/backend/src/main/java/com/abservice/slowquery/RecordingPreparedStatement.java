@@ -0,0 +1,405 @@
+package com.abservice.slowquery;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * PreparedStatementのラッパー
+ * 実行時間の計測に加え、EXPLAINで再現できるようにsetXxxの呼び出しを位置ごとに保持する
+ * レコーダーが動いていない間は保持しない
+ */
+final class RecordingPreparedStatement extends RecordingStatement implements PreparedStatement {
+
+    private final PreparedStatement delegate;
+
+    private final String sql;
+
+    private final List<ParameterBinding> bindings = new ArrayList<>();
+
+    RecordingPreparedStatement(PreparedStatement delegate, String sql, Connection connection) {
+        super(delegate, sql, connection);
+        this.delegate = delegate;
+        this.sql = sql;
+    }
+
+    @Override
+    List<ParameterBinding> bindings() {
+        return bindings;
+    }
+
+    private void bind(int index, String type, Object value, ParameterBinding.Setter setter) {
+        if (SlowQueryRecorder.active() == null) {
+            return;
+        }
+        while (bindings.size() < index) {
+            bindings.add(null);
+        }
+        bindings.set(index - 1, new ParameterBinding(type, value, setter));
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        return timed(sql, false, delegate::executeQuery);
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        return timed(sql, false, delegate::executeUpdate);
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        return timed(sql, false, delegate::executeLargeUpdate);
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        return timed(sql, false, delegate::execute);
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        delegate.addBatch();
+        countBatch();
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+        delegate.clearParameters();
+        bindings.clear();
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        return delegate.getMetaData();
+    }
+
+    @Override
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        return delegate.getParameterMetaData();
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        delegate.setNull(parameterIndex, sqlType);
+        bind(parameterIndex, "Null", sqlType, s -> s.setNull(parameterIndex, sqlType));
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        delegate.setNull(parameterIndex, sqlType, typeName);
+        bind(parameterIndex, "Null", sqlType, s -> s.setNull(parameterIndex, sqlType, typeName));
+    }
+
+    @Override
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        delegate.setBoolean(parameterIndex, x);
+        bind(parameterIndex, "Boolean", x, s -> s.setBoolean(parameterIndex, x));
+    }
+
+    @Override
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        delegate.setByte(parameterIndex, x);
+        bind(parameterIndex, "Byte", x, s -> s.setByte(parameterIndex, x));
+    }
+
+    @Override
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        delegate.setShort(parameterIndex, x);
+        bind(parameterIndex, "Short", x, s -> s.setShort(parameterIndex, x));
+    }
+
+    @Override
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        delegate.setInt(parameterIndex, x);
+        bind(parameterIndex, "Int", x, s -> s.setInt(parameterIndex, x));
+    }
+
+    @Override
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        delegate.setLong(parameterIndex, x);
+        bind(parameterIndex, "Long", x, s -> s.setLong(parameterIndex, x));
+    }
+
+    @Override
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        delegate.setFloat(parameterIndex, x);
+        bind(parameterIndex, "Float", x, s -> s.setFloat(parameterIndex, x));
+    }
+
+    @Override
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        delegate.setDouble(parameterIndex, x);
+        bind(parameterIndex, "Double", x, s -> s.setDouble(parameterIndex, x));
+    }
+
+    @Override
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        delegate.setBigDecimal(parameterIndex, x);
+        bind(parameterIndex, "BigDecimal", x, s -> s.setBigDecimal(parameterIndex, x));
+    }
+
+    @Override
+    public void setString(int parameterIndex, String x) throws SQLException {
+        delegate.setString(parameterIndex, x);
+        bind(parameterIndex, "String", x, s -> s.setString(parameterIndex, x));
+    }
+
+    @Override
+    public void setNString(int parameterIndex, String value) throws SQLException {
+        delegate.setNString(parameterIndex, value);
+        bind(parameterIndex, "NString", value, s -> s.setNString(parameterIndex, value));
+    }
+
+    @Override
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        delegate.setBytes(parameterIndex, x);
+        bind(parameterIndex, "Bytes", x, s -> s.setBytes(parameterIndex, x));
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x) throws SQLException {
+        delegate.setDate(parameterIndex, x);
+        bind(parameterIndex, "Date", x, s -> s.setDate(parameterIndex, x));
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+        delegate.setDate(parameterIndex, x, cal);
+        bind(parameterIndex, "Date", x, s -> s.setDate(parameterIndex, x, cal));
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x) throws SQLException {
+        delegate.setTime(parameterIndex, x);
+        bind(parameterIndex, "Time", x, s -> s.setTime(parameterIndex, x));
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+        delegate.setTime(parameterIndex, x, cal);
+        bind(parameterIndex, "Time", x, s -> s.setTime(parameterIndex, x, cal));
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        delegate.setTimestamp(parameterIndex, x);
+        bind(parameterIndex, "Timestamp", x, s -> s.setTimestamp(parameterIndex, x));
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+        delegate.setTimestamp(parameterIndex, x, cal);
+        bind(parameterIndex, "Timestamp", x, s -> s.setTimestamp(parameterIndex, x, cal));
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        delegate.setObject(parameterIndex, x);
+        bind(parameterIndex, "Object", x, s -> s.setObject(parameterIndex, x));
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        delegate.setObject(parameterIndex, x, targetSqlType);
+        bind(parameterIndex, "Object", x, s -> s.setObject(parameterIndex, x, targetSqlType));
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        delegate.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+        bind(parameterIndex, "Object", x, s -> s.setObject(parameterIndex, x, targetSqlType, scaleOrLength));
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+        delegate.setObject(parameterIndex, x, targetSqlType);
+        bind(parameterIndex, "Object", x, s -> s.setObject(parameterIndex, x, targetSqlType));
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength)
+            throws SQLException {
+        delegate.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+        bind(parameterIndex, "Object", x, s -> s.setObject(parameterIndex, x, targetSqlType, scaleOrLength));
+    }
+
+    @Override
+    public void setRef(int parameterIndex, Ref x) throws SQLException {
+        delegate.setRef(parameterIndex, x);
+        bind(parameterIndex, "Ref", x, s -> s.setRef(parameterIndex, x));
+    }
+
+    @Override
+    public void setArray(int parameterIndex, Array x) throws SQLException {
+        delegate.setArray(parameterIndex, x);
+        bind(parameterIndex, "Array", x, s -> s.setArray(parameterIndex, x));
+    }
+
+    @Override
+    public void setURL(int parameterIndex, URL x) throws SQLException {
+        delegate.setURL(parameterIndex, x);
+        bind(parameterIndex, "URL", x, s -> s.setURL(parameterIndex, x));
+    }
+
+    @Override
+    public void setRowId(int parameterIndex, RowId x) throws SQLException {
+        delegate.setRowId(parameterIndex, x);
+        bind(parameterIndex, "RowId", x, s -> s.setRowId(parameterIndex, x));
+    }
+
+    @Override
+    public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+        delegate.setSQLXML(parameterIndex, xmlObject);
+        bind(parameterIndex, "SQLXML", xmlObject, s -> s.setSQLXML(parameterIndex, xmlObject));
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        delegate.setBlob(parameterIndex, x);
+        bind(parameterIndex, "Blob", x, s -> s.setBlob(parameterIndex, x));
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+        delegate.setBlob(parameterIndex, inputStream, length);
+        bind(parameterIndex, "Blob", inputStream, s -> s.setBlob(parameterIndex, inputStream, length));
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+        delegate.setBlob(parameterIndex, inputStream);
+        bind(parameterIndex, "Blob", inputStream, s -> s.setBlob(parameterIndex, inputStream));
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Clob x) throws SQLException {
+        delegate.setClob(parameterIndex, x);
+        bind(parameterIndex, "Clob", x, s -> s.setClob(parameterIndex, x));
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        delegate.setClob(parameterIndex, reader, length);
+        bind(parameterIndex, "Clob", reader, s -> s.setClob(parameterIndex, reader, length));
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader) throws SQLException {
+        delegate.setClob(parameterIndex, reader);
+        bind(parameterIndex, "Clob", reader, s -> s.setClob(parameterIndex, reader));
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, NClob value) throws SQLException {
+        delegate.setNClob(parameterIndex, value);
+        bind(parameterIndex, "NClob", value, s -> s.setNClob(parameterIndex, value));
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        delegate.setNClob(parameterIndex, reader, length);
+        bind(parameterIndex, "NClob", reader, s -> s.setNClob(parameterIndex, reader, length));
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+        delegate.setNClob(parameterIndex, reader);
+        bind(parameterIndex, "NClob", reader, s -> s.setNClob(parameterIndex, reader));
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        delegate.setAsciiStream(parameterIndex, x, length);
+        bind(parameterIndex, "AsciiStream", x, s -> s.setAsciiStream(parameterIndex, x, length));
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        delegate.setAsciiStream(parameterIndex, x, length);
+        bind(parameterIndex, "AsciiStream", x, s -> s.setAsciiStream(parameterIndex, x, length));
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+        delegate.setAsciiStream(parameterIndex, x);
+        bind(parameterIndex, "AsciiStream", x, s -> s.setAsciiStream(parameterIndex, x));
+    }
+
+    @Override
+    @Deprecated
+    public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        delegate.setUnicodeStream(parameterIndex, x, length);
+        bind(parameterIndex, "UnicodeStream", x, s -> s.setUnicodeStream(parameterIndex, x, length));
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        delegate.setBinaryStream(parameterIndex, x, length);
+        bind(parameterIndex, "BinaryStream", x, s -> s.setBinaryStream(parameterIndex, x, length));
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        delegate.setBinaryStream(parameterIndex, x, length);
+        bind(parameterIndex, "BinaryStream", x, s -> s.setBinaryStream(parameterIndex, x, length));
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+        delegate.setBinaryStream(parameterIndex, x);
+        bind(parameterIndex, "BinaryStream", x, s -> s.setBinaryStream(parameterIndex, x));
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+        delegate.setCharacterStream(parameterIndex, reader, length);
+        bind(parameterIndex, "CharacterStream", reader, s -> s.setCharacterStream(parameterIndex, reader, length));
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+        delegate.setCharacterStream(parameterIndex, reader, length);
+        bind(parameterIndex, "CharacterStream", reader, s -> s.setCharacterStream(parameterIndex, reader, length));
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+        delegate.setCharacterStream(parameterIndex, reader);
+        bind(parameterIndex, "CharacterStream", reader, s -> s.setCharacterStream(parameterIndex, reader));
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+        delegate.setNCharacterStream(parameterIndex, value, length);
+        bind(parameterIndex, "NCharacterStream", value, s -> s.setNCharacterStream(parameterIndex, value, length));
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+        delegate.setNCharacterStream(parameterIndex, value);
+        bind(parameterIndex, "NCharacterStream", value, s -> s.setNCharacterStream(parameterIndex, value));
+    }
+}
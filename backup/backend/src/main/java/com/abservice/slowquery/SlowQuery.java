@@ -0,0 +1,38 @@
+package com.abservice.slowquery;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 記録された低速クエリ
+ *
+ * @param id               記録順の連番
+ * @param endpoint         実行元（HTTPリクエストの場合は「メソッド パス」、それ以外はスレッド名）
+ * @param parameterShapes  バインドパラメーターの型（値は記録しない）
+ * @param batchSize        バッチ実行の件数（バッチでない場合は0）
+ * @param plan             EXPLAIN (ANALYZE, BUFFERS) の結果（explainがDONEの場合のみ）
+ */
+public record SlowQuery(long id, Instant capturedAt, String endpoint, String sql, List<String> parameterShapes,
+                        int batchSize, double durationMillis, boolean failed, Explain explain, String plan) {
+
+    /**
+     * EXPLAINの状態
+     */
+    public enum Explain {
+        /** サンプリング対象外 */
+        NOT_SAMPLED,
+        /** 参照系以外の文、または再現できないパラメーターのため実行しない */
+        NOT_EXPLAINABLE,
+        /** 実行待ち */
+        PENDING,
+        /** 実行済み */
+        DONE,
+        /** 待ち行列があふれた、または実行に失敗した */
+        FAILED
+    }
+
+    SlowQuery withPlan(Explain explain, String plan) {
+        return new SlowQuery(id, capturedAt, endpoint, sql, parameterShapes, batchSize, durationMillis, failed,
+                explain, plan);
+    }
+}
@@ -0,0 +1,250 @@
+package com.abservice.slowquery;
+
+import com.abservice.config.SlowQueryConfig;
+import io.agroal.api.AgroalDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.arc.Arc;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * しきい値を超えたSQLの記録
+ * 直近の低速クエリをリングバッファに保持し、サンプリングした参照系の文は別スレッドで
+ * EXPLAIN (ANALYZE, BUFFERS) を実行して実行計画を添える
+ * EXPLAIN ANALYZEは文を実際に実行するため、常にロールバックするトランザクション内で実行する
+ */
+@ApplicationScoped
+public class SlowQueryRecorder {
+
+    private static final Logger LOG = Logger.getLogger(SlowQueryRecorder.class);
+
+    /**
+     * 副作用のある文（更新・行ロック・シーケンス・アドバイザリロック）はEXPLAINしない
+     */
+    private static final Pattern NOT_EXPLAINABLE = Pattern.compile(
+            "\\b(insert|update|delete|merge|nextval|setval|pg_advisory\\w*)\\b"
+                    + "|\\bfor\\s+(update|share|no\\s+key\\s+update|key\\s+share)\\b");
+
+    private static final ThreadLocal<Boolean> EXPLAINING = new ThreadLocal<>();
+
+    private static volatile SlowQueryRecorder active;
+
+    @Inject
+    SlowQueryConfig config;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private SlowQuery[] buffer;
+
+    private long sequence;
+
+    private long thresholdNanos;
+
+    private Counter captured;
+
+    private ThreadPoolExecutor explainer;
+
+    /**
+     * 記録中のレコーダー（起動前・無効時はnull）
+     */
+    static SlowQueryRecorder active() {
+        return active;
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!config.enabled()) {
+            return;
+        }
+        buffer = new SlowQuery[config.bufferSize()];
+        thresholdNanos = config.threshold().toNanos();
+        captured = Counter.builder("db.queries.slow")
+                .description("しきい値を超えたSQLの実行回数")
+                .register(meterRegistry);
+        explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.explain().queueSize()),
+                runnable -> Thread.ofPlatform().name("slow-query-explain").daemon().unstarted(runnable));
+        active = this;
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        active = null;
+        if (explainer != null) {
+            explainer.shutdownNow();
+        }
+    }
+
+    long thresholdNanos() {
+        return thresholdNanos;
+    }
+
+    /**
+     * 低速クエリを記録し、サンプリング対象であればEXPLAINを予約する
+     *
+     * @param bindings バインドパラメーター（位置順、未設定の位置はnull）
+     */
+    void record(String sql, List<ParameterBinding> bindings, int batchSize, long elapsedNanos, boolean failed) {
+        if (sql == null || Boolean.TRUE.equals(EXPLAINING.get())) {
+            return;
+        }
+        captured.increment();
+        List<String> shapes = bindings.stream()
+                .map(binding -> binding != null ? binding.shape() : "?")
+                .toList();
+        SlowQuery.Explain explain = SlowQuery.Explain.NOT_SAMPLED;
+        double sampleRate = config.explain().sampleRate();
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            explain = batchSize == 0 && !failed && explainable(sql, bindings)
+                    ? SlowQuery.Explain.PENDING
+                    : SlowQuery.Explain.NOT_EXPLAINABLE;
+        }
+
+        SlowQuery query;
+        synchronized (this) {
+            long id = ++sequence;
+            query = new SlowQuery(id, Instant.now(), currentEndpoint(), sql, shapes, batchSize,
+                    elapsedNanos / 1_000_000.0, failed, explain, null);
+            buffer[(int) ((id - 1) % buffer.length)] = query;
+        }
+        if (explain == SlowQuery.Explain.PENDING) {
+            scheduleExplain(query, bindings);
+        }
+    }
+
+    /**
+     * 記録中の低速クエリを実行時間の長い順に取得
+     */
+    public synchronized List<SlowQuery> worst(int limit) {
+        if (buffer == null) {
+            return List.of();
+        }
+        return Arrays.stream(buffer)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingDouble(SlowQuery::durationMillis).reversed())
+                .limit(Math.max(0, limit))
+                .toList();
+    }
+
+    /**
+     * 記録を消去
+     */
+    public synchronized void clear() {
+        if (buffer != null) {
+            Arrays.fill(buffer, null);
+        }
+    }
+
+    public boolean isEnabled() {
+        return active == this;
+    }
+
+    private void scheduleExplain(SlowQuery query, List<ParameterBinding> bindings) {
+        try {
+            explainer.execute(() -> {
+                EXPLAINING.set(Boolean.TRUE);
+                try {
+                    update(query.withPlan(SlowQuery.Explain.DONE, explain(query.sql(), bindings)));
+                } catch (SQLException | RuntimeException e) {
+                    LOG.debugf("低速クエリのEXPLAINに失敗しました（#%d）: %s", query.id(), e.getMessage());
+                    update(query.withPlan(SlowQuery.Explain.FAILED, null));
+                } finally {
+                    EXPLAINING.remove();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            update(query.withPlan(SlowQuery.Explain.FAILED, null));
+        }
+    }
+
+    /**
+     * EXPLAIN (ANALYZE, BUFFERS) を実行し、結果をロールバックする
+     */
+    private String explain(String sql, List<ParameterBinding> bindings) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET LOCAL statement_timeout = " + config.explain().timeout().toMillis());
+                }
+                try (PreparedStatement statement = connection.prepareStatement("EXPLAIN (ANALYZE, BUFFERS) " + sql)) {
+                    for (ParameterBinding binding : bindings) {
+                        binding.applyTo(statement);
+                    }
+                    List<String> lines = new ArrayList<>();
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            lines.add(resultSet.getString(1));
+                        }
+                    }
+                    return String.join("\n", lines);
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    /**
+     * リングバッファ上の記録を差し替える（既に上書きされている場合は何もしない）
+     */
+    private synchronized void update(SlowQuery query) {
+        int slot = (int) ((query.id() - 1) % buffer.length);
+        if (buffer[slot] != null && buffer[slot].id() == query.id()) {
+            buffer[slot] = query;
+        }
+    }
+
+    /**
+     * EXPLAIN ANALYZEで再実行しても副作用がなく、バインドパラメーターを再現できる文か
+     */
+    static boolean explainable(String sql, List<ParameterBinding> bindings) {
+        String normalized = sql.stripLeading().toLowerCase(Locale.ROOT);
+        if (!(normalized.startsWith("select") || normalized.startsWith("with"))
+                || NOT_EXPLAINABLE.matcher(normalized).find()) {
+            return false;
+        }
+        return bindings.stream().allMatch(binding -> binding != null && binding.replayable());
+    }
+
+    /**
+     * 実行元のHTTPリクエスト（リクエスト外の場合はスレッド名）
+     */
+    private static String currentEndpoint() {
+        if (Arc.container().requestContext().isActive()) {
+            RoutingContext routingContext = Arc.container().instance(CurrentVertxRequest.class).get().getCurrent();
+            if (routingContext != null) {
+                return routingContext.request().method().name() + " " + routingContext.normalizedPath();
+            }
+        }
+        return Thread.currentThread().getName();
+    }
+}
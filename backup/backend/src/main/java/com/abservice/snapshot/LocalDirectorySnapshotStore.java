@@ -0,0 +1,38 @@
+package com.abservice.snapshot;
+
+import io.quarkus.arc.lookup.LookupIfProperty;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * ローカルディレクトリへスナップショットを書き込む
+ * 一時ファイルに書き込んでからリネームし、配信中のファイルが途中状態にならないようにする
+ */
+@ApplicationScoped
+@LookupIfProperty(name = "app.snapshot.store", stringValue = "local", lookupIfMissing = true)
+public class LocalDirectorySnapshotStore implements SnapshotStore {
+
+    @ConfigProperty(name = "app.snapshot.local.directory", defaultValue = "public-snapshot")
+    Path directory;
+
+    @Override
+    public void put(String key, byte[] body, String contentType, String cacheControl) throws IOException {
+        Path target = directory.resolve(key).normalize();
+        if (!target.startsWith(directory.normalize())) {
+            throw new IllegalArgumentException("不正なスナップショットキーです: " + key);
+        }
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".snapshot-", ".tmp");
+        try {
+            Files.write(temp, body);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.abservice.snapshot;
+
+import com.abservice.bulkhead.Bulkhead;
+import com.abservice.bulkhead.Bulkheads;
+import com.abservice.dto.CircleMemberDto;
+import com.abservice.event.EntityChangeEvent;
+import com.abservice.service.CircleMemberServiceInterface;
+import com.abservice.tenant.Tenants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.spi.ObserverMethod;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 公開サイト向けメンバーディレクトリの静的スナップショットを発行する
+ * 変更イベントを受けてデバウンスし、内容ハッシュ付きの不変ファイルと最新版を指すmanifest.jsonを書き込む
+ * ノード内の変更はコミット直後に、他ノードの変更は変更フィード受信時に通知される
+ */
+@ApplicationScoped
+public class PublicDirectoryPublisher {
+
+    private static final Logger LOG = Logger.getLogger(PublicDirectoryPublisher.class);
+
+    private static final String JSON = "application/json";
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    /**
+     * 公開ディレクトリに含めるメンバー情報（メールアドレス等の非公開項目は含めない）
+     */
+    record PublicMember(Long id, String username, String displayName, String bio,
+                        String avatarUrl, String roleName) {}
+
+    /**
+     * アバターマニフェストの1エントリ
+     */
+    record AvatarEntry(Long id, String username, String avatarUrl) {}
+
+    /**
+     * 最新スナップショットを指すマニフェスト
+     */
+    record Manifest(String version, Instant generatedAt, int memberCount,
+                    String members, String avatars) {}
+
+    @Inject
+    CircleMemberServiceInterface circleMemberService;
+
+    @Inject
+    Instance<SnapshotStore> snapshotStore;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "app.snapshot.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.snapshot.debounce", defaultValue = "PT2S")
+    Duration debounce;
+
+    @ConfigProperty(name = "app.snapshot.max-delay", defaultValue = "PT30S")
+    Duration maxDelay;
+
+    @ConfigProperty(name = "app.snapshot.manifest-cache-control", defaultValue = "public, max-age=30")
+    String manifestCacheControl;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("snapshot-publisher").daemon().unstarted(runnable));
+
+    private ScheduledFuture<?> pending;
+
+    private long firstPendingAtNanos;
+
+    private volatile String lastPublishedVersion;
+
+    void onStart(@Observes StartupEvent event) {
+        if (enabled) {
+            schedulePublish();
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 既定のテナントの変更がコミットされたら発行を予約
+     * 発行はサービスの読み取りキャッシュを経由するため、ReadCacheの破棄より後に通知を受ける
+     */
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) @Priority(ObserverMethod.DEFAULT_PRIORITY + 100)
+                  EntityChangeEvent change) {
+        if (enabled && (change.getTenant() == null || Tenants.DEFAULT.equals(change.getTenant()))) {
+            schedulePublish();
+        }
+    }
+
+    /**
+     * 発行をデバウンスして予約
+     * 変更が続く場合でも最初の変更からmax-delayを超えて遅延させない
+     */
+    synchronized void schedulePublish() {
+        long now = System.nanoTime();
+        if (pending != null && !pending.isDone()) {
+            if (now - firstPendingAtNanos >= maxDelay.toNanos()) {
+                return;
+            }
+            if (!pending.cancel(false)) {
+                // 発行処理の実行中に届いた変更は、完了後の発行で反映する
+                firstPendingAtNanos = now;
+            }
+        } else {
+            firstPendingAtNanos = now;
+        }
+        pending = scheduler.schedule(this::publishSafely, debounce.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void publishSafely() {
+        try {
+            publish();
+        } catch (Exception e) {
+            LOG.error("公開スナップショットの発行に失敗しました", e);
+            synchronized (this) {
+                pending = scheduler.schedule(this::publishSafely, maxDelay.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * 現在のアクティブメンバーからスナップショットを生成して書き込む
+     * 内容が前回と同一の場合は書き込みを省略する
+     */
+    @ActivateRequestContext
+    @Bulkhead(Bulkheads.BACKGROUND)
+    void publish() throws IOException {
+        List<CircleMemberDto> activeMembers = circleMemberService.findActiveMembers();
+        List<PublicMember> members = activeMembers.stream()
+                .map(m -> new PublicMember(m.getId(), m.getUsername(), m.getDisplayName(), m.getBio(),
+                        m.getAvatarUrl(), m.getRoleName()))
+                .toList();
+        List<AvatarEntry> avatars = activeMembers.stream()
+                .filter(m -> m.getAvatarUrl() != null)
+                .map(m -> new AvatarEntry(m.getId(), m.getUsername(), m.getAvatarUrl()))
+                .toList();
+
+        byte[] membersJson = objectMapper.writeValueAsBytes(members);
+        byte[] avatarsJson = objectMapper.writeValueAsBytes(avatars);
+        String membersHash = contentHash(membersJson);
+        String avatarsHash = contentHash(avatarsJson);
+        String version = membersHash + "-" + avatarsHash;
+        if (version.equals(lastPublishedVersion)) {
+            return;
+        }
+
+        SnapshotStore store = snapshotStore.get();
+        String membersKey = "members/" + membersHash + ".json";
+        String avatarsKey = "avatars/" + avatarsHash + ".json";
+        store.put(membersKey, membersJson, JSON, IMMUTABLE);
+        store.put(avatarsKey, avatarsJson, JSON, IMMUTABLE);
+
+        // 不変ファイルをすべて書き込んでから最新版の参照を切り替える
+        Manifest manifest = new Manifest(version, Instant.now(), members.size(), membersKey, avatarsKey);
+        store.put("manifest.json", objectMapper.writeValueAsBytes(manifest), JSON, manifestCacheControl);
+        lastPublishedVersion = version;
+        LOG.infof("公開スナップショットを発行しました: version=%s, members=%d", version, members.size());
+    }
+
+    private static String contentHash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
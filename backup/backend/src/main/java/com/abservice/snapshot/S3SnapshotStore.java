@@ -0,0 +1,87 @@
+package com.abservice.snapshot;
+
+import io.quarkus.arc.lookup.LookupIfProperty;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.net.URI;
+import java.util.Optional;
+
+/**
+ * S3互換バケット（AWS S3 / MinIO等）へスナップショットを書き込む
+ */
+@ApplicationScoped
+@LookupIfProperty(name = "app.snapshot.store", stringValue = "s3")
+public class S3SnapshotStore implements SnapshotStore {
+
+    @ConfigProperty(name = "app.snapshot.s3.bucket")
+    Optional<String> bucket;
+
+    @ConfigProperty(name = "app.snapshot.s3.prefix")
+    Optional<String> prefix;
+
+    @ConfigProperty(name = "app.snapshot.s3.region", defaultValue = "us-east-1")
+    String region;
+
+    @ConfigProperty(name = "app.snapshot.s3.endpoint")
+    Optional<URI> endpoint;
+
+    @ConfigProperty(name = "app.snapshot.s3.path-style", defaultValue = "false")
+    boolean pathStyle;
+
+    @ConfigProperty(name = "app.snapshot.s3.access-key-id")
+    Optional<String> accessKeyId;
+
+    @ConfigProperty(name = "app.snapshot.s3.secret-access-key")
+    Optional<String> secretAccessKey;
+
+    private S3Client client;
+
+    @PostConstruct
+    void init() {
+        if (bucket.isEmpty()) {
+            throw new IllegalStateException("app.snapshot.s3.bucketが設定されていません");
+        }
+        S3ClientBuilder builder = S3Client.builder()
+                .httpClientBuilder(UrlConnectionHttpClient.builder())
+                .region(Region.of(region))
+                .forcePathStyle(pathStyle);
+        endpoint.ifPresent(builder::endpointOverride);
+        if (accessKeyId.isPresent() && secretAccessKey.isPresent()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(accessKeyId.get(), secretAccessKey.get())));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        client = builder.build();
+    }
+
+    @PreDestroy
+    void close() {
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] body, String contentType, String cacheControl) {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucket.get())
+                .key(prefix.orElse("") + key)
+                .contentType(contentType)
+                .cacheControl(cacheControl)
+                .build();
+        client.putObject(request, RequestBody.fromBytes(body));
+    }
+}
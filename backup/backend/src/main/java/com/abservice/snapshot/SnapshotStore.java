@@ -0,0 +1,15 @@
+package com.abservice.snapshot;
+
+import java.io.IOException;
+
+/**
+ * 公開スナップショットの書き込み先
+ */
+public interface SnapshotStore {
+
+    /**
+     * 指定キーにオブジェクトを書き込む
+     * 同一キーへの書き込みは読み手から見て原子的でなければならない
+     */
+    void put(String key, byte[] body, String contentType, String cacheControl) throws IOException;
+}
@@ -0,0 +1,133 @@
+package com.abservice.store;
+
+import com.abservice.entity.CircleMember;
+import com.abservice.event.ChangeNotifier;
+import com.abservice.event.EntityChangeEvent.ChangeType;
+import com.abservice.repository.CircleMemberRepository;
+import com.abservice.repository.RoleRepository;
+import com.abservice.view.CircleMemberView;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Blaze-Persistenceのリポジトリによる {@link CircleMemberStore} の実装
+ * テナントの絞り込み・レプリカへの振り分け・クエリの期限はリポジトリと同じく適用される
+ * 書き込みはサービス層と同じく同じトランザクションで変更を通知する（キャッシュの破棄・変更フィード・アウトボックス）
+ */
+@ApplicationScoped
+public class BlazeCircleMemberStore implements CircleMemberStore {
+
+    @Inject
+    CircleMemberRepository circleMemberRepository;
+
+    @Inject
+    RoleRepository roleRepository;
+
+    @Inject
+    ChangeNotifier changeNotifier;
+
+    @Override
+    public List<CircleMemberRecord> findAll() {
+        return toRecords(circleMemberRepository.findAll());
+    }
+
+    @Override
+    public List<CircleMemberRecord> findActive() {
+        return toRecords(circleMemberRepository.findActiveMembers());
+    }
+
+    @Override
+    public Optional<CircleMemberRecord> findById(long id) {
+        return circleMemberRepository.findById(id).map(BlazeCircleMemberStore::toRecord);
+    }
+
+    @Override
+    public Optional<CircleMemberRecord> findByUsername(String username) {
+        return circleMemberRepository.findByUsername(username).map(BlazeCircleMemberStore::toRecord);
+    }
+
+    @Override
+    public Optional<CircleMemberRecord> findByEmail(String email) {
+        return circleMemberRepository.findByEmail(email).map(BlazeCircleMemberStore::toRecord);
+    }
+
+    @Override
+    public List<CircleMemberRecord> findByRoleId(long roleId) {
+        return toRecords(circleMemberRepository.findByRoleIds(List.of(roleId)));
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        return circleMemberRepository.existsByUsername(username);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return circleMemberRepository.existsByEmail(email);
+    }
+
+    @Override
+    @Transactional
+    public CircleMemberRecord insert(CircleMemberRecord member) {
+        CircleMember circleMember = new CircleMember(member.username(), member.displayName(), member.email(),
+                roleRepository.getReference(member.roleId()));
+        circleMember.setBio(member.bio());
+        circleMember.setAvatarUrl(member.avatarUrl());
+        circleMember.setIsActive(member.isActive());
+        circleMemberRepository.save(circleMember);
+        changeNotifier.circleMemberChanged(ChangeType.CREATED, circleMember.getId());
+        return new CircleMemberRecord(circleMember.getId(), circleMember.getUsername(),
+                circleMember.getDisplayName(), circleMember.getEmail(), circleMember.getBio(),
+                circleMember.getAvatarUrl(), circleMember.getIsActive(), member.roleId(),
+                circleMember.getCreatedAt(), circleMember.getUpdatedAt(), circleMember.getVersion());
+    }
+
+    @Override
+    @Transactional
+    public Optional<CircleMemberRecord> update(CircleMemberRecord member) {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("username", member.username());
+        changes.put("displayName", member.displayName());
+        changes.put("email", member.email());
+        changes.put("bio", member.bio());
+        changes.put("avatarUrl", member.avatarUrl());
+        changes.put("isActive", member.isActive());
+        changes.put("role", roleRepository.getReference(member.roleId()));
+        if (circleMemberRepository.updateIfVersion(member.id(), member.version(), changes) == 0) {
+            return Optional.empty();
+        }
+        changeNotifier.circleMemberChanged(ChangeType.UPDATED, member.id());
+        return circleMemberRepository.findById(member.id()).map(BlazeCircleMemberStore::toRecord);
+    }
+
+    @Override
+    @Transactional
+    public boolean deleteById(long id) {
+        if (circleMemberRepository.deleteIfVersion(id, null) == 0) {
+            return false;
+        }
+        changeNotifier.circleMemberChanged(ChangeType.DELETED, id);
+        return true;
+    }
+
+    private static List<CircleMemberRecord> toRecords(List<CircleMemberView> views) {
+        // SPIはID順で返すため、並び順を指定していないリポジトリの結果を並べ替える
+        return views.stream()
+                .map(BlazeCircleMemberStore::toRecord)
+                .sorted(Comparator.comparing(CircleMemberRecord::id))
+                .toList();
+    }
+
+    private static CircleMemberRecord toRecord(CircleMemberView view) {
+        return new CircleMemberRecord(view.getId(), view.getUsername(), view.getDisplayName(), view.getEmail(),
+                view.getBio(), view.getAvatarUrl(), Boolean.TRUE.equals(view.getIsActive()), view.getRoleId(),
+                view.getCreatedAt(), view.getUpdatedAt(), view.getVersion());
+    }
+}
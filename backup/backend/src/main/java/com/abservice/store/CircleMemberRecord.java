@@ -0,0 +1,28 @@
+package com.abservice.store;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.time.LocalDateTime;
+
+/**
+ * リポジトリSPIでやり取りするCircleMember
+ * 保存先（データベース・メモリ）に依存しない不変の値で、backend と backup/backend で同じ定義を持つ
+ *
+ * @param id 未採番の場合はnull
+ * @param roleId 所属するRoleのID（未設定の場合はnull）
+ * @param version 楽観的ロックのバージョン（更新時は期待するバージョンとして照合する）
+ */
+@RegisterForReflection
+public record CircleMemberRecord(
+        Long id,
+        String username,
+        String displayName,
+        String email,
+        String bio,
+        String avatarUrl,
+        boolean isActive,
+        Long roleId,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        long version) {
+}
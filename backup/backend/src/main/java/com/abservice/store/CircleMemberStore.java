@@ -0,0 +1,73 @@
+package com.abservice.store;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * CircleMemberのリポジトリSPI
+ * backend ではインメモリエンジン（InMemoryCircleMemberStore）、backup/backend ではBlaze-Persistenceの
+ * リポジトリが実装する。backend と backup/backend で同じ定義を持つ
+ */
+public interface CircleMemberStore {
+
+    /**
+     * すべてのCircleMemberをID順に取得
+     */
+    List<CircleMemberRecord> findAll();
+
+    /**
+     * アクティブなCircleMemberのみをID順に取得
+     */
+    List<CircleMemberRecord> findActive();
+
+    /**
+     * IDでCircleMemberを取得
+     */
+    Optional<CircleMemberRecord> findById(long id);
+
+    /**
+     * ユーザー名でCircleMemberを取得
+     */
+    Optional<CircleMemberRecord> findByUsername(String username);
+
+    /**
+     * メールアドレスでCircleMemberを取得
+     */
+    Optional<CircleMemberRecord> findByEmail(String email);
+
+    /**
+     * RoleのCircleMemberをID順に取得
+     */
+    List<CircleMemberRecord> findByRoleId(long roleId);
+
+    /**
+     * ユーザー名の存在チェック
+     */
+    boolean existsByUsername(String username);
+
+    /**
+     * メールアドレスの存在チェック
+     */
+    boolean existsByEmail(String email);
+
+    /**
+     * CircleMemberを登録し、ID・日時・バージョンを設定した値を返す
+     * ユーザー名・メールアドレスが重複する場合は保存先の一意制約の例外となるため、事前に存在チェックを行うこと
+     */
+    CircleMemberRecord insert(CircleMemberRecord member);
+
+    /**
+     * バージョンを条件にCircleMemberを更新（楽観的ロック）
+     *
+     * @param member 更新後の値（versionは期待するバージョン）
+     * @return 更新後の値（存在しないかバージョン不一致の場合は空）
+     */
+    Optional<CircleMemberRecord> update(CircleMemberRecord member);
+
+    /**
+     * CircleMemberを削除
+     *
+     * @return 削除した場合はtrue
+     */
+    boolean deleteById(long id);
+}
@@ -0,0 +1,31 @@
+package com.abservice.tenant;
+
+import com.abservice.config.TenantConfig;
+import io.quarkus.arc.lookup.LookupIfProperty;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 設定（app.tenant.dedicated）に従ってテナントを振り分ける
+ */
+@ApplicationScoped
+@LookupIfProperty(name = "app.tenant.router", stringValue = "config", lookupIfMissing = true)
+public class ConfiguredTenantDataSourceRouter implements TenantDataSourceRouter {
+
+    @Inject
+    TenantConfig config;
+
+    @Override
+    public String persistenceUnit(String tenant) {
+        Map<String, String> dedicated = config.dedicated();
+        return dedicated.isEmpty() ? null : dedicated.get(tenant);
+    }
+
+    @Override
+    public Set<String> persistenceUnits() {
+        return Set.copyOf(config.dedicated().values());
+    }
+}
@@ -0,0 +1,38 @@
+package com.abservice.tenant;
+
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+
+/**
+ * リクエストのテナント（JWTのクレームまたはホスト名から、最初の参照時に解決する）
+ * 参照は {@link Tenants#current()} を使用する
+ */
+@RequestScoped
+public class CurrentTenant {
+
+    @Inject
+    TenantResolution resolution;
+
+    @Inject
+    CurrentVertxRequest vertxRequest;
+
+    private String id;
+
+    /**
+     * 解決済みのテナントID（HTTPリクエストでない場合はnull）
+     */
+    public String get() {
+        String resolved = id;
+        if (resolved == null) {
+            RoutingContext routingContext = vertxRequest.getCurrent();
+            if (routingContext == null) {
+                return null;
+            }
+            resolved = resolution.resolve(routingContext.request());
+            id = resolved;
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,26 @@
+package com.abservice.tenant;
+
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import io.quarkus.hibernate.orm.runtime.tenant.TenantResolver;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Hibernateのセッションにテナントを設定する（quarkus.hibernate-orm.multitenant=DISCRIMINATOR）
+ * テナントIDは @TenantId の列に書き込まれ、JPQL・Blaze-Persistenceのクエリには自動で条件が追加される
+ * 専用データベースの永続化ユニットを追加する場合は、ここにもその永続化ユニットを指定すること
+ */
+@ApplicationScoped
+@PersistenceUnitExtension
+@PersistenceUnitExtension("replica")
+public class CurrentTenantResolver implements TenantResolver {
+
+    @Override
+    public String getDefaultTenantId() {
+        return Tenants.DEFAULT;
+    }
+
+    @Override
+    public String resolveTenantId() {
+        return Tenants.current();
+    }
+}
@@ -0,0 +1,20 @@
+package com.abservice.tenant;
+
+import java.util.Set;
+
+/**
+ * テナントのデータを保持するデータベース（永続化ユニット）の振り分け
+ * 大規模なテナントを専用データベースへ移す場合に使用する。実装は app.tenant.router で選択する（@LookupIfProperty）
+ */
+public interface TenantDataSourceRouter {
+
+    /**
+     * テナントの永続化ユニット名（共有データベースの場合はnull）
+     */
+    String persistenceUnit(String tenant);
+
+    /**
+     * 振り分け先となる専用データベースの永続化ユニット名（起動時の検証とアウトボックスのリレーに使用）
+     */
+    Set<String> persistenceUnits();
+}
@@ -0,0 +1,101 @@
+package com.abservice.tenant;
+
+import com.abservice.routing.ReadRoute;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.InstanceHandle;
+import io.quarkus.hibernate.orm.PersistenceUnit;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 現在のテナントのデータを保持するEntityManagerの選択
+ * 共有データベースのテナントはプライマリ（@ReplicaReadの読み取りはレプリカ）、
+ * {@link TenantDataSourceRouter} が専用データベースに振り分けたテナントはその永続化ユニットを使用する
+ */
+@ApplicationScoped
+public class TenantEntityManagers {
+
+    private static final Logger LOG = Logger.getLogger(TenantEntityManagers.class);
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    @PersistenceUnit("replica")
+    EntityManager replicaEntityManager;
+
+    @Inject
+    Instance<TenantDataSourceRouter> routers;
+
+    private final Map<String, EntityManager> dedicated = new ConcurrentHashMap<>();
+
+    private TenantDataSourceRouter router;
+
+    @PostConstruct
+    void init() {
+        router = routers.get();
+    }
+
+    /**
+     * 振り分け先の永続化ユニットがすべて定義されていることを起動時に確認する
+     */
+    void onStart(@Observes StartupEvent event) {
+        for (String unit : router.persistenceUnits()) {
+            dedicated(unit);
+            LOG.infof("専用データベースの永続化ユニットを使用します: %s", unit);
+        }
+    }
+
+    /**
+     * 書き込み・トランザクション内の読み取りに使用するEntityManager
+     */
+    public EntityManager primary() {
+        String unit = router.persistenceUnit(Tenants.current());
+        return unit == null ? entityManager : dedicated(unit);
+    }
+
+    /**
+     * 読み取りに使用するEntityManager（専用データベースにはレプリカを設けないため、常にその永続化ユニット）
+     */
+    public EntityManager read() {
+        String unit = router.persistenceUnit(Tenants.current());
+        if (unit != null) {
+            return dedicated(unit);
+        }
+        return ReadRoute.isReplica() ? replicaEntityManager : entityManager;
+    }
+
+    /**
+     * 共有データベースとすべての専用データベースのEntityManager（テナントをまたぐバックグラウンド処理用）
+     */
+    public List<EntityManager> all() {
+        List<EntityManager> all = new ArrayList<>();
+        all.add(entityManager);
+        for (String unit : router.persistenceUnits()) {
+            all.add(dedicated(unit));
+        }
+        return all;
+    }
+
+    private EntityManager dedicated(String unit) {
+        return dedicated.computeIfAbsent(unit, name -> {
+            InstanceHandle<EntityManager> handle = Arc.container()
+                    .instance(EntityManager.class, new PersistenceUnit.PersistenceUnitLiteral(name));
+            if (!handle.isAvailable()) {
+                throw new IllegalStateException("テナントの振り分け先の永続化ユニットが定義されていません: " + name);
+            }
+            return handle.get();
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package com.abservice.tenant;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+/**
+ * REST APIのリクエストのテナントを処理の開始前に解決するフィルター
+ * 不正な指定や他のサークルへのアクセスは、リソースメソッドを実行せずに400/403で返す
+ * （GraphQLなどフィルターを通らないリクエストは、最初の参照時に解決する）
+ */
+public class TenantFilter {
+
+    @Inject
+    CurrentTenant currentTenant;
+
+    @ServerRequestFilter(priority = Priorities.AUTHORIZATION)
+    public void resolve() {
+        currentTenant.get();
+    }
+}
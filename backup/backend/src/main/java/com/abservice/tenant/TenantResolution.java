@@ -0,0 +1,81 @@
+package com.abservice.tenant;
+
+import com.abservice.config.TenantConfig;
+import com.abservice.exception.ForbiddenException;
+import com.abservice.exception.ValidationFailedException;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.net.HostAndPort;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.JsonString;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTPリクエストのテナントの解決
+ * JWTのクレーム（app.tenant.claim）を優先し、なければホスト名（app.tenant.host-pattern）、どちらもなければ既定のテナントとする
+ * 両方が指定されていて一致しない場合は、他のサークルのホストへのアクセスとして拒否する
+ */
+@ApplicationScoped
+public class TenantResolution {
+
+    @Inject
+    TenantConfig config;
+
+    @Inject
+    SecurityIdentity identity;
+
+    private Pattern hostPattern;
+
+    @PostConstruct
+    void init() {
+        hostPattern = config.hostPattern().map(Pattern::compile).orElse(null);
+    }
+
+    /**
+     * リクエストのテナントIDを解決
+     *
+     * @throws ForbiddenException JWTとホスト名のテナントが一致しない場合
+     * @throws ValidationFailedException テナントIDとして使用できない値の場合
+     */
+    public String resolve(HttpServerRequest request) {
+        String fromToken = fromToken();
+        HostAndPort authority = request.authority();
+        String fromHost = fromHost(authority != null ? authority.host() : null);
+        if (fromToken != null && fromHost != null && !fromToken.equals(fromHost)) {
+            throw new ForbiddenException("このサークルへのアクセス権がありません");
+        }
+        String tenant = fromToken != null ? fromToken : fromHost != null ? fromHost : Tenants.DEFAULT;
+        if (!Tenants.isValid(tenant)) {
+            throw new ValidationFailedException("サークルの指定が不正です");
+        }
+        return tenant;
+    }
+
+    private String fromToken() {
+        if (identity.isAnonymous() || !(identity.getPrincipal() instanceof JsonWebToken token)) {
+            return null;
+        }
+        Object claim = token.getClaim(config.claim());
+        if (claim instanceof JsonString json) {
+            return json.getString();
+        }
+        return claim != null ? claim.toString() : null;
+    }
+
+    /**
+     * ホスト名（ポートを含まない）がパターンに一致する場合は最初のグループを返す
+     */
+    private String fromHost(String host) {
+        if (hostPattern == null || host == null) {
+            return null;
+        }
+        Matcher matcher = hostPattern.matcher(host.toLowerCase(Locale.ROOT));
+        return matcher.matches() && matcher.groupCount() >= 1 ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,92 @@
+package com.abservice.tenant;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+
+/**
+ * 現在のテナント（サークル）
+ * リクエスト中は {@link CurrentTenant} が解決した値、バックグラウンド処理では {@link #call(String, Callable)} で
+ * 指定した値、どちらもない場合は既定のテナントを返す
+ */
+public final class Tenants {
+
+    /**
+     * 既定のテナント（テナント導入前のデータと、テナントを指定しないリクエストが属する）
+     */
+    public static final String DEFAULT = "default";
+
+    private static final Pattern VALID_ID = Pattern.compile("[a-z0-9](?:[a-z0-9-]{0,61}[a-z0-9])?");
+
+    private static final ThreadLocal<String> OVERRIDE = new ThreadLocal<>();
+
+    private Tenants() {
+    }
+
+    /**
+     * 現在のテナントID
+     */
+    public static String current() {
+        String override = OVERRIDE.get();
+        if (override != null) {
+            return override;
+        }
+        ManagedContext requestContext = Arc.container().requestContext();
+        if (requestContext.isActive()) {
+            String resolved = Arc.container().instance(CurrentTenant.class).get().get();
+            if (resolved != null) {
+                return resolved;
+            }
+        }
+        return DEFAULT;
+    }
+
+    /**
+     * 現在のテナントが既定のテナントか
+     */
+    public static boolean isDefault() {
+        return DEFAULT.equals(current());
+    }
+
+    /**
+     * テナントIDとして使用できる値か（小文字英数字とハイフン、63文字まで）
+     */
+    public static boolean isValid(String tenant) {
+        return tenant != null && VALID_ID.matcher(tenant).matches();
+    }
+
+    /**
+     * 指定テナントとして処理を実行
+     * 別スレッドへ処理を渡す場合は、渡す前のスレッドで {@link #current()} を取得してこれで包む
+     * Hibernateのセッションはテナントを開始時に決定するため、EntityManagerを使う処理全体を包むこと
+     */
+    public static <T> T call(String tenant, Callable<T> task) throws Exception {
+        String previous = OVERRIDE.get();
+        OVERRIDE.set(tenant);
+        try {
+            return task.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static void run(String tenant, Runnable task) {
+        String previous = OVERRIDE.get();
+        OVERRIDE.set(tenant);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    private static void restore(String previous) {
+        if (previous != null) {
+            OVERRIDE.set(previous);
+        } else {
+            OVERRIDE.remove();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.abservice.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+
+/**
+ * トレースのサンプラー
+ * リクエストを起点とするトレースは app.tracing.sample-ratio の割合で記録し、子スパンは親の判定に従う
+ * 親のないSQLのスパン（アウトボックス・変更検知などのポーリング）は毎秒発生して有用な情報がないため記録しない
+ */
+@Singleton
+public class ApplicationSampler implements Sampler {
+
+    private static final AttributeKey<String> DB_SYSTEM = AttributeKey.stringKey("db.system");
+
+    @ConfigProperty(name = "app.tracing.sample-ratio", defaultValue = "1.0")
+    double sampleRatio;
+
+    private Sampler delegate;
+
+    @PostConstruct
+    void init() {
+        delegate = Sampler.parentBased(Sampler.traceIdRatioBased(sampleRatio));
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                       Attributes attributes, List<LinkData> parentLinks) {
+        if (spanKind == SpanKind.CLIENT && attributes.get(DB_SYSTEM) != null
+                && !Span.fromContext(parentContext).getSpanContext().isValid()) {
+            return SamplingResult.drop();
+        }
+        return delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+    }
+
+    @Override
+    public String getDescription() {
+        return "ApplicationSampler{" + delegate.getDescription() + "}";
+    }
+}
@@ -0,0 +1,57 @@
+package com.abservice.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+
+import java.util.List;
+
+/**
+ * トレースコンテキストとW3C traceparent文字列の相互変換
+ * アウトボックスの行など、スレッドやプロセスをまたいで後から処理されるデータにトレースを引き継ぐために使う
+ */
+public final class TraceContexts {
+
+    public static final String TRACEPARENT = "traceparent";
+
+    private static final TextMapGetter<String> TRACEPARENT_GETTER = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(String carrier) {
+            return List.of(TRACEPARENT);
+        }
+
+        @Override
+        public String get(String carrier, String key) {
+            return TRACEPARENT.equals(key) ? carrier : null;
+        }
+    };
+
+    private TraceContexts() {
+    }
+
+    /**
+     * 現在のスパンのtraceparent（記録中のスパンがない場合はnull）
+     */
+    public static String currentTraceparent() {
+        SpanContext spanContext = Span.current().getSpanContext();
+        if (!spanContext.isValid()) {
+            return null;
+        }
+        return "00-" + spanContext.getTraceId() + "-" + spanContext.getSpanId() + "-"
+                + spanContext.getTraceFlags().asHex();
+    }
+
+    /**
+     * traceparentからリモートのスパンコンテキストを復元（null・不正な値の場合は無効なコンテキスト）
+     */
+    public static SpanContext parse(String traceparent) {
+        if (traceparent == null) {
+            return SpanContext.getInvalid();
+        }
+        Context extracted = W3CTraceContextPropagator.getInstance()
+                .extract(Context.root(), traceparent, TRACEPARENT_GETTER);
+        return Span.fromContext(extracted).getSpanContext();
+    }
+}
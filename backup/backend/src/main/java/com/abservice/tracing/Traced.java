@@ -0,0 +1,25 @@
+package com.abservice.tracing;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * メソッドの呼び出しをOpenTelemetryのスパンとして記録する
+ * スパン名は「クラス名.メソッド名」で、呼び出し中は現在のスパンになるため、内側のSQLのスパンはこのスパンの子になる
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Traced {
+
+    /**
+     * レイヤー名（controller / service / repository）
+     */
+    @Nonbinding
+    String value() default "";
+}
@@ -0,0 +1,91 @@
+package com.abservice.tracing;
+
+import com.abservice.exception.ApiException;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link Traced} を付与したクラス・メソッドの呼び出しごとにスパンを作成する
+ * キャッシュ（{@link com.abservice.cache.CoalescedRead}）より外側で実行し、キャッシュから返した呼び出しも短いスパンとして残す
+ * 想定内のエラー（{@link ApiException}）はスパンのステータスをERRORにせず、種別のみを属性に残す
+ */
+@Traced
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION - 10)
+public class TracedInterceptor {
+
+    static final AttributeKey<String> CODE_NAMESPACE = AttributeKey.stringKey("code.namespace");
+    static final AttributeKey<String> CODE_FUNCTION = AttributeKey.stringKey("code.function");
+    static final AttributeKey<String> LAYER = AttributeKey.stringKey("app.layer");
+    static final AttributeKey<String> ERROR_TYPE = AttributeKey.stringKey("error.type");
+
+    private final Map<Method, Target> targets = new ConcurrentHashMap<>();
+
+    @Inject
+    Tracer tracer;
+
+    @AroundInvoke
+    Object trace(InvocationContext context) throws Exception {
+        Target target = targets.computeIfAbsent(context.getMethod(), Target::of);
+        Span span = tracer.spanBuilder(target.spanName())
+                .setAttribute(CODE_NAMESPACE, target.namespace())
+                .setAttribute(CODE_FUNCTION, target.function())
+                .setAttribute(LAYER, target.layer())
+                .startSpan();
+        Object result;
+        Scope scope = span.makeCurrent();
+        try {
+            result = context.proceed();
+        } catch (Exception e) {
+            end(span, e);
+            throw e;
+        } finally {
+            scope.close();
+        }
+        // 非同期の戻り値は完了時にスパンを閉じる
+        if (result instanceof Uni<?> uni) {
+            return uni.onTermination().invoke((item, failure, cancelled) -> end(span, failure));
+        }
+        span.end();
+        return result;
+    }
+
+    private static void end(Span span, Throwable failure) {
+        if (failure instanceof ApiException expected) {
+            span.setAttribute(ERROR_TYPE, expected.getClass().getSimpleName());
+        } else if (failure != null) {
+            span.recordException(failure);
+            span.setStatus(StatusCode.ERROR);
+        }
+        span.end();
+    }
+
+    /**
+     * メソッドごとのスパン名と属性（呼び出しごとのリフレクションを避けるためキャッシュする）
+     */
+    private record Target(String spanName, String namespace, String function, String layer) {
+
+        static Target of(Method method) {
+            Class<?> type = method.getDeclaringClass();
+            Traced binding = method.getAnnotation(Traced.class);
+            if (binding == null) {
+                binding = type.getAnnotation(Traced.class);
+            }
+            String layer = binding != null ? binding.value() : "";
+            return new Target(type.getSimpleName() + "." + method.getName(), type.getName(), method.getName(), layer);
+        }
+    }
+}
@@ -33,6 +33,11 @@ public interface CircleMemberView {
 
     LocalDateTime getUpdatedAt();
 
+    Long getVersion();
+
+    @Mapping("role.id")
+    Long getRoleId();
+
     @Mapping("role.name")
     String getRoleName();
 
@@ -0,0 +1,26 @@
+package com.abservice.view;
+
+import com.blazebit.persistence.view.EntityView;
+import com.blazebit.persistence.view.IdMapping;
+import com.abservice.entity.Permission;
+
+/**
+ * PermissionのEntityView
+ * データ転送用のビュー定義
+ */
+@EntityView(Permission.class)
+public interface PermissionView {
+
+    @IdMapping
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    String getResource();
+
+    String getAction();
+
+    Boolean getIsActive();
+}
@@ -0,0 +1,23 @@
+package com.abservice.view;
+
+import com.blazebit.persistence.view.EntityView;
+import com.blazebit.persistence.view.FetchStrategy;
+import com.blazebit.persistence.view.IdMapping;
+import com.blazebit.persistence.view.Mapping;
+import com.abservice.entity.Role;
+
+import java.util.Set;
+
+/**
+ * Roleに付与されたPermissionのEntityView
+ * 複数ロール分の権限を1回のJOINクエリでまとめて取得するために使用する
+ */
+@EntityView(Role.class)
+public interface RolePermissionsView {
+
+    @IdMapping
+    Long getId();
+
+    @Mapping(fetch = FetchStrategy.JOIN)
+    Set<PermissionView> getPermissions();
+}
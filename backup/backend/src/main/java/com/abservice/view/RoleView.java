@@ -23,6 +23,8 @@ public interface RoleView {
     LocalDateTime getCreatedAt();
 
     LocalDateTime getUpdatedAt();
+
+    Long getVersion();
 }
 
 
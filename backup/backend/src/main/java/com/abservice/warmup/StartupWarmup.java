@@ -0,0 +1,219 @@
+package com.abservice.warmup;
+
+import com.abservice.config.ReplicaConfig;
+import com.abservice.repository.CircleMemberRepository;
+import com.abservice.repository.PermissionRepository;
+import com.abservice.repository.RoleRepository;
+import com.abservice.routing.ReadRoute;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 起動時のウォームアップ
+ * 読み取りクエリを一通り実行し、Blaze-Persistence/HibernateのクエリプランとJDBCのサーバーサイドプリペアドステートメントを準備する
+ * レプリカへのルーティングが有効な場合は、レプリカの永続化ユニットでも読み取りクエリを実行する
+ * 完了するまで、またはすべてのクエリが失敗した場合はReadinessをDOWNとする
+ */
+@ApplicationScoped
+public class StartupWarmup {
+
+    private static final Logger LOG = Logger.getLogger(StartupWarmup.class);
+
+    @Inject
+    CircleMemberRepository circleMemberRepository;
+
+    @Inject
+    RoleRepository roleRepository;
+
+    @Inject
+    PermissionRepository permissionRepository;
+
+    @Inject
+    ReplicaConfig replicaConfig;
+
+    @ConfigProperty(name = "app.warmup.enabled", defaultValue = "true")
+    boolean enabled;
+
+    /** PostgreSQL JDBCはprepareThreshold回目の実行からサーバーサイドプリペアを使う */
+    @ConfigProperty(name = "app.warmup.iterations", defaultValue = "5")
+    int iterations;
+
+    /** プール内の複数の接続に行き渡らせるための並列数 */
+    @ConfigProperty(name = "app.warmup.parallelism", defaultValue = "5")
+    int parallelism;
+
+    private final Map<String, Long> firstExecutionMillis = new ConcurrentHashMap<>();
+    private final AtomicInteger executions = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile boolean completed;
+    private volatile boolean allFailed;
+    private volatile long durationMillis = -1;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            completed = true;
+            return;
+        }
+        run();
+    }
+
+    /**
+     * 前回のウォームアップですべてのクエリが失敗していれば（DBに接続できなかった場合など）再実行する
+     * 再実行が完了するまでは前回の結果のまま
+     */
+    public void retryIfAllFailed() {
+        if (completed && allFailed) {
+            run();
+        }
+    }
+
+    private void run() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        executions.set(0);
+        failures.set(0);
+        firstExecutionMillis.clear();
+        long start = System.nanoTime();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[Math.max(1, parallelism)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = CompletableFuture.runAsync(this::warmUpQueries, Infrastructure.getDefaultWorkerPool());
+        }
+        CompletableFuture.allOf(workers).whenComplete((ignored, error) -> {
+            durationMillis = (System.nanoTime() - start) / 1_000_000;
+            allFailed = error != null || failures.get() == executions.get();
+            completed = true;
+            running.set(false);
+            if (error != null) {
+                LOG.warn("起動時のウォームアップが異常終了しました", error);
+            }
+            if (allFailed) {
+                LOG.warnf("起動時のウォームアップですべてのクエリが失敗しました（Readinessの確認時に再実行します）: executions=%d, failures=%d",
+                        executions.get(), failures.get());
+                return;
+            }
+            LOG.infof("起動時のウォームアップが完了しました: duration=%dms, queries=%d, iterations=%d, parallelism=%d, failures=%d",
+                    durationMillis, firstExecutionMillis.size(), iterations, workers.length, failures.get());
+            firstExecutionMillis.forEach((name, millis) -> LOG.debugf("ウォームアップ初回実行時間: %s=%dms", name, millis));
+        });
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * 最後に完了したウォームアップで、すべてのクエリが失敗したか
+     */
+    public boolean isAllFailed() {
+        return allFailed;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public int getExecutions() {
+        return executions.get();
+    }
+
+    public int getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * 読み取りクエリを指定回数ずつ実行
+     */
+    @ActivateRequestContext
+    void warmUpQueries() {
+        Map<String, Runnable> queries = queries();
+        for (int i = 0; i < iterations; i++) {
+            for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+                executions.incrementAndGet();
+                long start = System.nanoTime();
+                try {
+                    query.getValue().run();
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                    if (i == 0) {
+                        LOG.warnf(e, "ウォームアップ中のクエリ実行に失敗しました: %s", query.getKey());
+                    }
+                    continue;
+                }
+                if (i == 0) {
+                    firstExecutionMillis.merge(query.getKey(), (System.nanoTime() - start) / 1_000_000, Math::max);
+                }
+            }
+        }
+    }
+
+    /**
+     * ウォームアップ対象の読み取りクエリ
+     * 実データに依存しないよう、存在しないキーで検索する
+     */
+    Map<String, Runnable> queries() {
+        Map<String, Runnable> queries = new LinkedHashMap<>(routedReads());
+        queries.put("circleMember.findChangedSince", () -> circleMemberRepository.findChangedSince(Long.MAX_VALUE));
+        queries.put("circleMember.findDeletedIdsSince", () -> circleMemberRepository.findDeletedIdsSince(Long.MAX_VALUE));
+        queries.put("circleMember.currentChangeCursor", circleMemberRepository::currentChangeCursor);
+        queries.put("circleMember.findCompactedThrough", circleMemberRepository::findCompactedThrough);
+        queries.put("circleMember.findVersion", () -> circleMemberRepository.findVersion(-1L));
+        queries.put("circleMember.existsByUsername", () -> circleMemberRepository.existsByUsername(""));
+        queries.put("circleMember.existsByEmail", () -> circleMemberRepository.existsByEmail(""));
+        queries.put("circleMember.existsByEmailExcludingId", () -> circleMemberRepository.existsByEmailExcludingId("", -1L));
+        queries.put("role.findVersion", () -> roleRepository.findVersion(-1L));
+        queries.put("role.existsByName", () -> roleRepository.existsByName(""));
+        queries.put("role.existsByNameExcludingId", () -> roleRepository.existsByNameExcludingId("", -1L));
+        if (replicaConfig.enabled()) {
+            routedReads().forEach((name, query) -> queries.put("replica." + name, () -> ReadRoute.onReplica(query)));
+        }
+        return queries;
+    }
+
+    /**
+     * 読み取り先の選択（ReadRoute）に従うクエリ
+     * スパースフィールドセットは全項目で準備する（項目の組み合わせごとにクエリが異なるため、すべての組み合わせは準備しない）
+     */
+    private Map<String, Runnable> routedReads() {
+        List<String> memberFields = List.copyOf(CircleMemberRepository.FIELD_PATHS.keySet());
+        List<String> roleFields = List.copyOf(RoleRepository.FIELD_PATHS.keySet());
+        List<Long> missingIds = List.of(-1L);
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("circleMember.findAll", circleMemberRepository::findAll);
+        queries.put("circleMember.findById", () -> circleMemberRepository.findById(-1L));
+        queries.put("circleMember.findByUsername", () -> circleMemberRepository.findByUsername(""));
+        queries.put("circleMember.findByEmail", () -> circleMemberRepository.findByEmail(""));
+        queries.put("circleMember.findActiveMembers", circleMemberRepository::findActiveMembers);
+        queries.put("circleMember.findByRoleIds", () -> circleMemberRepository.findByRoleIds(missingIds));
+        queries.put("circleMember.findAllFields", () -> circleMemberRepository.findAllFields(memberFields));
+        queries.put("circleMember.findActiveMembersFields", () -> circleMemberRepository.findActiveMembersFields(memberFields));
+        queries.put("circleMember.findByIdFields", () -> circleMemberRepository.findByIdFields(-1L, memberFields));
+        queries.put("circleMember.findByUsernameFields", () -> circleMemberRepository.findByUsernameFields("", memberFields));
+        queries.put("role.findAll", roleRepository::findAll);
+        queries.put("role.findById", () -> roleRepository.findById(-1L));
+        queries.put("role.findByName", () -> roleRepository.findByName(""));
+        queries.put("role.findByIds", () -> roleRepository.findByIds(missingIds));
+        queries.put("role.findAllFields", () -> roleRepository.findAllFields(roleFields));
+        queries.put("role.findByIdFields", () -> roleRepository.findByIdFields(-1L, roleFields));
+        queries.put("role.findByNameFields", () -> roleRepository.findByNameFields("", roleFields));
+        queries.put("permission.findAll", permissionRepository::findAll);
+        queries.put("permission.findByRoleIds", () -> permissionRepository.findByRoleIds(missingIds));
+        return queries;
+    }
+}
@@ -0,0 +1,36 @@
+package com.abservice.warmup;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * 起動時のウォームアップが完了するまでReadinessをDOWNにする
+ * すべてのクエリが失敗した場合もDOWNとし、確認のたびにウォームアップを再実行する
+ */
+@Readiness
+@ApplicationScoped
+public class WarmupReadinessCheck implements HealthCheck {
+
+    @Inject
+    StartupWarmup startupWarmup;
+
+    @Override
+    public HealthCheckResponse call() {
+        boolean completed = startupWarmup.isCompleted();
+        if (completed && startupWarmup.isAllFailed()) {
+            startupWarmup.retryIfAllFailed();
+        }
+        HealthCheckResponseBuilder builder = HealthCheckResponse.named("startup-warmup")
+                .status(completed && !startupWarmup.isAllFailed());
+        if (completed) {
+            builder.withData("durationMillis", startupWarmup.getDurationMillis())
+                    .withData("executions", startupWarmup.getExecutions())
+                    .withData("failures", startupWarmup.getFailures());
+        }
+        return builder.build();
+    }
+}
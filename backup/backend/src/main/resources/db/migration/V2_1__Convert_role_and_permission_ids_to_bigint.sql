@@ -0,0 +1,75 @@
+-- Role and permission ids as BIGINT
+-- Version: 1.0.0
+-- Description: Convert roles.id, permissions.id and the columns referencing them from UUID to BIGINT identity
+--              (the Role and Permission entities map these ids as Long, and circle_members references roles by it)
+
+-- New ids follow the UUID order, so the seed data keeps its order:
+-- ADMIN = 1, USER = 2, MODERATOR = 3, GUEST = 4
+ALTER TABLE roles ADD COLUMN new_id BIGINT;
+UPDATE roles r SET new_id = n.rn
+FROM (SELECT id, row_number() OVER (ORDER BY id) AS rn FROM roles) n
+WHERE r.id = n.id;
+
+ALTER TABLE permissions ADD COLUMN new_id BIGINT;
+UPDATE permissions p SET new_id = n.rn
+FROM (SELECT id, row_number() OVER (ORDER BY id) AS rn FROM permissions) n
+WHERE p.id = n.id;
+
+-- Referencing columns
+ALTER TABLE user_roles ADD COLUMN new_role_id BIGINT;
+UPDATE user_roles ur SET new_role_id = r.new_id FROM roles r WHERE ur.role_id = r.id;
+
+ALTER TABLE role_permissions ADD COLUMN new_role_id BIGINT;
+ALTER TABLE role_permissions ADD COLUMN new_permission_id BIGINT;
+UPDATE role_permissions rp SET new_role_id = r.new_id FROM roles r WHERE rp.role_id = r.id;
+UPDATE role_permissions rp SET new_permission_id = p.new_id FROM permissions p WHERE rp.permission_id = p.id;
+
+-- Drop the UUID keys (dependent indexes go with the columns)
+ALTER TABLE user_roles DROP CONSTRAINT user_roles_role_id_fkey;
+ALTER TABLE role_permissions DROP CONSTRAINT role_permissions_role_id_fkey;
+ALTER TABLE role_permissions DROP CONSTRAINT role_permissions_permission_id_fkey;
+ALTER TABLE user_roles DROP CONSTRAINT user_roles_pkey;
+ALTER TABLE role_permissions DROP CONSTRAINT role_permissions_pkey;
+ALTER TABLE roles DROP CONSTRAINT roles_pkey;
+ALTER TABLE permissions DROP CONSTRAINT permissions_pkey;
+
+ALTER TABLE user_roles DROP COLUMN role_id;
+ALTER TABLE user_roles RENAME COLUMN new_role_id TO role_id;
+ALTER TABLE user_roles ALTER COLUMN role_id SET NOT NULL;
+
+ALTER TABLE role_permissions DROP COLUMN role_id;
+ALTER TABLE role_permissions DROP COLUMN permission_id;
+ALTER TABLE role_permissions RENAME COLUMN new_role_id TO role_id;
+ALTER TABLE role_permissions RENAME COLUMN new_permission_id TO permission_id;
+ALTER TABLE role_permissions ALTER COLUMN role_id SET NOT NULL;
+ALTER TABLE role_permissions ALTER COLUMN permission_id SET NOT NULL;
+
+ALTER TABLE roles DROP COLUMN id;
+ALTER TABLE roles RENAME COLUMN new_id TO id;
+ALTER TABLE roles ALTER COLUMN id SET NOT NULL;
+ALTER TABLE roles ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY;
+SELECT setval(pg_get_serial_sequence('roles', 'id'), COALESCE(MAX(id), 0) + 1, false) FROM roles;
+
+ALTER TABLE permissions DROP COLUMN id;
+ALTER TABLE permissions RENAME COLUMN new_id TO id;
+ALTER TABLE permissions ALTER COLUMN id SET NOT NULL;
+ALTER TABLE permissions ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY;
+SELECT setval(pg_get_serial_sequence('permissions', 'id'), COALESCE(MAX(id), 0) + 1, false) FROM permissions;
+
+-- Recreate the keys on the BIGINT columns
+ALTER TABLE roles ADD CONSTRAINT roles_pkey PRIMARY KEY (id);
+ALTER TABLE permissions ADD CONSTRAINT permissions_pkey PRIMARY KEY (id);
+
+ALTER TABLE user_roles ADD CONSTRAINT user_roles_pkey PRIMARY KEY (user_id, role_id);
+ALTER TABLE user_roles ADD CONSTRAINT user_roles_role_id_fkey
+    FOREIGN KEY (role_id) REFERENCES roles (id) ON DELETE CASCADE;
+
+ALTER TABLE role_permissions ADD CONSTRAINT role_permissions_pkey PRIMARY KEY (role_id, permission_id);
+ALTER TABLE role_permissions ADD CONSTRAINT role_permissions_role_id_fkey
+    FOREIGN KEY (role_id) REFERENCES roles (id) ON DELETE CASCADE;
+ALTER TABLE role_permissions ADD CONSTRAINT role_permissions_permission_id_fkey
+    FOREIGN KEY (permission_id) REFERENCES permissions (id) ON DELETE CASCADE;
+
+CREATE INDEX idx_user_roles_role_id ON user_roles (role_id);
+CREATE INDEX idx_role_permissions_role_id ON role_permissions (role_id);
+CREATE INDEX idx_role_permissions_permission_id ON role_permissions (permission_id);
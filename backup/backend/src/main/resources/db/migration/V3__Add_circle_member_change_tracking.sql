@@ -0,0 +1,84 @@
+-- Change tracking for circle members
+-- Version: 1.0.0
+-- Description: Add change sequence column, tombstone table and compaction watermark for delta sync
+
+-- Create circle_members table (mapped by the CircleMember entity)
+CREATE TABLE IF NOT EXISTS circle_members (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(100) NOT NULL UNIQUE,
+    display_name VARCHAR(100) NOT NULL,
+    email VARCHAR(255) UNIQUE,
+    bio VARCHAR(500),
+    avatar_url VARCHAR(255),
+    is_active BOOLEAN NOT NULL DEFAULT true,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    role_id BIGINT NOT NULL REFERENCES roles(id)
+);
+
+-- Change sequence: the id of the transaction that last touched the row.
+-- Transaction ids are monotonic, and pg_snapshot_xmin() gives a cursor below which
+-- every transaction is already committed, so no concurrently committing write is skipped.
+ALTER TABLE circle_members
+    ADD COLUMN change_seq BIGINT NOT NULL DEFAULT (pg_current_xact_id()::text::bigint);
+
+CREATE INDEX idx_circle_members_change_seq ON circle_members(change_seq);
+
+-- Tombstones for hard-deleted members
+CREATE TABLE circle_member_tombstones (
+    member_id BIGINT PRIMARY KEY,
+    change_seq BIGINT NOT NULL,
+    deleted_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_circle_member_tombstones_change_seq ON circle_member_tombstones(change_seq);
+CREATE INDEX idx_circle_member_tombstones_deleted_at ON circle_member_tombstones(deleted_at);
+
+-- Highest change sequence removed by tombstone compaction.
+-- Clients holding an older cursor must do a full resync.
+CREATE TABLE sync_watermarks (
+    name VARCHAR(100) PRIMARY KEY,
+    compacted_through BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO sync_watermarks (name, compacted_through) VALUES ('circle_members', 0)
+ON CONFLICT (name) DO NOTHING;
+
+-- Stamp change_seq on every insert/update
+CREATE OR REPLACE FUNCTION stamp_circle_member_change_seq()
+RETURNS TRIGGER AS $$
+BEGIN
+    NEW.change_seq = pg_current_xact_id()::text::bigint;
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER stamp_circle_members_change_seq BEFORE INSERT OR UPDATE ON circle_members
+    FOR EACH ROW EXECUTE FUNCTION stamp_circle_member_change_seq();
+
+-- Record a tombstone on delete
+CREATE OR REPLACE FUNCTION record_circle_member_tombstone()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO circle_member_tombstones (member_id, change_seq, deleted_at)
+    VALUES (OLD.id, pg_current_xact_id()::text::bigint, CURRENT_TIMESTAMP)
+    ON CONFLICT (member_id) DO UPDATE
+        SET change_seq = EXCLUDED.change_seq, deleted_at = EXCLUDED.deleted_at;
+    RETURN OLD;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER record_circle_members_tombstone AFTER DELETE ON circle_members
+    FOR EACH ROW EXECUTE FUNCTION record_circle_member_tombstone();
+
+-- Role name/description are part of the member view, so a role change marks its members as changed
+CREATE OR REPLACE FUNCTION touch_circle_members_of_role()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE circle_members SET change_seq = pg_current_xact_id()::text::bigint WHERE role_id = NEW.id;
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER touch_circle_members_on_role_update AFTER UPDATE OF name, description ON roles
+    FOR EACH ROW EXECUTE FUNCTION touch_circle_members_of_role();
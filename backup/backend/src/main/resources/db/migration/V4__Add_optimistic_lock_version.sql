@@ -0,0 +1,9 @@
+-- Optimistic locking
+-- Version: 1.0.0
+-- Description: Add version columns checked in the WHERE clause of updates and deletes (If-Match / ETag)
+
+ALTER TABLE roles
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE circle_members
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
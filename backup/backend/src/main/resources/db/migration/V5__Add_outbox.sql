@@ -0,0 +1,15 @@
+-- Transactional outbox
+-- Version: 1.0.0
+-- Description: Domain events written in the same transaction as member/role mutations and drained by the relay
+
+CREATE TABLE outbox (
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload JSONB NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Rows are deleted once delivered, so the table only holds the pending backlog.
+-- The relay reads it in id order with FOR UPDATE SKIP LOCKED, which the primary key index serves.
@@ -0,0 +1,18 @@
+-- Idempotency keys
+-- Version: 1.0.0
+-- Description: Stored responses for requests sent with an Idempotency-Key header
+
+-- key_hash:    SHA-256 of (subject, method, path, Idempotency-Key)
+-- fingerprint: SHA-256 of the request (method, path, body); a reused key with a different request is rejected
+-- status_code is NULL while the first request is still in flight
+CREATE TABLE idempotency_keys (
+    key_hash BYTEA PRIMARY KEY,
+    fingerprint BYTEA NOT NULL,
+    status_code SMALLINT,
+    content_type VARCHAR(100),
+    etag VARCHAR(100),
+    response_body BYTEA,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
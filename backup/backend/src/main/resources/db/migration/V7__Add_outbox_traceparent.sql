@@ -0,0 +1,5 @@
+-- Trace context for outbox events
+-- Version: 1.0.0
+-- Description: W3C traceparent of the request that wrote the event, so the relay and downstream consumers can join its trace
+
+ALTER TABLE outbox ADD COLUMN traceparent VARCHAR(55);
@@ -0,0 +1,139 @@
+-- Tenant (circle) dimension
+-- Version: 1.0.0
+-- Description: Add tenant_id to roles, circle members, tombstones and audit logs; hash-partition members and audit logs by tenant
+
+-- Existing rows belong to the default tenant (Tenants.DEFAULT)
+
+-- Roles: small and referenced by user_roles / role_permissions, so not partitioned.
+-- (tenant_id, id) is unique so that members can reference a role of their own tenant only.
+ALTER TABLE roles
+    ADD COLUMN tenant_id VARCHAR(63) NOT NULL DEFAULT 'default';
+
+ALTER TABLE roles DROP CONSTRAINT roles_name_key;
+DROP INDEX IF EXISTS idx_roles_name;
+ALTER TABLE roles ADD CONSTRAINT uk_roles_tenant_name UNIQUE (tenant_id, name);
+ALTER TABLE roles ADD CONSTRAINT uk_roles_tenant_id UNIQUE (tenant_id, id);
+
+-- Circle members: rebuilt as a hash-partitioned table.
+-- Identity columns are not allowed on partitioned tables (PostgreSQL 15), so ids come from a shared sequence
+-- and stay unique across tenants (tombstones and the change feed are keyed by member id).
+ALTER TABLE circle_members RENAME TO circle_members_unpartitioned;
+
+CREATE SEQUENCE circle_member_ids AS BIGINT;
+
+CREATE TABLE circle_members (
+    tenant_id VARCHAR(63) NOT NULL DEFAULT 'default',
+    id BIGINT NOT NULL DEFAULT nextval('circle_member_ids'),
+    username VARCHAR(100) NOT NULL,
+    display_name VARCHAR(100) NOT NULL,
+    email VARCHAR(255),
+    bio VARCHAR(500),
+    avatar_url VARCHAR(255),
+    is_active BOOLEAN NOT NULL DEFAULT true,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    role_id BIGINT NOT NULL,
+    change_seq BIGINT NOT NULL DEFAULT (pg_current_xact_id()::text::bigint),
+    version BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT pk_circle_members PRIMARY KEY (tenant_id, id),
+    CONSTRAINT uk_circle_members_tenant_username UNIQUE (tenant_id, username),
+    CONSTRAINT uk_circle_members_tenant_email UNIQUE (tenant_id, email),
+    CONSTRAINT fk_circle_members_role FOREIGN KEY (tenant_id, role_id) REFERENCES roles (tenant_id, id)
+) PARTITION BY HASH (tenant_id);
+
+ALTER SEQUENCE circle_member_ids OWNED BY circle_members.id;
+
+DO $$
+BEGIN
+    FOR i IN 0..7 LOOP
+        EXECUTE format('CREATE TABLE circle_members_p%s PARTITION OF circle_members'
+                       ' FOR VALUES WITH (MODULUS 8, REMAINDER %s)', i, i);
+    END LOOP;
+END
+$$;
+
+-- Copy before the triggers exist so that change_seq is preserved
+INSERT INTO circle_members (tenant_id, id, username, display_name, email, bio, avatar_url, is_active,
+                            created_at, updated_at, role_id, change_seq, version)
+SELECT 'default', id, username, display_name, email, bio, avatar_url, is_active,
+       created_at, updated_at, role_id, change_seq, version
+FROM circle_members_unpartitioned;
+
+SELECT setval('circle_member_ids', COALESCE(MAX(id), 0) + 1, false) FROM circle_members;
+
+DROP TABLE circle_members_unpartitioned;
+
+CREATE INDEX idx_circle_members_change_seq ON circle_members (tenant_id, change_seq);
+CREATE INDEX idx_circle_members_role_id ON circle_members (tenant_id, role_id);
+
+-- Tombstones: member ids are unique across tenants, so the key stays member_id
+ALTER TABLE circle_member_tombstones
+    ADD COLUMN tenant_id VARCHAR(63) NOT NULL DEFAULT 'default';
+
+DROP INDEX idx_circle_member_tombstones_change_seq;
+CREATE INDEX idx_circle_member_tombstones_change_seq ON circle_member_tombstones (tenant_id, change_seq);
+
+CREATE OR REPLACE FUNCTION record_circle_member_tombstone()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO circle_member_tombstones (member_id, tenant_id, change_seq, deleted_at)
+    VALUES (OLD.id, OLD.tenant_id, pg_current_xact_id()::text::bigint, CURRENT_TIMESTAMP)
+    ON CONFLICT (member_id) DO UPDATE
+        SET change_seq = EXCLUDED.change_seq, deleted_at = EXCLUDED.deleted_at;
+    RETURN OLD;
+END;
+$$ language 'plpgsql';
+
+-- Restricting on tenant_id lets the update prune to the role's partition
+CREATE OR REPLACE FUNCTION touch_circle_members_of_role()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE circle_members SET change_seq = pg_current_xact_id()::text::bigint
+    WHERE tenant_id = NEW.tenant_id AND role_id = NEW.id;
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER stamp_circle_members_change_seq BEFORE INSERT OR UPDATE ON circle_members
+    FOR EACH ROW EXECUTE FUNCTION stamp_circle_member_change_seq();
+
+CREATE TRIGGER record_circle_members_tombstone AFTER DELETE ON circle_members
+    FOR EACH ROW EXECUTE FUNCTION record_circle_member_tombstone();
+
+-- Audit logs: append-only, hash-partitioned by tenant
+ALTER TABLE audit_logs RENAME TO audit_logs_unpartitioned;
+
+CREATE TABLE audit_logs (
+    tenant_id VARCHAR(63) NOT NULL DEFAULT 'default',
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    user_id UUID REFERENCES users(id),
+    action VARCHAR(100) NOT NULL,
+    resource_type VARCHAR(100) NOT NULL,
+    resource_id VARCHAR(255),
+    details JSONB,
+    ip_address INET,
+    user_agent TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_audit_logs PRIMARY KEY (tenant_id, id)
+) PARTITION BY HASH (tenant_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..7 LOOP
+        EXECUTE format('CREATE TABLE audit_logs_p%s PARTITION OF audit_logs'
+                       ' FOR VALUES WITH (MODULUS 8, REMAINDER %s)', i, i);
+    END LOOP;
+END
+$$;
+
+INSERT INTO audit_logs (tenant_id, id, user_id, action, resource_type, resource_id, details, ip_address,
+                        user_agent, created_at)
+SELECT 'default', id, user_id, action, resource_type, resource_id, details, ip_address, user_agent, created_at
+FROM audit_logs_unpartitioned;
+
+DROP TABLE audit_logs_unpartitioned;
+
+CREATE INDEX idx_audit_logs_user_id ON audit_logs (tenant_id, user_id);
+CREATE INDEX idx_audit_logs_action ON audit_logs (tenant_id, action);
+CREATE INDEX idx_audit_logs_resource_type ON audit_logs (tenant_id, resource_type);
+CREATE INDEX idx_audit_logs_created_at ON audit_logs (tenant_id, created_at);
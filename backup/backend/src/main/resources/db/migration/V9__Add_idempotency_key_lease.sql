@@ -0,0 +1,9 @@
+-- Idempotency key lease
+-- Version: 1.0.0
+-- Description: Short lease on in-flight idempotency keys, so a key claimed by a node that died is taken over after the lease
+--              instead of blocking retries until expires_at
+
+-- locked_until: end of the claiming request's lease while status_code is NULL (NULL once the response is stored).
+-- It also identifies the claim, so a request whose lease was taken over cannot store or release the new owner's row.
+-- key_hash now also covers the tenant: SHA-256 of (tenant, subject, method, path, Idempotency-Key)
+ALTER TABLE idempotency_keys ADD COLUMN locked_until TIMESTAMP WITH TIME ZONE;
@@ -0,0 +1,86 @@
+package com.abservice.bulkhead;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compartmentの単体テスト
+ * 同時実行数・待ち行列・待ち時間の上限を検証する
+ */
+class CompartmentTest {
+
+    private static final long LONG_WAIT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void testRejectsBeyondMaxConcurrentWithoutQueue() throws Exception {
+        Compartment compartment = new Compartment("test", 2, 0, LONG_WAIT_NANOS);
+
+        assertTrue(compartment.enter());
+        assertTrue(compartment.enter());
+        assertFalse(compartment.enter());
+        assertEquals(2, compartment.active());
+
+        compartment.exit();
+        assertTrue(compartment.tryEnter());
+        assertEquals(2, compartment.active());
+    }
+
+    @Test
+    void testQueuedCallerRunsWhenSlotIsReleased() throws Exception {
+        Compartment compartment = new Compartment("test", 1, 1, LONG_WAIT_NANOS);
+        assertTrue(compartment.enter());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            Future<Boolean> queued = executor.submit(() -> {
+                started.countDown();
+                return compartment.enter();
+            });
+            started.await(5, TimeUnit.SECONDS);
+            waitUntilWaiting(compartment, 1);
+
+            // 待ち行列が埋まっているため、後続は待たずに拒否される
+            assertFalse(compartment.enter());
+
+            compartment.exit();
+            assertTrue(queued.get(5, TimeUnit.SECONDS));
+            assertEquals(0, compartment.waiting());
+            assertEquals(1, compartment.active());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGivesUpAfterMaxWait() throws Exception {
+        Compartment compartment = new Compartment("test", 1, 4, TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(compartment.enter());
+
+        assertFalse(compartment.enter());
+        assertEquals(0, compartment.waiting());
+    }
+
+    @Test
+    void testRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new Compartment("test", 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Compartment("test", 1, -1, 0));
+    }
+
+    private static void waitUntilWaiting(Compartment compartment, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + LONG_WAIT_NANOS;
+        while (compartment.waiting() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, compartment.waiting());
+    }
+}
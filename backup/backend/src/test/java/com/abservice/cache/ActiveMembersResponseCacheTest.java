@@ -0,0 +1,61 @@
+package com.abservice.cache;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ActiveMembersResponseCacheの統合テスト
+ * テストプロファイルでは変更フィードが無効のため、ノード内の変更イベントだけで再構築されることを検証する
+ */
+@QuarkusTest
+class ActiveMembersResponseCacheTest {
+
+    private static final String ACTIVE_PATH = "/api/v1/circle-members/active";
+
+    private static final long REBUILD_TIMEOUT_MILLIS = 5000;
+
+    @Test
+    void testLocalWriteRebuildsCachedResponse() throws InterruptedException {
+        String username = "active-" + Long.toString(System.nanoTime(), 36);
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("username", username, "displayName", "Active Cache Test", "roleId", 2))
+                .when()
+                .post("/api/v1/circle-members")
+                .then()
+                .statusCode(201);
+
+        long deadline = System.currentTimeMillis() + REBUILD_TIMEOUT_MILLIS;
+        List<String> usernames;
+        do {
+            Thread.sleep(50);
+            usernames = given().when().get(ACTIVE_PATH).then().statusCode(200).extract().path("username");
+        } while (!usernames.contains(username) && System.currentTimeMillis() < deadline);
+
+        assertTrue(usernames.contains(username), "作成したメンバーがキャッシュ済みの応答に反映されていません");
+    }
+
+    @Test
+    void testNotModifiedKeepsETag() {
+        Response first = given().header("Accept-Encoding", "gzip").when().get(ACTIVE_PATH);
+        String etag = first.getHeader("ETag");
+
+        given()
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", etag)
+                .when()
+                .get(ACTIVE_PATH)
+                .then()
+                .statusCode(304)
+                .header("ETag", equalTo(etag));
+    }
+}
@@ -0,0 +1,206 @@
+package com.abservice.cache;
+
+import com.abservice.profiling.CacheLookupEvent;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * CoalescingCacheの単体テスト
+ * 時刻を固定したクロックと手動実行のエグゼキューターで待ち合わせ・期限切れ・破棄の挙動を検証する
+ */
+class CoalescingCacheTest {
+
+    private AtomicLong clock;
+    private List<Runnable> backgroundTasks;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(1_700_000_000_000L);
+        backgroundTasks = new ArrayList<>();
+    }
+
+    private CoalescingCache<String, String> newCache(long softTtl, long hardTtl) {
+        return new CoalescingCache<>("test", softTtl, hardTtl, 0, 100, clock::get, backgroundTasks::add);
+    }
+
+    private void runBackgroundTasks() {
+        List<Runnable> tasks = new ArrayList<>(backgroundTasks);
+        backgroundTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        CoalescingCache<String, String> cache = newCache(1_000, 10_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get("active", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return "members";
+            }, () -> "unused")));
+            loading.await(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> cache.get("active", () -> {
+                    loads.incrementAndGet();
+                    return "duplicate";
+                }, () -> "unused")));
+            }
+            // 後続の呼び出しが待ち合わせに入るまで待ってから解放する
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("members", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testServesStaleValueWhileRefreshingOnce() throws Exception {
+        CoalescingCache<String, String> cache = newCache(1_000, 10_000);
+        AtomicInteger refreshes = new AtomicInteger();
+        assertEquals("v1", cache.get("k", () -> "v1", () -> "unused"));
+
+        clock.addAndGet(2_000);
+        assertEquals("v1", cache.get("k", () -> "unused", () -> "v" + (1 + refreshes.incrementAndGet())));
+        assertEquals("v1", cache.get("k", () -> "unused", () -> "v" + (1 + refreshes.incrementAndGet())));
+        assertEquals(1, backgroundTasks.size());
+
+        runBackgroundTasks();
+        assertEquals(1, refreshes.get());
+        assertEquals("v2", cache.get("k", () -> "unused", () -> "unused"));
+    }
+
+    @Test
+    void testHardExpiredValueIsReloaded() throws Exception {
+        CoalescingCache<String, String> cache = newCache(1_000, 5_000);
+        cache.get("k", () -> "v1", () -> "unused");
+
+        clock.addAndGet(5_000);
+        assertEquals("v2", cache.get("k", () -> "v2", () -> "unused"));
+        assertEquals(0, backgroundTasks.size());
+    }
+
+    @Test
+    void testLoadStartedBeforeInvalidationIsNotStored() throws Exception {
+        CoalescingCache<String, String> cache = newCache(1_000, 10_000);
+        assertEquals("old", cache.get("k", () -> {
+            cache.invalidateAll();
+            return "old";
+        }, () -> "unused"));
+        assertEquals(0, cache.size());
+        assertEquals("new", cache.get("k", () -> "new", () -> "unused"));
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() throws Exception {
+        CoalescingCache<String, String> cache = newCache(1_000, 10_000);
+        assertThrows(IllegalStateException.class, () -> cache.get("k", () -> {
+            throw new IllegalStateException("db down");
+        }, () -> "unused"));
+        assertEquals("v1", cache.get("k", () -> "v1", () -> "unused"));
+    }
+
+    @Test
+    void testFullCacheEvictsExpiredThenLeastRecentlyUsed() throws Exception {
+        CoalescingCache<String, String> cache =
+                new CoalescingCache<>("test", 1_000, 5_000, 0, 2, clock::get, backgroundTasks::add);
+        cache.get("a", () -> "a1", () -> "unused");
+        clock.addAndGet(5_000);
+        cache.get("b", () -> "b1", () -> "unused");
+
+        // 期限切れのaを破棄してcを保存する
+        cache.get("c", () -> "c1", () -> "unused");
+        assertEquals(2, cache.size());
+        assertEquals("c1", cache.get("c", () -> "unused", () -> "unused"));
+
+        // 期限切れがない場合は最も長く参照されていないbを破棄してdを保存する
+        clock.addAndGet(10);
+        cache.get("c", () -> "unused", () -> "unused");
+        cache.get("d", () -> "d1", () -> "unused");
+        assertEquals(2, cache.size());
+        assertEquals("c1", cache.get("c", () -> "unused", () -> "unused"));
+        assertEquals("d1", cache.get("d", () -> "unused", () -> "unused"));
+        assertEquals("b2", cache.get("b", () -> "b2", () -> "unused"));
+    }
+
+    @Test
+    void testNegativeResultsUseShortTtl() throws Exception {
+        CoalescingCache<String, Optional<String>> cache =
+                new CoalescingCache<>("test", 1_000, 10_000, 200, 100, clock::get, backgroundTasks::add);
+        assertEquals(Optional.empty(), cache.get("missing", Optional::empty, () -> Optional.of("unused")));
+        assertEquals(Optional.empty(), cache.get("missing", () -> Optional.of("unused"), () -> Optional.of("unused")));
+
+        // 該当なしの結果は短いTTLで期限切れになり、バックグラウンド更新を経ずに再取得する
+        clock.addAndGet(200);
+        assertEquals(Optional.of("created"),
+                cache.get("missing", () -> Optional.of("created"), () -> Optional.of("unused")));
+        assertEquals(0, backgroundTasks.size());
+    }
+
+    @Test
+    void testNegativeResultsAreNotCachedWithZeroTtl() throws Exception {
+        CoalescingCache<String, String> cache = newCache(1_000, 10_000);
+        assertEquals(null, cache.get("missing", () -> null, () -> "unused"));
+        assertEquals(0, cache.size());
+        assertEquals("created", cache.get("missing", () -> "created", () -> "unused"));
+    }
+
+    @Test
+    void testRejectsInvalidTtl() {
+        assertThrows(IllegalArgumentException.class, () -> newCache(5_000, 1_000));
+    }
+
+    @Test
+    void testLookupsAreRecordedAsJfrEvents() throws Exception {
+        CoalescingCache<String, String> cache = newCache(1_000, 10_000);
+        Path file = Files.createTempFile("coalescing-cache-", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(CacheLookupEvent.NAME).withoutThreshold();
+            recording.start();
+            cache.get("active", () -> "members", () -> "unused");
+            cache.get("active", () -> "unused", () -> "unused");
+            clock.addAndGet(1_500);
+            cache.get("active", () -> "unused", () -> "refreshed");
+            recording.stop();
+            recording.dump(file);
+
+            List<String> outcomes = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> "test".equals(event.getString("cache")))
+                    .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+                    .map(event -> event.getString("outcome"))
+                    .toList();
+            assertEquals(List.of(CacheLookupEvent.MISS, CacheLookupEvent.HIT, CacheLookupEvent.STALE), outcomes);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
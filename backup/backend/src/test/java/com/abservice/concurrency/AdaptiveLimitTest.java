@@ -0,0 +1,113 @@
+package com.abservice.concurrency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AdaptiveLimitの単体テスト
+ * 時刻を固定したクロックで、優先度ごとの確保と応答時間による上限の増減を検証する
+ */
+class AdaptiveLimitTest {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int SAMPLES_PER_WINDOW = 10;
+
+    private AtomicLong clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(1_000_000_000L);
+    }
+
+    private AdaptiveLimit newLimit(int initialLimit) {
+        return new AdaptiveLimit(initialLimit, 2, 100, 1.0, 1.5, WINDOW_NANOS, SAMPLES_PER_WINDOW, 10, clock::get);
+    }
+
+    /**
+     * 上限まで実行中の状態で、指定した応答時間のリクエストを1期間分完了させる
+     */
+    private void completeWindow(AdaptiveLimit limit, long rttMillis) {
+        int inFlight = limit.limit();
+        clock.addAndGet(WINDOW_NANOS);
+        for (int i = 0; i < SAMPLES_PER_WINDOW; i++) {
+            limit.tryAcquire(1.0);
+            limit.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), inFlight, true);
+        }
+    }
+
+    @Test
+    void testLowPriorityIsShedBeforeCritical() {
+        AdaptiveLimit limit = newLimit(10);
+
+        for (int i = 1; i <= 7; i++) {
+            assertEquals(i, limit.tryAcquire(0.7));
+        }
+        assertEquals(-1, limit.tryAcquire(0.7));
+        assertEquals(8, limit.tryAcquire(0.9));
+        assertEquals(9, limit.tryAcquire(0.9));
+        assertEquals(-1, limit.tryAcquire(0.9));
+        assertEquals(10, limit.tryAcquire(1.0));
+        assertEquals(-1, limit.tryAcquire(1.0));
+
+        limit.release(0, 10, false);
+        assertEquals(-1, limit.tryAcquire(0.7));
+        assertEquals(10, limit.tryAcquire(1.0));
+    }
+
+    @Test
+    void testLimitGrowsWhileLatencyIsStable() {
+        AdaptiveLimit limit = newLimit(10);
+
+        for (int i = 0; i < 5; i++) {
+            completeWindow(limit, 20);
+        }
+
+        assertTrue(limit.limit() > 10, "応答時間が変わらない間は上限を上げる: " + limit.limit());
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyRises() {
+        AdaptiveLimit limit = newLimit(40);
+        for (int i = 0; i < 3; i++) {
+            completeWindow(limit, 20);
+        }
+        int before = limit.limit();
+
+        for (int i = 0; i < 3; i++) {
+            completeWindow(limit, 200);
+        }
+
+        assertTrue(limit.limit() < before, "キューイングで応答時間が伸びたら上限を下げる: " + before + " -> " + limit.limit());
+        assertTrue(limit.limit() >= 2);
+    }
+
+    @Test
+    void testLimitIsKeptWhileUnderused() {
+        AdaptiveLimit limit = newLimit(20);
+
+        for (int i = 0; i < 5; i++) {
+            clock.addAndGet(WINDOW_NANOS);
+            for (int j = 0; j < SAMPLES_PER_WINDOW; j++) {
+                limit.tryAcquire(1.0);
+                limit.release(TimeUnit.MILLISECONDS.toNanos(i == 0 ? 20 : 500), 3, true);
+            }
+        }
+
+        assertEquals(20, limit.limit());
+    }
+
+    @Test
+    void testRejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveLimit(1, 2, 100, 0.2, 1.5, WINDOW_NANOS, 1, 10, clock::get));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveLimit(10, 2, 100, 0, 1.5, WINDOW_NANOS, 1, 10, clock::get));
+    }
+}
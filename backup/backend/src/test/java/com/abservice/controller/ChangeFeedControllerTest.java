@@ -0,0 +1,124 @@
+package com.abservice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * 変更フィード（GET /api/v1/events）の統合テスト
+ * 実際のデータベースのLISTEN/NOTIFYを経由して、コミットした変更がSSEの購読者に届くことを検証する
+ */
+@QuarkusTest
+@TestProfile(ChangeFeedControllerTest.ChangeFeedProfile.class)
+class ChangeFeedControllerTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * テスト用の設定では無効にしている変更フィードを有効にする
+     * 他のテストの通知を受け取らないよう、専用のチャネルを使う
+     */
+    public static class ChangeFeedProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "app.change-feed.enabled", "true",
+                    "app.change-feed.channel", "abservice_changes_test",
+                    "app.change-feed.poll-timeout-millis", "100");
+        }
+    }
+
+    @TestHTTPResource("/api/v1/events")
+    URI eventsUri;
+
+    @Test
+    void testCommittedChangeIsDeliveredToSubscriber() throws Exception {
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(eventsUri).header("Accept", "text/event-stream").build();
+        CompletableFuture<HttpResponse<Stream<String>>> response = client.sendAsync(request, HttpResponse.BodyHandlers.ofLines());
+        CompletableFuture<Void> reader = response.thenAcceptAsync(r -> r.body().forEach(lines::add));
+        try {
+            // 購読やLISTENの開始前の変更は配信されないため、届くまで作成し直す
+            String suffix = Long.toString(System.nanoTime(), 36);
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            Map<String, String> event = null;
+            long id = 0;
+            for (int attempt = 0; event == null && System.currentTimeMillis() < deadline; attempt++) {
+                id = createMember("feed-" + suffix + "-" + attempt);
+                event = awaitEvent(lines, id, 1_000);
+            }
+
+            assertNotNull(event, "変更イベントが配信されません");
+            assertEquals(200, response.get(1, TimeUnit.SECONDS).statusCode());
+            assertEquals("circle-member", event.get("event"));
+            JsonNode data = OBJECT_MAPPER.readTree(event.get("data"));
+            assertEquals("CREATED", data.get("changeType").asText());
+            assertEquals("default", data.get("tenant").asText());
+        } finally {
+            response.cancel(true);
+            reader.cancel(true);
+        }
+    }
+
+    private static long createMember(String username) {
+        return given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("username", username, "displayName", "Change Feed Test", "roleId", 2))
+                .when()
+                .post("/api/v1/circle-members")
+                .then()
+                .statusCode(201)
+                .extract()
+                .<Number>path("id")
+                .longValue();
+    }
+
+    /**
+     * 指定したメンバーのイベントを待ち、フィールド名と値を返す（空行までを1件のイベントとする）
+     */
+    private static Map<String, String> awaitEvent(BlockingQueue<String> lines, long id, long timeoutMillis)
+            throws Exception {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        Map<String, String> event = new HashMap<>();
+        String line;
+        while ((line = lines.poll(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) != null) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                event.merge(line.substring(0, colon), line.substring(colon + 1).stripLeading(), (a, b) -> a + "\n" + b);
+                continue;
+            }
+            if (line.isEmpty() && event.containsKey("data")
+                    && OBJECT_MAPPER.readTree(event.get("data")).path("id").asLong() == id) {
+                return event;
+            }
+            if (line.isEmpty()) {
+                event.clear();
+            }
+        }
+        return null;
+    }
+}
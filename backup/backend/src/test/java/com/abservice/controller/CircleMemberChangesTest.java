@@ -0,0 +1,89 @@
+package com.abservice.controller;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * 差分同期エンドポイント（GET /api/v1/circle-members/changes）の統合テスト
+ * 実際のデータベース（マイグレーション適用済みのスキーマ）に対して、RoleIDを持つメンバーの作成・削除が差分に現れることを検証する
+ */
+@QuarkusTest
+class CircleMemberChangesTest {
+
+    private static final String MEMBERS_PATH = "/api/v1/circle-members";
+
+    /**
+     * V2_1で採番し直したUSERロールのID
+     */
+    private static final long USER_ROLE_ID = 2;
+
+    @Test
+    void testCreatedAndDeletedMembersAppearInChanges() {
+        long cursor = currentCursor();
+        String username = "changes-" + Long.toString(System.nanoTime(), 36);
+
+        Number id = given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("username", username, "displayName", "Changes Test", "roleId", USER_ROLE_ID))
+                .when()
+                .post(MEMBERS_PATH)
+                .then()
+                .statusCode(201)
+                .body("roleName", equalTo("USER"))
+                .extract().path("id");
+
+        given()
+                .queryParam("since", cursor)
+                .when()
+                .get(MEMBERS_PATH + "/changes")
+                .then()
+                .statusCode(200)
+                .body("fullResync", equalTo(false))
+                .body("changed.username", hasItem(username))
+                .body("deletedIds", not(hasItem(id)));
+
+        long afterCreate = currentCursor();
+        given()
+                .header("If-Match", "*")
+                .when()
+                .delete(MEMBERS_PATH + "/" + id)
+                .then()
+                .statusCode(204);
+
+        given()
+                .queryParam("since", afterCreate)
+                .when()
+                .get(MEMBERS_PATH + "/changes")
+                .then()
+                .statusCode(200)
+                .body("changed.username", not(hasItem(username)))
+                .body("deletedIds", hasItem(id));
+    }
+
+    @Test
+    void testMissingCursorRequestsFullResync() {
+        given()
+                .when()
+                .get(MEMBERS_PATH + "/changes")
+                .then()
+                .statusCode(200)
+                .body("fullResync", equalTo(true))
+                .body("changed", notNullValue());
+    }
+
+    private static long currentCursor() {
+        Number cursor = given()
+                .when()
+                .get(MEMBERS_PATH + "/changes")
+                .then()
+                .statusCode(200)
+                .extract().path("cursor");
+        return cursor.longValue();
+    }
+}
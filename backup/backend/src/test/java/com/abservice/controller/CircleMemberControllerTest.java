@@ -1,22 +1,39 @@
 package com.abservice.controller;
 
+import com.abservice.dto.CircleMemberChangesDto;
 import com.abservice.dto.CircleMemberDto;
 import com.abservice.dto.CreateCircleMemberDto;
 import com.abservice.dto.UpdateCircleMemberDto;
+import com.abservice.exception.ConflictException;
+import com.abservice.exception.NotFoundException;
+import com.abservice.exception.PreconditionFailedException;
+import com.abservice.repository.CircleMemberRepository;
 import com.abservice.service.CircleMemberServiceInterface;
+import com.abservice.service.MergePatch;
+import com.abservice.service.SparseFieldset;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
 import io.restassured.http.ContentType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.enterprise.inject.Produces;
+import jakarta.enterprise.inject.Alternative;
+import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
+import jakarta.validation.Validator;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
@@ -26,19 +43,46 @@ import static org.hamcrest.Matchers.*;
  * テスト用のサービス実装を使用してエンドツーエンドテストを実行
  */
 @QuarkusTest
+@TestProfile(CircleMemberControllerTest.TestServiceProfile.class)
 class CircleMemberControllerTest {
 
+    /**
+     * テスト用のサービス実装を有効にする（他のテストでは実際のサービスを使用する）
+     */
+    public static class TestServiceProfile implements QuarkusTestProfile {
+        @Override
+        public Set<Class<?>> getEnabledAlternatives() {
+            return Set.of(TestCircleMemberService.class);
+        }
+    }
+
     /**
      * テスト用のCircleMemberService実装
      */
+    @Alternative
     @ApplicationScoped
     public static class TestCircleMemberService implements CircleMemberServiceInterface {
 
         private final List<CircleMemberDto> members = new ArrayList<>();
-        private final AtomicLong idGenerator = new AtomicLong(1);
+        private final AtomicLong idGenerator = new AtomicLong();
+
+        @Inject
+        ObjectMapper objectMapper;
+
+        @Inject
+        Validator validator;
 
         public TestCircleMemberService() {
-            // テスト用の初期データ
+            reset();
+        }
+
+        /**
+         * テスト用の初期データに戻す（テストの実行順に依存しないよう、各テストの前に呼ぶ）
+         */
+        void reset() {
+            members.clear();
+            idGenerator.set(3);
+
             CircleMemberDto member1 = new CircleMemberDto();
             member1.setId(1L);
             member1.setUsername("testuser1");
@@ -49,8 +93,10 @@ class CircleMemberControllerTest {
             member1.setIsActive(true);
             member1.setCreatedAt(LocalDateTime.now());
             member1.setUpdatedAt(LocalDateTime.now());
+            member1.setRoleId(1L);
             member1.setRoleName("ADMIN");
             member1.setRoleDescription("Administrator role");
+            member1.setVersion(0L);
             members.add(member1);
 
             CircleMemberDto member2 = new CircleMemberDto();
@@ -63,8 +109,10 @@ class CircleMemberControllerTest {
             member2.setIsActive(false);
             member2.setCreatedAt(LocalDateTime.now());
             member2.setUpdatedAt(LocalDateTime.now());
+            member2.setRoleId(2L);
             member2.setRoleName("USER");
             member2.setRoleDescription("User role");
+            member2.setVersion(0L);
             members.add(member2);
         }
 
@@ -94,17 +142,80 @@ class CircleMemberControllerTest {
                     .findFirst();
         }
 
+        @Override
+        public List<Map<String, Object>> findAll(SparseFieldset fields) {
+            List<String> resolved = fields.resolve(CircleMemberRepository.FIELD_PATHS.keySet());
+            return findAll().stream().map(member -> toFieldMap(member, resolved)).toList();
+        }
+
+        @Override
+        public List<Map<String, Object>> findActiveMembers(SparseFieldset fields) {
+            List<String> resolved = fields.resolve(CircleMemberRepository.FIELD_PATHS.keySet());
+            return findActiveMembers().stream().map(member -> toFieldMap(member, resolved)).toList();
+        }
+
+        @Override
+        public Optional<Map<String, Object>> findById(Long id, SparseFieldset fields) {
+            List<String> resolved = fields.resolve(CircleMemberRepository.FIELD_PATHS.keySet());
+            return findById(id).map(member -> toFieldMap(member, resolved));
+        }
+
+        @Override
+        public Optional<Map<String, Object>> findByUsername(String username, SparseFieldset fields) {
+            List<String> resolved = fields.resolve(CircleMemberRepository.FIELD_PATHS.keySet());
+            return findByUsername(username).map(member -> toFieldMap(member, resolved));
+        }
+
+        /**
+         * 射影クエリの結果と同じく、指定項目のみを項目名の並び順で持つMapに変換
+         */
+        private static Map<String, Object> toFieldMap(CircleMemberDto member, List<String> fields) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (String field : fields) {
+                values.put(field, switch (field) {
+                    case "id" -> member.getId();
+                    case "username" -> member.getUsername();
+                    case "displayName" -> member.getDisplayName();
+                    case "email" -> member.getEmail();
+                    case "bio" -> member.getBio();
+                    case "avatarUrl" -> member.getAvatarUrl();
+                    case "isActive" -> member.getIsActive();
+                    case "createdAt" -> member.getCreatedAt();
+                    case "updatedAt" -> member.getUpdatedAt();
+                    case "version" -> member.getVersion();
+                    case "roleId" -> member.getRoleId();
+                    case "roleName" -> member.getRoleName();
+                    case "roleDescription" -> member.getRoleDescription();
+                    default -> throw new IllegalArgumentException(field);
+                });
+            }
+            return values;
+        }
+
+        @Override
+        public Map<Long, List<CircleMemberDto>> findByRoleIds(Collection<Long> roleIds) {
+            return members.stream()
+                    .filter(member -> member.getRoleId() != null && roleIds.contains(member.getRoleId()))
+                    .collect(Collectors.groupingBy(CircleMemberDto::getRoleId));
+        }
+
+        @Override
+        public CircleMemberChangesDto findChangesSince(Long since) {
+            // テスト用実装では変更履歴を持たないため常に全件を返す
+            return new CircleMemberChangesDto(new ArrayList<>(members), List.of(), 0L, true);
+        }
+
         @Override
         public CircleMemberDto create(CreateCircleMemberDto createDto) {
             // ユーザー名の重複チェック
             if (members.stream().anyMatch(member -> member.getUsername().equals(createDto.getUsername()))) {
-                throw new IllegalArgumentException("ユーザー名は既に使用されています: " + createDto.getUsername());
+                throw new ConflictException("ユーザー名は既に使用されています: " + createDto.getUsername());
             }
 
             // メールアドレスの重複チェック
             if (createDto.getEmail() != null &&
                 members.stream().anyMatch(member -> createDto.getEmail().equals(member.getEmail()))) {
-                throw new IllegalArgumentException("メールアドレスは既に使用されています: " + createDto.getEmail());
+                throw new ConflictException("メールアドレスは既に使用されています: " + createDto.getEmail());
             }
 
             CircleMemberDto newMember = new CircleMemberDto();
@@ -119,21 +230,22 @@ class CircleMemberControllerTest {
             newMember.setUpdatedAt(LocalDateTime.now());
             newMember.setRoleName("USER"); // デフォルトロール
             newMember.setRoleDescription("User role");
+            newMember.setVersion(0L);
 
             members.add(newMember);
             return newMember;
         }
 
         @Override
-        public CircleMemberDto update(Long id, UpdateCircleMemberDto updateDto) {
+        public CircleMemberDto update(Long id, UpdateCircleMemberDto updateDto, Long expectedVersion) {
             CircleMemberDto existingMember = findById(id)
-                    .orElseThrow(() -> new jakarta.ws.rs.NotFoundException("CircleMemberが見つかりません: " + id));
+                    .orElseThrow(() -> new NotFoundException("CircleMemberが見つかりません: " + id));
 
             // メールアドレスの重複チェック（自分以外）
             if (updateDto.getEmail() != null &&
                 members.stream().anyMatch(member ->
                     !member.getId().equals(id) && updateDto.getEmail().equals(member.getEmail()))) {
-                throw new IllegalArgumentException("メールアドレスは既に使用されています: " + updateDto.getEmail());
+                throw new ConflictException("メールアドレスは既に使用されています: " + updateDto.getEmail());
             }
 
             if (updateDto.getDisplayName() != null) {
@@ -157,29 +269,64 @@ class CircleMemberControllerTest {
         }
 
         @Override
-        public void delete(Long id) {
+        public CircleMemberDto patch(Long id, String mergePatch, Long expectedVersion) {
+            MergePatch<UpdateCircleMemberDto> patch = MergePatch.parse(objectMapper, validator, mergePatch,
+                    UpdateCircleMemberDto.class, Set.of("email", "bio", "avatarUrl"),
+                    Set.of("displayName", "isActive", "roleId"));
+            UpdateCircleMemberDto values = patch.values();
+
+            CircleMemberDto existingMember = findById(id)
+                    .orElseThrow(() -> new NotFoundException("CircleMemberが見つかりません: " + id));
+            if (expectedVersion != null && !expectedVersion.equals(existingMember.getVersion())) {
+                throw new PreconditionFailedException("CircleMemberは他の更新により変更されています: " + id,
+                        existingMember.getVersion());
+            }
+
+            // パッチに含まれる項目のみ変更する（nullは値の削除）
+            if (patch.has("displayName")) {
+                existingMember.setDisplayName(values.getDisplayName());
+            }
+            if (patch.has("email")) {
+                existingMember.setEmail(values.getEmail());
+            }
+            if (patch.has("bio")) {
+                existingMember.setBio(values.getBio());
+            }
+            if (patch.has("avatarUrl")) {
+                existingMember.setAvatarUrl(values.getAvatarUrl());
+            }
+            if (patch.has("isActive")) {
+                existingMember.setIsActive(values.getIsActive());
+            }
+            existingMember.setUpdatedAt(LocalDateTime.now());
+            existingMember.setVersion(existingMember.getVersion() + 1);
+
+            return existingMember;
+        }
+
+        @Override
+        public void delete(Long id, Long expectedVersion) {
             boolean removed = members.removeIf(member -> member.getId().equals(id));
             if (!removed) {
-                throw new jakarta.ws.rs.NotFoundException("CircleMemberが見つかりません: " + id);
+                throw new NotFoundException("CircleMemberが見つかりません: " + id);
             }
         }
     }
 
-    /**
-     * テスト用のサービス実装を注入
-     */
-    @Produces
-    @ApplicationScoped
-    public CircleMemberServiceInterface circleMemberService() {
-        return new TestCircleMemberService();
-    }
-
     private CircleMemberDto sampleMember;
     private CreateCircleMemberDto createDto;
     private UpdateCircleMemberDto updateDto;
 
+    /**
+     * テストクラスは他のテストでもBeanとして検証されるため、プロファイル外では解決できない代替実装はInstance経由で引く
+     */
+    @Inject
+    Instance<TestCircleMemberService> circleMemberService;
+
     @BeforeEach
     void setUp() {
+        circleMemberService.get().reset();
+
         // サンプルデータの準備
         sampleMember = new CircleMemberDto();
         sampleMember.setId(1L);
@@ -201,6 +348,7 @@ class CircleMemberControllerTest {
         createDto.setBio("New user bio");
         createDto.setAvatarUrl("https://example.com/new-avatar.jpg");
         createDto.setIsActive(true);
+        createDto.setRoleId(2L);
 
         updateDto = new UpdateCircleMemberDto();
         updateDto.setDisplayName("Updated User");
@@ -214,7 +362,7 @@ class CircleMemberControllerTest {
     void testGetAllCircleMembers() {
         given()
                 .when()
-                .get("/api/circle-members")
+                .get("/api/v1/circle-members")
                 .then()
                 .statusCode(200)
                 .contentType(ContentType.JSON)
@@ -227,7 +375,7 @@ class CircleMemberControllerTest {
     void testGetActiveCircleMembers() {
         given()
                 .when()
-                .get("/api/circle-members/active")
+                .get("/api/v1/circle-members/active")
                 .then()
                 .statusCode(200)
                 .contentType(ContentType.JSON)
@@ -239,7 +387,7 @@ class CircleMemberControllerTest {
     void testGetCircleMemberById() {
         given()
                 .when()
-                .get("/api/circle-members/1")
+                .get("/api/v1/circle-members/1")
                 .then()
                 .statusCode(200)
                 .contentType(ContentType.JSON)
@@ -252,18 +400,18 @@ class CircleMemberControllerTest {
     void testGetCircleMemberByIdNotFound() {
         given()
                 .when()
-                .get("/api/circle-members/999")
+                .get("/api/v1/circle-members/999")
                 .then()
                 .statusCode(404)
                 .contentType(ContentType.JSON)
-                .body("error", containsString("CircleMemberが見つかりません"));
+                .body("message", containsString("CircleMemberが見つかりません"));
     }
 
     @Test
     void testGetCircleMemberByUsername() {
         given()
                 .when()
-                .get("/api/circle-members/username/testuser1")
+                .get("/api/v1/circle-members/username/testuser1")
                 .then()
                 .statusCode(200)
                 .contentType(ContentType.JSON)
@@ -277,7 +425,7 @@ class CircleMemberControllerTest {
                 .contentType(ContentType.JSON)
                 .body(createDto)
                 .when()
-                .post("/api/circle-members")
+                .post("/api/v1/circle-members")
                 .then()
                 .statusCode(201)
                 .contentType(ContentType.JSON)
@@ -296,7 +444,7 @@ class CircleMemberControllerTest {
                 .contentType(ContentType.JSON)
                 .body(invalidDto)
                 .when()
-                .post("/api/circle-members")
+                .post("/api/v1/circle-members")
                 .then()
                 .statusCode(400);
     }
@@ -305,9 +453,10 @@ class CircleMemberControllerTest {
     void testUpdateCircleMember() {
         given()
                 .contentType(ContentType.JSON)
+                .header("If-Match", "*")
                 .body(updateDto)
                 .when()
-                .put("/api/circle-members/1")
+                .put("/api/v1/circle-members/1")
                 .then()
                 .statusCode(200)
                 .contentType(ContentType.JSON)
@@ -320,20 +469,22 @@ class CircleMemberControllerTest {
     void testUpdateCircleMemberNotFound() {
         given()
                 .contentType(ContentType.JSON)
+                .header("If-Match", "*")
                 .body(updateDto)
                 .when()
-                .put("/api/circle-members/999")
+                .put("/api/v1/circle-members/999")
                 .then()
                 .statusCode(404)
                 .contentType(ContentType.JSON)
-                .body("error", containsString("CircleMemberが見つかりません"));
+                .body("message", containsString("CircleMemberが見つかりません"));
     }
 
     @Test
     void testDeleteCircleMember() {
         given()
+                .header("If-Match", "*")
                 .when()
-                .delete("/api/circle-members/1")
+                .delete("/api/v1/circle-members/1")
                 .then()
                 .statusCode(204);
     }
@@ -341,11 +492,197 @@ class CircleMemberControllerTest {
     @Test
     void testDeleteCircleMemberNotFound() {
         given()
+                .header("If-Match", "*")
+                .when()
+                .delete("/api/v1/circle-members/999")
+                .then()
+                .statusCode(404)
+                .contentType(ContentType.JSON)
+                .body("message", containsString("CircleMemberが見つかりません"));
+    }
+
+    @Test
+    void testGetAllCircleMembersWithFields() {
+        given()
+                .queryParam("fields", "username,id")
+                .when()
+                .get("/api/v1/circle-members")
+                .then()
+                .statusCode(200)
+                .contentType(ContentType.JSON)
+                .body("size()", equalTo(2))
+                // 指定順によらず、項目は定義順で返る
+                .body("[0].keySet()", contains("id", "username"))
+                .body("username", contains("testuser1", "testuser2"));
+    }
+
+    @Test
+    void testGetAllCircleMembersWithUnknownFields() {
+        given()
+                .queryParam("fields", "id,password")
+                .when()
+                .get("/api/v1/circle-members")
+                .then()
+                .statusCode(400)
+                .contentType(ContentType.JSON)
+                .body("message", containsString("指定できない項目です: password"));
+    }
+
+    @Test
+    void testGetAllCircleMembersWithEmptyFields() {
+        given()
+                .queryParam("fields", " , ")
+                .when()
+                .get("/api/v1/circle-members")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testGetActiveCircleMembersWithFields() {
+        // 事前シリアライズ済みの応答を使わず、公開の参照用のスレッドプールで射影する
+        given()
+                .queryParam("fields", "isActive,id")
+                .when()
+                .get("/api/v1/circle-members/active")
+                .then()
+                .statusCode(200)
+                .contentType(ContentType.JSON)
+                .header("ETag", nullValue())
+                .body("size()", equalTo(1))
+                .body("[0].keySet()", contains("id", "isActive"))
+                .body("[0].id", equalTo(1))
+                .body("[0].isActive", equalTo(true));
+    }
+
+    @Test
+    void testGetActiveCircleMembersWithUnknownFields() {
+        given()
+                .queryParam("fields", "id,password")
+                .when()
+                .get("/api/v1/circle-members/active")
+                .then()
+                .statusCode(400)
+                .body("message", containsString("指定できない項目です: password"));
+    }
+
+    @Test
+    void testGetCircleMemberByIdWithFieldsIncludingVersion() {
+        given()
+                .queryParam("fields", "version,displayName")
+                .when()
+                .get("/api/v1/circle-members/1")
+                .then()
+                .statusCode(200)
+                .contentType(ContentType.JSON)
+                .header("ETag", equalTo("\"0\""))
+                .body("keySet()", contains("displayName", "version"))
+                .body("displayName", equalTo("Test User 1"));
+    }
+
+    @Test
+    void testGetCircleMemberByIdWithFieldsWithoutVersion() {
+        // versionを含まない応答にはETagを付けない
+        given()
+                .queryParam("fields", "displayName")
+                .when()
+                .get("/api/v1/circle-members/1")
+                .then()
+                .statusCode(200)
+                .header("ETag", nullValue())
+                .body("keySet()", contains("displayName"));
+    }
+
+    @Test
+    void testGetCircleMemberByIdWithFieldsNotFound() {
+        given()
+                .queryParam("fields", "id")
                 .when()
-                .delete("/api/circle-members/999")
+                .get("/api/v1/circle-members/999")
                 .then()
                 .statusCode(404)
+                .body("message", containsString("CircleMemberが見つかりません"));
+    }
+
+    @Test
+    void testGetCircleMemberByUsernameWithFields() {
+        given()
+                .queryParam("fields", "roleName,username,version")
+                .when()
+                .get("/api/v1/circle-members/username/testuser2")
+                .then()
+                .statusCode(200)
+                .header("ETag", equalTo("\"0\""))
+                .body("keySet()", contains("username", "version", "roleName"))
+                .body("roleName", equalTo("USER"));
+    }
+
+    @Test
+    void testPatchCircleMember() {
+        given()
+                .contentType("application/merge-patch+json")
+                .header("If-Match", "\"0\"")
+                .body("{\"displayName\":\"Patched User\",\"bio\":null}")
+                .when()
+                .patch("/api/v1/circle-members/1")
+                .then()
+                .statusCode(200)
                 .contentType(ContentType.JSON)
-                .body("error", containsString("CircleMemberが見つかりません"));
+                .header("ETag", equalTo("\"1\""))
+                .body("displayName", equalTo("Patched User"))
+                .body("bio", nullValue())
+                // パッチに含まれない項目は変更しない
+                .body("email", equalTo("test1@example.com"))
+                .body("isActive", equalTo(true));
+    }
+
+    @Test
+    void testPatchCircleMemberWithStaleVersion() {
+        given()
+                .contentType("application/merge-patch+json")
+                .header("If-Match", "\"5\"")
+                .body("{\"displayName\":\"Patched User\"}")
+                .when()
+                .patch("/api/v1/circle-members/1")
+                .then()
+                .statusCode(412)
+                .header("ETag", equalTo("\"0\""));
+    }
+
+    @Test
+    void testPatchCircleMemberWithoutIfMatch() {
+        given()
+                .contentType("application/merge-patch+json")
+                .body("{\"displayName\":\"Patched User\"}")
+                .when()
+                .patch("/api/v1/circle-members/1")
+                .then()
+                .statusCode(428);
+    }
+
+    @Test
+    void testPatchCircleMemberWithUnknownField() {
+        given()
+                .contentType("application/merge-patch+json")
+                .header("If-Match", "*")
+                .body("{\"username\":\"renamed\"}")
+                .when()
+                .patch("/api/v1/circle-members/1")
+                .then()
+                .statusCode(400)
+                .body("message", containsString("更新できない項目です: username"));
+    }
+
+    @Test
+    void testPatchCircleMemberNotFound() {
+        given()
+                .contentType("application/merge-patch+json")
+                .header("If-Match", "*")
+                .body("{\"displayName\":\"Patched User\"}")
+                .when()
+                .patch("/api/v1/circle-members/999")
+                .then()
+                .statusCode(404)
+                .body("message", containsString("CircleMemberが見つかりません"));
     }
 }
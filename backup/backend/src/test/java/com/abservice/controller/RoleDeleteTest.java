@@ -0,0 +1,86 @@
+package com.abservice.controller;
+
+import com.abservice.outbox.InMemoryOutboxSink;
+import com.abservice.outbox.OutboxMessage;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import jakarta.inject.Inject;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Role削除の統合テスト
+ * 一緒に削除される所属メンバーごとに削除イベントが発行されることを、テストプロファイルのアウトボックス配信先で検証する
+ */
+@QuarkusTest
+class RoleDeleteTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Inject
+    InMemoryOutboxSink outboxSink;
+
+    @Test
+    void testDeletingRolePublishesMemberDeletions() throws InterruptedException {
+        String suffix = Long.toString(System.nanoTime(), 36);
+        long roleId = given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", "role-" + suffix, "description", "Role Delete Test"))
+                .when()
+                .post("/api/v1/roles")
+                .then()
+                .statusCode(201)
+                .extract()
+                .<Number>path("id")
+                .longValue();
+        long first = createMember("role-member-a-" + suffix, roleId);
+        long second = createMember("role-member-b-" + suffix, roleId);
+
+        given()
+                .header("If-Match", "*")
+                .when()
+                .delete("/api/v1/roles/" + roleId)
+                .then()
+                .statusCode(204);
+
+        Set<Long> expected = Set.of(first, second);
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!deletedMemberIds().containsAll(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(expected, deletedMemberIds().stream().filter(expected::contains).collect(Collectors.toSet()));
+        assertTrue(deletedMessages("ROLE").stream().anyMatch(message -> message.aggregateId() == roleId));
+        given().when().get("/api/v1/circle-members/" + first).then().statusCode(404);
+    }
+
+    private static long createMember(String username, long roleId) {
+        return given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("username", username, "displayName", "Role Delete Test", "roleId", roleId))
+                .when()
+                .post("/api/v1/circle-members")
+                .then()
+                .statusCode(201)
+                .extract()
+                .<Number>path("id")
+                .longValue();
+    }
+
+    private Set<Long> deletedMemberIds() {
+        return deletedMessages("CIRCLE_MEMBER").stream().map(OutboxMessage::aggregateId).collect(Collectors.toSet());
+    }
+
+    private List<OutboxMessage> deletedMessages(String aggregateType) {
+        return outboxSink.messages().stream()
+                .filter(message -> message.aggregateType().equals(aggregateType) && message.eventType().equals("DELETED"))
+                .toList();
+    }
+}
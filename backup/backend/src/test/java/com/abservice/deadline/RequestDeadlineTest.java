@@ -0,0 +1,97 @@
+package com.abservice.deadline;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * リクエスト処理期限の統合テスト
+ * 期限切れのリクエストと、期限までに終わらないクエリがキャンセルされたリクエストが503になることを検証する
+ */
+@QuarkusTest
+class RequestDeadlineTest {
+
+    private static final String MEMBERS_PATH = "/api/v1/circle-members";
+    private static final String DEADLINE_HEADER = "X-Request-Deadline";
+    private static final String EXCEEDED_MESSAGE = "リクエストの処理期限を超過しました";
+
+    /** 期限の指定元と理由はServer-Timingのdescで返る（期限切れで受け付けた場合、期限は負の値） */
+    private static final Pattern SERVER_TIMING = Pattern.compile(
+            "deadline;dur=-?\\d+;desc=\"" + RequestDeadline.SOURCE_HEADER + "/" + RequestDeadline.REASON_EXPIRED
+                    + "\", elapsed;dur=(\\d+)");
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Test
+    void testExpiredDeadlineIsRejectedOnAdmission() {
+        given()
+                .header(DEADLINE_HEADER, System.currentTimeMillis() - 1_000)
+                .when()
+                .get(MEMBERS_PATH)
+                .then()
+                .statusCode(503)
+                .header("Server-Timing", matchesPattern(SERVER_TIMING))
+                .body("status", equalTo(503))
+                .body("error", equalTo("Service Unavailable"))
+                .body("message", equalTo(EXCEEDED_MESSAGE));
+    }
+
+    @Test
+    void testQueryBlockedPastDeadlineIsCanceled() throws Exception {
+        long id = given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("username", "deadline-" + Long.toString(System.nanoTime(), 36),
+                        "displayName", "Deadline Test", "roleId", 2))
+                .when()
+                .post(MEMBERS_PATH)
+                .then()
+                .statusCode(201)
+                .extract()
+                .<Number>path("id")
+                .longValue();
+
+        // 行ロックを保持したまま更新させ、期限のタイマーによるキャンセル（SQLState 57014）で応答させる
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement lock = connection.prepareStatement("SELECT id FROM circle_members WHERE id = ? FOR UPDATE")) {
+                lock.setLong(1, id);
+                lock.executeQuery().close();
+            }
+            try {
+                String serverTiming = given()
+                        .header(DEADLINE_HEADER, System.currentTimeMillis() + 1_000)
+                        .header("If-Match", "*")
+                        .contentType("application/merge-patch+json")
+                        .body("{\"displayName\":\"Deadline Exceeded\"}")
+                        .when()
+                        .patch(MEMBERS_PATH + "/" + id)
+                        .then()
+                        .statusCode(503)
+                        .body("message", equalTo(EXCEEDED_MESSAGE))
+                        .extract()
+                        .header("Server-Timing");
+                Matcher timing = SERVER_TIMING.matcher(serverTiming);
+                assertTrue(timing.matches(), serverTiming);
+                assertTrue(Long.parseLong(timing.group(1)) >= 900, serverTiming);
+            } finally {
+                connection.rollback();
+            }
+        }
+
+        given().when().get(MEMBERS_PATH + "/" + id).then().statusCode(200).body("displayName", equalTo("Deadline Test"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.abservice.exception;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * ErrorResponsesの単体テスト
+ * 事前生成した先頭部分とメッセージの連結、JSONのエスケープ、例外のスタックトレース省略を検証する
+ */
+class ErrorResponsesTest {
+
+    @Test
+    void testEncodesStatusReasonAndMessage() {
+        byte[] body = ErrorResponses.encode(404, "CircleMemberが見つかりません: 1");
+
+        assertEquals("{\"status\":404,\"error\":\"Not Found\",\"message\":\"CircleMemberが見つかりません: 1\"}",
+                new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testEscapesMessage() {
+        byte[] body = ErrorResponses.encode(400, "指定できない項目です: \"a\\b\"\n\u0001");
+
+        assertEquals("{\"status\":400,\"error\":\"Bad Request\",\"message\":\"指定できない項目です: \\\"a\\\\b\\\"\\n\\u0001\"}",
+                new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testReturnsSameInstanceWhenNoEscapeNeeded() {
+        String message = "ユーザー名は既に使用されています: alice";
+
+        assertSame(message, ErrorResponses.escape(message));
+    }
+
+    @Test
+    void testEncodesDetails() {
+        Map<String, String> details = new LinkedHashMap<>();
+        details.put("email", "形式が不正です");
+        details.put("username", "必須です");
+
+        byte[] body = ErrorResponses.encode(400, "バリデーションエラーが発生しました", "validationErrors", details);
+
+        assertEquals("{\"status\":400,\"error\":\"Bad Request\",\"message\":\"バリデーションエラーが発生しました\","
+                        + "\"validationErrors\":{\"email\":\"形式が不正です\",\"username\":\"必須です\"}}",
+                new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testDomainExceptionsHaveNoStackTrace() {
+        assertEquals(0, new NotFoundException("x").getStackTrace().length);
+        assertEquals(0, new ConflictException("x").getStackTrace().length);
+        assertEquals(0, new ValidationFailedException("x").getStackTrace().length);
+    }
+}
@@ -0,0 +1,145 @@
+package com.abservice.graphql;
+
+import com.abservice.entity.CircleMember;
+import com.abservice.entity.Permission;
+import com.abservice.entity.Role;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DirectoryGraphQLApiの統合テスト
+ * ネストしたクエリの発行SQL数が取得件数に比例しないこと（N+1にならないこと）を検証する
+ */
+@QuarkusTest
+@TestProfile(DirectoryGraphQLApiTest.StatementCountProfile.class)
+class DirectoryGraphQLApiTest {
+
+    private static final String GRAPHQL_PATH = "/api/v1/graphql";
+
+    private static final int ROLE_COUNT = 5;
+    private static final int MEMBERS_PER_ROLE = 3;
+    private static final int PERMISSIONS_PER_ROLE = 2;
+
+    /**
+     * ルート（1）＋ permissions（1）＋ members（1）＋ members.role（1）
+     */
+    private static final long MAX_STATEMENTS = 4;
+
+    private static final String NESTED_FIELDS = "id name permissions { name resource action }"
+            + " members { username role { name } }";
+
+    /**
+     * SQL数を数えるため、統計を有効にし、読み取りキャッシュとバックグラウンド処理を止める
+     */
+    public static class StatementCountProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.hibernate-orm.statistics", "true",
+                    "quarkus.scheduler.enabled", "false",
+                    "app.read-cache.enabled", "false",
+                    "app.response-cache.enabled", "false",
+                    "app.outbox.enabled", "false");
+        }
+    }
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    private final List<Long> roleIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        String suffix = Long.toString(System.nanoTime(), 36);
+        roleIds.clear();
+        QuarkusTransaction.requiringNew().run(() -> {
+            for (int r = 0; r < ROLE_COUNT; r++) {
+                Set<Permission> permissions = new HashSet<>();
+                for (int p = 0; p < PERMISSIONS_PER_ROLE; p++) {
+                    Permission permission = new Permission("GQL_" + suffix + "_" + r + "_" + p, "graphql", "READ");
+                    entityManager.persist(permission);
+                    permissions.add(permission);
+                }
+                Role role = new Role("gql-" + suffix + "-" + r, "GraphQL test role " + r);
+                role.setPermissions(permissions);
+                entityManager.persist(role);
+                for (int m = 0; m < MEMBERS_PER_ROLE; m++) {
+                    String username = "gql-" + suffix + "-" + r + "-" + m;
+                    entityManager.persist(new CircleMember(username, "GraphQL " + r + "-" + m, null, role));
+                }
+                roleIds.add(role.getId());
+            }
+        });
+    }
+
+    @Test
+    void testNestedQueryDoesNotIssueStatementPerRow() {
+        long single = countStatements("{ role(id: " + roleIds.get(0) + ") { " + NESTED_FIELDS + " } }");
+        long all = countStatements("{ roles { " + NESTED_FIELDS + " } }");
+
+        assertTrue(all <= MAX_STATEMENTS, "ネストしたクエリのSQL数が上限を超えています: " + all);
+        assertEquals(single, all, "SQL数が取得したRoleの件数に比例しています");
+    }
+
+    @Test
+    void testNestedQueryResolvesAllLevels() {
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("query", "{ role(id: " + roleIds.get(0) + ") { " + NESTED_FIELDS + " } }"))
+                .when().post(GRAPHQL_PATH)
+                .then()
+                .statusCode(200)
+                .body("errors", nullValue())
+                .body("data.role.permissions", hasSize(PERMISSIONS_PER_ROLE))
+                .body("data.role.members", hasSize(MEMBERS_PER_ROLE))
+                .body("data.role.members.role.name", everyItem(startsWith("gql-")));
+    }
+
+    @Test
+    void testQueryExceedingDepthLimitIsRejected() {
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("query", "{ roles { members { role { members { role { members { role { name } } } } } } } }"))
+                .when().post(GRAPHQL_PATH)
+                .then()
+                .body("errors", not(empty()))
+                .body("data", nullValue());
+    }
+
+    /**
+     * クエリを実行し、発行されたSQL数を返す
+     */
+    private long countStatements(String query) {
+        sessionFactory.getStatistics().clear();
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("query", query))
+                .when().post(GRAPHQL_PATH)
+                .then()
+                .statusCode(200)
+                .body("errors", nullValue());
+        return sessionFactory.getStatistics().getPrepareStatementCount();
+    }
+}
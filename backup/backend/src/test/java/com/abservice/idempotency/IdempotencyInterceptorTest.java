@@ -0,0 +1,147 @@
+package com.abservice.idempotency;
+
+import com.abservice.tenant.Tenants;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.Test;
+
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IdempotencyInterceptorの統合テスト
+ * 再送時の応答再生、別内容での再利用の拒否、同時の重複リクエストの待ち合わせ、リース切れの引き継ぎを検証する
+ */
+@QuarkusTest
+@TestProfile(IdempotencyInterceptorTest.ShortLeaseProfile.class)
+class IdempotencyInterceptorTest {
+
+    private static final String MEMBERS_PATH = "/api/v1/circle-members";
+
+    private static final Duration LEASE = Duration.ofSeconds(1);
+
+    /**
+     * リース切れの引き継ぎを待てるよう、リースを短くする
+     */
+    public static class ShortLeaseProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "app.idempotency.lease", LEASE.toString(),
+                    "app.idempotency.in-flight-wait", "PT5S");
+        }
+    }
+
+    @Inject
+    IdempotencyKeys keys;
+
+    @Test
+    void testRetryReplaysStoredResponse() {
+        String key = UUID.randomUUID().toString();
+        Map<String, Object> body = newMember();
+
+        Response first = create(key, body);
+        first.then()
+                .statusCode(201)
+                .header(IdempotencyInterceptor.REPLAYED, nullValue());
+
+        create(key, body).then()
+                .statusCode(201)
+                .header(IdempotencyInterceptor.REPLAYED, equalTo("true"))
+                .body("id", equalTo(first.path("id")));
+    }
+
+    @Test
+    void testReusedKeyWithDifferentRequestIsRejected() {
+        String key = UUID.randomUUID().toString();
+        create(key, newMember()).then().statusCode(201);
+
+        create(key, newMember()).then()
+                .statusCode(422)
+                .body("message", containsString("Idempotency-Key"));
+    }
+
+    @Test
+    void testConcurrentDuplicatesShareFirstResponse() throws Exception {
+        String key = UUID.randomUUID().toString();
+        Map<String, Object> body = newMember();
+        int requests = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        List<Response> responses = new ArrayList<>();
+        try {
+            List<Future<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit((Callable<Response>) () -> create(key, body)));
+            }
+            for (Future<Response> future : futures) {
+                responses.add(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 実行されるのは最初の1件のみで、他は処理中の完了を待つか保存済みの応答を再生する
+        Set<Object> ids = new HashSet<>();
+        int executed = 0;
+        for (Response response : responses) {
+            assertEquals(201, response.statusCode());
+            ids.add(response.path("id"));
+            if (response.header(IdempotencyInterceptor.REPLAYED) == null) {
+                executed++;
+            }
+        }
+        assertEquals(1, ids.size());
+        assertEquals(1, executed);
+    }
+
+    @Test
+    void testExpiredLeaseOfStoppedNodeIsTakenOver() {
+        String key = UUID.randomUUID().toString();
+        byte[] keyHash = IdempotencyInterceptor.keyHash(Tenants.DEFAULT, "", "POST", MEMBERS_PATH, key);
+
+        // 応答を保存しないまま停止したノードが確保したキー
+        assertNotNull(keys.claim(keyHash, new byte[32]));
+
+        long started = System.nanoTime();
+        create(key, newMember()).then()
+                .statusCode(201)
+                .header(IdempotencyInterceptor.REPLAYED, nullValue());
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        assertTrue(waitedMillis >= LEASE.toMillis() - 100, "リースが切れる前に引き継がれました: " + waitedMillis + "ms");
+    }
+
+    private static Response create(String key, Map<String, Object> body) {
+        return given()
+                .contentType(ContentType.JSON)
+                .header(IdempotencyInterceptor.IDEMPOTENCY_KEY, key)
+                .body(body)
+                .when()
+                .post(MEMBERS_PATH);
+    }
+
+    private static Map<String, Object> newMember() {
+        String username = "idem-" + Long.toString(System.nanoTime(), 36);
+        return Map.of("username", username, "displayName", "Idempotency Test", "roleId", 2);
+    }
+}
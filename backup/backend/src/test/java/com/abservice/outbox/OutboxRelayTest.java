@@ -0,0 +1,165 @@
+package com.abservice.outbox;
+
+import com.abservice.tenant.TenantEntityManagers;
+import io.quarkus.arc.lookup.LookupIfProperty;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * OutboxRelayの統合テスト
+ * テストプロファイルのInMemoryOutboxSinkへID順に配信されて行が削除されること、配信に失敗した行が次回のポーリングまで残ることを検証する
+ */
+@QuarkusTest
+@TestProfile(OutboxRelayTest.FailingSinkProfile.class)
+class OutboxRelayTest {
+
+    private static final String MEMBERS_PATH = "/api/v1/circle-members";
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * InMemoryOutboxSinkに加えて、失敗させられる配信先を有効にする
+     */
+    public static class FailingSinkProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("app.outbox.sinks.failing.enabled", "true");
+        }
+    }
+
+    /**
+     * failWith(true)の間は配信に失敗する配信先（クライアントプロキシ経由で切り替えるためメソッドで設定する）
+     */
+    @ApplicationScoped
+    @LookupIfProperty(name = "app.outbox.sinks.failing.enabled", stringValue = "true")
+    public static class FailingOutboxSink implements OutboxSink {
+
+        private volatile boolean failing;
+
+        void failWith(boolean failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public String name() {
+            return "failing";
+        }
+
+        @Override
+        public void deliver(List<OutboxMessage> batch) throws IOException {
+            if (failing) {
+                throw new IOException("テスト用の配信失敗");
+            }
+        }
+    }
+
+    @Inject
+    InMemoryOutboxSink inMemorySink;
+
+    @Inject
+    FailingOutboxSink failingSink;
+
+    @Inject
+    TenantEntityManagers entityManagers;
+
+    @BeforeEach
+    void setUp() {
+        failingSink.failWith(false);
+        inMemorySink.clear();
+    }
+
+    @Test
+    void testEventsAreDeliveredInIdOrderAndDeleted() throws InterruptedException {
+        long id = createMember();
+        given()
+                .contentType(ContentType.JSON)
+                .header("If-Match", "*")
+                .body(Map.of("displayName", "Outbox Test Updated"))
+                .when()
+                .put(MEMBERS_PATH + "/" + id)
+                .then()
+                .statusCode(200);
+        given()
+                .header("If-Match", "*")
+                .when()
+                .delete(MEMBERS_PATH + "/" + id)
+                .then()
+                .statusCode(204);
+
+        await(() -> messagesFor(id).size() >= 3, "3件のイベントが配信されていません");
+
+        assertEquals(List.of("CREATED", "UPDATED", "DELETED"),
+                messagesFor(id).stream().map(OutboxMessage::eventType).toList());
+        List<OutboxMessage> delivered = inMemorySink.messages();
+        for (int i = 1; i < delivered.size(); i++) {
+            assertTrue(delivered.get(i - 1).id() < delivered.get(i).id(),
+                    "ID順に配信されていません: " + delivered.get(i - 1).id() + ", " + delivered.get(i).id());
+        }
+        await(() -> pendingRows(id) == 0, "配信済みの行が削除されていません");
+    }
+
+    @Test
+    void testFailedDeliveryLeavesRowsForNextPoll() throws InterruptedException {
+        failingSink.failWith(true);
+        long id = createMember();
+
+        // コミット直後の起動と、その後のポーリング（1秒間隔）で失敗しても行は残る
+        Thread.sleep(2500);
+        assertEquals(1, pendingRows(id));
+
+        failingSink.failWith(false);
+        await(() -> pendingRows(id) == 0, "配信先の回復後に行が削除されていません");
+        assertTrue(messagesFor(id).stream().anyMatch(message -> message.eventType().equals("CREATED")));
+    }
+
+    private static long createMember() {
+        String username = "outbox-" + Long.toString(System.nanoTime(), 36);
+        return given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("username", username, "displayName", "Outbox Test", "roleId", 2))
+                .when()
+                .post(MEMBERS_PATH)
+                .then()
+                .statusCode(201)
+                .extract()
+                .<Number>path("id")
+                .longValue();
+    }
+
+    private List<OutboxMessage> messagesFor(long id) {
+        return inMemorySink.messages().stream()
+                .filter(message -> message.aggregateType().equals("CIRCLE_MEMBER") && message.aggregateId() == id)
+                .toList();
+    }
+
+    private long pendingRows(long id) {
+        return QuarkusTransaction.requiringNew().call(() -> ((Number) entityManagers.primary()
+                .createNativeQuery("SELECT COUNT(*) FROM outbox WHERE aggregate_type = 'CIRCLE_MEMBER' AND aggregate_id = ?1")
+                .setParameter(1, id)
+                .getSingleResult()).longValue());
+    }
+
+    private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean(), message);
+    }
+}
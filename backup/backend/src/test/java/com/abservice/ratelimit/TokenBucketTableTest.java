@@ -0,0 +1,110 @@
+package com.abservice.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TokenBucketTableの単体テスト
+ * 時刻を固定したクロックで補充・拒否・破棄の挙動を検証する
+ */
+class TokenBucketTableTest {
+
+    private AtomicLong clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(1_700_000_000_000L);
+    }
+
+    @Test
+    void testConsumesUpToCapacityThenRejects() {
+        TokenBucketTable table = new TokenBucketTable(4, 100, 3, 1.0, clock::get);
+
+        assertEquals(2, table.tryAcquire("ip:10.0.0.1"));
+        assertEquals(1, table.tryAcquire("ip:10.0.0.1"));
+        assertEquals(0, table.tryAcquire("ip:10.0.0.1"));
+
+        long rejected = table.tryAcquire("ip:10.0.0.1");
+        assertTrue(rejected < 0);
+        assertEquals(-1000, rejected);
+    }
+
+    @Test
+    void testRefillsOverTime() {
+        TokenBucketTable table = new TokenBucketTable(4, 100, 2, 2.0, clock::get);
+        table.tryAcquire("sub:alice");
+        table.tryAcquire("sub:alice");
+        assertTrue(table.tryAcquire("sub:alice") < 0);
+
+        clock.addAndGet(500);
+        assertEquals(0, table.tryAcquire("sub:alice"));
+
+        clock.addAndGet(10_000);
+        assertEquals(1, table.tryAcquire("sub:alice"));
+    }
+
+    @Test
+    void testFractionalRefillAccumulates() {
+        TokenBucketTable table = new TokenBucketTable(1, 10, 1, 0.5, clock::get);
+        assertEquals(0, table.tryAcquire("ip:slow"));
+
+        // 1ミリ秒ごとの呼び出しでも補充分が切り捨てられないこと
+        for (int i = 0; i < 1999; i++) {
+            clock.incrementAndGet();
+            assertTrue(table.tryAcquire("ip:slow") < 0);
+        }
+        clock.incrementAndGet();
+        assertEquals(0, table.tryAcquire("ip:slow"));
+    }
+
+    @Test
+    void testFractionalRateKeepsRemainderUnderFrequentPolling() {
+        TokenBucketTable table = new TokenBucketTable(1, 10, 5, 1.5, clock::get);
+        while (table.tryAcquire("ip:poller") >= 0) {
+            // 容量分を使い切る
+        }
+
+        // 1ミリ秒あたり1.5ミリトークンの補充で、毎ミリ秒呼び出しても端数の0.5が失われないこと
+        int acquired = 0;
+        for (int i = 0; i < 10_000; i++) {
+            clock.incrementAndGet();
+            if (table.tryAcquire("ip:poller") >= 0) {
+                acquired++;
+            }
+        }
+        assertEquals(15, acquired);
+    }
+
+    @Test
+    void testKeysAreIsolated() {
+        TokenBucketTable table = new TokenBucketTable(4, 100, 1, 1.0, clock::get);
+        assertEquals(0, table.tryAcquire("ip:10.0.0.1"));
+        assertTrue(table.tryAcquire("ip:10.0.0.1") < 0);
+        assertEquals(0, table.tryAcquire("ip:10.0.0.2"));
+    }
+
+    @Test
+    void testEntriesAreBoundedAndIdleBucketsEvicted() {
+        TokenBucketTable table = new TokenBucketTable(1, 2, 5, 1.0, clock::get);
+        table.tryAcquire("ip:a");
+        table.tryAcquire("ip:b");
+        table.tryAcquire("ip:c");
+        assertEquals(2, table.size());
+
+        clock.addAndGet(60_000);
+        assertEquals(2, table.evictIdle(30_000));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void testRejectsInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenBucketTable(4, 100, TokenBucketTable.MAX_CAPACITY + 1, 1.0, clock::get));
+    }
+}
@@ -0,0 +1,41 @@
+package com.abservice.routing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lsnの単体テスト
+ * PostgreSQLの文字列表現との相互変換と、不正な値を0として扱うことを検証する
+ */
+class LsnTest {
+
+    @Test
+    void testParsesAndFormatsPostgresNotation() {
+        long lsn = Lsn.parse("16/B374D848");
+
+        assertEquals(0x16B374D848L, lsn);
+        assertEquals("16/B374D848", Lsn.format(lsn));
+        assertEquals("0/0", Lsn.format(0));
+        assertEquals(-1L, Lsn.parse("FFFFFFFF/FFFFFFFF"));
+    }
+
+    @Test
+    void testComparesByWalPosition() {
+        assertTrue(Lsn.parse("1/0") > Lsn.parse("0/FFFFFFFF"));
+        assertTrue(Lsn.parse("0/3D438B8") < Lsn.parse("0/3D43900"));
+    }
+
+    @Test
+    void testInvalidValuesAreZero() {
+        assertEquals(0, Lsn.parse(null));
+        assertEquals(0, Lsn.parse(""));
+        assertEquals(0, Lsn.parse("123"));
+        assertEquals(0, Lsn.parse("/1"));
+        assertEquals(0, Lsn.parse("1/"));
+        assertEquals(0, Lsn.parse("-1/0"));
+        assertEquals(0, Lsn.parse("G/0"));
+        assertEquals(0, Lsn.parse("100000000/0"));
+    }
+}
@@ -0,0 +1,136 @@
+package com.abservice.routing;
+
+import com.abservice.service.CircleMemberServiceInterface;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 読み取りレプリカへのルーティングの統合テスト（プライマリとストリーミングレプリケーションのスタンバイの2台が必要）
+ * DB_REPLICA_URLにスタンバイを指定した場合のみ実行する（接続ユーザーはpg_wal_replay_pauseを実行できること）
+ * スタンバイのWAL適用を止めて遅延を再現し、書き込んだクライアントの読み取りだけがプライマリへ向かうことを検証する
+ */
+@QuarkusTest
+@TestProfile(ReplicaRoutingTest.ReplicaProfile.class)
+@EnabledIfEnvironmentVariable(named = "DB_REPLICA_URL", matches = ".+")
+class ReplicaRoutingTest {
+
+    private static final String MEMBERS_PATH = "/api/v1/circle-members";
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * レプリカを有効にし、WAL適用の停止中も遅延超過で切り替わらないよう許容遅延を長くする
+     * レプリカで読んだことを応答で確認できるよう、読み取りキャッシュは無効にする
+     */
+    public static class ReplicaProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "app.replica.enabled", "true",
+                    "app.replica.max-lag", "PT1H",
+                    "app.read-cache.enabled", "false",
+                    "app.response-cache.enabled", "false");
+        }
+    }
+
+    @Inject
+    @DataSource("replica")
+    AgroalDataSource replicaDataSource;
+
+    @Inject
+    ReplicaHealth replicaHealth;
+
+    @Inject
+    CircleMemberServiceInterface circleMemberService;
+
+    @BeforeEach
+    void pauseReplay() throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!replicaHealth.isUsable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(replicaHealth.isUsable(), "レプリカの確認が完了しません");
+        execute("SELECT pg_wal_replay_pause()");
+    }
+
+    @AfterEach
+    void resumeReplay() throws SQLException {
+        execute("SELECT pg_wal_replay_resume()");
+    }
+
+    @Test
+    void testOnlyWritingClientReadsFromPrimary() throws Exception {
+        Response created = createMember();
+        long id = created.<Number>path("id").longValue();
+        String commitLsn = created.getHeader("X-Commit-LSN");
+        String cookie = created.getCookie(ReadConsistency.LSN_COOKIE);
+        assertNotNull(commitLsn);
+        assertNotNull(cookie);
+
+        // 書き込んだクライアント（Cookieまたはヘッダーで位置を送る）はプライマリから読む
+        given().cookie(ReadConsistency.LSN_COOKIE, cookie).when().get(MEMBERS_PATH + "/" + id).then().statusCode(200);
+        given().header(ReadConsistency.LSN_HEADER, commitLsn).when().get(MEMBERS_PATH + "/" + id).then().statusCode(200);
+
+        // 他のクライアントは、書き込みの直後でもWAL適用が止まっているレプリカから読む
+        given().when().get(MEMBERS_PATH + "/" + id).then().statusCode(404);
+        given().header(ReadConsistency.CONSISTENCY_HEADER, "primary")
+                .when().get(MEMBERS_PATH + "/" + id).then().statusCode(200);
+
+        // WAL適用を再開すると、他のクライアントもレプリカで読める
+        execute("SELECT pg_wal_replay_resume()");
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        int status;
+        do {
+            Thread.sleep(50);
+            status = given().when().get(MEMBERS_PATH + "/" + id).statusCode();
+        } while (status != 200 && System.currentTimeMillis() < deadline);
+        assertTrue(status == 200, "WAL適用の再開後もレプリカに反映されません");
+    }
+
+    @Test
+    void testSharedReadWaitsForLatestChange() throws Exception {
+        long id = createMember().<Number>path("id").longValue();
+
+        // 呼び出し元のクライアントに関係なく、共有する読み取りはノードが検知した変更まで反映済みのレプリカでのみ行う
+        assertFalse(circleMemberService.findById(id).isPresent());
+        assertTrue(ReadRoute.shared(() -> circleMemberService.findById(id)).isPresent());
+    }
+
+    private static Response createMember() {
+        String username = "replica-" + Long.toString(System.nanoTime(), 36);
+        Response response = given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("username", username, "displayName", "Replica Test", "roleId", 2))
+                .when()
+                .post(MEMBERS_PATH);
+        response.then().statusCode(201);
+        return response;
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = replicaDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.abservice.service;
+
+import com.abservice.dto.RoleDto;
+import com.abservice.exception.ValidationFailedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MergePatchの単体テスト
+ * 含まれる項目と削除（null）の区別、項目の制限と、含まれる項目のみを検証することを確認する
+ */
+class MergePatchTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+    private static final Set<String> NULLABLE = Set.of("description");
+    private static final Set<String> REQUIRED = Set.of("name");
+
+    private static ValidatorFactory validatorFactory;
+    private static Validator validator;
+
+    @BeforeAll
+    static void createValidator() {
+        validatorFactory = Validation.byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @AfterAll
+    static void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void testDistinguishesNullFromOmittedField() {
+        MergePatch<RoleDto> patch = parse("{\"description\":null}");
+
+        assertTrue(patch.has("description"));
+        assertNull(patch.values().getDescription());
+        assertFalse(patch.has("name"));
+    }
+
+    @Test
+    void testValidatesOnlyFieldsInPatch() {
+        // 省略した必須項目（name）は検証しない
+        MergePatch<RoleDto> patch = parse("{\"description\":\"説明\"}");
+
+        assertEquals("説明", patch.values().getDescription());
+
+        ValidationFailedException e = assertThrows(ValidationFailedException.class,
+                () -> parse("{\"name\":\"\"}"));
+        assertEquals("ロール名は必須です", e.getMessage());
+    }
+
+    @Test
+    void testRejectsNullOnRequiredField() {
+        ValidationFailedException e = assertThrows(ValidationFailedException.class,
+                () -> parse("{\"name\":null}"));
+        assertTrue(e.getMessage().contains("name"));
+    }
+
+    @Test
+    void testRejectsUnknownField() {
+        // DTOに存在しても更新対象でない項目は受け付けない
+        ValidationFailedException e = assertThrows(ValidationFailedException.class,
+                () -> parse("{\"description\":\"説明\",\"version\":3}"));
+        assertTrue(e.getMessage().contains("version"));
+    }
+
+    @Test
+    void testRejectsNonObjectBody() {
+        assertThrows(ValidationFailedException.class, () -> parse("[]"));
+        assertThrows(ValidationFailedException.class, () -> parse("\"name\""));
+        assertThrows(ValidationFailedException.class, () -> parse("null"));
+        assertThrows(ValidationFailedException.class, () -> parse(" "));
+        assertThrows(ValidationFailedException.class, () -> parse(null));
+        assertThrows(ValidationFailedException.class, () -> parse("{\"name\":"));
+    }
+
+    @Test
+    void testRejectsValueOfWrongType() {
+        assertThrows(ValidationFailedException.class, () -> parse("{\"description\":{}}"));
+    }
+
+    private static MergePatch<RoleDto> parse(String body) {
+        return MergePatch.parse(OBJECT_MAPPER, validator, body, RoleDto.class, NULLABLE, REQUIRED);
+    }
+}
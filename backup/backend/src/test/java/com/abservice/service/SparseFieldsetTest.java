@@ -0,0 +1,44 @@
+package com.abservice.service;
+
+import com.abservice.exception.ValidationFailedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SparseFieldsetの単体テスト
+ * 解析・照合と、要求順によらず同じキャッシュキーになることを検証する
+ */
+class SparseFieldsetTest {
+
+    private static final List<String> AVAILABLE = List.of("id", "displayName", "email", "roleName");
+
+    @Test
+    void testResolvesInAvailableOrder() {
+        SparseFieldset fields = SparseFieldset.parse(" roleName, id ,,id");
+
+        assertEquals(List.of("id", "roleName"), fields.resolve(AVAILABLE));
+    }
+
+    @Test
+    void testSameFieldsInDifferentOrderAreEqual() {
+        assertEquals(SparseFieldset.parse("id,email"), SparseFieldset.parse("email,id"));
+    }
+
+    @Test
+    void testRejectsUnknownField() {
+        SparseFieldset fields = SparseFieldset.parse("id,password");
+
+        ValidationFailedException e = assertThrows(ValidationFailedException.class, () -> fields.resolve(AVAILABLE));
+        assertTrue(e.getMessage().contains("password"));
+    }
+
+    @Test
+    void testRejectsEmptyFieldList() {
+        assertThrows(ValidationFailedException.class, () -> SparseFieldset.parse(" , "));
+    }
+}
@@ -0,0 +1,108 @@
+package com.abservice.slowquery;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RecordingJdbcの統合テスト
+ * コネクションプールの接続で実行した文のうち、しきい値を超えたものだけが型とともに記録されることを検証する
+ */
+@QuarkusTest
+@TestProfile(RecordingJdbcTest.SlowQueryProfile.class)
+class RecordingJdbcTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * 記録した文を必ずEXPLAINする
+     */
+    public static class SlowQueryProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "app.slow-query.threshold", "PT0.1S",
+                    "app.slow-query.explain.sample-rate", "1");
+        }
+    }
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    SlowQueryRecorder recorder;
+
+    @Test
+    void testRecordsSlowStatementWithParameterShapesAndPlan() throws Exception {
+        String sql = "SELECT pg_sleep(?) /* " + marker() + " */";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setDouble(1, 0.2);
+            statement.executeQuery().close();
+        }
+
+        SlowQuery query = find(sql).orElseThrow(() -> new AssertionError("低速クエリが記録されません"));
+        assertEquals(List.of("Double"), query.parameterShapes());
+        assertTrue(query.durationMillis() >= 200, "durationMillis=" + query.durationMillis());
+        assertFalse(query.failed());
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (query.explain() == SlowQuery.Explain.PENDING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            query = find(sql).orElseThrow();
+        }
+        assertEquals(SlowQuery.Explain.DONE, query.explain());
+        assertNotNull(query.plan());
+        assertTrue(query.plan().contains("actual time"), query.plan());
+    }
+
+    @Test
+    void testDoesNotRecordFastStatement() throws Exception {
+        String sql = "SELECT ? /* " + marker() + " */";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, 1);
+            statement.executeQuery().close();
+        }
+
+        assertTrue(find(sql).isEmpty());
+    }
+
+    @Test
+    void testRecordsFailedSlowStatementWithoutExplain() throws Exception {
+        // 定数式は計画時に評価されるため、実行時（pg_sleepの後）に失敗する式にする
+        String sql = "SELECT (pg_sleep(0.2)::text || 'x')::int /* " + marker() + " */";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            assertThrows(SQLException.class, statement::executeQuery);
+        }
+
+        SlowQuery query = find(sql).orElseThrow(() -> new AssertionError("失敗した低速クエリが記録されません"));
+        assertTrue(query.failed());
+        assertEquals(SlowQuery.Explain.NOT_EXPLAINABLE, query.explain());
+    }
+
+    private Optional<SlowQuery> find(String sql) {
+        return recorder.worst(Integer.MAX_VALUE).stream().filter(query -> sql.equals(query.sql())).findFirst();
+    }
+
+    private static String marker() {
+        return "recording-" + Long.toString(System.nanoTime(), 36);
+    }
+}
@@ -0,0 +1,59 @@
+package com.abservice.slowquery;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SlowQueryRecorder.explainableの単体テスト
+ * EXPLAIN ANALYZEで再実行すると副作用のある文と、再現できないパラメーターを除外することを検証する
+ */
+class SlowQueryRecorderTest {
+
+    @Test
+    void testAcceptsReadOnlyQueries() {
+        assertTrue(SlowQueryRecorder.explainable("select * from circle_members where id = ?", List.of(setLong(1, 5))));
+        assertTrue(SlowQueryRecorder.explainable("  WITH r AS (SELECT id FROM roles) SELECT * FROM r", List.of()));
+        // 列名などに含まれる語は対象外
+        assertTrue(SlowQueryRecorder.explainable("select updated_at, deleted_count from circle_members", List.of()));
+    }
+
+    @Test
+    void testRejectsDml() {
+        assertFalse(SlowQueryRecorder.explainable("insert into roles (name) values ('x')", List.of()));
+        assertFalse(SlowQueryRecorder.explainable("UPDATE circle_members SET is_active = false", List.of()));
+        assertFalse(SlowQueryRecorder.explainable("delete from circle_members where id = 1", List.of()));
+        assertFalse(SlowQueryRecorder.explainable(
+                "with moved as (delete from circle_members where id = 1 returning *) select * from moved", List.of()));
+        assertFalse(SlowQueryRecorder.explainable(
+                "with t as (select 1) merge into roles using t on true when matched then do nothing", List.of()));
+    }
+
+    @Test
+    void testRejectsLockingClausesAndSideEffectFunctions() {
+        assertFalse(SlowQueryRecorder.explainable("select * from roles where id = 1 for update", List.of()));
+        assertFalse(SlowQueryRecorder.explainable("select * from roles for share", List.of()));
+        assertFalse(SlowQueryRecorder.explainable("select * from roles FOR NO KEY UPDATE skip locked", List.of()));
+        assertFalse(SlowQueryRecorder.explainable("select * from roles for key share", List.of()));
+        assertFalse(SlowQueryRecorder.explainable("select nextval('roles_id_seq')", List.of()));
+        assertFalse(SlowQueryRecorder.explainable("select pg_advisory_xact_lock(1)", List.of()));
+    }
+
+    @Test
+    void testRejectsUnreplayableOrMissingParameters() {
+        InputStream stream = new ByteArrayInputStream(new byte[]{1});
+        assertFalse(SlowQueryRecorder.explainable("select ?",
+                List.of(new ParameterBinding("BinaryStream", stream, s -> s.setBinaryStream(1, stream)))));
+        assertFalse(SlowQueryRecorder.explainable("select ?, ?", Arrays.asList(null, setLong(2, 1))));
+    }
+
+    private static ParameterBinding setLong(int index, long value) {
+        return new ParameterBinding("Long", value, s -> s.setLong(index, value));
+    }
+}
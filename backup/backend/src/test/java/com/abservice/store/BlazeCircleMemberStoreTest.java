@@ -0,0 +1,60 @@
+package com.abservice.store;
+
+import com.abservice.dto.CircleMemberDto;
+import com.abservice.service.CircleMemberServiceInterface;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import jakarta.inject.Inject;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BlazeCircleMemberStoreの統合テスト
+ * ストア経由の書き込みも変更を通知し、サービス層の読み取りキャッシュが古い値を返さないことを検証する
+ */
+@QuarkusTest
+class BlazeCircleMemberStoreTest {
+
+    /**
+     * V2_1で採番し直したUSERロールのID
+     */
+    private static final long USER_ROLE_ID = 2;
+
+    @Inject
+    BlazeCircleMemberStore store;
+
+    @Inject
+    CircleMemberServiceInterface circleMemberService;
+
+    @Test
+    void testWritesInvalidateServiceReadCache() {
+        String username = "store-" + Long.toString(System.nanoTime(), 36);
+        // 読み取りキャッシュに現在の一覧を載せる
+        assertFalse(activeUsernamesContain(username));
+
+        CircleMemberRecord inserted = store.insert(new CircleMemberRecord(null, username, "Store Test", null,
+                null, null, true, USER_ROLE_ID, null, null, 0));
+        assertTrue(activeUsernamesContain(username));
+
+        CircleMemberRecord updated = store.update(new CircleMemberRecord(inserted.id(), username, "Store Test",
+                null, null, null, false, USER_ROLE_ID, null, null, inserted.version())).orElseThrow();
+        assertEquals(inserted.version() + 1, updated.version());
+        assertFalse(activeUsernamesContain(username));
+
+        // 古いバージョンでの更新は拒否される
+        assertEquals(Optional.empty(), store.update(inserted));
+
+        assertTrue(store.deleteById(inserted.id()));
+        assertEquals(Optional.empty(), circleMemberService.findById(inserted.id()));
+    }
+
+    private boolean activeUsernamesContain(String username) {
+        return circleMemberService.findActiveMembers().stream()
+                .map(CircleMemberDto::getUsername)
+                .anyMatch(username::equals);
+    }
+}
@@ -0,0 +1,52 @@
+package com.abservice.tenant;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tenantsの単体テスト
+ * テナントIDの検証と、明示したテナントでの実行（入れ子・例外時の復元）を検証する
+ */
+class TenantsTest {
+
+    @Test
+    void testValidTenantIds() {
+        assertTrue(Tenants.isValid(Tenants.DEFAULT));
+        assertTrue(Tenants.isValid("a"));
+        assertTrue(Tenants.isValid("tokyo-photo-club"));
+        assertTrue(Tenants.isValid("x".repeat(63)));
+
+        assertFalse(Tenants.isValid(null));
+        assertFalse(Tenants.isValid(""));
+        assertFalse(Tenants.isValid("Tokyo"));
+        assertFalse(Tenants.isValid("-circle"));
+        assertFalse(Tenants.isValid("circle-"));
+        assertFalse(Tenants.isValid("circle.example"));
+        assertFalse(Tenants.isValid("x".repeat(64)));
+    }
+
+    @Test
+    void testNestedCallsRestoreOuterTenant() throws Exception {
+        String observed = Tenants.call("outer", () -> {
+            assertEquals("inner", Tenants.call("inner", Tenants::current));
+            return Tenants.current();
+        });
+
+        assertEquals("outer", observed);
+    }
+
+    @Test
+    void testTenantIsRestoredWhenTaskFails() {
+        Tenants.run("outer", () -> {
+            assertThrows(IllegalStateException.class, () -> Tenants.run("inner", () -> {
+                throw new IllegalStateException("failed");
+            }));
+            assertEquals("outer", Tenants.current());
+            assertFalse(Tenants.isDefault());
+        });
+    }
+}
@@ -0,0 +1,136 @@
+package com.abservice.tracing;
+
+import com.abservice.entity.Role;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * トレーシングの統合テスト
+ * 1リクエストでコントローラー・サービス・リポジトリ・JDBCのスパンが同じトレースに記録されることを検証する
+ */
+@QuarkusTest
+@TestProfile(TracingTest.TracingProfile.class)
+class TracingTest {
+
+    private static final long WAIT_MILLIS = 5_000;
+
+    private static final AttributeKey<String> DB_STATEMENT = AttributeKey.stringKey("db.statement");
+
+    /**
+     * スパンをメモリに記録し、読み取りキャッシュとバックグラウンド処理を止める
+     */
+    public static class TracingProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.otel.traces.exporter", "cdi",
+                    "quarkus.otel.bsp.schedule.delay", "PT0.05S",
+                    "quarkus.scheduler.enabled", "false",
+                    "app.read-cache.enabled", "false",
+                    "app.outbox.enabled", "false",
+                    "app.tracing.sample-ratio", "1.0");
+        }
+    }
+
+    /**
+     * テスト用のスパン出力先
+     */
+    @ApplicationScoped
+    public static class InMemoryExporterProducer {
+        @Produces
+        @Singleton
+        InMemorySpanExporter inMemorySpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
+    @Inject
+    InMemorySpanExporter exporter;
+
+    @Inject
+    EntityManager entityManager;
+
+    private Long roleId;
+
+    @BeforeEach
+    void setUp() {
+        String name = "trace-" + Long.toString(System.nanoTime(), 36);
+        roleId = QuarkusTransaction.requiringNew().call(() -> {
+            Role role = new Role(name, "Tracing test role");
+            entityManager.persist(role);
+            return role.getId();
+        });
+        exporter.reset();
+    }
+
+    @Test
+    void testRequestIsTracedThroughAllLayers() throws InterruptedException {
+        given()
+                .when().get("/api/v1/roles/" + roleId)
+                .then()
+                .statusCode(200);
+
+        List<SpanData> spans = awaitSpan("RoleRepository.");
+        String traceId = spans.stream()
+                .filter(span -> span.getName().startsWith("RoleController."))
+                .findFirst().orElseThrow().getTraceId();
+        List<SpanData> trace = spans.stream()
+                .filter(span -> span.getTraceId().equals(traceId))
+                .collect(Collectors.toList());
+
+        assertTrue(hasSpan(trace, "RoleController.getRole"), names(trace));
+        assertTrue(trace.stream().anyMatch(span -> span.getName().startsWith("RoleService.")), names(trace));
+        assertTrue(trace.stream().anyMatch(span -> span.getName().startsWith("RoleRepository.")), names(trace));
+        assertTrue(trace.stream().anyMatch(span -> span.getAttributes().get(DB_STATEMENT) != null),
+                "JDBCのスパンがありません: " + names(trace));
+
+        SpanData controller = trace.stream()
+                .filter(span -> span.getName().equals("RoleController.getRole"))
+                .findFirst().orElseThrow();
+        assertEquals("controller", controller.getAttributes().get(TracedInterceptor.LAYER));
+    }
+
+    /**
+     * バッチ出力を待って、指定の名前で始まるスパンが届くまで待つ
+     */
+    private List<SpanData> awaitSpan(String prefix) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            List<SpanData> spans = exporter.getFinishedSpanItems();
+            if (spans.stream().anyMatch(span -> span.getName().startsWith(prefix))
+                    && spans.stream().anyMatch(span -> span.getName().startsWith("RoleController."))) {
+                return spans;
+            }
+            Thread.sleep(50);
+        }
+        return exporter.getFinishedSpanItems();
+    }
+
+    private static boolean hasSpan(List<SpanData> spans, String name) {
+        return spans.stream().anyMatch(span -> span.getName().equals(name));
+    }
+
+    private static String names(List<SpanData> spans) {
+        return spans.stream().map(SpanData::getName).collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,66 @@
+package com.abservice.warmup;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+
+import jakarta.inject.Inject;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * StartupWarmupの統合テスト
+ * プライマリとレプリカの両方の永続化ユニットで、すべての読み取りクエリが失敗せずに実行されることを検証する
+ */
+@QuarkusTest
+@TestProfile(StartupWarmupTest.WarmupProfile.class)
+class StartupWarmupTest {
+
+    private static final long TIMEOUT_MILLIS = 30_000;
+
+    /**
+     * ウォームアップとレプリカへのルーティングを有効にする
+     */
+    public static class WarmupProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "app.warmup.enabled", "true",
+                    "app.warmup.iterations", "1",
+                    "app.warmup.parallelism", "1",
+                    "app.replica.enabled", "true");
+        }
+    }
+
+    @Inject
+    StartupWarmup warmup;
+
+    @Test
+    void testWarmsEveryReadOnPrimaryAndReplica() throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!warmup.isCompleted() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(warmup.isCompleted());
+        assertFalse(warmup.isAllFailed());
+        assertEquals(0, warmup.getFailures());
+
+        Set<String> names = warmup.queries().keySet();
+        assertEquals(names.size(), warmup.getExecutions());
+        assertTrue(names.containsAll(Set.of(
+                "circleMember.findVersion",
+                "circleMember.existsByEmailExcludingId",
+                "circleMember.findByRoleIds",
+                "circleMember.findAllFields",
+                "role.findByIds",
+                "permission.findByRoleIds",
+                "replica.circleMember.findByUsernameFields",
+                "replica.permission.findAll")), names.toString());
+        assertFalse(names.contains("replica.circleMember.findVersion"), "プライマリ固定の読み取りはレプリカで実行しない");
+    }
+}
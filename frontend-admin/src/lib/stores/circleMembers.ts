@@ -1,6 +1,6 @@
-import { apiClient } from '$lib/utils/api';
+import { api } from '$lib/utils/api';
 import type { CircleMember, CreateCircleMemberDto, UpdateCircleMemberDto } from '$types';
-import { writable } from 'svelte/store';
+import { get, writable } from 'svelte/store';
 
 interface CircleMembersState {
 	members: CircleMember[];
@@ -17,6 +17,10 @@ const initialState: CircleMembersState = {
 function createCircleMembersStore() {
 	const { subscribe, set, update } = writable<CircleMembersState>(initialState);
 
+	// Version last seen for the member, sent as If-Match so concurrent edits get 412 instead of overwriting
+	const versionOf = (id: number): number | undefined =>
+		get({ subscribe }).members.find(member => member.id === id)?.version;
+
 	return {
 		subscribe,
 
@@ -25,7 +29,7 @@ function createCircleMembersStore() {
 			update(state => ({ ...state, isLoading: true, error: null }));
 
 			try {
-				const members = await apiClient.getCircleMembers();
+				const members = await api.getCircleMembers();
 				update(state => ({ ...state, members, isLoading: false }));
 			} catch (error) {
 				update(state => ({
@@ -41,7 +45,7 @@ function createCircleMembersStore() {
 			update(state => ({ ...state, isLoading: true, error: null }));
 
 			try {
-				const members = await apiClient.getActiveCircleMembers();
+				const members = await api.getActiveCircleMembers();
 				update(state => ({ ...state, members, isLoading: false }));
 			} catch (error) {
 				update(state => ({
@@ -55,7 +59,7 @@ function createCircleMembersStore() {
 		// Get member by ID
 		getMember: async (id: number): Promise<CircleMember | null> => {
 			try {
-				return await apiClient.getCircleMember(id);
+				return await api.getCircleMember(id);
 			} catch (error) {
 				update(state => ({
 					...state,
@@ -70,7 +74,7 @@ function createCircleMembersStore() {
 			update(state => ({ ...state, isLoading: true, error: null }));
 
 			try {
-				const newMember = await apiClient.createCircleMember(data);
+				const newMember = await api.createCircleMember(data);
 				update(state => ({
 					...state,
 					members: [...state.members, newMember],
@@ -92,7 +96,7 @@ function createCircleMembersStore() {
 			update(state => ({ ...state, isLoading: true, error: null }));
 
 			try {
-				const updatedMember = await apiClient.updateCircleMember(id, data);
+				const updatedMember = await api.updateCircleMember(id, data, versionOf(id));
 				update(state => ({
 					...state,
 					members: state.members.map(member =>
@@ -116,7 +120,7 @@ function createCircleMembersStore() {
 			update(state => ({ ...state, isLoading: true, error: null }));
 
 			try {
-				await apiClient.deleteCircleMember(id);
+				await api.deleteCircleMember(id, versionOf(id));
 				update(state => ({
 					...state,
 					members: state.members.filter(member => member.id !== id),
@@ -132,6 +136,41 @@ function createCircleMembersStore() {
 			}
 		},
 
+		// Subscribe to the server-sent change feed and apply member changes incrementally
+		watchChanges: () => {
+			const source = new EventSource('/api/v1/events');
+
+			source.addEventListener('circle-member', async (event: MessageEvent) => {
+				const change: { changeType: 'CREATED' | 'UPDATED' | 'DELETED'; id: number } =
+					JSON.parse(event.data);
+
+				if (change.changeType === 'DELETED') {
+					update(state => ({
+						...state,
+						members: state.members.filter(member => member.id !== change.id)
+					}));
+					return;
+				}
+
+				try {
+					const member = await api.getCircleMember(change.id);
+					update(state => ({
+						...state,
+						members: state.members.some(m => m.id === member.id)
+							? state.members.map(m => (m.id === member.id ? member : m))
+							: [...state.members, member]
+					}));
+				} catch (error) {
+					update(state => ({
+						...state,
+						error: error instanceof Error ? error.message : 'Failed to refresh member'
+					}));
+				}
+			});
+
+			return () => source.close();
+		},
+
 		// Clear error
 		clearError: () => {
 			update(state => ({ ...state, error: null }));
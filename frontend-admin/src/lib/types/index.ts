@@ -12,6 +12,7 @@ export interface CircleMember {
 	updatedAt: string;
 	roleName: string;
 	roleDescription?: string;
+	version: number;
 }
 
 export interface User {
@@ -34,6 +35,7 @@ export interface Role {
 	description?: string;
 	createdAt: string;
 	updatedAt: string;
+	version: number;
 }
 
 export interface Permission {
@@ -1,5 +1,5 @@
 import { describe, it, expect, vi, beforeEach } from 'vitest';
-import { apiClient } from './api';
+import { api, apiClient } from './api';
 
 // Mock fetch
 const mockFetch = vi.fn();
@@ -58,6 +58,33 @@ describe('API Client', () => {
 
 		await expect(apiClient.get('/test')).rejects.toThrow('API request failed');
 	});
+
+	it('should send the known version as If-Match', async () => {
+		mockFetch.mockResolvedValueOnce({ ok: true, json: () => Promise.resolve({}) });
+
+		await api.deleteCircleMember(1, 3);
+
+		expect(mockFetch).toHaveBeenCalledWith('/api/v1/circle-members/1', {
+			method: 'DELETE',
+			headers: {
+				'Content-Type': 'application/json',
+				'If-Match': '"3"'
+			}
+		});
+	});
+
+	it('should omit If-Match when the version is unknown', async () => {
+		mockFetch.mockResolvedValueOnce({ ok: true, json: () => Promise.resolve({}) });
+
+		await api.deleteCircleMember(1);
+
+		expect(mockFetch).toHaveBeenCalledWith('/api/v1/circle-members/1', {
+			method: 'DELETE',
+			headers: {
+				'Content-Type': 'application/json'
+			}
+		});
+	});
 });
 
 
@@ -9,7 +9,8 @@ class ApiClient {
 		this.baseUrl = baseUrl;
 	}
 
-	private async request<T>(
+	// Used by the typed helpers on `api` below
+	async request<T>(
 		endpoint: string,
 		options: RequestInit = {}
 	): Promise<ApiResponse<T>> {
@@ -83,6 +84,13 @@ class ApiClient {
 
 export const apiClient = new ApiClient();
 
+const MERGE_PATCH_CONTENT_TYPE = 'application/merge-patch+json';
+
+// If-Match header for optimistic locking (the ETag is the entity version).
+// Without a known version the header is left out, so the server answers 428 instead of overwriting.
+const ifMatch = (version?: number): Record<string, string> =>
+	version !== undefined ? { 'If-Match': `"${version}"` } : {};
+
 // Helper functions for common API operations
 export const api = {
 	// Auth endpoints
@@ -165,17 +173,29 @@ export const api = {
 		return response.data;
 	},
 
-	async updateCircleMember(id: number, data: UpdateCircleMemberDto): Promise<CircleMember> {
+	async updateCircleMember(id: number, data: UpdateCircleMemberDto, version?: number): Promise<CircleMember> {
 		const response = await apiClient.request<CircleMember>(`/circle-members/${id}`, {
 			method: 'PUT',
+			headers: ifMatch(version),
 			body: JSON.stringify(data)
 		});
 		return response.data;
 	},
 
-	async deleteCircleMember(id: number): Promise<void> {
+	// JSON Merge Patch: only the given fields are sent and written; null clears a field
+	async patchCircleMember(id: number, patch: Partial<UpdateCircleMemberDto>, version?: number): Promise<CircleMember> {
+		const response = await apiClient.request<CircleMember>(`/circle-members/${id}`, {
+			method: 'PATCH',
+			headers: { ...ifMatch(version), 'Content-Type': MERGE_PATCH_CONTENT_TYPE },
+			body: JSON.stringify(patch)
+		});
+		return response.data;
+	},
+
+	async deleteCircleMember(id: number, version?: number): Promise<void> {
 		await apiClient.request(`/circle-members/${id}`, {
-			method: 'DELETE'
+			method: 'DELETE',
+			headers: ifMatch(version)
 		});
 	},
 
@@ -203,17 +223,28 @@ export const api = {
 		return response.data;
 	},
 
-	async updateRole(id: number, data: Partial<Role>): Promise<Role> {
+	async updateRole(id: number, data: Partial<Role>, version?: number): Promise<Role> {
 		const response = await apiClient.request<Role>(`/roles/${id}`, {
 			method: 'PUT',
+			headers: ifMatch(version),
 			body: JSON.stringify(data)
 		});
 		return response.data;
 	},
 
-	async deleteRole(id: number): Promise<void> {
+	async patchRole(id: number, patch: Partial<Role>, version?: number): Promise<Role> {
+		const response = await apiClient.request<Role>(`/roles/${id}`, {
+			method: 'PATCH',
+			headers: { ...ifMatch(version), 'Content-Type': MERGE_PATCH_CONTENT_TYPE },
+			body: JSON.stringify(patch)
+		});
+		return response.data;
+	},
+
+	async deleteRole(id: number, version?: number): Promise<void> {
 		await apiClient.request(`/roles/${id}`, {
-			method: 'DELETE'
+			method: 'DELETE',
+			headers: ifMatch(version)
 		});
 	}
 };
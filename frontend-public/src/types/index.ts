@@ -14,6 +14,24 @@ export interface CircleMember {
   roleDescription?: string;
 }
 
+// Member entry of the published static directory snapshot
+export interface PublicMember {
+  id: number;
+  username: string;
+  displayName: string;
+  bio?: string;
+  avatarUrl?: string;
+  roleName: string;
+}
+
+export interface SnapshotManifest {
+  version: string;
+  generatedAt: string;
+  memberCount: number;
+  members: string;
+  avatars: string;
+}
+
 export interface Role {
   id: number;
   name: string;
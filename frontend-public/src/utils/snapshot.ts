@@ -0,0 +1,37 @@
+import { readFile } from 'node:fs/promises';
+import { join } from 'node:path';
+import type { PublicMember, SnapshotManifest } from '@types';
+import { apiClient } from './api';
+
+// Absolute base URL of a remotely published snapshot (e.g. the S3 bucket); pages are rendered at build
+// time in Node, where a relative URL cannot be fetched, so without it the snapshot is read from disk
+const SNAPSHOT_BASE_URL = import.meta.env.PUBLIC_SNAPSHOT_BASE_URL;
+
+// Directory the backend's local snapshot store writes to (app.snapshot.local.directory)
+const SNAPSHOT_DIRECTORY = import.meta.env.SNAPSHOT_DIRECTORY ?? join(process.cwd(), 'public', 'snapshot');
+
+// Load the public member directory from the published snapshot, falling back to the API
+export async function loadPublicMembers(): Promise<PublicMember[]> {
+	try {
+		const manifest = await readSnapshot<SnapshotManifest>('manifest.json');
+		return await readSnapshot<PublicMember[]>(manifest.members);
+	} catch (error) {
+		console.warn('Snapshot unavailable, falling back to API:', error);
+		return apiClient.getActiveCircleMembers();
+	}
+}
+
+// Read one snapshot file from the remote base URL or the local snapshot directory
+async function readSnapshot<T>(name: string): Promise<T> {
+	if (!SNAPSHOT_BASE_URL) {
+		return JSON.parse(await readFile(join(SNAPSHOT_DIRECTORY, name), 'utf-8'));
+	}
+	if (!/^https?:\/\//.test(SNAPSHOT_BASE_URL)) {
+		throw new Error(`PUBLIC_SNAPSHOT_BASE_URL must be an absolute URL: ${SNAPSHOT_BASE_URL}`);
+	}
+	const response = await fetch(`${SNAPSHOT_BASE_URL.replace(/\/$/, '')}/${name}`);
+	if (!response.ok) {
+		throw new Error(`HTTP ${response.status}: ${response.statusText}`);
+	}
+	return await response.json();
+}